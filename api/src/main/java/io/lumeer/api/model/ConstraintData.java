@@ -20,6 +20,7 @@ package io.lumeer.api.model;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class ConstraintData {
 
@@ -31,6 +32,9 @@ public class ConstraintData {
    private final List<Group> teams;
    private final List<SelectionList> selectionLists;
 
+   // fields shared by the whole workspace already serialized to JSON (field name -> JSON), transient to be skipped by serializers
+   private transient Supplier<Map<String, String>> serializedFields;
+
    public ConstraintData(final List<User> users, final User currentUser, final Map<String, String> durationUnitsMap, final CurrencyData currencyData, final String timezone, final List<Group> teams, final List<SelectionList> selectionLists) {
       this.users = users;
       this.currentUser = currentUser;
@@ -68,4 +72,12 @@ public class ConstraintData {
    public List<SelectionList> getSelectionLists() {
       return selectionLists;
    }
+
+   public Map<String, String> getSerializedFields() {
+      return serializedFields != null ? serializedFields.get() : null;
+   }
+
+   public void setSerializedFields(final Supplier<Map<String, String>> serializedFields) {
+      this.serializedFields = serializedFields;
+   }
 }
@@ -0,0 +1,160 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model;
+
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * Entry of the index of cron rules with the time of their next execution. The time is only a hint when the rule
+ * should be checked at soonest, the rule configuration stored in the collection decides whether it is executed.
+ */
+public class ScheduledRule {
+
+   public static final String ORGANIZATION_ID = "organizationId";
+   public static final String PROJECT_ID = "projectId";
+   public static final String COLLECTION_ID = "collectionId";
+   public static final String RULE_ID = "ruleId";
+   public static final String NEXT_RUN = "nextRun";
+   public static final String LEASE_OWNER = "leaseOwner";
+   public static final String LEASE_UNTIL = "leaseUntil";
+
+   private String id;
+   private String organizationId;
+   private String projectId;
+   private String collectionId;
+   private String ruleId;
+   private ZonedDateTime nextRun;
+
+   /**
+    * Signature of the processor which claimed the rule for execution.
+    */
+   private String leaseOwner;
+
+   /**
+    * Time until which the rule can not be claimed by another processor.
+    */
+   private ZonedDateTime leaseUntil;
+
+   public ScheduledRule() {
+   }
+
+   public ScheduledRule(final String organizationId, final String projectId, final String collectionId, final String ruleId, final ZonedDateTime nextRun) {
+      this.organizationId = organizationId;
+      this.projectId = projectId;
+      this.collectionId = collectionId;
+      this.ruleId = ruleId;
+      this.nextRun = nextRun;
+   }
+
+   public String getId() {
+      return id;
+   }
+
+   public void setId(final String id) {
+      this.id = id;
+   }
+
+   public String getOrganizationId() {
+      return organizationId;
+   }
+
+   public void setOrganizationId(final String organizationId) {
+      this.organizationId = organizationId;
+   }
+
+   public String getProjectId() {
+      return projectId;
+   }
+
+   public void setProjectId(final String projectId) {
+      this.projectId = projectId;
+   }
+
+   public String getCollectionId() {
+      return collectionId;
+   }
+
+   public void setCollectionId(final String collectionId) {
+      this.collectionId = collectionId;
+   }
+
+   public String getRuleId() {
+      return ruleId;
+   }
+
+   public void setRuleId(final String ruleId) {
+      this.ruleId = ruleId;
+   }
+
+   public ZonedDateTime getNextRun() {
+      return nextRun;
+   }
+
+   public void setNextRun(final ZonedDateTime nextRun) {
+      this.nextRun = nextRun;
+   }
+
+   public String getLeaseOwner() {
+      return leaseOwner;
+   }
+
+   public void setLeaseOwner(final String leaseOwner) {
+      this.leaseOwner = leaseOwner;
+   }
+
+   public ZonedDateTime getLeaseUntil() {
+      return leaseUntil;
+   }
+
+   public void setLeaseUntil(final ZonedDateTime leaseUntil) {
+      this.leaseUntil = leaseUntil;
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+         return false;
+      }
+      final ScheduledRule that = (ScheduledRule) o;
+      return Objects.equals(collectionId, that.collectionId) && Objects.equals(ruleId, that.ruleId);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(collectionId, ruleId);
+   }
+
+   @Override
+   public String toString() {
+      return "ScheduledRule{" +
+            "id='" + id + '\'' +
+            ", organizationId='" + organizationId + '\'' +
+            ", projectId='" + projectId + '\'' +
+            ", collectionId='" + collectionId + '\'' +
+            ", ruleId='" + ruleId + '\'' +
+            ", nextRun=" + nextRun +
+            ", leaseOwner='" + leaseOwner + '\'' +
+            ", leaseUntil=" + leaseUntil +
+            '}';
+   }
+}
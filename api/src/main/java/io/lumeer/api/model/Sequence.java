@@ -31,15 +31,28 @@ public class Sequence implements WithId, HealthChecking {
    public static final String ID = "id";
    public static final String NAME = "name";
    public static final String SEQ = "seq";
+   public static final String BLOCK_SIZE = "blockSize";
 
    private String id;
    private String name;
    private int seq;
 
+   /*
+    * Number of sequence values reserved at once by a server node. Values are handed out strictly in order and without
+    * gaps when it is not set or lower than 2. Bigger blocks avoid a database round-trip for each value, but values
+    * unused by a node are skipped and nodes sharing the sequence return values from their own blocks.
+    */
+   private Integer blockSize;
+
+   public Sequence(final String name, final int seq) {
+      this(name, seq, null);
+   }
+
    @JsonCreator
-   public Sequence(@JsonProperty(NAME) final String name, @JsonProperty(SEQ) final int seq) {
+   public Sequence(@JsonProperty(NAME) final String name, @JsonProperty(SEQ) final int seq, @JsonProperty(BLOCK_SIZE) final Integer blockSize) {
       this.name = name;
       this.seq = seq;
+      this.blockSize = blockSize;
    }
 
    public String getId() {
@@ -66,6 +79,14 @@ public class Sequence implements WithId, HealthChecking {
       this.seq = seq;
    }
 
+   public Integer getBlockSize() {
+      return blockSize;
+   }
+
+   public void setBlockSize(final Integer blockSize) {
+      this.blockSize = blockSize;
+   }
+
    @Override
    public boolean equals(final Object o) {
       if (this == o) {
@@ -89,6 +110,7 @@ public class Sequence implements WithId, HealthChecking {
             "id='" + id + '\'' +
             ", name='" + name + '\'' +
             ", seq=" + seq +
+            ", blockSize=" + blockSize +
             '}';
    }
 
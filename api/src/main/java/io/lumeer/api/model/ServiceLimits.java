@@ -90,6 +90,11 @@ public class ServiceLimits {
       this.maxCreatedRecords = maxCreatedRecords;
    }
 
+   public ServiceLimits copy() {
+      return new ServiceLimits(serviceLevel, users, projects, files, documents, dbSizeMb, validUntil != null ? new Date(validUntil.getTime()) : null,
+            rulesPerCollection, functionsPerCollection, groups, fileSizeMb, auditDays, maxCreatedRecords);
+   }
+
    public Payment.ServiceLevel getServiceLevel() {
       return serviceLevel;
    }
@@ -30,6 +30,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonView;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -334,6 +335,33 @@ public class User implements HealthChecking {
       this.onboarding = onboarding;
    }
 
+   public User copy() {
+      final User u = new User(id, name, email, organizations != null ? new HashSet<>(organizations) : null);
+
+      u.authIds = authIds != null ? new HashSet<>(authIds) : null;
+      if (defaultWorkspace != null) {
+         u.defaultWorkspace = new DefaultWorkspace(defaultWorkspace.getOrganizationId(), defaultWorkspace.getProjectId());
+         u.defaultWorkspace.setOrganizationCode(defaultWorkspace.getOrganizationCode());
+         u.defaultWorkspace.setProjectCode(defaultWorkspace.getProjectCode());
+      }
+      u.agreement = agreement;
+      u.agreementDate = agreementDate;
+      u.newsletter = newsletter;
+      u.wizardDismissed = wizardDismissed;
+      u.referral = referral;
+      u.affiliatePartner = affiliatePartner;
+      u.emailVerified = emailVerified;
+      u.notifications = notifications;
+      u.wishes = wishes != null ? new ArrayList<>(wishes) : null;
+      u.hints = hints != null ? new DataDocument(hints) : null;
+      u.lastLoggedIn = lastLoggedIn;
+      u.timeZone = timeZone;
+      u.language = language;
+      u.onboarding = onboarding;
+
+      return u;
+   }
+
    @Override
    public String toString() {
       return "User{" +
@@ -36,8 +36,10 @@ import io.lumeer.api.model.User;
 import io.lumeer.api.model.common.Resource;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -61,24 +63,88 @@ public class PermissionUtils {
    }
 
    public static Set<String> getResourceUsersByRole(Organization organization, @Nullable Project project, Resource resource, List<User> users, List<Group> groups, RoleType roleType) {
-      return users.stream().filter(user -> getUserRolesInResource(organization, project, resource, user, groups).contains(roleType)).map(User::getId).collect(Collectors.toSet());
+      return getUsersWithRole(getUsersRolesInResource(organization, project, resource, users, groups), roleType);
    }
 
    public static Set<String> getLinkTypeUsersByRole(Organization organization, @Nullable Project project, LinkType linkType, java.util.Collection<Collection> collections, List<User> users, List<Group> groups, RoleType roleType) {
-      return users.stream().filter(user -> getUserRolesInLinkType(organization, project, linkType, collections, user, groups).contains(roleType)).map(User::getId).collect(Collectors.toSet());
+      return getUsersWithRole(getUsersRolesInLinkType(organization, project, linkType, collections, users, groups), roleType);
    }
 
-   public static Set<RoleType> getUserRolesInResource(@Nullable Organization organization, @Nullable Project project, Resource resource, User user, List<Group> groups) {
-      if (resource instanceof Organization) {
-         return getUserRolesInResource(organization, project, resource.getType(), resource.getPermissions(), user, getUserGroups((Organization) resource, user, groups));
+   private static Set<String> getUsersWithRole(Map<String, Set<RoleType>> usersRoles, RoleType roleType) {
+      return usersRoles.entrySet().stream().filter(entry -> entry.getValue().contains(roleType)).map(Map.Entry::getKey).collect(Collectors.toSet());
+   }
+
+   /**
+    * Resolves roles of all the given users in the resource in one pass. Permissions and group memberships are indexed once,
+    * so the resolution is linear in the number of users instead of scanning all permissions and groups for each of them.
+    */
+   public static Map<String, Set<RoleType>> getUsersRolesInResource(@Nullable Organization organization, @Nullable Project project, Resource resource, List<User> users, List<Group> groups) {
+      final Organization groupsOrganization = resource instanceof Organization ? (Organization) resource : organization;
+      return getUsersRolesInPermissions(organization, groupsOrganization, project, resource.getType(), resource.getPermissions(), users, getUsersGroups(groups));
+   }
+
+   public static Map<String, Set<RoleType>> getUsersRolesInLinkType(Organization organization, @Nullable Project project, LinkType linkType, java.util.Collection<Collection> collections, List<User> users, List<Group> groups) {
+      final Map<String, Set<String>> usersGroups = getUsersGroups(groups);
+      if (linkType.getPermissionsType() == LinkPermissionsType.Custom) {
+         return getUsersRolesInPermissions(organization, organization, project, ResourceType.LINK_TYPE, linkType.getPermissions(), users, usersGroups);
+      }
+
+      var linkTypeCollections = collections.stream().filter(collection -> linkType.getCollectionIds().contains(collection.getId())).collect(Collectors.toList());
+      final Map<String, Set<RoleType>> usersRoles = new HashMap<>();
+      if (linkTypeCollections.size() != 2) {
+         users.forEach(user -> usersRoles.put(user.getId(), Collections.emptySet()));
+         return usersRoles;
+      }
+
+      var roles1 = getUsersRolesInPermissions(organization, organization, project, ResourceType.COLLECTION, linkTypeCollections.get(0).getPermissions(), users, usersGroups);
+      var roles2 = getUsersRolesInPermissions(organization, organization, project, ResourceType.COLLECTION, linkTypeCollections.get(1).getPermissions(), users, usersGroups);
+      users.forEach(user -> {
+         var userRoles1 = roles1.get(user.getId());
+         var userRoles2 = roles2.get(user.getId());
+         if (userRoles1.contains(RoleType.Read) && userRoles2.contains(RoleType.Read)) {
+            var roles = new HashSet<>(userRoles1);
+            roles.retainAll(userRoles2);
+            usersRoles.put(user.getId(), roles);
+         } else {
+            usersRoles.put(user.getId(), Collections.emptySet());
+         }
+      });
+      return usersRoles;
+   }
+
+   private static Map<String, Set<RoleType>> getUsersRolesInPermissions(Organization organization, @Nullable Organization groupsOrganization, @Nullable Project project, ResourceType resourceType, Permissions permissions, List<User> users, Map<String, Set<String>> usersGroups) {
+      final RolesIndex resourceIndex = new RolesIndex(permissions);
+      final RolesIndex organizationIndex = resourceType == ResourceType.ORGANIZATION ? resourceIndex : new RolesIndex(organization.getPermissions());
+      final RolesIndex projectIndex = project != null && resourceType != ResourceType.PROJECT ? new RolesIndex(project.getPermissions()) : null;
+
+      final Map<String, Set<RoleType>> usersRoles = new HashMap<>();
+      for (User user : users) {
+         final Set<String> userGroups = groupsOrganization == null || "".equals(user.getId()) ? Collections.emptySet() : usersGroups.getOrDefault(user.getId(), Collections.emptySet());
+         final Set<Role> actualRoles = resourceIndex.getRoles(user.getId(), userGroups);
+         final Set<Role> organizationRoles = resourceType == ResourceType.ORGANIZATION ? actualRoles : organizationIndex.getRoles(user.getId(), userGroups);
+         final Set<Role> projectRoles = projectIndex != null ? projectIndex.getRoles(user.getId(), userGroups) : Collections.emptySet();
+         usersRoles.put(user.getId(), combineRoles(organization, project, resourceType, actualRoles, organizationRoles, projectRoles));
       }
-      return getUserRolesInPermissions(organization, project, resource.getType(), resource.getPermissions(), user, groups);
+      return usersRoles;
+   }
+
+   public static Set<RoleType> getUserRolesInResource(@Nullable Organization organization, @Nullable Project project, Resource resource, User user, List<Group> groups) {
+      final Organization groupsOrganization = resource instanceof Organization ? (Organization) resource : organization;
+      return getUserRolesInResource(organization, project, resource, user, getUserGroups(groupsOrganization, user, groups));
+   }
+
+   public static Set<RoleType> getUserRolesInResource(@Nullable Organization organization, @Nullable Project project, Resource resource, User user, Set<String> userGroups) {
+      return getUserRolesInResource(organization, project, resource.getType(), resource.getPermissions(), user, userGroups);
    }
 
    public static Set<RoleType> getUserRolesInPermissions(@Nullable Organization organization, @Nullable Project project, ResourceType resourceType, Permissions permissions, User user, List<Group> groups) {
       return getUserRolesInResource(organization, project, resourceType, permissions, user, getUserGroups(organization, user, groups));
    }
 
+   public static Set<RoleType> getUserRolesInPermissions(@Nullable Organization organization, @Nullable Project project, ResourceType resourceType, Permissions permissions, User user, Set<String> userGroups) {
+      return getUserRolesInResource(organization, project, resourceType, permissions, user, userGroups);
+   }
+
    public static Set<RoleType> getGroupRolesInResource(@Nullable Organization organization, @Nullable Project project, Resource resource, Group group) {
       return getGroupRolesInResource(resource.getPermissions(), group)
             .stream()
@@ -87,21 +153,25 @@ public class PermissionUtils {
    }
 
    public static Set<RoleType> getUserRolesInLinkType(Organization organization, @Nullable Project project, LinkType linkType, java.util.Collection<Collection> collections, User user, List<Group> groups) {
+      return getUserRolesInLinkType(organization, project, linkType, collections, user, getUserGroups(organization, user, groups));
+   }
+
+   public static Set<RoleType> getUserRolesInLinkType(Organization organization, @Nullable Project project, LinkType linkType, java.util.Collection<Collection> collections, User user, Set<String> userGroups) {
       if (linkType.getPermissionsType() == LinkPermissionsType.Custom) {
-         return getUserRolesInResource(organization, project, ResourceType.LINK_TYPE, linkType.getPermissions(), user, getUserGroups(organization, user, groups));
+         return getUserRolesInResource(organization, project, ResourceType.LINK_TYPE, linkType.getPermissions(), user, userGroups);
       }
 
       var linkTypeCollections = collections.stream().filter(collection -> linkType.getCollectionIds().contains(collection.getId())).collect(Collectors.toList());
-      var canReadCollections = linkTypeCollections.size() == 2;
-      for (Collection collection : linkTypeCollections) {
-         canReadCollections = canReadCollections && hasRole(organization, project, collection, RoleType.Read, user, groups);
+      if (linkTypeCollections.size() != 2) {
+         return Collections.emptySet();
       }
-      if (!canReadCollections) {
+
+      var roles1 = getUserRolesInResource(organization, project, linkTypeCollections.get(0), user, userGroups);
+      var roles2 = getUserRolesInResource(organization, project, linkTypeCollections.get(1), user, userGroups);
+      if (!roles1.contains(RoleType.Read) || !roles2.contains(RoleType.Read)) {
          return Collections.emptySet();
       }
 
-      var roles1 = getUserRolesInResource(organization, project, linkTypeCollections.get(0), user, groups);
-      var roles2 = getUserRolesInResource(organization, project, linkTypeCollections.get(1), user, groups);
       roles1.retainAll(roles2);
       return roles1;
    }
@@ -109,7 +179,12 @@ public class PermissionUtils {
    private static Set<RoleType> getUserRolesInResource(Organization organization, @Nullable Project project, ResourceType resourceType, Permissions permissions, User user, Set<String> userGroups) {
       final Set<Role> actualRoles = getUserRolesInResource(permissions, user, userGroups);
       final Set<Role> organizationRoles = resourceType == ResourceType.ORGANIZATION ? actualRoles : getUserRolesInResource(organization, user, userGroups);
+      final Set<Role> projectRoles = project != null && resourceType != ResourceType.PROJECT ? getUserRolesInResource(project, user, userGroups) : Collections.emptySet();
 
+      return combineRoles(organization, project, resourceType, actualRoles, organizationRoles, projectRoles);
+   }
+
+   private static Set<RoleType> combineRoles(Organization organization, @Nullable Project project, ResourceType resourceType, Set<Role> actualRoles, Set<Role> organizationRoles, Set<Role> projectRoles) {
       if (organization != null && resourceType != ResourceType.ORGANIZATION) {
          // It's necessary to have read permission in organization in order to process resource (project, collection, view, link)
          if (organizationRoles.stream().noneMatch(role -> role.getType() == RoleType.Read)) {
@@ -121,8 +196,6 @@ public class PermissionUtils {
       }
 
       if (project != null && resourceType != ResourceType.PROJECT) {
-         final Set<Role> projectRoles = getUserRolesInResource(project, user, userGroups);
-
          // It's necessary to have read permission in project (or transitive in organization) in order to process resource (collection, view, link)
          if (organizationRoles.stream().noneMatch(role -> role.getType() == RoleType.Read && role.isTransitive())
                && projectRoles.stream().noneMatch(role -> role.getType() == RoleType.Read)) {
@@ -216,4 +289,35 @@ public class PermissionUtils {
 
       return groups.stream().filter(group -> group.getUsers().contains(user.getId())).map(Group::getId).collect(Collectors.toSet());
    }
+
+   public static Map<String, Set<String>> getUsersGroups(final List<Group> groups) {
+      final Map<String, Set<String>> usersGroups = new HashMap<>();
+      groups.forEach(group -> Objects.requireNonNullElse(group.getUsers(), Collections.<String>emptyList())
+                                     .forEach(userId -> usersGroups.computeIfAbsent(userId, id -> new HashSet<>()).add(group.getId())));
+      return usersGroups;
+   }
+
+   private static class RolesIndex {
+
+      private final Map<String, Set<Role>> userRoles = new HashMap<>();
+      private final Map<String, Set<Role>> groupRoles = new HashMap<>();
+
+      private RolesIndex(final Permissions permissions) {
+         Permissions notNullPermissions = Objects.requireNonNullElse(permissions, new Permissions());
+         index(userRoles, notNullPermissions.getUserPermissions());
+         index(groupRoles, notNullPermissions.getGroupPermissions());
+      }
+
+      private static void index(final Map<String, Set<Role>> roles, final Set<Permission> permissions) {
+         Objects.requireNonNullElse(permissions, Collections.<Permission>emptySet()).stream()
+                .filter(entity -> entity.getId() != null)
+                .forEach(entity -> roles.computeIfAbsent(entity.getId(), id -> new HashSet<>()).addAll(entity.getRoles()));
+      }
+
+      private Set<Role> getRoles(final String userId, final Set<String> groupIds) {
+         final Set<Role> roles = new HashSet<>(userRoles.getOrDefault(userId, Collections.emptySet()));
+         groupIds.forEach(groupId -> roles.addAll(groupRoles.getOrDefault(groupId, Collections.emptySet())));
+         return roles;
+      }
+   }
 }
@@ -132,4 +132,13 @@ public interface Cache<T> {
     * @return Stream of values.
     */
    Stream<T> stream();
+
+   /**
+    * Gets the usage statistics of the cache.
+    *
+    * @return Statistics of the cache, empty statistics when the implementation does not record them.
+    */
+   default CacheStatistics getStatistics() {
+      return new CacheStatistics(0, 0, 0, stream().count());
+   }
 }
@@ -18,6 +18,8 @@
  */
 package io.lumeer.engine.api.cache;
 
+import java.time.Duration;
+
 /**
  * The factory is needed so that we can have a replaceable Cache implementations. The factory is the part that is injectable.
  */
@@ -31,4 +33,21 @@ public interface CacheFactory {
     * @return A fresh cache of given type.
     */
    <T> Cache<T> getCache();
+
+   /**
+    * Obtains a fresh cache of given type that holds at most the given number of entries. The least recently used
+    * entries are evicted first and every entry expires after the given time since it was stored. Implementations
+    * that do not support bounded caches return an unbounded cache.
+    *
+    * @param maxSize
+    *       Maximal number of entries in the cache.
+    * @param expireAfterWrite
+    *       Time after which an entry is removed from the cache.
+    * @param <T>
+    *       Type of values stored in the cache.
+    * @return A fresh bounded cache of given type.
+    */
+   default <T> Cache<T> getCache(final int maxSize, final Duration expireAfterWrite) {
+      return getCache();
+   }
 }
@@ -0,0 +1,73 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.cache;
+
+/**
+ * Snapshot of hits, misses and evictions of a cache.
+ */
+public class CacheStatistics {
+
+   private final long hits;
+   private final long misses;
+   private final long evictions;
+   private final long size;
+
+   public CacheStatistics(final long hits, final long misses, final long evictions, final long size) {
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+      this.size = size;
+   }
+
+   public long getHits() {
+      return hits;
+   }
+
+   public long getMisses() {
+      return misses;
+   }
+
+   /**
+    * Gets the number of entries removed because the cache was full or the entry expired.
+    *
+    * @return Number of evicted entries.
+    */
+   public long getEvictions() {
+      return evictions;
+   }
+
+   public long getSize() {
+      return size;
+   }
+
+   public double getHitRate() {
+      final long requests = hits + misses;
+      return requests == 0 ? 1.0 : (double) hits / requests;
+   }
+
+   @Override
+   public String toString() {
+      return "CacheStatistics{" +
+            "hits=" + hits +
+            ", misses=" + misses +
+            ", evictions=" + evictions +
+            ", size=" + size +
+            '}';
+   }
+}
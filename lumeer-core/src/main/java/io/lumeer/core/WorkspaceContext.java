@@ -21,6 +21,7 @@ package io.lumeer.core;
 import io.lumeer.api.SelectedWorkspace;
 import io.lumeer.api.model.Organization;
 import io.lumeer.api.model.Project;
+import io.lumeer.core.cache.ConstraintDataCache;
 import io.lumeer.core.facade.SystemDatabaseConfigurationFacade;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.task.AbstractContextualTask;
@@ -50,6 +51,9 @@ public abstract class WorkspaceContext {
    @Inject
    protected DefaultConfigurationProducer configurationProducer;
 
+   @Inject
+   private ConstraintDataCache constraintDataCache;
+
    protected DataStorage getDataStorage(final String organizationId) {
       final List<StorageConnection> connections = systemDatabaseConfigurationFacade.getDataStorage(organizationId);
       final String database = systemDatabaseConfigurationFacade.getDataStorageDatabase(organizationId);
@@ -62,7 +66,7 @@ public abstract class WorkspaceContext {
    }
 
    protected ContextualTaskFactory getTaskFactory(final DaoContextSnapshot contextSnapshot) {
-      return new AbstractContextualTask.SyntheticContextualTaskFactory(configurationProducer, contextSnapshot);
+      return new AbstractContextualTask.SyntheticContextualTaskFactory(configurationProducer, constraintDataCache, contextSnapshot);
    }
 
    public static class Workspace implements SelectedWorkspace {
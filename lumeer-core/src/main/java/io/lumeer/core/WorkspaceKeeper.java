@@ -53,7 +53,7 @@ public class WorkspaceKeeper implements SelectedWorkspace {
       if (projectId == null) {
          return Optional.empty();
       }
-      return Optional.of(workspaceCache.getProject(projectId));
+      return Optional.of(workspaceCache.getProject(organizationId, projectId));
    }
 
    public void push() {
@@ -65,15 +65,23 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TimeZone;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.ejb.Schedule;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.inject.Inject;
 
 @Singleton
@@ -101,16 +109,30 @@ public class DelayedActionProcessor extends WorkspaceContext {
    @Inject
    private TranslationManager translationManager;
 
+   @Inject
+   private ManagedExecutorService executorService;
+
    private PusherClient pusherClient;
 
    private boolean skipDelay = false;
 
-   private final Map<String, Organization> organizations = new HashMap<>();
-   private final Map<String, Project> projects = new HashMap<>();
-   private final Map<String, Collection> collections = new HashMap<>();
-   private final Map<String, PermissionAdapter> permissionAdapters = new HashMap<>();
-   private final Map<String, DaoContextSnapshot> organizationDaoSnapshots = new HashMap<>();
-   private final Map<String, DaoContextSnapshot> projectDaoSnapshots = new HashMap<>();
+   // shared by the workers processing actions of different organizations
+   private final Map<String, Organization> organizations = new ConcurrentHashMap<>();
+   private final Map<String, Project> projects = new ConcurrentHashMap<>();
+   private final Map<String, Collection> collections = new ConcurrentHashMap<>();
+   private final Map<String, PermissionAdapter> permissionAdapters = new ConcurrentHashMap<>();
+   private final Map<String, DaoContextSnapshot> organizationDaoSnapshots = new ConcurrentHashMap<>();
+   private final Map<String, DaoContextSnapshot> projectDaoSnapshots = new ConcurrentHashMap<>();
+
+   private final AtomicLong processedActions = new AtomicLong();
+   private final AtomicLong processingNanos = new AtomicLong();
+   private final AtomicLong lastLagMillis = new AtomicLong();
+   private final AtomicLong maxLagMillis = new AtomicLong();
+
+   private static final Logger log = Logger.getLogger(DelayedActionProcessor.class.getName());
+
+   private static final int BATCH_SIZE = 500;
+   private static final int PARALLELISM = 4;
 
    final private static Set<NotificationType> AGGREGATION_TYPES = Set.of(NotificationType.TASK_ASSIGNED, NotificationType.TASK_REOPENED, NotificationType.DUE_DATE_CHANGED, NotificationType.STATE_UPDATE, NotificationType.TASK_UPDATED, NotificationType.TASK_COMMENTED);
 
@@ -123,8 +145,17 @@ public class DelayedActionProcessor extends WorkspaceContext {
    public void process() {
       delayedActionDao.deleteProcessedActions();
       delayedActionDao.resetTimeoutedActions();
+      clearCache();
 
-      executeActions(delayedActionDao.getActionsForProcessing(skipDelay));
+      List<DelayedAction> actions;
+      do {
+         actions = delayedActionDao.getActionsForProcessing(skipDelay, BATCH_SIZE);
+         executeActions(actions);
+      } while (!actions.isEmpty());
+   }
+
+   public Statistics getStatistics() {
+      return new Statistics(processedActions.get(), processingNanos.get(), lastLagMillis.get(), maxLagMillis.get());
    }
 
    private Map<String, List<DelayedAction>> getActionsByTask(final List<DelayedAction> actions, final NotificationChannel notificationChannel) {
@@ -192,53 +223,117 @@ public class DelayedActionProcessor extends WorkspaceContext {
    }
 
    private void executeActions(final List<DelayedAction> actions) {
-      final Map<String, List<User>> userCache = new HashMap<>(); // org id -> users
-      clearCache();
+      if (actions.isEmpty()) {
+         return;
+      }
 
-      aggregateActions(actions).forEach(action -> {
-         final String organizationId = action.getData().getString(DelayedAction.DATA_ORGANIZATION_ID);
-         final List<User> allUsers = userCache.computeIfAbsent(organizationId, orgId -> userDao.getAllUsers(orgId));
-         allUsers.addAll(getUsersFromActions(actions, allUsers)); // mix in users from actions
+      final long start = System.nanoTime();
+      final ZonedDateTime now = ZonedDateTime.now();
+      actions.stream().map(DelayedAction::getCheckAfter).filter(Objects::nonNull).min(Comparator.naturalOrder()).ifPresent(checkAfter -> {
+         final long lag = ChronoUnit.MILLIS.between(checkAfter, now);
+         lastLagMillis.set(lag);
+         maxLagMillis.accumulateAndGet(lag, Math::max);
+      });
 
-         final Map<String, User> users = getUsers(allUsers); // id -> user
-         final Map<String, Language> userLanguages = initializeLanguages(users.values());
-         final Map<String, String> userIds = getUserIds(users.values()); // email -> id
+      final Map<String, DelayedAction> actionsById = actions.stream().collect(Collectors.toMap(DelayedAction::getId, Function.identity()));
+      final List<User> actionUsers = getUsersFromActions(actions);
+
+      // actions of an organization are processed by a single worker, so that its users are loaded just once
+      final Map<String, List<DelayedAction>> actionsByOrganization = new HashMap<>();
+      aggregateActions(actions).forEach(action ->
+            actionsByOrganization.computeIfAbsent(action.getData().getString(DelayedAction.DATA_ORGANIZATION_ID), id -> new ArrayList<>()).add(action)
+      );
+
+      final Queue<Map.Entry<String, List<DelayedAction>>> organizationActions = new ConcurrentLinkedQueue<>(actionsByOrganization.entrySet());
+      final Queue<DelayedAction> updatedActions = new ConcurrentLinkedQueue<>();
+
+      final List<Future<?>> workers = new ArrayList<>();
+      for (int i = 0; i < Math.min(PARALLELISM, organizationActions.size()); i++) {
+         workers.add(executorService.submit(() -> {
+            Map.Entry<String, List<DelayedAction>> entry;
+            while ((entry = organizationActions.poll()) != null) {
+               try {
+                  executeOrganizationActions(entry.getKey(), entry.getValue(), actionsById, actionUsers, updatedActions);
+               } catch (Exception e) {
+                  log.log(Level.WARNING, "Unable to process delayed actions of organization " + entry.getKey(), e);
+               }
+            }
+         }));
+      }
+
+      workers.forEach(worker -> {
+         try {
+            worker.get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         } catch (ExecutionException e) {
+            log.log(Level.WARNING, "Unable to process delayed actions.", e.getCause());
+         }
+      });
+
+      delayedActionDao.updateActions(new ArrayList<>(updatedActions));
+
+      processedActions.addAndGet(actions.size());
+      processingNanos.addAndGet(System.nanoTime() - start);
+      if (log.isLoggable(Level.FINE)) {
+         log.fine(getStatistics().toString());
+      }
+   }
 
-         final Language lang = userLanguages.getOrDefault(action.getReceiver(), Language.EN);
+   private void executeOrganizationActions(final String organizationId, final List<DelayedAction> actions, final Map<String, DelayedAction> actionsById, final List<User> actionUsers, final Queue<DelayedAction> updatedActions) {
+      final List<User> allUsers = new ArrayList<>(userDao.getAllUsers(organizationId));
+      final Set<String> loadedEmails = allUsers.stream().map(User::getEmail).collect(Collectors.toSet());
+      actionUsers.stream().filter(user -> !loadedEmails.contains(user.getEmail())).forEach(allUsers::add); // mix in users from actions
+
+      final Map<String, User> users = getUsers(allUsers); // id -> user
+      final Map<String, Language> userLanguages = initializeLanguages(users.values());
+      final Map<String, String> userIds = getUserIds(users.values()); // email -> id
+
+      actions.forEach(action -> {
+         try {
+            executeAction(action, actionsById, users, userLanguages, userIds, updatedActions);
+         } catch (Exception e) {
+            // the action stays claimed and is processed again once its processing times out
+            log.log(Level.WARNING, "Unable to process delayed action " + action.getId(), e);
+         }
+      });
+   }
 
-         final User receiverUser = userIds.containsKey(action.getReceiver()) ? users.get(userIds.get(action.getReceiver())) : null;
-         final Triple<Organization, Project, Collection> context = checkActionResourceExistsAndFillData(action, receiverUser);
+   private void executeAction(final DelayedAction action, final Map<String, DelayedAction> actionsById, final Map<String, User> users, final Map<String, Language> userLanguages, final Map<String, String> userIds, final Queue<DelayedAction> updatedActions) {
+      final Language lang = userLanguages.getOrDefault(action.getReceiver(), Language.EN);
 
-         if (context != null && context.getMiddle().isWorkflowEnabled()) {
+      final User receiverUser = userIds.containsKey(action.getReceiver()) ? users.get(userIds.get(action.getReceiver())) : null;
+      final Triple<Organization, Project, Collection> context = checkActionResourceExistsAndFillData(action, receiverUser);
 
-            // if we do not know anything about the user, make sure to send the notification; otherwise check the user settings
-            if (receiverUser == null || isNotificationEnabled(action, receiverUser)) {
+      if (context != null && context.getMiddle().isWorkflowEnabled()) {
 
-               if (action.getNotificationChannel() == NotificationChannel.Email) {
-                  final User user = userIds.containsKey(action.getInitiator()) ? users.get(userIds.get(action.getInitiator())) : null;
-                  final String sender = user != null ? emailSenderFacade.formatUserReference(user) : "";
-                  final String from = user != null ? emailSenderFacade.formatFrom(user) : "";
-                  final String recipient = action.getReceiver();
-                  final Map<String, Object> additionalData = processData(action.getData(), lang, receiverUser);
+         // if we do not know anything about the user, make sure to send the notification; otherwise check the user settings
+         if (receiverUser == null || isNotificationEnabled(action, receiverUser)) {
 
-                  emailSenderFacade.sendEmailFromTemplate(getEmailTemplate(action), lang, sender, from, recipient, getEmailSubjectPart(action, additionalData, lang), additionalData);
-               } else if (action.getNotificationChannel() == NotificationChannel.Internal && userIds.containsKey(action.getReceiver())) {
-                  UserNotification notification = createUserNotification(users.get(userIds.get(action.getReceiver())), action, lang);
-                  notification = userNotificationDao.createNotification(notification);
-                  if (pusherClient != null) {
-                     pusherClient.trigger(List.of(createUserNotificationEvent(notification, PusherFacade.CREATE_EVENT_SUFFIX, userIds.get(action.getReceiver()))));
-                  }
+            if (action.getNotificationChannel() == NotificationChannel.Email) {
+               final User user = userIds.containsKey(action.getInitiator()) ? users.get(userIds.get(action.getInitiator())) : null;
+               final String sender = user != null ? emailSenderFacade.formatUserReference(user) : "";
+               final String from = user != null ? emailSenderFacade.formatFrom(user) : "";
+               final String recipient = action.getReceiver();
+               final Map<String, Object> additionalData = processData(action.getData(), lang, receiverUser);
+
+               emailSenderFacade.sendEmailFromTemplate(getEmailTemplate(action), lang, sender, from, recipient, getEmailSubjectPart(action, additionalData, lang), additionalData);
+            } else if (action.getNotificationChannel() == NotificationChannel.Internal && userIds.containsKey(action.getReceiver())) {
+               UserNotification notification = createUserNotification(users.get(userIds.get(action.getReceiver())), action, lang);
+               notification = userNotificationDao.createNotification(notification);
+               if (pusherClient != null) {
+                  pusherClient.trigger(List.of(createUserNotificationEvent(notification, PusherFacade.CREATE_EVENT_SUFFIX, userIds.get(action.getReceiver()))));
                }
             }
+         }
 
-            // reschedule past due actions
-            if (!rescheduleDueDateAction(actions, action, receiverUser, context.getRight())) {
-               markActionAsCompleted(actions, action);
-            }
-         } else {
-            markActionAsCompleted(actions, action);
+         // reschedule past due actions
+         if (!rescheduleDueDateAction(actionsById, action, receiverUser, context.getRight(), updatedActions)) {
+            markActionAsCompleted(actionsById, action, updatedActions);
          }
-      });
+      } else {
+         markActionAsCompleted(actionsById, action, updatedActions);
+      }
    }
 
    private void clearCache() {
@@ -250,18 +345,22 @@ public class DelayedActionProcessor extends WorkspaceContext {
       projectDaoSnapshots.clear();
    }
 
-   private void markActionAsCompleted(final List<DelayedAction> actions, final DelayedAction action) {
+   private List<DelayedAction> getOriginalActions(final Map<String, DelayedAction> actionsById, final DelayedAction action) {
+      return action.getData().getArrayList(DelayedAction.DATA_ORIGINAL_ACTION_IDS, String.class).stream()
+                   .map(actionsById::get)
+                   .filter(Objects::nonNull)
+                   .collect(Collectors.toList());
+   }
+
+   private void markActionAsCompleted(final Map<String, DelayedAction> actionsById, final DelayedAction action, final Queue<DelayedAction> updatedActions) {
       if (action.getId() == null && action.getData().containsKey(DelayedAction.DATA_ORIGINAL_ACTION_IDS)) {
-         var ids = action.getData().getArrayList(DelayedAction.DATA_ORIGINAL_ACTION_IDS, String.class);
-         actions.forEach(a -> {
-            if (ids.contains(a.getId())) {
-               a.setCompleted(ZonedDateTime.now());
-               delayedActionDao.updateAction(a);
-            }
+         getOriginalActions(actionsById, action).forEach(a -> {
+            a.setCompleted(ZonedDateTime.now());
+            updatedActions.add(a);
          });
       } else {
          action.setCompleted(ZonedDateTime.now());
-         delayedActionDao.updateAction(action);
+         updatedActions.add(action);
       }
    }
 
@@ -324,17 +423,14 @@ public class DelayedActionProcessor extends WorkspaceContext {
    }
 
    // reschedule past due actions until they are completed
-   private boolean rescheduleDueDateAction(final List<DelayedAction> actions, final DelayedAction action, final User user, final Collection collection) {
-      if (action.getId() == null && action.getData().containsKey(DelayedAction.DATA_ORIGINAL_ACTION_IDS) && actions != null) {
-         final AtomicBoolean rescheduled = new AtomicBoolean(false);
-         var ids = action.getData().getArrayList(DelayedAction.DATA_ORIGINAL_ACTION_IDS, String.class);
-         actions.forEach(a -> {
-            if (ids.contains(a.getId())) {
-               rescheduled.set(rescheduled.get() || rescheduleDueDateAction(null, a, user, collection));
-            }
-         });
+   private boolean rescheduleDueDateAction(final Map<String, DelayedAction> actionsById, final DelayedAction action, final User user, final Collection collection, final Queue<DelayedAction> updatedActions) {
+      if (action.getId() == null && action.getData().containsKey(DelayedAction.DATA_ORIGINAL_ACTION_IDS) && actionsById != null) {
+         boolean rescheduled = false;
+         for (final DelayedAction a : getOriginalActions(actionsById, action)) {
+            rescheduled = rescheduled || rescheduleDueDateAction(null, a, user, collection, updatedActions);
+         }
 
-         return rescheduled.get();
+         return rescheduled;
       } else {
          final Date date = action.getData().getDate(DelayedAction.DATA_TASK_DUE_DATE);
 
@@ -344,7 +440,7 @@ public class DelayedActionProcessor extends WorkspaceContext {
             if (completed != null && !completed) {
                action.setStartedProcessing(null);
                action.setCheckAfter(ZonedDateTime.now().plus(1, ChronoUnit.DAYS));
-               delayedActionDao.updateAction(action);
+               updatedActions.add(action);
 
                return true;
             }
@@ -363,7 +459,7 @@ public class DelayedActionProcessor extends WorkspaceContext {
                if (action.getCheckAfter().plus(1, ChronoUnit.DAYS).isBefore(dueDate)) {
                   action.setStartedProcessing(null);
                   action.setCheckAfter(ZonedDateTime.now().plus(1, ChronoUnit.DAYS));
-                  delayedActionDao.updateAction(action);
+                  updatedActions.add(action);
 
                   return true;
                }
@@ -511,15 +607,9 @@ public class DelayedActionProcessor extends WorkspaceContext {
                   .collect(Collectors.toMap(User::getId, Function.identity()));
    }
 
-   private List<User> getUsersFromActions(final List<DelayedAction> actions, final List<User> loadedUsers) {
-      var loadedEmails = loadedUsers.stream().map(User::getEmail).collect(Collectors.toList());
-      return actions.stream()
-                    .map(DelayedAction::getReceiver)
-                    .distinct()
-                    .filter(email -> !loadedEmails.contains(email))
-                    .map(userDao::getUserByEmail)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+   private List<User> getUsersFromActions(final List<DelayedAction> actions) {
+      final Set<String> emails = actions.stream().map(DelayedAction::getReceiver).filter(Objects::nonNull).collect(Collectors.toSet());
+      return emails.isEmpty() ? List.of() : userDao.getUsersByEmails(emails);
    }
 
    // get map of user email -> user language
@@ -545,4 +635,44 @@ public class DelayedActionProcessor extends WorkspaceContext {
       return new Event(PusherFacade.eventChannel(userId), UserNotification.class.getSimpleName() + event, notification);
    }
 
+   public static class Statistics {
+      private final long processedActions;
+      private final long processingNanos;
+      private final long lastLagMillis;
+      private final long maxLagMillis;
+
+      public Statistics(final long processedActions, final long processingNanos, final long lastLagMillis, final long maxLagMillis) {
+         this.processedActions = processedActions;
+         this.processingNanos = processingNanos;
+         this.lastLagMillis = lastLagMillis;
+         this.maxLagMillis = maxLagMillis;
+      }
+
+      public long getProcessedActions() {
+         return processedActions;
+      }
+
+      public double getActionsPerSecond() {
+         return processingNanos > 0 ? processedActions / (processingNanos / 1e9) : 0;
+      }
+
+      // time between checkAfter of the oldest action in the last batch and its processing
+      public long getLastLagMillis() {
+         return lastLagMillis;
+      }
+
+      public long getMaxLagMillis() {
+         return maxLagMillis;
+      }
+
+      @Override
+      public String toString() {
+         return "DelayedActionProcessor.Statistics{" +
+               "processedActions=" + processedActions +
+               ", actionsPerSecond=" + String.format("%.1f", getActionsPerSecond()) +
+               ", lastLagMillis=" + lastLagMillis +
+               ", maxLagMillis=" + maxLagMillis +
+               '}';
+      }
+   }
 }
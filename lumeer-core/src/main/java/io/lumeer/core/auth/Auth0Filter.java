@@ -33,8 +33,12 @@ import com.auth0.net.Request;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
@@ -64,6 +68,7 @@ public class Auth0Filter implements Filter {
 
    private static final long TOKEN_REFRESH_PERIOD = 10L * 60 * 1000; // 10 minutes
    private static final long UNVERIFIED_TOKEN_REFRESH_PERIOD = 10L * 1000; // 10 minutes
+   private static final int MAX_VERIFIED_TOKENS = 10_000;
 
    @Inject
    private Logger log;
@@ -97,6 +102,9 @@ public class Auth0Filter implements Filter {
    private Map<String, AuthenticatedUser.AuthUserInfo> authUserCache = new ConcurrentHashMap<>();
    private Map<String, Semaphore> semaphores = new ConcurrentHashMap<>();
 
+   // digests of tokens with a verified signature, only the expiration needs to be checked for them
+   private Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
    private JWTVerifier verifier = null;
    private String domain;
    private String clientId;
@@ -207,22 +215,36 @@ public class Auth0Filter implements Filter {
             return;
          }
 
-         // we failed to verify the token
-         final DecodedJWT jwt;
-         try {
-            jwt = JWT.decode(accessToken);
-            verifier.verify(jwt.getToken());
-         } catch (Exception e) {
-            res.sendError(HttpServletResponse.SC_UNAUTHORIZED);
-            return;
-         }
+         final String tokenDigest = getTokenDigest(accessToken);
+         final VerifiedToken verifiedToken = verifiedTokens.get(tokenDigest);
 
          // the token is expired
-         if (Instant.now().isAfter(jwt.getExpiresAt().toInstant())) {
+         if (verifiedToken != null && verifiedToken.isExpired()) {
+            verifiedTokens.remove(tokenDigest);
             res.sendError(HttpServletResponse.SC_UNAUTHORIZED);
             return;
          }
 
+         if (verifiedToken == null) {
+            // we failed to verify the token
+            final DecodedJWT jwt;
+            try {
+               jwt = JWT.decode(accessToken);
+               verifier.verify(jwt.getToken());
+            } catch (Exception e) {
+               res.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+               return;
+            }
+
+            // the token is expired
+            if (Instant.now().isAfter(jwt.getExpiresAt().toInstant())) {
+               res.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+               return;
+            }
+
+            addVerifiedToken(tokenDigest, jwt);
+         }
+
          // we are safe to go, make sure we have user info
          final AuthenticatedUser.AuthUserInfo authUserInfo = getAuthenticatedUser(accessToken);
 
@@ -251,7 +273,9 @@ public class Auth0Filter implements Filter {
                   // we still could not get user info
                   if (newAuthUserInfo.user == null) {
                      res.sendError(HttpServletResponse.SC_UNAUTHORIZED);
-                     s.release();
+                     if (authUserInfo.user == null) {
+                        semaphores.remove(accessToken);
+                     }
                      return;
                   }
 
@@ -295,6 +319,26 @@ public class Auth0Filter implements Filter {
       }
    }
 
+   private void addVerifiedToken(final String tokenDigest, final DecodedJWT jwt) {
+      if (verifiedTokens.size() >= MAX_VERIFIED_TOKENS) {
+         verifiedTokens.values().removeIf(VerifiedToken::isExpired);
+      }
+
+      // when there are too many valid tokens, the others are verified on each request
+      if (verifiedTokens.size() < MAX_VERIFIED_TOKENS) {
+         verifiedTokens.put(tokenDigest, new VerifiedToken(jwt.getExpiresAt().getTime()));
+      }
+   }
+
+   private String getTokenDigest(final String accessToken) {
+      try {
+         final MessageDigest md = MessageDigest.getInstance("SHA-256");
+         return Base64.getEncoder().encodeToString(md.digest(accessToken.getBytes(StandardCharsets.UTF_8)));
+      } catch (NoSuchAlgorithmException e) {
+         throw new RuntimeException(e);
+      }
+   }
+
    private boolean shouldSkipAuthentication(HttpServletRequest req) {
       return req.getPathInfo().startsWith("/paymentNotify/") || req.getPathInfo().startsWith("/auth/") || req.getPathInfo().startsWith("/users/login") || req.getPathInfo().startsWith("/templates/");
    }
@@ -376,6 +420,10 @@ public class Auth0Filter implements Filter {
                removeFromCache(accessToken);
             }
          }
+
+         // semaphores of tokens that never made it to the cache and are not used at the moment
+         semaphores.entrySet().removeIf(entry -> !authUserCache.containsKey(entry.getKey()) && entry.getValue().availablePermits() > 0);
+         verifiedTokens.values().removeIf(VerifiedToken::isExpired);
       }
    }
 
@@ -383,4 +431,17 @@ public class Auth0Filter implements Filter {
       authUserCache.remove(accessToken);
       semaphores.remove(accessToken);
    }
+
+   private static class VerifiedToken {
+
+      private final long expiresAt;
+
+      private VerifiedToken(final long expiresAt) {
+         this.expiresAt = expiresAt;
+      }
+
+      private boolean isExpired() {
+         return System.currentTimeMillis() > expiresAt;
+      }
+   }
 }
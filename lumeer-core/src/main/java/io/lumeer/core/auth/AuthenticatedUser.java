@@ -170,6 +170,7 @@ public class AuthenticatedUser implements Serializable {
 
       createDemoWorkspaceIfNeeded(user);
       userDao.updateUser(user.getId(), user);
+      userCache.updateUser(user.getEmail(), user);
       if (firstLogin) {
          userLoginDao.userLoggedIn(user.getId());
          eventLogFacade.logEvent(user, "Logged in");
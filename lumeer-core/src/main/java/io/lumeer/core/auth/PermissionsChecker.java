@@ -50,6 +50,11 @@ import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.util.Utils;
 import io.lumeer.engine.annotation.UserDataStorage;
 import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.engine.api.event.CreateOrUpdateGroup;
+import io.lumeer.engine.api.event.ReloadGroups;
+import io.lumeer.engine.api.event.RemoveGroup;
+import io.lumeer.engine.api.event.UpdateLinkType;
+import io.lumeer.engine.api.event.UpdateResource;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.dao.FavoriteItemDao;
@@ -69,6 +74,8 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.Reception;
 import javax.inject.Inject;
 
 @RequestScoped
@@ -154,6 +161,32 @@ public class PermissionsChecker {
       return permissionAdapter;
    }
 
+   public void onUpdateResource(@Observes(notifyObserver = Reception.IF_EXISTS) final UpdateResource updateResource) {
+      if (updateResource.getResource() instanceof Collection) {
+         permissionAdapter.invalidateCollectionCache();
+      } else if (updateResource.getResource() instanceof View) {
+         permissionAdapter.invalidateViewCache();
+      } else {
+         permissionAdapter.invalidateRolesCache();
+      }
+   }
+
+   public void onUpdateLinkType(@Observes(notifyObserver = Reception.IF_EXISTS) final UpdateLinkType updateLinkType) {
+      permissionAdapter.invalidateRolesCache();
+   }
+
+   public void onCreateOrUpdateGroup(@Observes(notifyObserver = Reception.IF_EXISTS) final CreateOrUpdateGroup createOrUpdateGroup) {
+      permissionAdapter.invalidateUserCache();
+   }
+
+   public void onRemoveGroup(@Observes(notifyObserver = Reception.IF_EXISTS) final RemoveGroup removeGroup) {
+      permissionAdapter.invalidateUserCache();
+   }
+
+   public void onReloadGroups(@Observes(notifyObserver = Reception.IF_EXISTS) final ReloadGroups reloadGroups) {
+      permissionAdapter.invalidateUserCache();
+   }
+
    public void checkSystemPermission() {
       if (!hasSystemPermission()) {
          throw new NoSystemPermissionException();
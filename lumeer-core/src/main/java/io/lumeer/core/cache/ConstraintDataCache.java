@@ -0,0 +1,186 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.ConstraintData;
+import io.lumeer.api.model.CurrencyData;
+import io.lumeer.api.model.Group;
+import io.lumeer.api.model.Language;
+import io.lumeer.api.model.SelectionList;
+import io.lumeer.api.model.User;
+import io.lumeer.core.facade.translate.TranslationManager;
+import io.lumeer.core.util.js.DataFilterJsonTask;
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheFactory;
+import io.lumeer.engine.api.cache.CacheStatistics;
+import io.lumeer.engine.api.event.CreateOrUpdateGroup;
+import io.lumeer.engine.api.event.CreateOrUpdateUser;
+import io.lumeer.engine.api.event.CreateSelectionList;
+import io.lumeer.engine.api.event.ReloadGroups;
+import io.lumeer.engine.api.event.ReloadSelectionLists;
+import io.lumeer.engine.api.event.RemoveGroup;
+import io.lumeer.engine.api.event.RemoveSelectionList;
+import io.lumeer.engine.api.event.RemoveUser;
+import io.lumeer.engine.api.event.UpdateCurrentUser;
+import io.lumeer.engine.api.event.UpdateSelectionList;
+import io.lumeer.storage.api.dao.GroupDao;
+import io.lumeer.storage.api.dao.SelectionListDao;
+import io.lumeer.storage.api.dao.UserDao;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Users, teams, selection lists and translations needed by constraints, shared by all requests of a workspace and language.
+ * Entries are versioned by organization, a change of users, teams or selection lists moves the organization to a new
+ * version so that the old entries are never read again and expire. The shared fields are serialized to JSON at most
+ * once per entry.
+ */
+@ApplicationScoped
+public class ConstraintDataCache {
+
+   private static final int MAX_ENTRIES = 1000;
+   private static final Duration EXPIRATION = Duration.ofMinutes(2);
+
+   @Inject
+   private CacheFactory cacheFactory;
+
+   @Inject
+   private TranslationManager translationManager;
+
+   private Cache<Entry> cache;
+
+   private final AtomicLong version = new AtomicLong();
+   private final Map<String, Long> organizationVersions = new ConcurrentHashMap<>();
+
+   @PostConstruct
+   public void initCache() {
+      cache = cacheFactory.getCache(MAX_ENTRIES, EXPIRATION);
+   }
+
+   public ConstraintData getConstraintData(final String organizationId, final String projectId, final Language language, final User currentUser, final String timezone,
+         final UserDao userDao, final GroupDao groupDao, final SelectionListDao selectionListDao) {
+      final Entry entry = cache.computeIfAbsent(getKey(organizationId, projectId, language), key -> new Entry(
+            userDao.getAllUsers(organizationId),
+            groupDao.getAllGroups(organizationId),
+            selectionListDao.getAllLists(Collections.singletonList(projectId)),
+            translationManager.translateDurationUnitsMap(language),
+            new CurrencyData(translationManager.translateAbbreviations(language), translationManager.translateOrdinals(language))
+      ));
+
+      final ConstraintData constraintData = new ConstraintData(entry.users, currentUser, entry.durationUnitsMap, entry.currencyData, timezone, entry.teams, entry.selectionLists);
+      constraintData.setSerializedFields(() -> entry.getSerializedFields(constraintData));
+      return constraintData;
+   }
+
+   public void invalidateOrganization(final String organizationId) {
+      if (organizationId != null) {
+         organizationVersions.merge(organizationId, 1L, Long::sum);
+      } else {
+         version.incrementAndGet();
+      }
+   }
+
+   public void clear() {
+      version.incrementAndGet();
+      cache.clear();
+   }
+
+   public CacheStatistics getStatistics() {
+      return cache.getStatistics();
+   }
+
+   public void createOrUpdateUser(@Observes final CreateOrUpdateUser createOrUpdateUser) {
+      invalidateOrganization(createOrUpdateUser.getOrganizationId());
+   }
+
+   public void removeUser(@Observes final RemoveUser removeUser) {
+      invalidateOrganization(removeUser.getOrganizationId());
+   }
+
+   public void updateCurrentUser(@Observes final UpdateCurrentUser updateCurrentUser) {
+      // the user can be a member of any organization
+      version.incrementAndGet();
+   }
+
+   public void createOrUpdateGroup(@Observes final CreateOrUpdateGroup createOrUpdateGroup) {
+      invalidateOrganization(createOrUpdateGroup.getOrganizationId());
+   }
+
+   public void removeGroup(@Observes final RemoveGroup removeGroup) {
+      invalidateOrganization(removeGroup.getOrganizationId());
+   }
+
+   public void reloadGroups(@Observes final ReloadGroups reloadGroups) {
+      invalidateOrganization(reloadGroups.getOrganizationId());
+   }
+
+   public void createSelectionList(@Observes final CreateSelectionList createSelectionList) {
+      invalidateOrganization(createSelectionList.getOrganizationId());
+   }
+
+   public void updateSelectionList(@Observes final UpdateSelectionList updateSelectionList) {
+      invalidateOrganization(updateSelectionList.getOrganizationId());
+   }
+
+   public void removeSelectionList(@Observes final RemoveSelectionList removeSelectionList) {
+      invalidateOrganization(removeSelectionList.getOrganizationId());
+   }
+
+   public void reloadSelectionLists(@Observes final ReloadSelectionLists reloadSelectionLists) {
+      invalidateOrganization(reloadSelectionLists.getOrganizationId());
+   }
+
+   private String getKey(final String organizationId, final String projectId, final Language language) {
+      return organizationId + "/" + projectId + "/" + language + "/" + version.get() + "." + organizationVersions.getOrDefault(organizationId, 0L);
+   }
+
+   private static class Entry {
+      private final List<User> users;
+      private final List<Group> teams;
+      private final List<SelectionList> selectionLists;
+      private final Map<String, String> durationUnitsMap;
+      private final CurrencyData currencyData;
+
+      private volatile Map<String, String> serializedFields;
+
+      private Entry(final List<User> users, final List<Group> teams, final List<SelectionList> selectionLists, final Map<String, String> durationUnitsMap, final CurrencyData currencyData) {
+         this.users = Collections.unmodifiableList(users);
+         this.teams = Collections.unmodifiableList(teams);
+         this.selectionLists = Collections.unmodifiableList(selectionLists);
+         this.durationUnitsMap = Collections.unmodifiableMap(durationUnitsMap);
+         this.currencyData = currencyData;
+      }
+
+      private Map<String, String> getSerializedFields(final ConstraintData constraintData) {
+         if (serializedFields == null) {
+            serializedFields = DataFilterJsonTask.serializeSharedFields(constraintData);
+         }
+         return serializedFields;
+      }
+   }
+}
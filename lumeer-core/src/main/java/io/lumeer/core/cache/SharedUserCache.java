@@ -0,0 +1,179 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.User;
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheFactory;
+import io.lumeer.engine.api.cache.CacheStatistics;
+import io.lumeer.engine.api.event.CreateOrUpdateUser;
+import io.lumeer.engine.api.event.RemoveUser;
+import io.lumeer.engine.api.event.UpdateCurrentUser;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Users shared by all requests, the second tier behind {@link UserCache}. Users are indexed by their id and email,
+ * stored only when loaded from the database and invalidated on every change made through {@link UserCache} or
+ * announced by an event. Returned values are copies.
+ */
+@ApplicationScoped
+public class SharedUserCache {
+
+   private static final int MAX_USERS = 10000;
+   private static final Duration USER_EXPIRATION = Duration.ofMinutes(2);
+
+   @Inject
+   private CacheFactory cacheFactory;
+
+   private Cache<User> userCache;
+   private Cache<String> userIdsByEmail;
+
+   // guarded by this, users loaded before an invalidation are not stored
+   private long invalidations;
+
+   @PostConstruct
+   public void initCache() {
+      userCache = cacheFactory.getCache(MAX_USERS, USER_EXPIRATION);
+      userIdsByEmail = cacheFactory.getCache(MAX_USERS, USER_EXPIRATION);
+   }
+
+   public User getUser(final String email, final Function<String, User> loader) {
+      final String id = userIdsByEmail.get(email);
+      final User cachedUser = id != null ? userCache.get(id) : null;
+      if (cachedUser != null && email.equals(cachedUser.getEmail())) {
+         return cachedUser.copy();
+      }
+
+      final long stamp = getInvalidations();
+      final User user = loader.apply(email);
+      storeUsers(Collections.singletonList(user), stamp);
+      return user != null ? user.copy() : null;
+   }
+
+   public User getUserById(final String id, final Function<String, User> loader) {
+      final User cachedUser = userCache.get(id);
+      if (cachedUser != null) {
+         return cachedUser.copy();
+      }
+
+      final long stamp = getInvalidations();
+      final User user = loader.apply(id);
+      storeUsers(Collections.singletonList(user), stamp);
+      return user != null ? user.copy() : null;
+   }
+
+   public List<User> getUsersByIds(final Set<String> ids, final Function<Set<String>, List<User>> loader) {
+      final List<User> users = new ArrayList<>(ids.size());
+      final Set<String> missingIds = new HashSet<>();
+      ids.forEach(id -> {
+         final User cachedUser = userCache.get(id);
+         if (cachedUser != null) {
+            users.add(cachedUser.copy());
+         } else {
+            missingIds.add(id);
+         }
+      });
+
+      if (!missingIds.isEmpty()) {
+         final long stamp = getInvalidations();
+         final List<User> loadedUsers = loader.apply(missingIds);
+         storeUsers(loadedUsers, stamp);
+         loadedUsers.forEach(user -> users.add(user.copy()));
+      }
+
+      return users;
+   }
+
+   public synchronized void invalidateUser(final String id, final String email) {
+      invalidations++;
+
+      if (email != null) {
+         final String indexedId = userIdsByEmail.remove(email);
+         if (indexedId != null) {
+            userCache.remove(indexedId);
+         } else if (id == null) {
+            userCache.stream().filter(u -> email.equals(u.getEmail())).map(User::getId).collect(Collectors.toList()).forEach(userCache::remove);
+         }
+      }
+
+      if (id != null) {
+         final User removedUser = userCache.remove(id);
+         if (removedUser != null && removedUser.getEmail() != null) {
+            userIdsByEmail.remove(removedUser.getEmail());
+         }
+      }
+   }
+
+   public synchronized void clear() {
+      invalidations++;
+      userCache.clear();
+      userIdsByEmail.clear();
+   }
+
+   public CacheStatistics getStatistics() {
+      return userCache.getStatistics();
+   }
+
+   public void createOrUpdateUser(@Observes final CreateOrUpdateUser createOrUpdateUser) {
+      invalidateUser(createOrUpdateUser.getUser());
+   }
+
+   public void removeUser(@Observes final RemoveUser removeUser) {
+      invalidateUser(removeUser.getUser());
+   }
+
+   public void updateCurrentUser(@Observes final UpdateCurrentUser updateCurrentUser) {
+      invalidateUser(updateCurrentUser.getUser());
+   }
+
+   private void invalidateUser(final User user) {
+      if (user != null) {
+         invalidateUser(user.getId(), user.getEmail());
+      }
+   }
+
+   private synchronized long getInvalidations() {
+      return invalidations;
+   }
+
+   private synchronized void storeUsers(final List<User> users, final long stamp) {
+      if (stamp != invalidations) {
+         return;
+      }
+
+      users.stream().filter(user -> user != null && user.getId() != null).forEach(user -> {
+         userCache.set(user.getId(), user);
+         if (user.getEmail() != null) {
+            userIdsByEmail.set(user.getEmail(), user.getId());
+         }
+      });
+   }
+}
@@ -0,0 +1,159 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.ServiceLimits;
+import io.lumeer.api.model.common.Resource;
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheFactory;
+import io.lumeer.engine.api.cache.CacheStatistics;
+import io.lumeer.engine.api.event.RemoveResource;
+import io.lumeer.engine.api.event.UpdateResource;
+import io.lumeer.engine.api.event.UpdateServiceLimits;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Organizations, projects and service limits shared by all requests. It is the second tier behind {@link WorkspaceCache}:
+ * values are stored only when loaded from the database, they are invalidated by the events fired on their change and
+ * expire after a short time so that changes made by other nodes become visible. Returned values are copies, so the
+ * callers can modify them freely.
+ */
+@ApplicationScoped
+public class SharedWorkspaceCache {
+
+   private static final int MAX_WORKSPACES = 1000;
+   private static final Duration WORKSPACE_EXPIRATION = Duration.ofMinutes(5);
+   private static final Duration SERVICE_LIMITS_EXPIRATION = Duration.ofMinutes(1);
+
+   @Inject
+   private CacheFactory cacheFactory;
+
+   private Cache<Organization> organizationCache;
+   private Cache<ProjectEntry> projectCache;
+   private Cache<ServiceLimits> serviceLimitsCache;
+
+   @PostConstruct
+   public void initCaches() {
+      organizationCache = cacheFactory.getCache(MAX_WORKSPACES, WORKSPACE_EXPIRATION);
+      projectCache = cacheFactory.getCache(MAX_WORKSPACES, WORKSPACE_EXPIRATION);
+      serviceLimitsCache = cacheFactory.getCache(MAX_WORKSPACES, SERVICE_LIMITS_EXPIRATION);
+   }
+
+   public Organization getOrganization(final String organizationId, final Function<String, Organization> loader) {
+      final Organization organization = organizationCache.computeIfAbsent(organizationId, loader);
+      return organization != null ? organization.copy() : null;
+   }
+
+   public Project getProject(final String organizationId, final String projectId, final Supplier<Project> loader) {
+      final ProjectEntry entry = projectCache.computeIfAbsent(projectId, id -> {
+         final Project project = loader.get();
+         return project != null ? new ProjectEntry(organizationId, project) : null;
+      });
+
+      if (entry == null) {
+         return null;
+      }
+      if (!entry.organizationId.equals(organizationId)) {
+         // project requested within another organization, the loader decides whether it exists there
+         return loader.get();
+      }
+      return entry.project.copy();
+   }
+
+   public ServiceLimits getServiceLimits(final String organizationId) {
+      final ServiceLimits serviceLimits = serviceLimitsCache.get(organizationId);
+      if (serviceLimits != null && serviceLimits.getValidUntil() != null && serviceLimits.getValidUntil().before(new Date())) {
+         serviceLimitsCache.remove(organizationId);
+         return null;
+      }
+      return serviceLimits != null ? serviceLimits.copy() : null;
+   }
+
+   public void setServiceLimits(final String organizationId, final ServiceLimits serviceLimits) {
+      serviceLimitsCache.set(organizationId, serviceLimits);
+   }
+
+   public void removeOrganization(final String organizationId) {
+      organizationCache.remove(organizationId);
+      serviceLimitsCache.remove(organizationId);
+   }
+
+   public void removeProject(final String projectId) {
+      projectCache.remove(projectId);
+   }
+
+   public void removeServiceLimits(final String organizationId) {
+      serviceLimitsCache.remove(organizationId);
+   }
+
+   public void clear() {
+      organizationCache.clear();
+      projectCache.clear();
+      serviceLimitsCache.clear();
+   }
+
+   public Map<String, CacheStatistics> getStatistics() {
+      return Map.of("organizations", organizationCache.getStatistics(),
+            "projects", projectCache.getStatistics(),
+            "serviceLimits", serviceLimitsCache.getStatistics());
+   }
+
+   public void updateResource(@Observes final UpdateResource updateResource) {
+      invalidateResource(updateResource.getResource());
+   }
+
+   public void removeResource(@Observes final RemoveResource removeResource) {
+      invalidateResource(removeResource.getResource());
+   }
+
+   public void updateServiceLimits(@Observes final UpdateServiceLimits updateServiceLimits) {
+      if (updateServiceLimits.getOrganization() != null) {
+         setServiceLimits(updateServiceLimits.getOrganization().getId(), updateServiceLimits.getServiceLimits());
+      }
+   }
+
+   private void invalidateResource(final Resource resource) {
+      if (resource instanceof Organization) {
+         removeOrganization(resource.getId());
+      } else if (resource instanceof Project) {
+         removeProject(resource.getId());
+      }
+   }
+
+   private static class ProjectEntry {
+      private final String organizationId;
+      private final Project project;
+
+      private ProjectEntry(final String organizationId, final Project project) {
+         this.organizationId = organizationId;
+         this.project = project;
+      }
+   }
+}
@@ -23,7 +23,14 @@ import io.lumeer.engine.api.cache.Cache;
 import io.lumeer.engine.api.cache.CacheFactory;
 import io.lumeer.storage.api.dao.UserDao;
 
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -37,44 +44,100 @@ public class UserCache {
    @Inject
    private UserDao userDao;
 
+   @Inject
+   private SharedUserCache sharedUserCache;
+
    private Cache<User> userCache;
 
+   private Map<String, String> emailsById;
+
    @PostConstruct
    public void initCache() {
       userCache = cacheFactory.getCache();
+      emailsById = new ConcurrentHashMap<>();
    }
 
    public User getUser(String email) {
-      return userCache.computeIfAbsent(email, userDao::getUserByEmail);
+      final User user = userCache.computeIfAbsent(email, key -> sharedUserCache.getUser(key, userDao::getUserByEmail));
+      if (user != null && user.getId() != null) {
+         emailsById.put(user.getId(), email);
+      }
+      return user;
    }
 
    public User getUserById(String id) {
-      final Optional<User> maybeUser = userCache.stream().filter(u -> id.equals(u.getId())).findFirst();
+      final User cachedUser = getCachedUserById(id);
+      if (cachedUser != null) {
+         return cachedUser;
+      }
 
-      if (maybeUser.isEmpty()) {
-         final User u = userDao.getUserById(id);
+      final User user = sharedUserCache.getUserById(id, userDao::getUserById);
+      if (user != null) {
+         putUser(user);
+      }
+      return user;
+   }
 
-         if (u != null) {
-            updateUser(u.getEmail(), u);
-            return u;
+   /**
+    * Gets users with the given ids, the users missing in the cache are read by a single query.
+    *
+    * @param ids
+    *       Ids of the users.
+    * @return Found users in the order of the given ids.
+    */
+   public List<User> getUsersByIds(java.util.Collection<String> ids) {
+      final Map<String, User> users = new HashMap<>();
+      final Set<String> missingIds = new HashSet<>();
+      ids.forEach(id -> {
+         final User cachedUser = getCachedUserById(id);
+         if (cachedUser != null) {
+            users.put(id, cachedUser);
+         } else {
+            missingIds.add(id);
          }
-      } else {
-         return maybeUser.get();
+      });
+
+      if (!missingIds.isEmpty()) {
+         sharedUserCache.getUsersByIds(missingIds, userDao::getUserByIds).forEach(user -> {
+            putUser(user);
+            users.put(user.getId(), user);
+         });
       }
 
-      return null;
+      return ids.stream().distinct().map(users::get).filter(Objects::nonNull).collect(Collectors.toList());
    }
 
    public void updateUser(String username, User user) {
       userCache.set(username, user);
+      if (user != null && user.getId() != null) {
+         emailsById.put(user.getId(), username);
+      }
+      sharedUserCache.invalidateUser(user != null ? user.getId() : null, username);
    }
 
    public void removeUser(String username) {
-      userCache.remove(username);
+      final User removedUser = userCache.remove(username);
+      if (removedUser != null && removedUser.getId() != null) {
+         emailsById.remove(removedUser.getId());
+      }
+      sharedUserCache.invalidateUser(null, username);
    }
 
    public void clear() {
       userCache.clear();
+      emailsById.clear();
+      sharedUserCache.clear();
+   }
+
+   private User getCachedUserById(String id) {
+      final String email = emailsById.get(id);
+      final User user = email != null ? userCache.get(email) : null;
+      return user != null && id.equals(user.getId()) ? user : null;
+   }
+
+   private void putUser(User user) {
+      userCache.set(user.getEmail(), user);
+      emailsById.put(user.getId(), user.getEmail());
    }
 
 }
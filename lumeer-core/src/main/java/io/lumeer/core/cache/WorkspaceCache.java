@@ -43,6 +43,9 @@ public class WorkspaceCache {
    @Inject
    private ProjectDao projectDao;
 
+   @Inject
+   private SharedWorkspaceCache sharedWorkspaceCache;
+
    private Cache<Organization> organizationCache;
    private Cache<Project> projectCache;
    private Cache<ServiceLimits> serviceLimitsCache;
@@ -59,11 +62,14 @@ public class WorkspaceCache {
    }
 
    public Organization getOrganization(String organizationId) {
-      return organizationCache.computeIfAbsent(organizationId, code -> organizationDao.getOrganizationById(organizationId));
+      return organizationCache.computeIfAbsent(organizationId, code -> sharedWorkspaceCache.getOrganization(organizationId, organizationDao::getOrganizationById));
    }
 
-   public Project getProject(String projectId) {
-      return projectCache.computeIfAbsent(projectId, code -> projectDao.getProjectById(projectId));
+   public Project getProject(String organizationId, String projectId) {
+      if (organizationId == null) {
+         return projectCache.computeIfAbsent(projectId, code -> projectDao.getProjectById(projectId));
+      }
+      return projectCache.computeIfAbsent(projectId, code -> sharedWorkspaceCache.getProject(organizationId, projectId, () -> projectDao.getProjectById(projectId)));
    }
 
    public void updateOrganization(String organizationId, Organization organization) {
@@ -76,26 +82,31 @@ public class WorkspaceCache {
 
    public void removeOrganization(String organizationId) {
       organizationCache.remove(organizationId);
+      sharedWorkspaceCache.removeOrganization(organizationId);
    }
 
    public void removeProject(String projectId) {
       projectCache.remove(projectId);
+      sharedWorkspaceCache.removeProject(projectId);
    }
 
    public void setServiceLimits(final String organizationId, final ServiceLimits serviceLimits) {
       serviceLimitsCache.set(organizationId, serviceLimits);
+      sharedWorkspaceCache.setServiceLimits(organizationId, serviceLimits);
    }
 
    public ServiceLimits getServiceLimits(final String organizationId) {
-      return serviceLimitsCache.get(organizationId);
+      return serviceLimitsCache.computeIfAbsent(organizationId, sharedWorkspaceCache::getServiceLimits);
    }
 
    public void removeServiceLimits(final String organizationId) {
       serviceLimitsCache.remove(organizationId);
+      sharedWorkspaceCache.removeServiceLimits(organizationId);
    }
 
    public void clear() {
       organizationCache.clear();
       projectCache.clear();
+      sharedWorkspaceCache.clear();
    }
 }
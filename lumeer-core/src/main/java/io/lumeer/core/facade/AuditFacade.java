@@ -50,8 +50,11 @@ import io.lumeer.core.adapter.PusherAdapter;
 import io.lumeer.core.adapter.ResourceAdapter;
 import io.lumeer.core.auth.RequestDataKeeper;
 import io.lumeer.core.constraint.ConstraintManager;
+import io.lumeer.core.exception.BadFormatException;
 import io.lumeer.core.exception.UnsupportedOperationException;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.task.AuditProcessor;
+import io.lumeer.core.task.CollectionUsageProcessor;
 import io.lumeer.core.util.DocumentUtils;
 import io.lumeer.core.util.LinkInstanceUtils;
 import io.lumeer.core.util.LumeerS3Client;
@@ -80,6 +83,7 @@ import io.lumeer.storage.api.dao.UserDao;
 import io.lumeer.storage.api.dao.ViewDao;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
 
+import org.bson.types.ObjectId;
 import org.marvec.pusher.data.Event;
 
 import java.time.ZonedDateTime;
@@ -88,6 +92,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
@@ -149,6 +154,15 @@ public class AuditFacade extends AbstractFacade {
    @Inject
    private PusherHelperFacade pusherHelperFacade;
 
+   @Inject
+   private PusherDispatcher pusherDispatcher;
+
+   @Inject
+   private CollectionUsageProcessor collectionUsageProcessor;
+
+   @Inject
+   private AuditProcessor auditProcessor;
+
    private AuditAdapter auditAdapter;
    private DocumentAdapter documentAdapter;
    private ConstraintManager constraintManager;
@@ -209,15 +223,18 @@ public class AuditFacade extends AbstractFacade {
       registerLinkDelete(removeLinkInstance.getLinkInstance());
    }
 
-   public List<AuditRecord> getAuditRecordsForProject() {
-      return getAuditRecordsForProject(null);
+   public List<AuditRecord> getAuditRecordsForProject(final ZonedDateTime before, final String beforeId, final Integer pageLength) {
+      return getAuditRecordsForProject(null, before, beforeId, pageLength);
    }
 
-   public List<AuditRecord> getAuditRecordsForProjectAndUser(final String userId) {
-      return getAuditRecordsForProject(userId);
+   public List<AuditRecord> getAuditRecordsForProjectAndUser(final String userId, final ZonedDateTime before, final String beforeId, final Integer pageLength) {
+      return getAuditRecordsForProject(userId, before, beforeId, pageLength);
    }
 
-   private List<AuditRecord> getAuditRecordsForProject(final String userId) {
+   private List<AuditRecord> getAuditRecordsForProject(final String userId, final ZonedDateTime before, final String beforeId, final Integer pageLength) {
+      if (beforeId != null && !ObjectId.isValid(beforeId)) {
+         throw new BadFormatException("Invalid audit record id '" + beforeId + "'.");
+      }
       checkProjectRole(RoleType.Manage);
 
       Map<String, Collection> collectionsMap = resourceAdapter.getCollections(getOrganization(), getProject(), getCurrentUserId())
@@ -227,22 +244,17 @@ public class AuditFacade extends AbstractFacade {
       // currently not supported
       Set<String> viewIds = Collections.emptySet();
 
-      List<AuditRecord> auditRecords = userId != null ? auditAdapter.getAuditRecords(userId, collectionsMap.keySet(), linkTypesMap.keySet(), viewIds, getServiceLimits())
-            : auditAdapter.getAuditRecords(collectionsMap.keySet(), linkTypesMap.keySet(), viewIds, getServiceLimits());
+      auditProcessor.flush();
+      List<AuditRecord> auditRecords = auditAdapter.getAuditRecords(userId, collectionsMap.keySet(), linkTypesMap.keySet(), viewIds, getServiceLimits(), before, beforeId, pageLength);
 
-      collectionsMap.values().forEach(collection -> {
-         var collectionAuditRecords = auditRecords.stream()
-                                                  .filter(record -> record.getResourceType() == ResourceType.DOCUMENT && collection.getId().equals(record.getParentId()))
-                                                  .collect(toList());
-         decodeWithTitle(collection, collectionAuditRecords);
-      });
+      Map<ResourceType, Map<String, List<AuditRecord>>> recordsByParent = auditRecords.stream()
+                                                                                      .filter(record -> record.getResourceType() == ResourceType.DOCUMENT || record.getResourceType() == ResourceType.LINK)
+                                                                                      .collect(groupingBy(AuditRecord::getResourceType, groupingBy(AuditRecord::getParentId)));
 
-      linkTypesMap.values().forEach(linkType -> {
-         var linkAuditRecords = auditRecords.stream()
-                                            .filter(record -> record.getResourceType() == ResourceType.LINK && linkType.getId().equals(record.getParentId()))
-                                            .collect(toList());
-         decodeWithTitle(linkType, linkAuditRecords);
-      });
+      recordsByParent.getOrDefault(ResourceType.DOCUMENT, Collections.emptyMap())
+                     .forEach((collectionId, records) -> decodeWithTitle(collectionsMap.get(collectionId), records));
+      recordsByParent.getOrDefault(ResourceType.LINK, Collections.emptyMap())
+                     .forEach((linkTypeId, records) -> decodeWithTitle(linkTypesMap.get(linkTypeId), records));
 
       return auditRecords;
    }
@@ -251,6 +263,7 @@ public class AuditFacade extends AbstractFacade {
       Collection collection = collectionDao.getCollectionById(collectionId);
       permissionsChecker.checkRole(collection, RoleType.Manage);
 
+      auditProcessor.flush();
       return decodeWithTitle(collection, auditAdapter.getAuditRecords(collectionId, ResourceType.DOCUMENT, getServiceLimits()));
    }
 
@@ -258,6 +271,7 @@ public class AuditFacade extends AbstractFacade {
       LinkType linkType = linkTypeDao.getLinkType(linkTypeId);
       permissionsChecker.checkRoleInLinkType(linkType, RoleType.Manage);
 
+      auditProcessor.flush();
       return decodeWithTitle(linkType, auditAdapter.getAuditRecords(linkTypeId, ResourceType.LINK, getServiceLimits()));
    }
 
@@ -266,6 +280,7 @@ public class AuditFacade extends AbstractFacade {
       final Document document = DocumentUtils.loadDocumentWithData(documentDao, dataDao, collection, documentId);
       permissionsChecker.checkEditDocument(collection, document);
 
+      auditProcessor.flush();
       return auditAdapter.getAuditRecords(collectionId, ResourceType.DOCUMENT, documentId, getServiceLimits())
                          .stream().peek(log -> decode(collection, log))
                          .collect(toList());
@@ -276,6 +291,7 @@ public class AuditFacade extends AbstractFacade {
       final LinkInstance linkInstance = LinkInstanceUtils.loadLinkInstanceWithData(linkInstanceDao, linkDataDao, linkInstanceId);
       permissionsChecker.checkEditLinkInstance(linkType, linkInstance);
 
+      auditProcessor.flush();
       return auditAdapter.getAuditRecords(linkTypeId, ResourceType.LINK, linkInstanceId, getServiceLimits())
                          .stream().peek(link -> decode(linkType, link))
                          .collect(toList());
@@ -287,6 +303,8 @@ public class AuditFacade extends AbstractFacade {
          throw new UnsupportedOperationException("Reverting audit log entries is not available on the free plan.");
       }
 
+      // buffered changes must be stored, so that the latest record is checked when reverting
+      auditProcessor.flush();
       final AuditRecord record = auditDao.getAuditRecord(auditRecordId);
 
       switch (record.getResourceType()) {
@@ -334,6 +352,7 @@ public class AuditFacade extends AbstractFacade {
       final Collection collection = collectionDao.getCollectionById(auditRecord.getParentId());
       final Document document = DocumentUtils.loadDocumentWithData(documentDao, dataDao, collection, auditRecord.getResourceId());
       permissionsChecker.checkEditDocument(collection, document);
+      checkCurrentState(auditRecord, constraintManager.decodeDataTypes(collection, document.getData()));
 
       if (auditRecord.getOldState() != null) {
          var keysToAdd = auditRecord.getAddedKeys();
@@ -351,13 +370,22 @@ public class AuditFacade extends AbstractFacade {
          Document storedDocument = documentDao.updateDocument(document.getId(), document);
          storedDocument.setData(storedData);
 
-         collectionAdapter.updateCollectionMetadata(collection, keysToAdd, keysToRemove);
+         updateCollectionMetadata(collection, keysToAdd, keysToRemove);
 
          sendDocumentPushNotifications(collection, storedDocument, PusherFacade.UPDATE_EVENT_SUFFIX);
          checkDeletedFileAttachments(auditRecord, storedData, collection.getAttributes());
       }
    }
 
+   private void checkCurrentState(final AuditRecord auditRecord, final DataDocument currentData) {
+      // changes buffered on another node are not in the audit log yet, but they are already in the data
+      final boolean changedSince = auditRecord.getNewState() != null && auditRecord.getNewState().entrySet().stream()
+                                                                                   .anyMatch(entry -> !Objects.equals(entry.getValue(), currentData.get(entry.getKey())));
+      if (changedSince) {
+         throw new UnsupportedOperationException("Cannot revert audit record that is not the last.");
+      }
+   }
+
    private void checkDeletedFileAttachments(final AuditRecord auditRecord, final DataDocument storedData, final java.util.Collection<Attribute> attributes) {
       List<Attribute> fileChangedAttributes = attributes.stream()
                                                         .filter(attribute -> attribute.getConstraintType() == ConstraintType.FileAttachment && attachmentsChangedForAttribute(auditRecord, attribute))
@@ -411,7 +439,7 @@ public class AuditFacade extends AbstractFacade {
 
    private void sendPushNotification(final List<Event> events) {
       if (pusherClient != null && events.size() > 0) {
-         pusherClient.trigger(events);
+         pusherDispatcher.dispatch(events);
       }
    }
 
@@ -433,7 +461,7 @@ public class AuditFacade extends AbstractFacade {
       DataDocument storedData = dataDao.createData(collection.getId(), storedDocument.getId(), document.getData());
       storedDocument.setData(storedData);
 
-      collectionAdapter.updateCollectionMetadata(collection, document.getData().keySet(), Collections.emptySet());
+      updateCollectionMetadata(collection, document.getData().keySet(), Collections.emptySet());
       sendDocumentPushNotifications(collection, storedDocument, PusherFacade.CREATE_EVENT_SUFFIX);
 
       checkAuditOnObjectRevert(auditRecord);
@@ -448,6 +476,7 @@ public class AuditFacade extends AbstractFacade {
       final LinkType linkType = linkTypeDao.getLinkType(auditRecord.getParentId());
       final LinkInstance linkInstance = LinkInstanceUtils.loadLinkInstanceWithData(linkInstanceDao, linkDataDao, auditRecord.getResourceId());
       permissionsChecker.checkEditLinkInstance(linkType, linkInstance);
+      checkCurrentState(auditRecord, constraintManager.decodeDataTypes(linkType, linkInstance.getData()));
 
       if (auditRecord.getOldState() != null) {
          var keysToAdd = auditRecord.getAddedKeys();
@@ -502,18 +531,14 @@ public class AuditFacade extends AbstractFacade {
       return auditAdapter.registerCreate(collection.getId(), ResourceType.DOCUMENT, newDocument.getId(), user, null, getCurrentViewId(), newDataDecoded);
    }
 
-   private AuditRecord registerDocumentUpdate(final Document oldDocument, final Document newDocument) {
+   private void registerDocumentUpdate(final Document oldDocument, final Document newDocument) {
       if (oldDocument == null || newDocument == null || oldDocument.getData() == null || newDocument.getData() == null ||
             !oldDocument.getId().equals(newDocument.getId())) {
          throw new UnsupportedOperationException("Cannot create audit record from different or incomplete documents.");
       }
 
-      final User user = authenticatedUser.getCurrentUser();
-      final Collection collection = collectionDao.getCollectionById(oldDocument.getCollectionId());
-      final DataDocument oldDataDecoded = constraintManager.decodeDataTypes(collection, oldDocument.getData());
-      final DataDocument newDataDecoded = constraintManager.decodeDataTypes(collection, newDocument.getData());
-
-      return auditAdapter.registerDataChange(collection.getId(), ResourceType.DOCUMENT, oldDocument.getId(), user, null, getCurrentViewId(), oldDocument.getData(), oldDataDecoded, newDocument.getData(), newDataDecoded);
+      auditProcessor.registerDataChange(getOrganization(), getProject(), oldDocument.getCollectionId(), ResourceType.DOCUMENT, oldDocument.getId(),
+            authenticatedUser.getCurrentUser(), getCurrentViewId(), oldDocument.getData(), newDocument.getData());
    }
 
    private AuditRecord registerDocumentDelete(final Document oldDocument) {
@@ -539,18 +564,14 @@ public class AuditFacade extends AbstractFacade {
       return auditAdapter.registerCreate(linkType.getId(), ResourceType.LINK, newLink.getId(), user, null, getCurrentViewId(), newDataDecoded);
    }
 
-   private AuditRecord registerLinkUpdate(final LinkInstance oldLink, final LinkInstance newLink) {
+   private void registerLinkUpdate(final LinkInstance oldLink, final LinkInstance newLink) {
       if (oldLink == null || newLink == null || oldLink.getData() == null || newLink.getData() == null ||
             !oldLink.getId().equals(newLink.getId())) {
          throw new UnsupportedOperationException("Cannot create audit record from different or incomplete link instances.");
       }
 
-      final User user = authenticatedUser.getCurrentUser();
-      final LinkType linkType = linkTypeDao.getLinkType(oldLink.getLinkTypeId());
-      final DataDocument oldDataDecoded = constraintManager.decodeDataTypes(linkType, oldLink.getData());
-      final DataDocument newDataDecoded = constraintManager.decodeDataTypes(linkType, newLink.getData());
-
-      return auditAdapter.registerDataChange(linkType.getId(), ResourceType.LINK, oldLink.getId(), user, null, getCurrentViewId(), oldLink.getData(), oldDataDecoded, newLink.getData(), newDataDecoded);
+      auditProcessor.registerDataChange(getOrganization(), getProject(), oldLink.getLinkTypeId(), ResourceType.LINK, oldLink.getId(),
+            authenticatedUser.getCurrentUser(), getCurrentViewId(), oldLink.getData(), newLink.getData());
    }
 
    private AuditRecord registerLinkDelete(final LinkInstance oldLink) {
@@ -651,6 +672,10 @@ public class AuditFacade extends AbstractFacade {
       }
    }
 
+   private void updateCollectionMetadata(final Collection collection, final Set<String> attributesIdsToInc, final Set<String> attributesIdsToDec) {
+      collectionUsageProcessor.addUsage(getOrganization(), getProject(), collection.getId(), collectionAdapter.updateCollectionMetadata(collection, attributesIdsToInc, attributesIdsToDec));
+   }
+
    private ServiceLimits getServiceLimits() {
       if (workspaceKeeper.getOrganization().isPresent()) {
          return paymentFacade.getCurrentServiceLimits(workspaceKeeper.getOrganization().get());
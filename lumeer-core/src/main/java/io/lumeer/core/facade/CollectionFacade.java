@@ -48,6 +48,7 @@ import io.lumeer.core.task.ContextualTaskFactory;
 import io.lumeer.core.task.RuleTask;
 import io.lumeer.core.task.TaskExecutor;
 import io.lumeer.core.util.CodeGenerator;
+import io.lumeer.core.util.CronRuleScheduler;
 import io.lumeer.core.util.DocumentUtils;
 import io.lumeer.engine.api.exception.UnsuccessfulOperationException;
 import io.lumeer.storage.api.dao.CollectionDao;
@@ -59,6 +60,7 @@ import io.lumeer.storage.api.dao.GroupDao;
 import io.lumeer.storage.api.dao.LinkInstanceDao;
 import io.lumeer.storage.api.dao.LinkTypeDao;
 import io.lumeer.storage.api.dao.ResourceCommentDao;
+import io.lumeer.storage.api.dao.ScheduledRuleDao;
 import io.lumeer.storage.api.dao.SelectionListDao;
 import io.lumeer.storage.api.dao.UserDao;
 import io.lumeer.storage.api.dao.ViewDao;
@@ -122,6 +124,9 @@ public class CollectionFacade extends AbstractFacade {
    @Inject
    private DefaultViewConfigDao defaultViewConfigDao;
 
+   @Inject
+   private ScheduledRuleDao scheduledRuleDao;
+
    @Inject
    private ContextualTaskFactory taskFactory;
 
@@ -161,6 +166,7 @@ public class CollectionFacade extends AbstractFacade {
       if (attributes.size() > 0 && permissionsChecker.hasRole(storedCollection, RoleType.AttributeEdit)) {
          storedCollection.setAttributes(createCollectionAttributes(storedCollection, attributes).getAttributes());
       }
+      scheduleCronRules(storedCollection);
 
       return storedCollection;
    }
@@ -190,7 +196,10 @@ public class CollectionFacade extends AbstractFacade {
       keepUnmodifiableFields(updatingCollection, storedCollection);
       mapResourceUpdateValues(collection);
 
-      return mapCollection(collectionDao.updateCollection(storedCollection.getId(), updatingCollection, storedCollection));
+      final Collection updatedCollection = collectionDao.updateCollection(storedCollection.getId(), updatingCollection, storedCollection);
+      scheduleCronRules(updatedCollection);
+
+      return mapCollection(updatedCollection);
    }
 
    public Collection updateRules(final String collectionId, final Collection collection, final boolean skipFceLimits) {
@@ -207,7 +216,10 @@ public class CollectionFacade extends AbstractFacade {
       keepUnmodifiableFields(updatingCollection, storedCollection);
       mapResourceUpdateValues(collection);
 
-      return mapCollection(collectionDao.updateCollection(storedCollection.getId(), updatingCollection, storedCollection));
+      final Collection updatedCollection = collectionDao.updateCollection(storedCollection.getId(), updatingCollection, storedCollection);
+      scheduleCronRules(updatedCollection);
+
+      return mapCollection(updatedCollection);
    }
 
    private Collection mapCollection(Collection collection) {
@@ -237,9 +249,17 @@ public class CollectionFacade extends AbstractFacade {
       mapResourceUpdateValues(collection);
 
       final Collection updatedCollection = collectionDao.updateCollection(collection.getId(), collection, originalCollection);
+      scheduleCronRules(updatedCollection);
+
       return mapCollection(updatedCollection);
    }
 
+   private void scheduleCronRules(final Collection collection) {
+      if (getOrganization() != null && getProject() != null) {
+         CronRuleScheduler.scheduleRules(scheduledRuleDao, getOrganization().getId(), getProject().getId(), collection);
+      }
+   }
+
    public Collection updatePurpose(final String collectionId, final CollectionPurpose purpose) {
       final Collection collection = collectionDao.getCollectionById(collectionId);
       permissionsChecker.checkRole(collection, RoleType.TechConfig);
@@ -258,6 +278,7 @@ public class CollectionFacade extends AbstractFacade {
       permissionsChecker.checkCanDelete(collection);
 
       collectionDao.deleteCollection(collectionId);
+      scheduledRuleDao.deleteRules(collectionId, Set.of());
 
       deleteCollectionBasedData(collectionId);
 
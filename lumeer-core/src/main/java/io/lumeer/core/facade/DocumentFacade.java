@@ -34,6 +34,7 @@ import io.lumeer.core.adapter.CollectionAdapter;
 import io.lumeer.core.adapter.DocumentAdapter;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.task.CollectionUsageProcessor;
 import io.lumeer.core.util.DocumentUtils;
 import io.lumeer.core.util.Tuple;
 import io.lumeer.core.util.Utils;
@@ -117,6 +118,9 @@ public class DocumentFacade extends AbstractFacade {
    @Inject
    private TaskProcessingFacade taskProcessingFacade;
 
+   @Inject
+   private CollectionUsageProcessor collectionUsageProcessor;
+
    private ConstraintManager constraintManager;
 
    private DocumentAdapter adapter;
@@ -157,7 +161,7 @@ public class DocumentFacade extends AbstractFacade {
 
       Document storedDocumentCopy = new Document(storedDocument);
 
-      collectionAdapter.updateCollectionMetadata(collection, data.keySet(), Collections.emptySet());
+      updateCollectionMetadata(collection, data.keySet(), Collections.emptySet());
 
       storedDocument.setData(constraintManager.decodeDataTypes(collection, storedData));
 
@@ -200,7 +204,7 @@ public class DocumentFacade extends AbstractFacade {
          storedDocument.setData(constraintManager.decodeDataTypes(collection, storedDocument.getData()));
       });
 
-      collectionAdapter.updateCollectionMetadata(collection, usages);
+      updateCollectionMetadata(collection, usages);
 
       if (sendNotification && importCollectionContentEvent != null) {
          importCollectionContentEvent.fire(new ImportCollectionContent(collection));
@@ -209,7 +213,7 @@ public class DocumentFacade extends AbstractFacade {
       return storedDocuments;
    }
 
-   protected List<Document> updateDocumentsData(final Collection collection, final List<Document> documents, final boolean sendNotification) {
+   protected List<Document> updateDocumentsData(final Collection collection, final List<Document> documents, final Map<String, Integer> attributesUsage, final boolean sendNotification) {
       permissionsChecker.checkRole(collection, RoleType.DataWrite);
 
       Set<String> ids = documents.stream().map(Document::getId).collect(Collectors.toSet());
@@ -220,8 +224,10 @@ public class DocumentFacade extends AbstractFacade {
          return data;
       }).collect(Collectors.toList());
 
-      dataDao.deleteData(collection.getId(), ids);
-      dataDao.createData(collection.getId(), newData);
+      dataDao.updateData(collection.getId(), newData);
+      documentDao.updateDocumentsUpdateInfo(ids, getCurrentUserId(), ZonedDateTime.now());
+
+      updateCollectionMetadata(collection, attributesUsage);
 
       if (sendNotification && importCollectionContentEvent != null) {
          importCollectionContentEvent.fire(new ImportCollectionContent(collection));
@@ -265,7 +271,7 @@ public class DocumentFacade extends AbstractFacade {
          return document;
       }
 
-      collectionAdapter.updateCollectionMetadata(collection, attributesIdsToAdd, attributesIdsToDec);
+      updateCollectionMetadata(collection, attributesIdsToAdd, attributesIdsToDec);
 
       DataDocument updatedData = dataDao.updateData(collection.getId(), documentId, data);
 
@@ -318,7 +324,7 @@ public class DocumentFacade extends AbstractFacade {
             var tuple = createDocument(collection, document);
             createdDocuments.add(tuple.getSecond());
             currentDocumentId = tuple.getFirst().getId();
-            collectionAdapter.updateCollectionMetadata(collection, tuple.getSecond().getData().keySet(), Collections.emptySet());
+            updateCollectionMetadata(collection, tuple.getSecond().getData().keySet(), Collections.emptySet());
          }
 
          var linkInstance = linkInstances.size() > linkInstanceIndex ? linkInstances.get(linkInstanceIndex) : null;
@@ -399,7 +405,7 @@ public class DocumentFacade extends AbstractFacade {
          return document;
       }
 
-      collectionAdapter.updateCollectionMetadata(collection, attributesIdsToAdd, Collections.emptySet());
+      updateCollectionMetadata(collection, attributesIdsToAdd, Collections.emptySet());
 
       DataDocument patchedData = dataDao.patchData(collection.getId(), documentId, data);
 
@@ -477,7 +483,7 @@ public class DocumentFacade extends AbstractFacade {
       final Collection collection = tuple.getFirst();
       final Document document = tuple.getSecond();
 
-      collectionAdapter.updateCollectionMetadata(collection, Collections.emptySet(), document.getData().keySet());
+      updateCollectionMetadata(collection, Collections.emptySet(), document.getData().keySet());
 
       documentDao.deleteDocument(documentId, document.getData());
       dataDao.deleteData(collection.getId(), documentId);
@@ -572,7 +578,7 @@ public class DocumentFacade extends AbstractFacade {
          this.createChainEvent.fire(new CreateDocumentsAndLinks(documents, Collections.emptyList()));
       }
 
-      collectionAdapter.updateCollectionMetadata(collection, usages);
+      updateCollectionMetadata(collection, usages);
 
       return documents;
    }
@@ -650,6 +656,14 @@ public class DocumentFacade extends AbstractFacade {
                       .collect(Collectors.toList());
    }
 
+   private void updateCollectionMetadata(Collection collection, Set<String> attributesIdsToInc, Set<String> attributesIdsToDec) {
+      collectionUsageProcessor.addUsage(getOrganization(), getProject(), collection.getId(), collectionAdapter.updateCollectionMetadata(collection, attributesIdsToInc, attributesIdsToDec));
+   }
+
+   private void updateCollectionMetadata(Collection collection, Map<String, Integer> attributesToInc) {
+      collectionUsageProcessor.addUsage(getOrganization(), getProject(), collection.getId(), collectionAdapter.updateCollectionMetadata(collection, attributesToInc));
+   }
+
    private Project getCurrentProject() {
       if (workspaceKeeper.getProject().isEmpty()) {
          throw new ResourceNotFoundException(ResourceType.PROJECT);
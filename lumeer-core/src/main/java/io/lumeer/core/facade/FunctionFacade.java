@@ -31,7 +31,7 @@ import io.lumeer.api.util.ResourceUtils;
 import io.lumeer.core.adapter.LinkTypeAdapter;
 import io.lumeer.core.task.ContextualTaskFactory;
 import io.lumeer.core.task.FunctionTask;
-import io.lumeer.core.util.FunctionOrder;
+import io.lumeer.core.util.FunctionGraph;
 import io.lumeer.core.util.FunctionXmlParser;
 import io.lumeer.core.util.Utils;
 import io.lumeer.engine.api.data.DataDocument;
@@ -51,7 +51,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
@@ -80,6 +79,7 @@ public class FunctionFacade extends AbstractFacade {
    private ContextualTaskFactory contextualTaskFactory;
 
    private LinkTypeAdapter linkTypeAdapter;
+   private FunctionGraph functionGraph;
 
    @PostConstruct
    public void init() {
@@ -104,6 +104,7 @@ public class FunctionFacade extends AbstractFacade {
       List<FunctionRow> functionRows = createCollectionRowsFromXml(collection, attribute);
       if (!functionRows.isEmpty()) {
          functionDao.createRows(functionRows);
+         invalidateFunctionGraph();
       }
 
       Deque<FunctionParameterDocuments> queue = createQueueForCollection(collection, attribute, functionRows);
@@ -136,22 +137,28 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    private Deque<FunctionParameterDocuments> orderFunctions(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap) {
-      Deque<FunctionParameterDocuments> queue = FunctionOrder.orderFunctions(parametersMap);
+      if (parametersMap.isEmpty()) {
+         return new LinkedList<>();
+      }
+      return getFunctionGraph().orderFunctions(parametersMap.keySet());
+   }
 
-      Deque<FunctionParameterDocuments> mappedQueue = new LinkedList<>();
-      for (final FunctionParameterDocuments functionParameterDocuments : queue) {
-         Optional<FunctionParameterDocuments> first = parametersMap.keySet().stream().filter(param -> param.equals(functionParameterDocuments)).findFirst();
-         first.ifPresent(mappedQueue::add);
+   private FunctionGraph getFunctionGraph() {
+      if (functionGraph == null) {
+         functionGraph = new FunctionGraph(functionDao.getAllRows());
       }
+      return functionGraph;
+   }
 
-      return mappedQueue;
+   private void invalidateFunctionGraph() {
+      functionGraph = null;
    }
 
    private void fillParametersMapForCollection(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, FunctionParameterDocuments parentParameter) {
-      List<FunctionRow> functionRows = functionDao.searchByDependentCollection(parentParameter.getResourceId(), parentParameter.getAttributeId());
+      List<FunctionRow> functionRows = getFunctionGraph().searchByDependentCollection(parentParameter.getResourceId(), parentParameter.getAttributeId());
 
       functionRows.forEach(row -> {
-         List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+         List<FunctionRow> rows = getFunctionGraph().searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
          Set<String> documentIds = parentParameter.getDocuments().stream().map(Document::getId).collect(Collectors.toSet());
 
          FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
@@ -177,10 +184,10 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    private void fillParametersMapForLinkType(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, FunctionParameterDocuments parentParameter) {
-      List<FunctionRow> functionRows = functionDao.searchByDependentLinkType(parentParameter.getResourceId(), parentParameter.getAttributeId());
+      List<FunctionRow> functionRows = getFunctionGraph().searchByDependentLinkType(parentParameter.getResourceId(), parentParameter.getAttributeId());
 
       functionRows.forEach(row -> {
-         List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+         List<FunctionRow> rows = getFunctionGraph().searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
          Set<String> linkInstanceIds = parentParameter.getLinkInstances().stream().map(LinkInstance::getId).collect(Collectors.toSet());
 
          FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
@@ -263,12 +270,14 @@ public class FunctionFacade extends AbstractFacade {
 
    public void onDeleteCollectionFunction(String collectionId, String attributeId) {
       functionDao.deleteByCollection(collectionId, attributeId);
+      invalidateFunctionGraph();
    }
 
    public FunctionTask createTaskForCreatedLinkFunction(LinkType linkType, Attribute attribute) {
       List<FunctionRow> functionRows = createLinkRowsFromXml(linkType, attribute);
       if (!functionRows.isEmpty()) {
          functionDao.createRows(functionRows);
+         invalidateFunctionGraph();
       }
 
       Deque<FunctionParameterDocuments> queue = createQueueForLinkType(linkType, attribute, functionRows);
@@ -307,6 +316,7 @@ public class FunctionFacade extends AbstractFacade {
 
    public void onDeleteLinkTypeFunction(String collectionId, String attributeId) {
       functionDao.deleteByLinkType(collectionId, attributeId);
+      invalidateFunctionGraph();
    }
 
    public FunctionTask createTaskForCreatedDocument(Collection collection, Document document) {
@@ -326,7 +336,7 @@ public class FunctionFacade extends AbstractFacade {
             parameter.setCollection(collection);
             parameter.setAttribute(attribute);
 
-            List<FunctionRow> functionRows = functionDao.searchByResource(collection.getId(), attribute.getId(), FunctionResourceType.COLLECTION);
+            List<FunctionRow> functionRows = getFunctionGraph().searchByResource(collection.getId(), attribute.getId(), FunctionResourceType.COLLECTION);
             parametersMap.put(parameter, functionRows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
             fillParametersMapForCollection(parametersMap, parameter);
          }
@@ -377,11 +387,11 @@ public class FunctionFacade extends AbstractFacade {
 
       attributeIds.forEach(attributeId -> {
 
-         List<FunctionRow> functionRows = functionDao.searchByDependentCollection(collectionId, attributeId);
+         List<FunctionRow> functionRows = getFunctionGraph().searchByDependentCollection(collectionId, attributeId);
 
          functionRows.forEach(row -> {
             FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-            List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+            List<FunctionRow> rows = getFunctionGraph().searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
             if (!parametersMap.containsKey(parameter)) {
                if (row.getType() == FunctionResourceType.COLLECTION) {
                   Set<Document> documents = findDocumentsForRow(row, Collections.singleton(documentId));
@@ -437,7 +447,7 @@ public class FunctionFacade extends AbstractFacade {
             parameter.setLinkType(linkType);
             parameter.setAttribute(attribute);
 
-            List<FunctionRow> functionRows = functionDao.searchByResource(linkType.getId(), attribute.getId(), FunctionResourceType.LINK);
+            List<FunctionRow> functionRows = getFunctionGraph().searchByResource(linkType.getId(), attribute.getId(), FunctionResourceType.LINK);
             parametersMap.put(parameter, functionRows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
             fillParametersMapForLinkType(parametersMap, parameter);
          }
@@ -449,10 +459,10 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    private void fillParametersMapForDependentLinkType(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, LinkType linkType, Set<LinkInstance> linkInstances, List<Document> additionalDocuments, final List<String> skipCollectionIds) {
-      List<FunctionRow> dependentRows = functionDao.searchByDependentLinkType(linkType.getId(), null);
+      List<FunctionRow> dependentRows = getFunctionGraph().searchByDependentLinkType(linkType.getId(), null);
       dependentRows.forEach(row -> {
          FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-         List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+         List<FunctionRow> rows = getFunctionGraph().searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
 
          if (!parametersMap.containsKey(parameter)) {
             if (row.getType() == FunctionResourceType.COLLECTION) {
@@ -508,11 +518,11 @@ public class FunctionFacade extends AbstractFacade {
 
    private void fillParametersMapForLinkChanged(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, String linkTypeId, java.util.Collection<String> attributeIds, String linkInstanceId) {
       attributeIds.forEach(attributeId -> {
-         List<FunctionRow> functionRows = functionDao.searchByDependentLinkType(linkTypeId, attributeId);
+         List<FunctionRow> functionRows = getFunctionGraph().searchByDependentLinkType(linkTypeId, attributeId);
 
          functionRows.forEach(row -> {
             FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-            List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+            List<FunctionRow> rows = getFunctionGraph().searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
             if (!parametersMap.containsKey(parameter)) {
                if (row.getType() == FunctionResourceType.COLLECTION) {
                   Set<Document> documents = findDocumentsForRowByLinkInstances(row, Collections.singleton(linkInstanceId));
@@ -572,10 +582,12 @@ public class FunctionFacade extends AbstractFacade {
    private void deleteRowsByResourceId(FunctionResourceType type, List<FunctionRow> functionRows) {
       String[] resourceIdsToDelete = functionRows.stream().map(FunctionRow::getResourceId).toArray(String[]::new);
       functionDao.deleteByResources(type, resourceIdsToDelete);
+      invalidateFunctionGraph();
    }
 
    private void deleteRows(List<FunctionRow> functionRows) {
       functionDao.deleteByIds(functionRows.stream().map(FunctionRow::getId).collect(Collectors.toList()));
+      invalidateFunctionGraph();
    }
 
    private Set<Document> findDocumentsForRow(FunctionRow row, Set<String> documentIds) {
@@ -20,22 +20,19 @@ package io.lumeer.core.facade;
 
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.ConstraintType;
 import io.lumeer.api.model.Document;
 import io.lumeer.api.model.ImportType;
 import io.lumeer.api.model.ImportedCollection;
 import io.lumeer.api.model.RoleType;
 import io.lumeer.api.util.AttributeUtil;
-import io.lumeer.core.adapter.SearchAdapter;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
-import io.lumeer.core.util.Utils;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.engine.api.event.ImportCollectionContent;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
 import io.lumeer.storage.api.dao.DocumentDao;
-import io.lumeer.storage.api.dao.LinkDataDao;
-import io.lumeer.storage.api.dao.LinkInstanceDao;
 
 import com.univocity.parsers.csv.CsvParser;
 import com.univocity.parsers.csv.CsvParserSettings;
@@ -44,15 +41,21 @@ import org.apache.commons.text.translate.CharSequenceTranslator;
 import org.apache.commons.text.translate.EntityArrays;
 import org.apache.commons.text.translate.LookupTranslator;
 
+import java.io.Reader;
 import java.io.StringReader;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
@@ -64,7 +67,10 @@ public class ImportFacade extends AbstractFacade {
 
    public static final String FORMAT_CSV = "csv";
 
+   private static final Logger log = Logger.getLogger(ImportFacade.class.getName());
+
    private static final int MAX_PARSED_DOCUMENTS = 1000;
+   private static final int PROGRESS_LOG_ROWS = 50_000;
 
    private static final CharSequenceTranslator TRANSLATOR = new LookupTranslator(EntityArrays.BASIC_ESCAPE);
 
@@ -83,25 +89,17 @@ public class ImportFacade extends AbstractFacade {
    @Inject
    private DataDao dataDao;
 
-   @Inject
-   private LinkInstanceDao linkInstanceDao;
-
-   @Inject
-   private LinkDataDao linkDataDao;
-
    @Inject
    private DefaultConfigurationProducer configurationProducer;
 
    @Inject
    private Event<ImportCollectionContent> importCollectionContentEvent;
 
-   private SearchAdapter searchAdapter;
+   private ConstraintManager constraintManager;
 
    @PostConstruct
    public void init() {
-      ConstraintManager constraintManager = ConstraintManager.getInstance(configurationProducer);
-
-      searchAdapter = new SearchAdapter(permissionsChecker.getPermissionAdapter(), constraintManager, documentDao, dataDao, linkInstanceDao, linkDataDao);
+      constraintManager = ConstraintManager.getInstance(configurationProducer);
    }
 
    public Collection importDocuments(String format, ImportedCollection importedCollection) {
@@ -118,7 +116,17 @@ public class ImportFacade extends AbstractFacade {
       return importDocuments(collection, format, importedCollection.getData(), importedCollection.getType(), importedCollection.getMergeAttributeId());
    }
 
+   public Collection importDocuments(String collectionId, String format, ImportType type, String mergeAttributeId, Reader data) {
+      Collection collection = collectionFacade.getCollection(collectionId);
+
+      return importDocuments(collection, format, data, type != null ? type : ImportType.APPEND, mergeAttributeId);
+   }
+
    private Collection importDocuments(Collection collection, String format, String data, ImportType type, String key) {
+      return importDocuments(collection, format, new StringReader(data == null || data.trim().isEmpty() ? "" : data), type, key);
+   }
+
+   private Collection importDocuments(Collection collection, String format, Reader data, ImportType type, String key) {
       permissionsChecker.checkCreateDocuments(collection);
 
       switch (type) {
@@ -155,69 +163,105 @@ public class ImportFacade extends AbstractFacade {
       return nameWithSuffix;
    }
 
-   private Collection parseCSVFile(Collection collection, String data, ImportType importType, String mergeAttributeId) {
-      if (data == null || data.trim().isEmpty()) {
-         return collection;
-      }
+   private Collection parseCSVFile(Collection collection, Reader data, ImportType importType, String mergeAttributeId) {
       CsvParserSettings settings = new CsvParserSettings();
       settings.setMaxCharsPerColumn(16 * 1024);
       settings.detectFormatAutomatically(',', ';');
       settings.setHeaderExtractionEnabled(true);
 
       CsvParser parser = new CsvParser(settings);
-      parser.beginParsing(new StringReader(data));
+      parser.beginParsing(data);
+
+      // the index only speeds up the merge, it is dropped after the import so it does not limit later writes
+      String indexedAttributeId = null;
+      try {
+         String[] rawHeaders = parser.getRecordMetadata().headers();
+         String[] headers = rawHeaders != null ? parseHeaderNames(rawHeaders) : new String[0];
 
-      String[] headers = parseHeaderNames(parser.getRecordMetadata().headers());
+         if (headers.length == 0) {
+            return collection;
+         }
+
+         collection = createAttributes(collection, headers);
+         String[] headerIds = createHeaderIds(collection, headers);
+
+         Attribute mergeAttribute = ImportType.UPDATE.equals(importType) ?
+               collection.getAttributes().stream().filter(attr -> attr.getId().equals(mergeAttributeId)).findFirst().orElse(null) : null;
+         if (mergeAttribute != null && canLookupMergeKeys(mergeAttribute) && dataDao.createAttributeIndex(collection.getId(), mergeAttribute.getId())) {
+            indexedAttributeId = mergeAttribute.getId();
+         }
+
+         // only documents existing before the import can be merged, and each of them at most once
+         ZonedDateTime importStart = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+         Set<String> mergedDocumentIds = new HashSet<>();
+         Map<String, List<Document>> allMergeDocuments = mergeAttribute != null && !canLookupMergeKeys(mergeAttribute) ? getAllDocumentsByKey(collection, mergeAttribute) : null;
+
+         long documentsCount = collection.getDocumentsCount();
+         long rowsCount = 0;
 
-      if (headers.length == 0) {
-         return collection;
+         // rows are written in batches, so the memory does not grow with the size of the imported file
+         List<Document> rows = new ArrayList<>(MAX_PARSED_DOCUMENTS);
+         String[] row;
+         while ((row = parser.parseNext()) != null) {
+            rows.add(createDocumentFromRow(headerIds, row));
+
+            if (rows.size() >= MAX_PARSED_DOCUMENTS) {
+               documentsCount += importRows(collection, rows, mergeAttribute, mergedDocumentIds, importStart, allMergeDocuments);
+            }
+
+            if (++rowsCount % PROGRESS_LOG_ROWS == 0) {
+               log.info(String.format("Imported %d rows into collection %s.", rowsCount, collection.getId()));
+            }
+         }
+
+         documentsCount += importRows(collection, rows, mergeAttribute, mergedDocumentIds, importStart, allMergeDocuments);
+
+         // attributes usage is counted by the document facade for both created and updated documents
+         collection.setDocumentsCount(documentsCount);
+         collection.setLastTimeUsed(ZonedDateTime.now());
+      } finally {
+         parser.stopParsing();
+         if (indexedAttributeId != null) {
+            dataDao.dropAttributeIndex(collection.getId(), indexedAttributeId);
+         }
       }
 
-      collection = createAttributes(collection, headers);
-      String[] headerIds = createHeaderIds(collection, headers);
+      if (importCollectionContentEvent != null) {
+         importCollectionContentEvent.fire(new ImportCollectionContent(collection));
+      }
 
-      Attribute mergeAttribute = ImportType.UPDATE.equals(importType) ?
-            collection.getAttributes().stream().filter(attr -> attr.getId().equals(mergeAttributeId)).findFirst().orElse(null) : null;
-      Map<String, List<Document>> mergeDocuments = getDocumentsByKey(collection, mergeAttribute);
+      return collection;
+   }
 
-      int[] counts = new int[headers.length];
-      long documentsCount = collection.getDocumentsCount();
+   private int importRows(Collection collection, List<Document> rows, Attribute mergeAttribute, Set<String> mergedDocumentIds, ZonedDateTime importStart, Map<String, List<Document>> allMergeDocuments) {
+      Map<String, List<Document>> mergeDocuments = allMergeDocuments != null ? allMergeDocuments : getDocumentsByKey(collection, mergeAttribute, rows, mergedDocumentIds, importStart);
 
       List<Document> documentsToCreate = new ArrayList<>();
       List<Document> documentsToUpdate = new ArrayList<>();
-      String[] row;
-      while ((row = parser.parseNext()) != null) {
-         Document document = createDocumentFromRow(headerIds, row, counts);
+      Map<String, Integer> updatedUsages = new HashMap<>();
+      for (Document document : rows) {
          Document toMerge = checkMergeDocument(document, mergeAttribute, mergeDocuments);
          if (toMerge != null) {
+            addUsageChanges(updatedUsages, toMerge.getData(), document.getData());
             toMerge.setData(document.getData());
+            mergedDocumentIds.add(toMerge.getId());
             documentsToUpdate.add(toMerge);
          } else {
             addDocumentMetadata(collection.getId(), document);
             documentsToCreate.add(document);
          }
-
       }
+      rows.clear();
 
       if (documentsToUpdate.size() > 0) {
-         documentFacade.updateDocumentsMetaData(collection, documentsToUpdate, false);
-         documentFacade.updateDocumentsData(collection, documentsToUpdate, false);
-      }
-
-      while (documentsToCreate.size() > 0) {
-         List<Document> slice = Utils.sublistAndRemove(documentsToCreate, 0, MAX_PARSED_DOCUMENTS);
-         documentsCount += documentFacade.createDocuments(collection.getId(), slice, false).size();
+         documentFacade.updateDocumentsData(collection, documentsToUpdate, updatedUsages, false);
       }
 
-      parser.stopParsing();
-
-      addCollectionMetadata(collection, headerIds, counts, documentsCount);
-
-      if (importCollectionContentEvent != null) {
-         importCollectionContentEvent.fire(new ImportCollectionContent(collection));
+      if (documentsToCreate.size() > 0) {
+         return documentFacade.createDocuments(collection.getId(), documentsToCreate, false).size();
       }
 
-      return collection;
+      return 0;
    }
 
    private String[] parseHeaderNames(String[] rawHeaders) {
@@ -260,14 +304,55 @@ public class ImportFacade extends AbstractFacade {
       return null;
    }
 
-   private Map<String, List<Document>> getDocumentsByKey(Collection collection, Attribute attribute) {
-      if (attribute == null) {
+   private Map<String, List<Document>> getDocumentsByKey(Collection collection, Attribute attribute, List<Document> rows, Set<String> excludedIds, ZonedDateTime createdBefore) {
+      if (attribute == null || rows.isEmpty()) {
+         return Collections.emptyMap();
+      }
+
+      Set<String> keys = rows.stream().map(row -> getDocumentKey(row, attribute)).collect(Collectors.toSet());
+
+      // values are stored encoded by the constraint of the attribute (e.g. dates)
+      Set<Object> values = new HashSet<>(keys);
+      keys.forEach(key -> {
+         Object encodedKey = constraintManager.encode(key, attribute.getConstraint());
+         if (encodedKey != null) {
+            values.add(encodedKey);
+         }
+      });
+
+      Map<String, DataDocument> dataById = dataDao.getDataByAttributeValues(collection.getId(), attribute.getId(), values)
+                                                 .stream()
+                                                 .filter(data -> !excludedIds.contains(data.getId()))
+                                                 .collect(Collectors.toMap(DataDocument::getId, Function.identity()));
+      if (dataById.isEmpty()) {
          return Collections.emptyMap();
       }
 
-      return searchAdapter.getAllDocuments(collection, null, null)
-                          .stream()
-                          .collect(Collectors.groupingBy(document -> this.getDocumentKey(document, attribute)));
+      // the database matches values by type as well, so the keys are compared once more on the decoded data
+      return documentDao.getDocumentsByCollection(collection.getId(), dataById.keySet())
+                        .stream()
+                        .filter(document -> document.getCreationDate() == null || document.getCreationDate().isBefore(createdBefore))
+                        .sorted(Comparator.comparing(Document::getId))
+                        .peek(document -> document.setData(constraintManager.decodeDataTypes(collection, dataById.get(document.getId()))))
+                        .filter(document -> keys.contains(getDocumentKey(document, attribute)))
+                        .collect(Collectors.groupingBy(document -> getDocumentKey(document, attribute)));
+   }
+
+   private boolean canLookupMergeKeys(Attribute attribute) {
+      // stored coordinates do not have to match the encoded key, they are compared on the decoded values only
+      return attribute.getConstraint() == null || attribute.getConstraint().getType() != ConstraintType.Coordinates;
+   }
+
+   private Map<String, List<Document>> getAllDocumentsByKey(Collection collection, Attribute attribute) {
+      Map<String, DataDocument> dataById = dataDao.getData(collection.getId())
+                                                 .stream()
+                                                 .collect(Collectors.toMap(DataDocument::getId, Function.identity()));
+
+      return documentDao.getDocumentsByCollection(collection.getId())
+                        .stream()
+                        .sorted(Comparator.comparing(Document::getId))
+                        .peek(document -> document.setData(constraintManager.decodeDataTypes(collection, dataById.getOrDefault(document.getId(), new DataDocument()))))
+                        .collect(Collectors.groupingBy(document -> getDocumentKey(document, attribute)));
    }
 
    private String getDocumentKey(Document document, Attribute attribute) {
@@ -278,19 +363,10 @@ public class ImportFacade extends AbstractFacade {
       return "";
    }
 
-   private void addCollectionMetadata(Collection collection, String[] headersIds, int[] counts, long documentsCount) {
-      final Collection originalCollection = collection.copy();
-      List<String> headerIdsList = Arrays.asList(headersIds);
-      collection.getAttributes().forEach(attr -> {
-         int index = headerIdsList.indexOf(attr.getId());
-         if (index != -1) {
-            attr.setUsageCount(counts[index]);
-         }
-      });
-      collection.setDocumentsCount(documentsCount);
-
-      collection.setLastTimeUsed(ZonedDateTime.now());
-      collectionDao.updateCollection(collection.getId(), collection, originalCollection);
+   private void addUsageChanges(Map<String, Integer> usages, DataDocument originalData, DataDocument data) {
+      Set<String> originalKeys = originalData != null ? originalData.keySet() : Collections.emptySet();
+      data.keySet().stream().filter(key -> !originalKeys.contains(key)).forEach(key -> usages.merge(key, 1, Integer::sum));
+      originalKeys.stream().filter(key -> !data.containsKey(key)).forEach(key -> usages.merge(key, -1, Integer::sum));
    }
 
    private Collection createAttributes(Collection collection, String[] headers) {
@@ -308,13 +384,12 @@ public class ImportFacade extends AbstractFacade {
       document.setCreationDate(ZonedDateTime.now());
    }
 
-   private Document createDocumentFromRow(String[] headers, String[] row, int[] counts) {
+   private Document createDocumentFromRow(String[] headers, String[] row) {
       final DataDocument d = new DataDocument();
 
       for (int i = 0; i < Math.min(headers.length, row.length); i++) {
          if (row[i] != null) {
             d.append(headers[i], TRANSLATOR.translate(row[i]));
-            counts[i]++;
          }
       }
 
@@ -225,6 +225,7 @@ public class OrganizationFacade extends AbstractFacade {
             userOrganizations.addAll(organizationsWithoutPermissions);
             user.setOrganizations(userOrganizations);
             userDao.updateUser(user.getId(), user);
+            userCache.removeUser(user.getEmail());
          }
       }
    }
@@ -439,6 +440,7 @@ public class OrganizationFacade extends AbstractFacade {
       currentUser.setOrganizations(groups);
 
       userDao.updateUser(currentUser.getId(), currentUser);
+      userCache.updateUser(currentUser.getEmail(), currentUser);
    }
 
    private void createOrganizationScopedRepositories(Organization organization) {
@@ -0,0 +1,351 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.facade;
+
+import io.lumeer.api.model.common.WithId;
+import io.lumeer.core.util.PusherClient;
+
+import org.marvec.pusher.data.Event;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Sends push notifications in background so that the requests do not wait for Pusher. Events are split by their
+ * channel among a few workers, each worker sends the events of its channels in order. Events waiting to be sent
+ * are coalesced, when an object changes again within the waiting window, only its latest state is sent.
+ * Producers are blocked when a worker falls behind.
+ */
+@ApplicationScoped
+public class PusherDispatcher {
+
+   private static final int WORKERS = 4;
+   private static final int BATCH_SIZE = 10; // maximal number of events in a single Pusher batch request
+   private static final int MAX_PENDING_EVENTS = 10_000; // per worker
+   private static final long COALESCE_WINDOW_MILLIS = 50;
+   private static final long MAX_OFFER_WAIT_MILLIS = 5_000;
+   private static final long STATISTICS_LOG_INTERVAL_MILLIS = 60_000;
+
+   @Inject
+   private Logger log;
+
+   @Inject
+   private PusherHelperFacade pusherHelperFacade;
+
+   private PusherClient pusherClient;
+
+   private final List<Worker> workers = new ArrayList<>();
+
+   private final AtomicLong sentEvents = new AtomicLong();
+   private final AtomicLong sentBatches = new AtomicLong();
+   private final AtomicLong failedBatches = new AtomicLong();
+   private final AtomicLong coalescedEvents = new AtomicLong();
+   private final AtomicLong droppedEvents = new AtomicLong();
+   private final AtomicLong sendNanos = new AtomicLong();
+   private final AtomicLong maxSendNanos = new AtomicLong();
+   private final AtomicLong lastStatisticsLog = new AtomicLong(System.currentTimeMillis());
+
+   private volatile boolean running;
+
+   @PostConstruct
+   public void init() {
+      pusherClient = pusherHelperFacade.getPusherClient();
+
+      if (pusherClient != null) {
+         running = true;
+         for (int i = 0; i < WORKERS; i++) {
+            final Worker worker = new Worker();
+            final Thread thread = new Thread(worker, "pusher-dispatcher-" + i);
+            thread.setDaemon(true);
+            worker.thread = thread;
+            workers.add(worker);
+            thread.start();
+         }
+      }
+   }
+
+   @PreDestroy
+   public void destroy() {
+      running = false;
+      workers.forEach(worker -> {
+         worker.wakeUp();
+         try {
+            worker.thread.join(TimeUnit.SECONDS.toMillis(5));
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      });
+   }
+
+   /**
+    * Queues the events to be sent. Blocks while the queue of the corresponding worker is full.
+    *
+    * @param events
+    *       Events to send.
+    */
+   public void dispatch(final List<Event> events) {
+      if (pusherClient == null || events == null) {
+         return;
+      }
+
+      if (!running) {
+         send(events);
+         return;
+      }
+
+      for (final Event event : events) {
+         final Worker worker = workers.get(Math.floorMod(event.getChannel().hashCode(), workers.size()));
+         try {
+            if (!worker.offer(event)) {
+               droppedEvents.incrementAndGet();
+               log.log(Level.WARNING, "Push notification queue is full, dropping event " + event.getName() + " for " + event.getChannel());
+            }
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+         }
+      }
+   }
+
+   public Statistics getStatistics() {
+      final int queueDepth = workers.stream().mapToInt(Worker::size).sum();
+      return new Statistics(queueDepth, sentEvents.get(), sentBatches.get(), failedBatches.get(), coalescedEvents.get(), droppedEvents.get(), sendNanos.get(), maxSendNanos.get());
+   }
+
+   private void send(final List<Event> events) {
+      for (int i = 0; i < events.size(); i += BATCH_SIZE) {
+         final List<Event> batch = events.subList(i, Math.min(i + BATCH_SIZE, events.size()));
+         final long start = System.nanoTime();
+         try {
+            pusherClient.trigger(batch);
+            sentEvents.addAndGet(batch.size());
+            sentBatches.incrementAndGet();
+         } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            log.log(Level.WARNING, "Unable to send push notification: ", e);
+         }
+         final long duration = System.nanoTime() - start;
+         sendNanos.addAndGet(duration);
+         maxSendNanos.accumulateAndGet(duration, Math::max);
+      }
+
+      logStatistics();
+   }
+
+   private void logStatistics() {
+      final long now = System.currentTimeMillis();
+      final long last = lastStatisticsLog.get();
+      if (now - last >= STATISTICS_LOG_INTERVAL_MILLIS && lastStatisticsLog.compareAndSet(last, now) && log.isLoggable(Level.FINE)) {
+         log.fine(getStatistics().toString());
+      }
+   }
+
+   private static String getObjectKey(final Event event) {
+      final Object data = event.getData();
+      final Object object = data instanceof PusherFacade.ObjectWithParent ? ((PusherFacade.ObjectWithParent) data).getObject() : data;
+
+      final String id;
+      if (object instanceof PusherFacade.ResourceId) {
+         id = ((PusherFacade.ResourceId) object).getId();
+      } else if (object instanceof WithId) {
+         id = ((WithId) object).getId();
+      } else {
+         id = null;
+      }
+
+      return id != null ? event.getChannel() + "/" + id : null;
+   }
+
+   private class Worker implements Runnable {
+
+      private final Deque<Slot> slots = new ArrayDeque<>();
+      private final Map<String, Slot> lastSlots = new HashMap<>();
+      private Thread thread;
+
+      private synchronized boolean offer(final Event event) throws InterruptedException {
+         final String key = getObjectKey(event);
+
+         // the latest waiting event of the same object with the same name is replaced, the order of events is kept
+         final Slot lastSlot = key != null ? lastSlots.get(key) : null;
+         if (lastSlot != null && lastSlot.event.getName().equals(event.getName())) {
+            lastSlot.event = event;
+            coalescedEvents.incrementAndGet();
+            return true;
+         }
+
+         final long deadline = System.currentTimeMillis() + MAX_OFFER_WAIT_MILLIS;
+         while (slots.size() >= MAX_PENDING_EVENTS) {
+            final long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+               return false;
+            }
+            wait(remaining);
+         }
+
+         final Slot slot = new Slot(event);
+         slots.add(slot);
+         if (key != null) {
+            lastSlots.put(key, slot);
+         }
+         notifyAll();
+
+         return true;
+      }
+
+      private synchronized List<Event> take() throws InterruptedException {
+         while (slots.isEmpty() && running) {
+            wait();
+         }
+
+         final long deadline = System.currentTimeMillis() + COALESCE_WINDOW_MILLIS;
+         long remaining;
+         while (running && (remaining = deadline - System.currentTimeMillis()) > 0) {
+            wait(remaining);
+         }
+
+         final List<Event> events = new ArrayList<>(slots.size());
+         slots.forEach(slot -> events.add(slot.event));
+         slots.clear();
+         lastSlots.clear();
+         notifyAll();
+
+         return events;
+      }
+
+      private synchronized int size() {
+         return slots.size();
+      }
+
+      private synchronized void wakeUp() {
+         notifyAll();
+      }
+
+      @Override
+      public void run() {
+         while (true) {
+            try {
+               final List<Event> events = take();
+               if (!events.isEmpty()) {
+                  send(events);
+               } else if (!running) {
+                  return;
+               }
+            } catch (InterruptedException e) {
+               return;
+            } catch (Exception e) {
+               log.log(Level.WARNING, "Unable to send push notifications: ", e);
+            }
+         }
+      }
+   }
+
+   private static class Slot {
+      private Event event;
+
+      private Slot(final Event event) {
+         this.event = event;
+      }
+   }
+
+   public static class Statistics {
+      private final int queueDepth;
+      private final long sentEvents;
+      private final long sentBatches;
+      private final long failedBatches;
+      private final long coalescedEvents;
+      private final long droppedEvents;
+      private final long sendNanos;
+      private final long maxSendNanos;
+
+      public Statistics(final int queueDepth, final long sentEvents, final long sentBatches, final long failedBatches, final long coalescedEvents, final long droppedEvents, final long sendNanos, final long maxSendNanos) {
+         this.queueDepth = queueDepth;
+         this.sentEvents = sentEvents;
+         this.sentBatches = sentBatches;
+         this.failedBatches = failedBatches;
+         this.coalescedEvents = coalescedEvents;
+         this.droppedEvents = droppedEvents;
+         this.sendNanos = sendNanos;
+         this.maxSendNanos = maxSendNanos;
+      }
+
+      public int getQueueDepth() {
+         return queueDepth;
+      }
+
+      public long getSentEvents() {
+         return sentEvents;
+      }
+
+      public long getSentBatches() {
+         return sentBatches;
+      }
+
+      public long getFailedBatches() {
+         return failedBatches;
+      }
+
+      public long getCoalescedEvents() {
+         return coalescedEvents;
+      }
+
+      public long getDroppedEvents() {
+         return droppedEvents;
+      }
+
+      public double getAverageBatchSize() {
+         return sentBatches > 0 ? (double) sentEvents / sentBatches : 0;
+      }
+
+      public double getAverageSendMillis() {
+         final long batches = sentBatches + failedBatches;
+         return batches > 0 ? sendNanos / 1e6 / batches : 0;
+      }
+
+      public double getMaxSendMillis() {
+         return maxSendNanos / 1e6;
+      }
+
+      @Override
+      public String toString() {
+         return "PusherDispatcher.Statistics{" +
+               "queueDepth=" + queueDepth +
+               ", sentEvents=" + sentEvents +
+               ", sentBatches=" + sentBatches +
+               ", failedBatches=" + failedBatches +
+               ", coalescedEvents=" + coalescedEvents +
+               ", droppedEvents=" + droppedEvents +
+               ", averageBatchSize=" + getAverageBatchSize() +
+               ", averageSendMillis=" + getAverageSendMillis() +
+               ", maxSendMillis=" + getMaxSendMillis() +
+               '}';
+      }
+   }
+}
@@ -120,8 +120,10 @@ import io.lumeer.storage.api.dao.ViewDao;
 import org.marvec.pusher.data.Event;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -188,6 +190,9 @@ public class PusherFacade extends AbstractFacade {
    @Inject
    private PusherHelperFacade pusherHelperFacade;
 
+   @Inject
+   private PusherDispatcher pusherDispatcher;
+
    private ConstraintManager constraintManager;
    private CollectionAdapter collectionAdapter;
    private LinkTypeAdapter linkTypeAdapter;
@@ -395,6 +400,9 @@ public class PusherFacade extends AbstractFacade {
    }
 
    private void sendNotificationsByUsers(final Object object, final Set<String> userIds, final String event) {
+      if (object instanceof Resource || object instanceof ObjectWithParent) {
+         permissionAdapter.getUsers(userIds); // reads all users needed for filtering by a single query
+      }
       sendNotificationsBatch(userIds.stream()
                                     .map(userId -> createEvent(object, event, userId))
                                     .collect(Collectors.toList()));
@@ -518,19 +526,20 @@ public class PusherFacade extends AbstractFacade {
             document.setData(constraintManager.decodeDataTypes(collection, document.getData()));
             Set<String> userIds = resourceAdapter.getDocumentReaders(getOrganization(), getProject(), collection, document);
 
-            sendNotificationsBatch(userIds.stream()
-                                          .map(userId -> createEvent(createDocumentForUser(document, userId), eventSuffix, userId))
-                                          .collect(Collectors.toList()));
+            final Map<String, Object> documentsByUser = new HashMap<>();
+            if (REMOVE_EVENT_SUFFIX.equals(eventSuffix)) {
+               userIds.forEach(userId -> documentsByUser.put(userId, document));
+            } else {
+               documentsByUser.putAll(documentAdapter.mapDocumentDataForUsers(document, userIds, workspaceKeeper.getProjectId()));
+            }
+
+            sendNotificationsBatch(pusherAdapter.createEventsForWorkspaceObjects(getOrganization(), getProject(), documentsByUser, document.getId(), eventSuffix));
          } catch (Exception e) {
             log.log(Level.WARNING, "Unable to send push notification: ", e);
          }
       }
    }
 
-   private Document createDocumentForUser(final Document document, final String userId) {
-      return documentAdapter.mapDocumentData(document, userId, workspaceKeeper.getProjectId());
-   }
-
    public void createLinkInstance(@Observes final CreateLinkInstance createLinkInstance) {
       if (isEnabled()) {
          try {
@@ -1010,7 +1019,7 @@ public class PusherFacade extends AbstractFacade {
             }
          });
 
-         pusherClient.trigger(notifications);
+         pusherDispatcher.dispatch(notifications);
       }
    }
 
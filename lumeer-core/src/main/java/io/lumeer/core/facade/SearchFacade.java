@@ -26,7 +26,6 @@ import io.lumeer.api.model.CollectionPurposeType;
 import io.lumeer.api.model.ConditionType;
 import io.lumeer.api.model.ConditionValueType;
 import io.lumeer.api.model.ConstraintData;
-import io.lumeer.api.model.CurrencyData;
 import io.lumeer.api.model.Document;
 import io.lumeer.api.model.Language;
 import io.lumeer.api.model.LinkInstance;
@@ -41,10 +40,11 @@ import io.lumeer.core.adapter.DocumentAdapter;
 import io.lumeer.core.adapter.LinkInstanceAdapter;
 import io.lumeer.core.adapter.SearchAdapter;
 import io.lumeer.core.auth.RequestDataKeeper;
+import io.lumeer.core.cache.ConstraintDataCache;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
-import io.lumeer.core.facade.translate.TranslationManager;
 import io.lumeer.core.util.CollectionPurposeUtils;
+import io.lumeer.core.util.QueryFilterPlanner;
 import io.lumeer.core.util.QueryUtils;
 import io.lumeer.core.util.Tuple;
 import io.lumeer.core.util.Utils;
@@ -60,18 +60,23 @@ import io.lumeer.storage.api.dao.LinkTypeDao;
 import io.lumeer.storage.api.dao.ResourceCommentDao;
 import io.lumeer.storage.api.dao.SelectionListDao;
 import io.lumeer.storage.api.dao.UserDao;
+import io.lumeer.storage.api.query.SearchQueryStem;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
@@ -114,7 +119,7 @@ public class SearchFacade extends AbstractFacade {
    private SelectionListDao selectionListDao;
 
    @Inject
-   private TranslationManager translationManager;
+   private ConstraintDataCache constraintDataCache;
 
    @Inject
    private DefaultConfigurationProducer configurationProducer;
@@ -122,7 +127,11 @@ public class SearchFacade extends AbstractFacade {
    @Inject
    private RequestDataKeeper requestDataKeeper;
 
+   @Inject
+   private Logger log;
+
    private ConstraintManager constraintManager;
+   private boolean nativeFilters;
    private Language language;
    private String timezone;
 
@@ -133,6 +142,7 @@ public class SearchFacade extends AbstractFacade {
    @PostConstruct
    public void init() {
       constraintManager = ConstraintManager.getInstance(configurationProducer);
+      nativeFilters = NATIVE_FILTER_ENGINE.equals(configurationProducer.get(DefaultConfigurationProducer.FILTER_ENGINE));
       language = requestDataKeeper.getUserLanguage();
       timezone = requestDataKeeper.getTimezone();
 
@@ -142,6 +152,10 @@ public class SearchFacade extends AbstractFacade {
    }
 
    private static final Integer FETCH_SIZE = 200;
+   private static final String NATIVE_FILTER_ENGINE = "native";
+
+   private interface ResultConsumer extends BiConsumer<java.util.Collection<Document>, java.util.Collection<LinkInstance>> {
+   }
 
    public void setLanguage(final Language language) {
       this.language = language;
@@ -243,101 +257,143 @@ public class SearchFacade extends AbstractFacade {
       return searchDocumentsAndLinks(query, includeChildDocuments, true, collectionsMap, linkTypesMap, null, isPublic);
    }
 
-   private Tuple<List<Document>, List<LinkInstance>> searchDocumentsAndLinks(final Query query, boolean includeChildDocuments, boolean shouldCheckQuery, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, boolean isPublic) {
-      final Query encodedQuery = checkQuery(query, collectionsMap, linkTypesMap, shouldCheckQuery);
+   /**
+    * Searches documents and links and passes them to the consumer in chunks as they are found, so the whole
+    * result is never held in memory. Every document and link is passed only once.
+    */
+   public void streamDocumentsAndLinks(final Query query, boolean includeChildDocuments, final BiConsumer<List<Document>, List<LinkInstance>> consumer) {
+      var resources = getReadResources(false, query);
+      final Map<String, Collection> collectionsMap = getCollectionsMap(resources.getFirst());
+      final Map<String, LinkType> linkTypesMap = getLinkTypeMap(resources.getSecond());
 
+      final Set<String> documentIds = new HashSet<>();
+      final Set<String> linkInstanceIds = new HashSet<>();
+      searchDocumentsAndLinks(query, includeChildDocuments, true, collectionsMap, linkTypesMap, null, false, (documents, linkInstances) -> {
+         var newDocuments = documents.stream().filter(document -> documentIds.add(document.getId())).collect(Collectors.toList());
+         var newLinkInstances = linkInstances.stream().filter(linkInstance -> linkInstanceIds.add(linkInstance.getId())).collect(Collectors.toList());
+         if (!newDocuments.isEmpty() || !newLinkInstances.isEmpty()) {
+            consumer.accept(documentAdapter.mapDocumentsData(newDocuments, getCurrentUserId(), workspaceKeeper.getProjectId()), linkInstanceAdapter.mapLinkInstancesData(newLinkInstances));
+         }
+      });
+   }
+
+   private Tuple<List<Document>, List<LinkInstance>> searchDocumentsAndLinks(final Query query, boolean includeChildDocuments, boolean shouldCheckQuery, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, boolean isPublic) {
       final Set<Document> allDocuments = new HashSet<>();
       final Set<LinkInstance> allLinkInstances = new HashSet<>();
 
+      searchDocumentsAndLinks(query, includeChildDocuments, shouldCheckQuery, collectionsMap, linkTypesMap, documentFilter, isPublic, (documents, linkInstances) -> {
+         allDocuments.addAll(documents);
+         allLinkInstances.addAll(linkInstances);
+      });
+
+      var mappedDocuments = documentAdapter.mapDocumentsData(new ArrayList<>(allDocuments), getCurrentUserId(), workspaceKeeper.getProjectId());
+      var mappedLinkInstances = linkInstanceAdapter.mapLinkInstancesData(new ArrayList<>(allLinkInstances));
+
+      return new Tuple<>(mappedDocuments, mappedLinkInstances);
+   }
+
+   private void searchDocumentsAndLinks(final Query query, boolean includeChildDocuments, boolean shouldCheckQuery, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, boolean isPublic, final ResultConsumer consumer) {
+      final Query encodedQuery = checkQuery(query, collectionsMap, linkTypesMap, shouldCheckQuery);
+
       if (encodedQuery.containsStems()) {
          ConstraintData constraintData = createConstraintData();
          encodedQuery.getStems().forEach(stem -> {
-            var result = stem.containsAnyFilter() || encodedQuery.getFulltexts().size() > 0
-                  ? searchDocumentsAndLinksInStem(stem, encodedQuery.getFulltexts(), collectionsMap, linkTypesMap, documentFilter, constraintData, includeChildDocuments)
-                  : searchDocumentsAndLinksInStemWithoutFilters(stem, collectionsMap, linkTypesMap, documentFilter, isPublic);
-            allDocuments.addAll(result.getFirst());
-            allLinkInstances.addAll(result.getSecond());
+            if (stem.containsAnyFilter() || encodedQuery.getFulltexts().size() > 0) {
+               searchDocumentsAndLinksInStem(stem, encodedQuery.getFulltexts(), collectionsMap, linkTypesMap, documentFilter, constraintData, includeChildDocuments, consumer);
+            } else {
+               searchDocumentsAndLinksInStemWithoutFilters(stem, collectionsMap, linkTypesMap, documentFilter, isPublic, consumer);
+            }
          });
       } else if (encodedQuery.getFulltexts().size() > 0) {
-         var result = searchDocumentsAndLinksByFulltexts(encodedQuery.getFulltexts(), collectionsMap, linkTypesMap, documentFilter, createConstraintData(), includeChildDocuments);
-         allDocuments.addAll(result.getFirst());
-         allLinkInstances.addAll(result.getSecond());
+         searchDocumentsAndLinksByFulltexts(encodedQuery.getFulltexts(), collectionsMap, linkTypesMap, documentFilter, createConstraintData(), includeChildDocuments, consumer);
       } else {
-         var result = searchDocumentsAndLinksByEmptyQuery(collectionsMap, linkTypesMap, documentFilter, isPublic);
-         allDocuments.addAll(result.getFirst());
-         allLinkInstances.addAll(result.getSecond());
+         searchDocumentsAndLinksByEmptyQuery(collectionsMap, linkTypesMap, documentFilter, isPublic, consumer);
       }
-
-      var mappedDocuments = documentAdapter.mapDocumentsData(new ArrayList<>(allDocuments), getCurrentUserId(), workspaceKeeper.getProjectId());
-      var mappedLinkInstances = linkInstanceAdapter.mapLinkInstancesData(new ArrayList<>(allLinkInstances));
-
-      return new Tuple<>(mappedDocuments, mappedLinkInstances);
    }
 
    private ConstraintData createConstraintData() {
-      return new ConstraintData(
-            userDao.getAllUsers(workspaceKeeper.getOrganizationId()),
-            authenticatedUser.getCurrentUser(),
-            translationManager.translateDurationUnitsMap(language),
-            new CurrencyData(translationManager.translateAbbreviations(language), translationManager.translateOrdinals(language)),
-            timezone,
-            groupDao.getAllGroups(workspaceKeeper.getOrganizationId()),
-            selectionListDao.getAllLists(Collections.singletonList(getProject().getId()))
-      );
-   }
-
-   private Tuple<? extends java.util.Collection<Document>, ? extends java.util.Collection<LinkInstance>> searchDocumentsAndLinksInStem(final QueryStem stem, final Set<String> fulltexts, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, final ConstraintData constraintData,
-         boolean includeChildDocuments) {
-      final Set<Document> allDocuments = new HashSet<>();
-      final Set<LinkInstance> allLinkInstances = new HashSet<>();
+      return constraintDataCache.getConstraintData(workspaceKeeper.getOrganizationId(), getProject().getId(), language, authenticatedUser.getCurrentUser(), timezone, userDao, groupDao, selectionListDao);
+   }
 
+   private void searchDocumentsAndLinksInStem(final QueryStem stem, final Set<String> fulltexts, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, final ConstraintData constraintData,
+         boolean includeChildDocuments, final ResultConsumer consumer) {
       var resources = getResourcesFromStem(stem, collectionsMap, linkTypesMap);
       final List<Collection> allCollections = resources.getFirst();
       final List<LinkType> allLinkTypes = resources.getSecond();
 
       if (allCollections.isEmpty()) {
-         return new Tuple<>(allDocuments, allLinkInstances);
+         return;
       }
 
       final Map<String, AllowedPermissions> collectionsPermissions = permissionsChecker.getCollectionsPermissions(allCollections);
       final Map<String, AllowedPermissions> linkTypesPermissions = permissionsChecker.getLinkTypesPermissions(allLinkTypes);
       final Query query = new Query(Collections.singletonList(stem), fulltexts, null, null);
+      final SearchQueryStem candidatesStem = canPushDownFilters(allCollections, includeChildDocuments) ? QueryFilterPlanner.planStem(stem, allCollections.get(0)) : null;
+
+      // documents of the linked collections are part of the result even when they are not linked to the page,
+      // so every linked collection is read just once, the same holds for links between the linked collections
+      final List<List<Document>> hopDocuments = new ArrayList<>();
+      final List<List<LinkInstance>> hopLinks = new ArrayList<>();
+      for (int hop = 0; hop < allLinkTypes.size(); hop++) {
+         // links of the first hop depend on the page
+         hopLinks.add(hop > 0 ? getLinkInstancesByDocuments(allLinkTypes.get(hop), hopDocuments.get(hop - 1)) : null);
+         hopDocuments.add(getDocumentsByCollection(allCollections.get(hop + 1), documentFilter, false));
+      }
 
+      // rows read by each hop of the stem: first collection, then links and documents of every link type
+      final long[] hopReads = new long[1 + 2 * allLinkTypes.size()];
+      for (int hop = 0; hop < allLinkTypes.size(); hop++) {
+         hopReads[1 + 2 * hop] = hop > 0 ? hopLinks.get(hop).size() : 0;
+         hopReads[2 + 2 * hop] = hopDocuments.get(hop).size();
+      }
       var hasMoreDocuments = true;
       var page = 0;
 
       while (hasMoreDocuments) {
-         var previousCollection = allCollections.get(0);
-         var firstCollectionDocuments = getDocumentsByCollection(previousCollection, page, FETCH_SIZE);
-         var previousDocuments = filterDocumentsByDocumentFilter(firstCollectionDocuments, documentFilter);
-         final Set<Document> currentDocuments = new HashSet<>(previousDocuments);
+         var firstCollectionDocuments = getDocumentsByCollection(allCollections.get(0), candidatesStem, page, FETCH_SIZE);
+         var pageDocuments = filterDocumentsByDocumentFilter(firstCollectionDocuments, documentFilter);
+         final Set<Document> currentDocuments = new HashSet<>(pageDocuments);
          final Set<LinkInstance> currentLinkInstances = new HashSet<>();
+         hopReads[0] += firstCollectionDocuments.size();
 
-         for (String linkTypeId : stem.getLinkTypeIds()) {
-            var linkType = linkTypesMap.get(linkTypeId);
-            var collection = getOtherCollection(linkType, collectionsMap, Utils.computeIfNotNull(previousCollection, Collection::getId));
-            if (linkType != null && previousCollection != null) {
-               var links = getLinkInstancesByLinkType(linkType, getDocumentsIds(previousDocuments));
-               var documents = getDocumentsByCollection(collection, documentFilter, false);
-
-               currentDocuments.addAll(documents);
-               currentLinkInstances.addAll(links);
-
-               previousCollection = collection;
-               previousDocuments = documents;
+         for (int hop = 0; hop < allLinkTypes.size(); hop++) {
+            var links = hop > 0 ? hopLinks.get(hop) : getLinkInstancesByDocuments(allLinkTypes.get(hop), pageDocuments);
+            if (hop == 0) {
+               hopReads[1] += links.size();
             }
+
+            currentDocuments.addAll(hopDocuments.get(hop));
+            currentLinkInstances.addAll(links);
          }
 
          if (!currentDocuments.isEmpty()) {
-            var result = DataFilter.filterDocumentsAndLinksByQueryFromJson(new ArrayList<>(currentDocuments), allCollections, allLinkTypes, new ArrayList<>(currentLinkInstances), query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildDocuments, true, language);
-            allDocuments.addAll(result.getFirst());
-            allLinkInstances.addAll(result.getSecond());
+            var result = filterDocumentsAndLinks(new ArrayList<>(currentDocuments), allCollections, allLinkTypes, new ArrayList<>(currentLinkInstances), query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildDocuments, true, language);
+            consumer.accept(result.getFirst(), result.getSecond());
          }
          page++;
          hasMoreDocuments = !firstCollectionDocuments.isEmpty();
       }
 
-      return new Tuple<>(allDocuments, allLinkInstances);
+      if (log.isLoggable(Level.FINE)) {
+         log.fine(String.format("Stem %s read %d pages, rows per hop: %s", stem.getCollectionId(), page, Arrays.toString(hopReads)));
+      }
+   }
+
+   private List<LinkInstance> getLinkInstancesByDocuments(final LinkType linkType, final List<Document> documents) {
+      return documents.isEmpty() ? Collections.emptyList() : getLinkInstancesByLinkType(linkType, getDocumentsIds(documents));
+   }
+
+   private boolean canPushDownFilters(final List<Collection> collections, boolean includeChildDocuments) {
+      // children are included regardless of filters, and a collection repeated in the stem is fetched only once
+      return !includeChildDocuments && collections.stream().map(Collection::getId).distinct().count() == collections.size();
+   }
+
+   private Tuple<List<Document>, List<LinkInstance>> filterDocumentsAndLinks(final List<Document> documents, final List<Collection> collections, final List<LinkType> linkTypes, final List<LinkInstance> linkInstances, final Query query,
+         final Map<String, AllowedPermissions> collectionsPermissions, final Map<String, AllowedPermissions> linkTypesPermissions, final ConstraintData constraintData, boolean includeChildren, boolean includeNonLinkedDocuments, final Language language) {
+      if (nativeFilters) {
+         return DataFilter.filterDocumentsAndLinksByQueryNatively(documents, collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language);
+      }
+      return DataFilter.filterDocumentsAndLinksByQueryFromJson(documents, collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language);
    }
 
    private Tuple<List<Collection>, List<LinkType>> getResourcesFromStem(final QueryStem stem, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap) {
@@ -362,14 +418,13 @@ public class SearchFacade extends AbstractFacade {
       return new Tuple<>(allCollections, allLinkTypes);
    }
 
-   private Tuple<? extends java.util.Collection<Document>, ? extends java.util.Collection<LinkInstance>> searchDocumentsAndLinksInStemWithoutFilters(final QueryStem stem, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, boolean isPublic) {
+   private void searchDocumentsAndLinksInStemWithoutFilters(final QueryStem stem, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, boolean isPublic, final ResultConsumer consumer) {
       var previousCollection = collectionsMap.get(stem.getCollectionId());
       if (previousCollection == null) {
-         return new Tuple<>(new HashSet<>(), new HashSet<>());
+         return;
       }
 
-      final Set<Document> allDocuments = new HashSet<>(getDocumentsByCollection(previousCollection, documentFilter, isPublic));
-      final Set<LinkInstance> allLinkInstances = new HashSet<>();
+      consumer.accept(getDocumentsByCollection(previousCollection, documentFilter, isPublic), Collections.emptyList());
 
       for (String linkTypeId : stem.getLinkTypeIds()) {
          var linkType = linkTypesMap.get(linkTypeId);
@@ -378,21 +433,15 @@ public class SearchFacade extends AbstractFacade {
             var links = getLinkInstancesByLinkType(linkType, isPublic);
             var documents = getDocumentsByCollection(collection, documentFilter, isPublic);
 
-            allDocuments.addAll(documents);
-            allLinkInstances.addAll(links);
+            consumer.accept(documents, links);
 
             previousCollection = collection;
          }
       }
-
-      return new Tuple<>(allDocuments, allLinkInstances);
    }
 
-   private Tuple<? extends java.util.Collection<Document>, ? extends java.util.Collection<LinkInstance>> searchDocumentsAndLinksByFulltexts(final Set<String> fulltexts, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, final ConstraintData constraintData,
-         boolean includeChildDocuments) {
-      final Set<Document> allDocuments = new HashSet<>();
-      final Set<LinkInstance> allLinkInstances = new HashSet<>();
-
+   private void searchDocumentsAndLinksByFulltexts(final Set<String> fulltexts, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, final ConstraintData constraintData,
+         boolean includeChildDocuments, final ResultConsumer consumer) {
       // because we are filtering documents (or links) without linked documents, so it is safe to fetch more
       var fetchSizeMultiplier = 3;
       var fetchSize = FETCH_SIZE * fetchSizeMultiplier;
@@ -408,8 +457,8 @@ public class SearchFacade extends AbstractFacade {
             final List<Document> pagedDocuments = getDocumentsByCollection(collection, page, fetchSize);
             final List<Document> filteredDocuments = filterDocumentsByDocumentFilter(pagedDocuments, documentFilter);
             if (!filteredDocuments.isEmpty()) {
-               var result = DataFilter.filterDocumentsAndLinksByQueryFromJson(new ArrayList<>(filteredDocuments), collections, Collections.emptyList(), new ArrayList<>(), query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildDocuments, false, language);
-               allDocuments.addAll(result.getFirst());
+               var result = filterDocumentsAndLinks(new ArrayList<>(filteredDocuments), collections, Collections.emptyList(), new ArrayList<>(), query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildDocuments, false, language);
+               consumer.accept(result.getFirst(), Collections.emptyList());
             }
             hasMoreDocuments = !pagedDocuments.isEmpty();
             page++;
@@ -427,26 +476,19 @@ public class SearchFacade extends AbstractFacade {
          while (hasMoreLinks) {
             final List<LinkInstance> linkInstances = getLinkInstancesByLinkType(linkType, page, fetchSize);
             if (!linkInstances.isEmpty()) {
-               var result = DataFilter.filterDocumentsAndLinksByQueryFromJson(new ArrayList<>(), collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, true, false, language);
-               allLinkInstances.addAll(result.getSecond());
+               var result = filterDocumentsAndLinks(new ArrayList<>(), collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, true, false, language);
+               consumer.accept(Collections.emptyList(), result.getSecond());
             }
             hasMoreLinks = !linkInstances.isEmpty();
             page++;
          }
       });
-
-      return new Tuple<>(allDocuments, allLinkInstances);
    }
 
-   private Tuple<? extends java.util.Collection<Document>, ? extends java.util.Collection<LinkInstance>> searchDocumentsAndLinksByEmptyQuery(final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, boolean isPublic) {
-      final Set<Document> allDocuments = new HashSet<>();
-      final Set<LinkInstance> allLinkInstances = new HashSet<>();
-
-      collectionsMap.values().forEach(collection -> allDocuments.addAll(getDocumentsByCollection(collection, documentFilter, isPublic)));
+   private void searchDocumentsAndLinksByEmptyQuery(final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, boolean isPublic, final ResultConsumer consumer) {
+      collectionsMap.values().forEach(collection -> consumer.accept(getDocumentsByCollection(collection, documentFilter, isPublic), Collections.emptyList()));
 
-      linkTypesMap.values().forEach(linkType -> allLinkInstances.addAll(getLinkInstancesByLinkType(linkType, isPublic)));
-
-      return new Tuple<>(allDocuments, allLinkInstances);
+      linkTypesMap.values().forEach(linkType -> consumer.accept(Collections.emptyList(), getLinkInstancesByLinkType(linkType, isPublic)));
    }
 
    private Collection getOtherCollection(final LinkType linkType, final Map<String, Collection> collectionMap, final String collectionId) {
@@ -523,6 +565,16 @@ public class SearchFacade extends AbstractFacade {
       return searchAdapter.getDocuments(getOrganization(), getProject(), collection, page, limit, authenticatedUser.getCurrentUserId());
    }
 
+   private List<Document> getDocumentsByCollection(Collection collection, @Nullable SearchQueryStem candidatesStem, Integer page, Integer limit) {
+      if (candidatesStem != null) {
+         var documents = searchAdapter.getDocumentsCandidates(getOrganization(), getProject(), collection, candidatesStem, page, limit, authenticatedUser.getCurrentUserId());
+         if (documents != null) {
+            return documents;
+         }
+      }
+      return getDocumentsByCollection(collection, page, limit);
+   }
+
    private List<Document> filterDocumentsByDocumentFilter(final List<Document> documents, @Nullable final Function<Document, Boolean> documentFilter) {
       if (documentFilter != null) {
          return documents.stream().filter(documentFilter::apply).collect(Collectors.toList());
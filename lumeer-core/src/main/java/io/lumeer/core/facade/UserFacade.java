@@ -165,6 +165,8 @@ public class UserFacade extends AbstractFacade {
 
          if (user.getTimeZone() == null || !tz.getID().equals(user.getTimeZone())) {
             userDao.updateUserTimeZone(user.getId(), tz.getID());
+            user.setTimeZone(tz.getID());
+            userCache.updateUser(user.getEmail(), user);
          }
       }
    }
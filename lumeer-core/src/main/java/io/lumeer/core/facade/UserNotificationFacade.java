@@ -40,7 +40,6 @@ import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.engine.api.event.CreateResource;
 import io.lumeer.engine.api.event.RemoveResource;
 import io.lumeer.engine.api.event.UpdateResource;
-import io.lumeer.storage.api.dao.UserDao;
 import io.lumeer.storage.api.dao.UserNotificationDao;
 
 import org.apache.commons.lang3.StringUtils;
@@ -77,9 +76,6 @@ public class UserNotificationFacade extends AbstractFacade {
    @Inject
    private EmailSenderFacade emailSenderFacade;
 
-   @Inject
-   private UserDao userDao;
-
    private final List<String> mutedUsers = new ArrayList<>();
 
    public List<UserNotification> getNotifications() {
@@ -208,11 +204,8 @@ public class UserNotificationFacade extends AbstractFacade {
    }
 
    private Map<String, User> getUsers(final java.util.Collection<String> userIds) {
-      return userIds.stream()
-                    .distinct()
-                    .map(userDao::getUserById)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toMap(User::getId, Function.identity()));
+      return userCache.getUsersByIds(userIds).stream()
+                      .collect(Collectors.toMap(User::getId, Function.identity()));
    }
 
    // get map of user email -> user language
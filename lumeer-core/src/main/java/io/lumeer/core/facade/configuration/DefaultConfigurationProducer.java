@@ -99,6 +99,10 @@ public class DefaultConfigurationProducer implements Serializable {
 
    public static final String PRODUCTION_REST_URL = "production_rest_url";
 
+   public static final String FILTER_ENGINE = "filter_engine";
+
+   public static final String AUDIT_JOURNAL_DIR = "audit_journal_dir";
+
    public DefaultConfigurationProducer() {
       synchronized (this) {
          if (defaultConfiguration == null) {
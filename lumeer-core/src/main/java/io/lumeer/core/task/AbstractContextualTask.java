@@ -20,8 +20,10 @@ package io.lumeer.core.task;
 
 import io.lumeer.api.model.AppId;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.ConstraintData;
 import io.lumeer.api.model.Document;
 import io.lumeer.api.model.Group;
+import io.lumeer.api.model.Language;
 import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.Project;
@@ -42,6 +44,7 @@ import io.lumeer.core.adapter.ResourceAdapter;
 import io.lumeer.core.adapter.ViewAdapter;
 import io.lumeer.core.auth.AuthenticatedUser;
 import io.lumeer.core.auth.RequestDataKeeper;
+import io.lumeer.core.cache.ConstraintDataCache;
 import io.lumeer.core.constraint.AbstractConstraintConverter;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.FunctionFacade;
@@ -68,6 +71,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -87,6 +91,7 @@ public abstract class AbstractContextualTask implements ContextualTask {
    protected Task parent;
    protected RequestDataKeeper requestDataKeeper;
    protected ConstraintManager constraintManager;
+   protected ConstraintDataCache constraintDataCache;
    protected DefaultConfigurationProducer.DeployEnvironment environment;
    protected String timeZone;
 
@@ -101,13 +106,14 @@ public abstract class AbstractContextualTask implements ContextualTask {
    protected FileAttachmentAdapter fileAttachmentAdapter;
 
    @Override
-   public ContextualTask initialize(final User initiator, final DaoContextSnapshot daoContextSnapshot, final PusherClient pusherClient, final LumeerS3Client lumeerS3Client, final RequestDataKeeper requestDataKeeper, final ConstraintManager constraintManager, DefaultConfigurationProducer.DeployEnvironment environment, final int recursionDepth) {
+   public ContextualTask initialize(final User initiator, final DaoContextSnapshot daoContextSnapshot, final PusherClient pusherClient, final LumeerS3Client lumeerS3Client, final RequestDataKeeper requestDataKeeper, final ConstraintManager constraintManager, final ConstraintDataCache constraintDataCache, DefaultConfigurationProducer.DeployEnvironment environment, final int recursionDepth) {
       this.initiator = initiator;
       this.daoContextSnapshot = daoContextSnapshot;
       this.pusherClient = pusherClient;
       this.lumeerS3Client = lumeerS3Client;
       this.requestDataKeeper = requestDataKeeper;
       this.constraintManager = constraintManager;
+      this.constraintDataCache = constraintDataCache;
       this.environment = environment;
       this.timeZone = requestDataKeeper.getTimezone();
       this.recursionDepth = recursionDepth;
@@ -145,6 +151,20 @@ public abstract class AbstractContextualTask implements ContextualTask {
       return constraintManager;
    }
 
+   @Override
+   public ConstraintData getConstraintData(final Language language, final User currentUser) {
+      return constraintDataCache.getConstraintData(
+            daoContextSnapshot.getOrganizationId(),
+            daoContextSnapshot.getProjectId(),
+            language,
+            currentUser,
+            timeZone != null ? timeZone : TimeZone.getDefault().getID(),
+            daoContextSnapshot.getUserDao(),
+            daoContextSnapshot.getGroupDao(),
+            daoContextSnapshot.getSelectionListDao()
+      );
+   }
+
    @Override
    public User getInitiator() {
       return initiator;
@@ -207,6 +227,7 @@ public abstract class AbstractContextualTask implements ContextualTask {
                createEventForView(view, user, suffix)
          ).collect(Collectors.toList());
 
+         permissionAdapter.getUsers(users);
          users.forEach(userId -> {
             final User user = permissionAdapter.getUser(userId);
 
@@ -667,7 +688,7 @@ public abstract class AbstractContextualTask implements ContextualTask {
       public <T extends ContextualTask> T getInstance(final Class<T> clazz) {
          try {
             T t = clazz.getConstructor().newInstance();
-            t.initialize(getInitiator(), getDaoContextSnapshot(), getPusherClient(), getLumeerS3Client(), new RequestDataKeeper(requestDataKeeper), constraintManager, environment, recursionDepth + 1);
+            t.initialize(getInitiator(), getDaoContextSnapshot(), getPusherClient(), getLumeerS3Client(), new RequestDataKeeper(requestDataKeeper), constraintManager, constraintDataCache, environment, recursionDepth + 1);
 
             return t;
          } catch (Exception e) {
@@ -680,14 +701,16 @@ public abstract class AbstractContextualTask implements ContextualTask {
 
    public static class SyntheticContextualTaskFactory extends ContextualTaskFactory {
       private final ConstraintManager constraintManager;
+      private final ConstraintDataCache constraintDataCache;
       private final User initiator;
       private final DaoContextSnapshot contextSnapshot;
       private final PusherClient pusherClient;
       private final LumeerS3Client lumeerS3Client;
       private final DefaultConfigurationProducer.DeployEnvironment environment;
 
-      public SyntheticContextualTaskFactory(final DefaultConfigurationProducer configurationProducer, final DaoContextSnapshot daoContextSnapshot) {
+      public SyntheticContextualTaskFactory(final DefaultConfigurationProducer configurationProducer, final ConstraintDataCache constraintDataCache, final DaoContextSnapshot daoContextSnapshot) {
          this.contextSnapshot = daoContextSnapshot;
+         this.constraintDataCache = constraintDataCache;
          constraintManager = ConstraintManager.getInstance(configurationProducer);
          pusherClient = PusherClient.getInstance(configurationProducer);
          lumeerS3Client = new LumeerS3Client(configurationProducer);
@@ -698,7 +721,7 @@ public abstract class AbstractContextualTask implements ContextualTask {
       public <T extends ContextualTask> T getInstance(final Class<T> clazz) {
          try {
             T t = clazz.getConstructor().newInstance();
-            t.initialize(initiator, contextSnapshot.shallowCopy(), pusherClient, lumeerS3Client, new RequestDataKeeper(), constraintManager, environment, 0);
+            t.initialize(initiator, contextSnapshot.shallowCopy(), pusherClient, lumeerS3Client, new RequestDataKeeper(), constraintManager, constraintDataCache, environment, 0);
 
             return t;
          } catch (Exception e) {
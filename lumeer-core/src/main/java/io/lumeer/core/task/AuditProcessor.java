@@ -0,0 +1,240 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import io.lumeer.api.model.AuditRecord;
+import io.lumeer.api.model.AuditType;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.LinkType;
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.api.model.User;
+import io.lumeer.core.WorkspaceContext;
+import io.lumeer.core.adapter.AuditAdapter;
+import io.lumeer.core.constraint.ConstraintManager;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.storage.api.AuditJournal;
+import io.lumeer.storage.api.AuditJournalFactory;
+import io.lumeer.storage.api.dao.OrganizationDao;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.inject.Inject;
+
+/**
+ * Write-behind buffer of document and link data changes for the audit log. Consecutive changes of a resource by the same
+ * originator are merged in memory within the audit merge window and stored every few seconds in a single bulk write per
+ * collection or link type (see AuditAdapter.registerDataChanges). Each change is appended to a local journal first,
+ * so buffered changes survive a restart. Changes are buffered only when the journal directory (audit_journal_dir)
+ * is configured, otherwise they are stored right away.
+ */
+@Singleton
+@Startup
+@Lock(LockType.READ)
+public class AuditProcessor extends WorkspaceContext {
+
+   private static final Logger log = Logger.getLogger(AuditProcessor.class.getName());
+
+   @Inject
+   private OrganizationDao organizationDao;
+
+   @Inject
+   private AuditJournalFactory auditJournalFactory;
+
+   private final Map<String, PendingRecords> pendingRecords = new LinkedHashMap<>();
+   private final Object bufferLock = new Object();
+   private final Object flushLock = new Object();
+
+   private AuditJournal journal;
+   private ConstraintManager constraintManager;
+
+   @PostConstruct
+   public void init() {
+      constraintManager = ConstraintManager.getInstance(configurationProducer);
+
+      final String journalDir = configurationProducer.get(DefaultConfigurationProducer.AUDIT_JOURNAL_DIR);
+      if (StringUtils.isEmpty(journalDir)) {
+         log.info("Audit journal directory is not configured, audit log changes are stored synchronously.");
+         return;
+      }
+
+      journal = auditJournalFactory.getJournal(Paths.get(journalDir));
+      try {
+         journal.recover((organizationId, projectId, record) -> bufferRecord(organizationId, projectId, null, null, record));
+      } catch (Exception e) {
+         log.log(Level.WARNING, "Unable to recover audit journal.", e);
+      }
+   }
+
+   public void registerDataChange(final Organization organization, final Project project, final String parentId, final ResourceType resourceType, final String resourceId,
+         final User user, final String viewId, final DataDocument oldState, final DataDocument newState) {
+      final AuditRecord record = new AuditRecord(parentId, resourceType, resourceId, ZonedDateTime.now(), user != null ? user.getId() : null, user != null ? user.getName() : null,
+            user != null ? user.getEmail() : null, viewId, null, new DataDocument(oldState), new DataDocument(newState));
+      record.setId(new ObjectId().toHexString());
+      record.setType(AuditType.Updated);
+
+      if (journal == null) {
+         final PendingRecords records = new PendingRecords(organization.getId(), project.getId());
+         records.add(organization, project, record);
+         storeRecords(records);
+         return;
+      }
+
+      synchronized (bufferLock) {
+         try {
+            journal.append(organization.getId(), project.getId(), record);
+         } catch (Exception e) {
+            log.log(Level.WARNING, "Unable to append audit record to the journal.", e);
+         }
+         bufferRecord(organization.getId(), project.getId(), organization, project, record);
+      }
+   }
+
+   @Schedule(hour = "*", minute = "*", second = "*/5", persistent = false)
+   public void process() {
+      flush();
+   }
+
+   /**
+    * Stores all buffered changes. Called before the audit log is read, so it contains all changes made so far.
+    */
+   public void flush() {
+      if (journal == null) {
+         return;
+      }
+
+      synchronized (flushLock) {
+         final List<PendingRecords> records;
+         final List<Path> segments;
+         synchronized (bufferLock) {
+            records = new ArrayList<>(pendingRecords.values());
+            pendingRecords.clear();
+            segments = journal.rotate();
+         }
+
+         records.forEach(this::storeRecords);
+         journal.release(segments);
+      }
+   }
+
+   @PreDestroy
+   public void destroy() {
+      flush();
+      if (journal != null) {
+         journal.close();
+      }
+   }
+
+   private void bufferRecord(final String organizationId, final String projectId, final Organization organization, final Project project, final AuditRecord record) {
+      final PendingRecords records = pendingRecords.computeIfAbsent(organizationId + "/" + projectId, key -> new PendingRecords(organizationId, projectId));
+      records.add(organization, project, record);
+   }
+
+   private void storeRecords(final PendingRecords records) {
+      try {
+         final DataStorage userDataStorage = getDataStorage(records.organizationId);
+         final Organization organization = records.organization != null ? records.organization : organizationDao.getOrganizationById(records.organizationId);
+         final Project project = records.project != null ? records.project :
+               getDaoContextSnapshot(userDataStorage, new Workspace(organization, null)).getProjectDao().getProjectById(records.projectId);
+
+         final DaoContextSnapshot projDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, project));
+         final AuditAdapter auditAdapter = AuditAdapter.getAuditAdapter(projDao);
+
+         records.getRecordsByParent().values().forEach(parentRecords -> {
+            final AuditRecord first = parentRecords.get(0);
+            try {
+               if (first.getResourceType() == ResourceType.DOCUMENT) {
+                  final Collection collection = projDao.getCollectionDao().getCollectionById(first.getParentId());
+                  auditAdapter.registerDataChanges(first.getParentId(), first.getResourceType(), parentRecords, data -> constraintManager.decodeDataTypes(collection, data));
+               } else {
+                  final LinkType linkType = projDao.getLinkTypeDao().getLinkType(first.getParentId());
+                  auditAdapter.registerDataChanges(first.getParentId(), first.getResourceType(), parentRecords, data -> constraintManager.decodeDataTypes(linkType, data));
+               }
+            } catch (Exception e) {
+               log.log(Level.WARNING, String.format("Unable to store audit records of %s %s.", first.getResourceType(), first.getParentId()), e);
+            }
+         });
+      } catch (Exception e) {
+         log.log(Level.WARNING, String.format("Unable to store audit records of project %s.", records.projectId), e);
+      }
+   }
+
+   static class PendingRecords {
+      private final String organizationId;
+      private final String projectId;
+      private final Map<String, List<AuditRecord>> recordsByResource = new LinkedHashMap<>();
+      private Organization organization;
+      private Project project;
+
+      PendingRecords(final String organizationId, final String projectId) {
+         this.organizationId = organizationId;
+         this.projectId = projectId;
+      }
+
+      void add(final Organization organization, final Project project, final AuditRecord record) {
+         if (organization != null) {
+            this.organization = organization;
+         }
+         if (project != null) {
+            this.project = project;
+         }
+
+         final List<AuditRecord> records = recordsByResource.computeIfAbsent(record.getResourceType() + "/" + record.getParentId() + "/" + record.getResourceId(), key -> new ArrayList<>());
+         final AuditRecord lastRecord = records.isEmpty() ? null : records.get(records.size() - 1);
+
+         // the whole states are kept, so merging consecutive changes means keeping the first old and the last new state
+         if (lastRecord != null && Objects.equals(lastRecord.getUser(), record.getUser()) && Objects.equals(lastRecord.getAutomation(), record.getAutomation()) &&
+               !lastRecord.getChangeDate().isBefore(record.getChangeDate().minusMinutes(AuditAdapter.UPDATE_MERGE_WINDOW_MINUTES))) {
+            lastRecord.setNewState(record.getNewState());
+            lastRecord.setChangeDate(record.getChangeDate());
+         } else {
+            records.add(record);
+         }
+      }
+
+      Map<String, List<AuditRecord>> getRecordsByParent() {
+         return recordsByResource.values().stream()
+                                 .flatMap(List::stream)
+                                 .collect(Collectors.groupingBy(record -> record.getResourceType() + "/" + record.getParentId(), LinkedHashMap::new, Collectors.toList()));
+      }
+   }
+}
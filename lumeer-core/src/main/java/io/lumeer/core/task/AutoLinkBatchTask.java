@@ -22,29 +22,31 @@ import io.lumeer.api.model.AllowedPermissions;
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.ConstraintData;
-import io.lumeer.api.model.CurrencyData;
+import io.lumeer.api.model.ConstraintType;
 import io.lumeer.api.model.Document;
 import io.lumeer.api.model.Language;
 import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.Query;
+import io.lumeer.api.model.RoleType;
 import io.lumeer.api.model.User;
 import io.lumeer.api.model.rule.AutoLinkRule;
-import io.lumeer.core.facade.translate.TranslationManager;
 import io.lumeer.core.task.executor.ChangesTracker;
 import io.lumeer.core.task.executor.matcher.MatchQueryFactory;
 import io.lumeer.core.util.Tuple;
 import io.lumeer.core.util.js.DataFilter;
+import io.lumeer.core.util.js.DataFilterNativeTask;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TimeZone;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -54,6 +56,8 @@ public class AutoLinkBatchTask extends AbstractContextualTask {
 
    private static final Logger log = Logger.getLogger(AutoLinkBatchTask.class.getName());
 
+   private static final int LINKS_BATCH_SIZE = 1000;
+
    private AutoLinkRule rule;
    private LinkType linkType;
    private Collection collection;
@@ -68,6 +72,7 @@ public class AutoLinkBatchTask extends AbstractContextualTask {
    private Map<String, AllowedPermissions> permissions;
    private User user;
    private Function<Object, Query> matchQuery;
+   private Map<String, List<Document>> childrenByParentId;
 
    public void setupBatch(final AutoLinkRule rule, final LinkType linkType,
          final Collection collection, final Attribute attribute,
@@ -89,18 +94,7 @@ public class AutoLinkBatchTask extends AbstractContextualTask {
 
       language = requestDataKeeper.getUserLanguage();
       timeZone = requestDataKeeper.getTimezone();
-      final TranslationManager translationManager = new TranslationManager();
-      final String organizationId = daoContextSnapshot.getSelectedWorkspace().getOrganization().get().getId();
-      final String projectId = daoContextSnapshot.getSelectedWorkspace().getProject().get().getId();
-      constraintData = new ConstraintData(
-            daoContextSnapshot.getUserDao().getAllUsers(organizationId),
-            user,
-            translationManager.translateDurationUnitsMap(language),
-            new CurrencyData(translationManager.translateAbbreviations(language), translationManager.translateOrdinals(language)),
-            timeZone != null ? timeZone : TimeZone.getDefault().getID(),
-            daoContextSnapshot.getGroupDao().getAllGroups(organizationId),
-            daoContextSnapshot.getSelectionListDao().getAllLists(Collections.singletonList(projectId))
-      );
+      constraintData = getConstraintData(language, user);
 
       matchQuery = MatchQueryFactory.getMatchQuery(attribute, otherCollection, otherAttribute);
    }
@@ -108,8 +102,6 @@ public class AutoLinkBatchTask extends AbstractContextualTask {
    @Override
    public void process(final TaskExecutor executor, final ChangesTracker changesTracker) {
       try {
-         List<LinkInstance> linksForCreation = new ArrayList<>();
-
          final Map<String, Document> sourceDocumentsById = sourceDocuments.stream().collect(Collectors.toMap(Document::getId, Function.identity()));
 
          // group source documents by matching attribute value
@@ -130,31 +122,46 @@ public class AutoLinkBatchTask extends AbstractContextualTask {
                targetDocumentsById.get(dd.getId()).setData(getConstraintManager().decodeDataTypes(otherCollection, dd));
             });
 
+            final Set<String> linkedPairs = existingLinks.stream().map(link -> getPairKey(link.getDocumentIds().get(0), link.getDocumentIds().get(1))).collect(Collectors.toSet());
+            final Map<String, List<Document>> targetIndex = canJoinNatively() ? indexTargetDocuments() : null;
+            final Map<String, List<Document>> matchesByKey = new HashMap<>();
+            final ZonedDateTime creationDate = ZonedDateTime.now();
+            final List<LinkInstance> linksForCreation = new ArrayList<>();
+            int createdLinks = 0;
+
             // for every unique source value and all source documents sharing the value
-            source.forEach((value, documentIds) -> {
+            for (final Map.Entry<Object, Set<String>> entry : source.entrySet()) {
                // find target documents matching this value
-               final List<Document> matchingDocuments = findMatchingDocuments(targetDocuments, value);
-
-               // for all source documents
-               documentIds.forEach(sourceDocumentId -> {
-                  // filter out the matching documents to which the source document is already linked, and create new links for the rest
-                  final List<Document> linkingDocuments = filterExistingLinks(sourceDocumentId, matchingDocuments, existingLinks);
-                  linksForCreation.addAll(linkingDocuments.stream().map(doc -> {
-                     var l = new LinkInstance(linkType.getId(), List.of(sourceDocumentId, doc.getId()));
-                     l.setCreatedBy(user.getId());
-                     l.setCreationDate(ZonedDateTime.now());
-                     return l;
-                  }).collect(Collectors.toList()));
-               });
-            });
+               final String key = targetIndex != null ? DataFilterNativeTask.normalizeTextValue(entry.getKey()) : null;
+               final List<Document> matchingDocuments = key != null
+                     ? matchesByKey.computeIfAbsent(key, k -> withDescendants(targetIndex.getOrDefault(k, List.of())))
+                     : findMatchingDocuments(targetDocuments, entry.getKey());
+
+               // create new links for the matching documents to which the source documents are not linked yet
+               for (final String sourceDocumentId : entry.getValue()) {
+                  for (final Document document : matchingDocuments) {
+                     if (linkedPairs.add(getPairKey(sourceDocumentId, document.getId()))) {
+                        var l = new LinkInstance(linkType.getId(), List.of(sourceDocumentId, document.getId()));
+                        l.setCreatedBy(user.getId());
+                        l.setCreationDate(creationDate);
+                        linksForCreation.add(l);
+                        createdLinks++;
+
+                        if (linksForCreation.size() >= LINKS_BATCH_SIZE) {
+                           createLinks(linksForCreation, changesTracker);
+                        }
+                     }
+                  }
+               }
+            }
+
+            createLinks(linksForCreation, changesTracker);
 
             // submit changes
-            if (linksForCreation.size() > 0) {
-               final List<LinkInstance> newLinks = daoContextSnapshot.getLinkInstanceDao().createLinkInstances(linksForCreation, false);
+            if (createdLinks > 0) {
                linkTypeAdapter.mapLinkTypeComputedProperties(linkType);
                changesTracker.addLinkTypes(Set.of(linkType));
                changesTracker.updateLinkTypesMap(Map.of(linkType.getId(), linkType));
-               changesTracker.addCreatedLinkInstances(newLinks);
             }
          }
       } catch (Exception e) {
@@ -178,12 +185,63 @@ public class AutoLinkBatchTask extends AbstractContextualTask {
       return tuple.getFirst();
    }
 
-   private List<Document> filterExistingLinks(final String sourceDocumentId, final List<Document> documents, final List<LinkInstance> links) {
-      final Set<String> linkedDocumentIds = links
-            .stream()
-            .filter(link -> link.getDocumentIds().contains(sourceDocumentId))
-            .map(link -> link.getDocumentIds().get(0).equals(sourceDocumentId) ? link.getDocumentIds().get(1) : link.getDocumentIds().get(0))
-            .collect(Collectors.toSet());
-      return documents.stream().filter(document -> !linkedDocumentIds.contains(document.getId())).collect(Collectors.toList());
+   private void createLinks(final List<LinkInstance> linksForCreation, final ChangesTracker changesTracker) {
+      if (linksForCreation.isEmpty()) {
+         return;
+      }
+
+      final List<LinkInstance> newLinks = daoContextSnapshot.getLinkInstanceDao().createLinkInstances(linksForCreation, false);
+      linksForCreation.clear();
+      changesTracker.addCreatedLinkInstances(newLinks);
+   }
+
+   // the native equality matches the JS filter only for plain values readable by the user in all target documents
+   private boolean canJoinNatively() {
+      final AllowedPermissions otherPermissions = permissions.get(otherCollection.getId());
+      return isWithoutConstraint(attribute) && isWithoutConstraint(otherAttribute)
+            && otherPermissions != null && Boolean.TRUE.equals(otherPermissions.getRoles().get(RoleType.DataRead));
+   }
+
+   private boolean isWithoutConstraint(final Attribute attribute) {
+      return attribute.getConstraint() == null || attribute.getConstraint().getType() == null || attribute.getConstraint().getType() == ConstraintType.None;
+   }
+
+   private Map<String, List<Document>> indexTargetDocuments() {
+      final Map<String, List<Document>> index = new HashMap<>();
+      for (final Document document : targetDocuments) {
+         final String key = DataFilterNativeTask.normalizeTextValue(document.getData() != null ? document.getData().get(otherAttribute.getId()) : null);
+         if (key == null) {
+            return null;
+         }
+         index.computeIfAbsent(key, k -> new ArrayList<>()).add(document);
+      }
+      return index;
+   }
+
+   // the data filter includes child documents of the matching ones
+   private List<Document> withDescendants(final List<Document> documents) {
+      if (documents.isEmpty()) {
+         return documents;
+      }
+
+      if (childrenByParentId == null) {
+         childrenByParentId = targetDocuments.stream()
+                                             .filter(document -> document.getMetaData() != null && document.getMetaData().getString(Document.META_PARENT_ID) != null)
+                                             .collect(Collectors.groupingBy(document -> document.getMetaData().getString(Document.META_PARENT_ID)));
+      }
+
+      final Map<String, Document> result = new LinkedHashMap<>();
+      final Deque<Document> queue = new ArrayDeque<>(documents);
+      while (!queue.isEmpty()) {
+         final Document document = queue.removeFirst();
+         if (result.putIfAbsent(document.getId(), document) == null) {
+            queue.addAll(childrenByParentId.getOrDefault(document.getId(), List.of()));
+         }
+      }
+      return new ArrayList<>(result.values());
+   }
+
+   private static String getPairKey(final String documentId1, final String documentId2) {
+      return documentId1.compareTo(documentId2) < 0 ? documentId1 + ":" + documentId2 : documentId2 + ":" + documentId1;
    }
 }
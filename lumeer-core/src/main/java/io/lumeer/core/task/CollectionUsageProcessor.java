@@ -0,0 +1,123 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+import io.lumeer.core.WorkspaceContext;
+import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+
+/**
+ * Buffers attributes usage changes caused by document writes and stores them per collection in a single atomic update
+ * (see CollectionDao.updateAttributesUsage). The collection is no longer rewritten and re-sent to all its readers on every write.
+ */
+@Singleton
+@Startup
+@Lock(LockType.READ)
+public class CollectionUsageProcessor extends WorkspaceContext {
+
+   private static final Logger log = Logger.getLogger(CollectionUsageProcessor.class.getName());
+
+   private final Map<String, CollectionUsage> pendingUsages = new ConcurrentHashMap<>();
+
+   public void addUsage(final Organization organization, final Project project, final String collectionId, final Map<String, Integer> attributesUsage) {
+      if (organization == null || project == null) {
+         return;
+      }
+
+      final ZonedDateTime now = ZonedDateTime.now();
+      pendingUsages.compute(organization.getId() + "/" + project.getId() + "/" + collectionId, (key, usage) -> {
+         final CollectionUsage collectionUsage = usage != null ? usage : new CollectionUsage(collectionId);
+         collectionUsage.add(organization, project, attributesUsage, now);
+         return collectionUsage;
+      });
+   }
+
+   @Schedule(hour = "*", minute = "*", second = "*/5", persistent = false)
+   public void process() {
+      final List<CollectionUsage> usages = new ArrayList<>();
+      pendingUsages.keySet().forEach(key -> {
+         final CollectionUsage usage = pendingUsages.remove(key);
+         if (usage != null) {
+            usages.add(usage);
+         }
+      });
+
+      usages.stream().collect(Collectors.groupingBy(usage -> usage.organization.getId())).values().forEach(organizationUsages -> {
+         final Organization organization = organizationUsages.get(0).organization;
+         try {
+            final DataStorage userDataStorage = getDataStorage(organization.getId());
+
+            organizationUsages.stream().collect(Collectors.groupingBy(usage -> usage.project.getId())).values().forEach(projectUsages -> {
+               final DaoContextSnapshot projDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, projectUsages.get(0).project));
+               projectUsages.forEach(usage -> {
+                  try {
+                     projDao.getCollectionDao().updateAttributesUsage(usage.collectionId, usage.attributesUsage, usage.lastTimeUsed);
+                  } catch (Exception e) {
+                     log.log(Level.WARNING, String.format("Unable to update attributes usage of collection %s.", usage.collectionId), e);
+                  }
+               });
+            });
+         } catch (Exception e) {
+            log.log(Level.WARNING, String.format("Unable to update attributes usage in organization %s.", organization.getCode()), e);
+         }
+      });
+   }
+
+   @PreDestroy
+   public void flush() {
+      process();
+   }
+
+   private static class CollectionUsage {
+      private final String collectionId;
+      private final Map<String, Integer> attributesUsage = new HashMap<>();
+      private Organization organization;
+      private Project project;
+      private ZonedDateTime lastTimeUsed;
+
+      private CollectionUsage(final String collectionId) {
+         this.collectionId = collectionId;
+      }
+
+      private void add(final Organization organization, final Project project, final Map<String, Integer> attributesUsage, final ZonedDateTime lastTimeUsed) {
+         this.organization = organization;
+         this.project = project;
+         this.lastTimeUsed = lastTimeUsed;
+         attributesUsage.forEach((attributeId, delta) -> this.attributesUsage.merge(attributeId, delta, Integer::sum));
+      }
+   }
+}
@@ -19,10 +19,13 @@
 package io.lumeer.core.task;
 
 import io.lumeer.api.model.AppId;
+import io.lumeer.api.model.ConstraintData;
 import io.lumeer.api.model.Group;
+import io.lumeer.api.model.Language;
 import io.lumeer.api.model.User;
 import io.lumeer.core.adapter.FileAttachmentAdapter;
 import io.lumeer.core.auth.RequestDataKeeper;
+import io.lumeer.core.cache.ConstraintDataCache;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.FunctionFacade;
 import io.lumeer.core.facade.TaskProcessingFacade;
@@ -36,7 +39,7 @@ import java.util.List;
 
 public interface ContextualTask extends Task {
 
-   ContextualTask initialize(final User initiator, final DaoContextSnapshot daoContextSnapshot, final PusherClient pusherClient, final LumeerS3Client lumeerS3Client, final RequestDataKeeper requestDataKeeper, final ConstraintManager constraintManager, DefaultConfigurationProducer.DeployEnvironment environment, final int recursionDepth);
+   ContextualTask initialize(final User initiator, final DaoContextSnapshot daoContextSnapshot, final PusherClient pusherClient, final LumeerS3Client lumeerS3Client, final RequestDataKeeper requestDataKeeper, final ConstraintManager constraintManager, final ConstraintDataCache constraintDataCache, DefaultConfigurationProducer.DeployEnvironment environment, final int recursionDepth);
 
    DaoContextSnapshot getDaoContextSnapshot();
    PusherClient getPusherClient();
@@ -44,6 +47,7 @@ public interface ContextualTask extends Task {
    User getInitiator();
    List<Group> getGroups();
    ConstraintManager getConstraintManager();
+   ConstraintData getConstraintData(final Language language, final User currentUser);
    String getCurrentLocale();
    String getCorrelationId();
    AppId getAppId();
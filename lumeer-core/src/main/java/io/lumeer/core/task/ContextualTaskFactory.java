@@ -20,6 +20,7 @@ package io.lumeer.core.task;
 
 import io.lumeer.core.auth.AuthenticatedUser;
 import io.lumeer.core.auth.RequestDataKeeper;
+import io.lumeer.core.cache.ConstraintDataCache;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.ConfigurationFacade;
 import io.lumeer.core.facade.LumeerS3ClientHelperFacade;
@@ -60,6 +61,9 @@ public class ContextualTaskFactory {
    @Inject
    private DefaultConfigurationProducer configurationProducer;
 
+   @Inject
+   private ConstraintDataCache constraintDataCache;
+
    private ConstraintManager constraintManager;
 
    @PostConstruct
@@ -70,7 +74,7 @@ public class ContextualTaskFactory {
    public <T extends ContextualTask> T getInstance(final Class<T> clazz) {
       try {
          T t = clazz.getConstructor().newInstance();
-         t.initialize(authenticatedUser.getCurrentUser(), daoContextSnapshotFactory.getInstance(), pusherHelperFacade.getPusherClient(), lumeerS3ClientHelperFacade.getLumeerS3Client(), new RequestDataKeeper(requestDataKeeper), constraintManager, configurationProducer.getEnvironment(), 0);
+         t.initialize(authenticatedUser.getCurrentUser(), daoContextSnapshotFactory.getInstance(), pusherHelperFacade.getPusherClient(), lumeerS3ClientHelperFacade.getLumeerS3Client(), new RequestDataKeeper(requestDataKeeper), constraintManager, constraintDataCache, configurationProducer.getEnvironment(), 0);
 
          return t;
       } catch (Exception e) {
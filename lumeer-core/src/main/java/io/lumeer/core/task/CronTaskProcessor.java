@@ -22,55 +22,178 @@ import io.lumeer.api.model.*;
 import io.lumeer.api.model.rule.CronRule;
 import io.lumeer.core.WorkspaceContext;
 import io.lumeer.core.auth.AuthenticatedUser;
+import io.lumeer.core.util.CronRuleScheduler;
 import io.lumeer.core.util.CronTaskChecker;
 import io.lumeer.core.util.DocumentUtils;
 import io.lumeer.engine.api.data.DataStorage;
 import io.lumeer.storage.api.dao.OrganizationDao;
+import io.lumeer.storage.api.dao.ScheduledRuleDao;
 import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
 
 import javax.ejb.Schedule;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.inject.Inject;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+/**
+ * Executes cron rules of all collections. Only the rules that are due according to their index entries (see ScheduledRuleDao)
+ * are read, they are claimed by a lease so several application nodes can share the work.
+ */
 @Singleton
 @Startup
 public class CronTaskProcessor extends WorkspaceContext {
 
+   private static final int CLAIM_BATCH_SIZE = 100;
+   private static final int LEASE_MINUTES = 10;
+   private static final int PARALLELISM = 4;
+
    @Inject
    private OrganizationDao organizationDao;
 
+   @Inject
+   private ScheduledRuleDao scheduledRuleDao;
+
    @Inject
    private TaskExecutor taskExecutor;
 
+   @Inject
+   private ManagedExecutorService executorService;
+
    private static final Logger log = Logger.getLogger(CronTaskProcessor.class.getName());
 
    private final CronTaskChecker checker = new CronTaskChecker();
 
+   private final String leaseOwner = UUID.randomUUID().toString();
+
+   private boolean rulesIndexed = false;
+
    @Schedule(hour = "*", minute = "*/15") // every 15 minutes
    public void process() {
+      if (!rulesIndexed) {
+         indexRules();
+         rulesIndexed = true;
+      }
+
+      List<ScheduledRule> claimedRules;
+      do {
+         final ZonedDateTime now = ZonedDateTime.now();
+         claimedRules = scheduledRuleDao.claimDueRules(now, leaseOwner, now.plusMinutes(LEASE_MINUTES), CLAIM_BATCH_SIZE);
+         processClaimedRules(claimedRules);
+      } while (claimedRules.size() == CLAIM_BATCH_SIZE);
+   }
+
+   /**
+    * Rebuilds the index of cron rules from all collections, rules changed without going through CollectionFacade
+    * are picked up here.
+    */
+   @Schedule(hour = "3", minute = "30")
+   public void indexRules() {
       final List<Organization> organizations = organizationDao.getAllOrganizations();
 
       organizations.forEach(organization -> {
-         final DataStorage userDataStorage = getDataStorage(organization.getId());
+         try {
+            final DataStorage userDataStorage = getDataStorage(organization.getId());
+
+            final DaoContextSnapshot orgDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, null));
+            final List<Project> projects = orgDao.getProjectDao().getAllProjects();
 
+            projects.stream().filter(this::isTimerAllowedInProject).forEach(project -> {
+               final DaoContextSnapshot projDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, project));
+               final List<Collection> collections = projDao.getCollectionDao().getAllCollections();
+               collections.stream()
+                          .filter(collection -> collection.getRules() != null && collection.getRules().values().stream().anyMatch(rule -> rule.getType() == Rule.RuleType.CRON))
+                          .forEach(collection -> CronRuleScheduler.scheduleRules(scheduledRuleDao, organization.getId(), project.getId(), collection));
+            });
+         } catch (Exception e) {
+            log.log(Level.WARNING, String.format("Unable to index cron rules of organization %s.", organization.getCode()), e);
+         }
+      });
+   }
+
+   private void processClaimedRules(final List<ScheduledRule> rules) {
+      // rules of the same collection are processed together, as they are updated in a single document
+      final Queue<List<ScheduledRule>> collectionRules = new ConcurrentLinkedQueue<>(rules.stream().collect(Collectors.groupingBy(ScheduledRule::getCollectionId)).values());
+
+      final List<Future<?>> workers = new ArrayList<>();
+      for (int i = 0; i < Math.min(PARALLELISM, collectionRules.size()); i++) {
+         workers.add(executorService.submit(() -> {
+            List<ScheduledRule> scheduledRules;
+            while ((scheduledRules = collectionRules.poll()) != null) {
+               processCollectionRules(scheduledRules);
+            }
+         }));
+      }
+
+      workers.forEach(worker -> {
+         try {
+            worker.get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         } catch (ExecutionException e) {
+            log.log(Level.WARNING, "Unable to process cron rules.", e.getCause());
+         }
+      });
+   }
+
+   private void processCollectionRules(final List<ScheduledRule> scheduledRules) {
+      final ScheduledRule scheduledRule = scheduledRules.get(0);
+
+      try {
+         final Organization organization = organizationDao.getOrganizationById(scheduledRule.getOrganizationId());
+         final DataStorage userDataStorage = getDataStorage(organization.getId());
          final DaoContextSnapshot orgDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, null));
-         final List<Project> projects = orgDao.getProjectDao().getAllProjects();
+         final Project project = orgDao.getProjectDao().getProjectById(scheduledRule.getProjectId());
+
+         if (!isTimerAllowedInProject(project)) {
+            scheduledRules.forEach(rule -> scheduledRuleDao.deleteRule(rule.getId()));
+            return;
+         }
 
-         projects.stream().filter(this::isTimerAllowedInProject).forEach(project -> {
-            final DaoContextSnapshot projDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, project));
-            final List<Collection> collections = projDao.getCollectionDao().getAllCollections();
-            collections.forEach(collection -> processRules(projDao, collection));
+         final DaoContextSnapshot projDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, project));
+         final Collection collection = projDao.getCollectionDao().getCollectionById(scheduledRule.getCollectionId());
+
+         // the rule could have been removed or changed in the meantime
+         final Map<String, ScheduledRule> rulesById = new HashMap<>();
+         scheduledRules.forEach(rule -> {
+            final Rule collectionRule = collection.getRules() != null ? collection.getRules().get(rule.getRuleId()) : null;
+            if (collectionRule != null && collectionRule.getType() == Rule.RuleType.CRON) {
+               rulesById.put(rule.getRuleId(), rule);
+            } else {
+               scheduledRuleDao.deleteRule(rule.getId());
+            }
          });
-      });
+
+         if (rulesById.size() > 0) {
+            final Collection latestCollection = processRules(projDao, collection, rulesById.keySet());
+
+            // the rule is not checked sooner than in the next round
+            final ZonedDateTime from = ZonedDateTime.now().plusMinutes(1);
+            rulesById.forEach((ruleId, rule) ->
+                  scheduledRuleDao.releaseRule(rule.getId(), leaseOwner, CronRuleScheduler.getNextRun(latestCollection.getRules().get(ruleId), from))
+            );
+         }
+      } catch (ResourceNotFoundException e) {
+         scheduledRules.forEach(rule -> scheduledRuleDao.deleteRule(rule.getId()));
+      } catch (Exception e) {
+         // the lease expires and the rules are claimed again later
+         log.log(Level.WARNING, String.format("Unable to process cron rules of collection %s.", scheduledRule.getCollectionId()), e);
+      }
    }
 
    private boolean isTimerAllowedInProject(Project project) {
@@ -80,8 +203,8 @@ public class CronTaskProcessor extends WorkspaceContext {
       return true;
    }
 
-   private void processRules(final DaoContextSnapshot dao, final Collection collection) {
-      var rules = collection.getRules().entrySet().stream().filter(e -> e.getValue().getType() == Rule.RuleType.CRON).collect(Collectors.toList());
+   private Collection processRules(final DaoContextSnapshot dao, final Collection collection, final Set<String> ruleIds) {
+      var rules = collection.getRules().entrySet().stream().filter(e -> ruleIds.contains(e.getKey()) && e.getValue().getType() == Rule.RuleType.CRON).collect(Collectors.toList());
 
       if (rules.size() > 0) {
          final ContextualTaskFactory taskFactory = getTaskFactory(dao);
@@ -161,7 +284,11 @@ public class CronTaskProcessor extends WorkspaceContext {
          final Collection latestCollection = dao.getCollectionDao().getCollectionById(collection.getId());
          rulesToExecute.keySet().forEach(key -> new CronRule(latestCollection.getRules().get(key)).setExecuting(null));
          dao.getCollectionDao().updateCollectionRules(latestCollection);
+
+         return latestCollection;
       }
+
+      return collection;
    }
 
    private List<Document> getDocuments(final CronRule rule, final Collection collection, final DaoContextSnapshot dao) {
@@ -130,17 +130,15 @@ public class FunctionTask extends AbstractContextualTask {
          );
       }
       if (documents != null && collection != null) {
-         getDocumentsWithData(collection, documents).forEach(document -> {
-            originalDocuments.put(document.getId(), new Document(document));
-            final FunctionTaskExecutor executor = new FunctionTaskExecutor(this, collection, document);
-            changesTracker.merge(executor.execute(taskExecutor));
-         });
+         final Set<Document> documentsWithData = getDocumentsWithData(collection, documents);
+         documentsWithData.forEach(document -> originalDocuments.put(document.getId(), new Document(document)));
+         final FunctionTaskExecutor executor = new FunctionTaskExecutor(this, collection, documentsWithData);
+         changesTracker.merge(executor.execute(taskExecutor));
       } else if (linkType != null && linkInstances != null) {
-         getLinkInstancesWithData(linkType, linkInstances).forEach(linkInstance -> {
-            originalLinkInstances.put(linkInstance.getId(), new LinkInstance(linkInstance));
-            final FunctionTaskExecutor executor = new FunctionTaskExecutor(this, linkType, linkInstance);
-            changesTracker.merge(executor.execute(taskExecutor));
-         });
+         final Set<LinkInstance> linkInstancesWithData = getLinkInstancesWithData(linkType, linkInstances);
+         linkInstancesWithData.forEach(linkInstance -> originalLinkInstances.put(linkInstance.getId(), new LinkInstance(linkInstance)));
+         final FunctionTaskExecutor executor = new FunctionTaskExecutor(this, linkType, linkInstancesWithData);
+         changesTracker.merge(executor.execute(taskExecutor));
       }
 
       if (parent != null) {
@@ -0,0 +1,140 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor;
+
+import io.lumeer.core.js.JsEngineFactory;
+import io.lumeer.core.task.ContextualTask;
+import io.lumeer.core.task.TaskExecutor;
+import io.lumeer.core.task.executor.bridge.LumeerBridge;
+import io.lumeer.core.task.executor.operation.Operation;
+import io.lumeer.core.task.executor.operation.OperationExecutor;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes the same JS code for many rows. The libraries are evaluated and the code is compiled into a function
+ * only once per context, each row then just calls the function with its own arguments. Operations of all the rows
+ * are collected in a single bridge and committed together.
+ */
+public class BatchJsExecutor implements AutoCloseable {
+
+   private final ContextualTask task;
+   private final String name;
+   private final String js;
+   private final String[] parameters;
+   private final LumeerBridge lumeerBridge;
+
+   private Context context;
+   private Value function;
+   private PolyglotException syntaxError;
+
+   public BatchJsExecutor(final ContextualTask task, final String name, final String js, final String... parameters) {
+      this.task = task;
+      this.name = name;
+      this.js = js;
+      this.parameters = parameters;
+      this.lumeerBridge = new LumeerBridge(task);
+   }
+
+   /**
+    * Runs the code for a single row. When the row fails, its operations are discarded and the exception is rethrown.
+    */
+   public void execute(final Object... arguments) {
+      final List<Operation<?>> operations = lumeerBridge.getOperations();
+      final int committedOperations = operations.size();
+      lumeerBridge.setCause(null);
+
+      final Value function = getFunction();
+      final JsWatchdog.Execution execution = JsWatchdog.start(name, context);
+
+      try {
+         function.executeVoid(arguments);
+      } catch (RuntimeException e) {
+         operations.subList(committedOperations, operations.size()).clear();
+         throw e;
+      } finally {
+         execution.finish();
+         if (execution.isTimedOut()) {
+            context = null; // the context got cancelled, a new one is created for the next row
+         }
+      }
+   }
+
+   public ChangesTracker commitOperations(final TaskExecutor taskExecutor) {
+      final List<Operation<?>> operations = new ArrayList<>(lumeerBridge.getOperations());
+      lumeerBridge.getOperations().clear();
+
+      return new OperationExecutor(taskExecutor, task, operations).call();
+   }
+
+   public boolean hasOperations() {
+      return !lumeerBridge.getOperations().isEmpty();
+   }
+
+   public Exception getCause() {
+      return lumeerBridge.getCause();
+   }
+
+   @Override
+   public void close() {
+      if (context != null) {
+         context.close(true);
+         context = null;
+      }
+   }
+
+   private Value getFunction() {
+      if (syntaxError != null) {
+         throw syntaxError;
+      }
+
+      if (context == null) {
+         final Context newContext = Context
+               .newBuilder("js")
+               .engine(JsEngineFactory.getEngine())
+               .allowAllAccess(true)
+               .build();
+
+         try {
+            newContext.initialize("js");
+            newContext.getPolyglotBindings().putMember("lumeer", lumeerBridge);
+            newContext.eval("js", JsExecutor.getJsLibraries(js));
+
+            final String code = "(function(" + String.join(", ", parameters) + ") {\n" + js + "\n})";
+            function = newContext.eval(Source.create("js", code));
+         } catch (RuntimeException e) {
+            newContext.close(true);
+            if (e instanceof PolyglotException && ((PolyglotException) e).isSyntaxError()) {
+               syntaxError = (PolyglotException) e;
+            }
+            throw e;
+         }
+
+         context = newContext;
+      }
+
+      return function;
+   }
+}
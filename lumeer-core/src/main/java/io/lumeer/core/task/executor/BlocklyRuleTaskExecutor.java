@@ -86,7 +86,7 @@ public class BlocklyRuleTaskExecutor {
       jsExecutor.setDryRun(rule.isDryRun());
 
       try {
-         jsExecutor.execute(bindings, ruleTask, rule.getJs());
+         jsExecutor.execute(getScriptName(), bindings, ruleTask, rule.getJs());
 
          if (!rule.isDryRun()) {
             tracker = jsExecutor.commitOperations(taskExecutor);
@@ -104,6 +104,11 @@ public class BlocklyRuleTaskExecutor {
       return tracker;
    }
 
+   private String getScriptName() {
+      final String resourceId = ruleTask.isCollectionBased() ? ruleTask.getCollection().getId() : ruleTask.getLinkType().getId();
+      return "rule:" + resourceId + "/" + ruleName;
+   }
+
    private void checkErrorErasure() {
       if (rule.getError() != null && rule.getError().length() > 0 && System.currentTimeMillis() - rule.getResultTimestamp() > 3600_000) {
          rule.setError("");
@@ -26,60 +26,140 @@ import io.lumeer.core.task.FunctionTask;
 import io.lumeer.core.task.TaskExecutor;
 import io.lumeer.core.task.executor.bridge.DocumentBridge;
 import io.lumeer.core.task.executor.bridge.LinkBridge;
+import io.lumeer.core.task.executor.operation.DocumentOperation;
+import io.lumeer.core.task.executor.operation.LinkOperation;
+import io.lumeer.core.task.executor.operation.Operation;
+import io.lumeer.core.task.executor.operation.OperationExecutor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Evaluates the function of an attribute for all the given documents or link instances in a single JS context
+ * and commits the resulting operations in batches.
+ */
 public class FunctionTaskExecutor {
 
    private static Logger log = Logger.getLogger(FunctionTaskExecutor.class.getName());
 
+   private static final int COMMIT_BATCH_SIZE = 500;
+
    private final FunctionTask task;
-   private final Document document;
+   private final java.util.Collection<Document> documents;
    private final Collection collection;
    private final LinkType linkType;
-   private final LinkInstance linkInstance;
+   private final java.util.Collection<LinkInstance> linkInstances;
    private ChangesTracker changesTracker;
 
-   public FunctionTaskExecutor(final FunctionTask functionTask, final Collection collection, final Document document) {
+   public FunctionTaskExecutor(final FunctionTask functionTask, final Collection collection, final java.util.Collection<Document> documents) {
       this.task = functionTask;
-      this.document = document;
+      this.documents = documents;
       this.collection = collection;
-      this.linkInstance = null;
+      this.linkInstances = null;
       this.linkType = null;
    }
 
-   public FunctionTaskExecutor(final FunctionTask functionTask, final LinkType linkType, final LinkInstance linkInstance) {
+   public FunctionTaskExecutor(final FunctionTask functionTask, final LinkType linkType, final java.util.Collection<LinkInstance> linkInstances) {
       this.task = functionTask;
-      this.document = null;
+      this.documents = null;
       this.collection = null;
-      this.linkInstance = linkInstance;
+      this.linkInstances = linkInstances;
       this.linkType = linkType;
    }
 
    public ChangesTracker execute(final TaskExecutor taskExecutor) {
       changesTracker = new ChangesTracker();
-      final DocumentBridge thisDocument = new DocumentBridge(document);
-      final LinkBridge thisLink = new LinkBridge(linkInstance);
-      final Map<String, Object> bindings = linkInstance == null ? Map.of("thisRecord", thisDocument, "thisDocument", thisDocument) : Map.of("thisLink", thisLink);
+      final String attributeId = task.getAttribute().getId();
 
-      final JsExecutor jsExecutor = new JsExecutor();
+      if (collection != null) {
+         try (final BatchJsExecutor jsExecutor = new BatchJsExecutor(task, "function:" + collection.getId() + "/" + attributeId, task.getFunction().getJs(), "thisRecord", "thisDocument")) {
+            executeRows(taskExecutor, jsExecutor, documents, document -> {
+               final DocumentBridge thisDocument = new DocumentBridge(document);
+               jsExecutor.execute(thisDocument, thisDocument);
+            }, document -> new DocumentOperation(document, attributeId, "ERR!"));
+         }
+      } else if (linkType != null) {
+         try (final BatchJsExecutor jsExecutor = new BatchJsExecutor(task, "function:" + linkType.getId() + "/" + attributeId, task.getFunction().getJs(), "thisLink")) {
+            executeRows(taskExecutor, jsExecutor, linkInstances, linkInstance -> jsExecutor.execute(new LinkBridge(linkInstance)),
+                  linkInstance -> new LinkOperation(linkInstance, attributeId, "ERR!"));
+         }
+      }
+
+      return changesTracker;
+   }
+
+   private <T> void executeRows(final TaskExecutor taskExecutor, final BatchJsExecutor jsExecutor, final java.util.Collection<T> rows,
+         final Consumer<T> execution, final Function<T, Operation<?>> errorOperation) {
+      final List<T> executedRows = new ArrayList<>();
+      final List<Operation<?>> errorOperations = new ArrayList<>();
+      Exception error = null;
+      Exception errorCause = null;
+      boolean succeeded = false;
+
+      for (final T row : rows) {
+         try {
+            execution.accept(row);
+            executedRows.add(row);
+         } catch (Exception e) {
+            if (error == null) {
+               log.log(Level.WARNING, "Unable to execute function: ", e);
+            }
+            error = e;
+            errorCause = jsExecutor.getCause();
+            errorOperations.add(errorOperation.apply(row));
+         }
 
-      try {
-         jsExecutor.execute(bindings, task, task.getFunction().getJs());
-         final ChangesTracker tracker = jsExecutor.commitOperations(taskExecutor);
+         if (executedRows.size() + errorOperations.size() >= COMMIT_BATCH_SIZE) {
+            final Exception commitError = commitRows(taskExecutor, jsExecutor, executedRows, errorOperations, errorOperation);
+            succeeded |= commitError == null && !executedRows.isEmpty();
+            if (commitError != null) {
+               error = commitError;
+               errorCause = null;
+            }
+            executedRows.clear();
+            errorOperations.clear();
+         }
+      }
+
+      final Exception commitError = commitRows(taskExecutor, jsExecutor, executedRows, errorOperations, errorOperation);
+      succeeded |= commitError == null && !executedRows.isEmpty();
+      if (commitError != null) {
+         error = commitError;
+         errorCause = null;
+      }
+
+      if (error != null) {
+         writeTaskError(error, errorCause);
+      } else if (succeeded) {
          checkErrorErasure();
+      }
+   }
+
+   private <T> Exception commitRows(final TaskExecutor taskExecutor, final BatchJsExecutor jsExecutor, final List<T> executedRows,
+         final List<Operation<?>> errorOperations, final Function<T, Operation<?>> errorOperation) {
+      Exception error = null;
+
+      if (jsExecutor.hasOperations()) {
+         try {
+            changesTracker.merge(jsExecutor.commitOperations(taskExecutor));
+         } catch (Exception e) {
+            log.log(Level.WARNING, "Unable to commit function results: ", e);
+            error = e;
+            executedRows.forEach(row -> errorOperations.add(errorOperation.apply(row)));
+         }
+      }
 
-         return tracker;
-      } catch (Exception e) {
-         log.log(Level.WARNING, "Unable to execute function: ", e);
-         writeTaskError(e, jsExecutor.getCause());
-         jsExecutor.setErrorInAttribute(document, task.getAttribute().getId(), taskExecutor);
+      if (!errorOperations.isEmpty()) {
+         changesTracker.merge(new OperationExecutor(taskExecutor, task, new ArrayList<>(errorOperations)).call());
       }
 
-      return null;
+      return error;
    }
 
    private void checkErrorErasure() {
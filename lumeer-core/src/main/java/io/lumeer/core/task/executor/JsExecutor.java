@@ -32,8 +32,6 @@ import org.graalvm.polyglot.Engine;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
 
 public class JsExecutor {
 
@@ -49,14 +47,22 @@ public class JsExecutor {
    private static final String heJsCode = JsFunctionsParser.getHeJsCode();
    private static final String numbroJsCode = JsFunctionsParser.getNumbroJsCode();
 
-   private String getJsLib() {
+   private static String getJsLib() {
       return "function lumeer_numbro(locale, decimals, num) { numbro.setLanguage(locale); return numbro(num).formatCurrency({mantissa: decimals, thousandSeparated: true}); } "
             + "function lumeer_isEmpty(v) {\n"
             + "  return (v === null || v === undefined || v === '' || (Array.isArray(v) && (v.length === 0 || (v.length === 1 && lumeer_isEmpty(v[0])))) || (typeof v === 'object' && !!v && Object.keys(v).length === 0 && v.constructor === Object));\n"
             + "}\n";
    }
 
-   public void execute(final Map<String, Object> bindings, final ContextualTask task, final String js) {
+   /**
+    * Executes the code within the time budget enforced by {@link JsWatchdog}.
+    *
+    * @param name     name of the script used in the execution statistics.
+    * @param bindings global variables available to the script.
+    * @param task     task the script is running in.
+    * @param js       code to execute.
+    */
+   public void execute(final String name, final Map<String, Object> bindings, final ContextualTask task, final String js) {
       this.task = task;
       lumeerBridge = new LumeerBridge(task);
       lumeerBridge.setDryRun(dryRun);
@@ -71,20 +77,23 @@ public class JsExecutor {
 
       bindings.forEach((k, v) -> context.getBindings("js").putMember(k, v));
 
-      Timer timer = new Timer(true);
-      timer.schedule(new TimerTask() {
-         @Override
-         public void run() {
-            context.close(true);
-         }
-      }, 3000);
+      final JsWatchdog.Execution execution = JsWatchdog.start(name, context);
+      try {
+         context.eval("js", getJsLibraries(js) + js);
+      } finally {
+         execution.finish();
+         context.close(true);
+      }
+   }
 
-      final String jsCode = getJsLib() +
+   /**
+    * Gets the helper functions and the libraries referenced by the given code.
+    */
+   static String getJsLibraries(final String js) {
+      return getJsLib() +
             (js.contains(HE_JS_SIGNATURE) ? heJsCode : "") +
             (js.contains(NUMBRO_JS_SIGNATURE) ? numbroJsCode : "") +
-            (js.contains(JsFunctionsParser.FORMAT_JS_DATE) || js.contains(JsFunctionsParser.PARSE_JS_DATE) || js.contains(MOMENT_JS_SIGNATURE) ? momentJsCode + ";\n" : "") + js;
-
-      context.eval("js", jsCode);
+            (js.contains(JsFunctionsParser.FORMAT_JS_DATE) || js.contains(JsFunctionsParser.PARSE_JS_DATE) || js.contains(MOMENT_JS_SIGNATURE) ? momentJsCode + ";\n" : "");
    }
 
    public ChangesTracker commitOperations(final TaskExecutor taskExecutor) {
@@ -0,0 +1,227 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor;
+
+import org.graalvm.polyglot.Context;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Enforces the time budget of user scripts from a single application wide scheduler thread and keeps
+ * execution time statistics of the individual scripts (rules and functions).
+ */
+public class JsWatchdog {
+
+   private static final Logger log = Logger.getLogger(JsWatchdog.class.getName());
+
+   public static final long TIMEOUT_MILLIS = getLongProperty("JS_EXECUTION_TIMEOUT", 3000L);
+
+   private static final long[] HISTOGRAM_BOUNDS_MILLIS = { 10, 50, 100, 500, 1000, 3000 };
+   private static final int MAX_SCRIPTS = 10_000;
+   private static final String OTHER_SCRIPTS = "other";
+   private static final long STATISTICS_LOG_INTERVAL_MINUTES = 10;
+   private static final int STATISTICS_LOG_SCRIPTS = 10;
+
+   private static final Map<String, ScriptStatistics> statistics = new ConcurrentHashMap<>();
+   private static final ScheduledThreadPoolExecutor scheduler = createScheduler();
+
+   private JsWatchdog() {
+   }
+
+   /**
+    * Starts watching the execution of the given script, the context is cancelled when the execution is not finished
+    * within the time budget.
+    *
+    * @param name    name of the script used in the statistics.
+    * @param context context the script is running in.
+    * @return the execution that must be finished once the script completes.
+    */
+   public static Execution start(final String name, final Context context) {
+      return new Execution(name, context);
+   }
+
+   public static List<ScriptStatistics> getStatistics() {
+      return List.copyOf(statistics.values());
+   }
+
+   private static ScriptStatistics getScriptStatistics(final String name) {
+      final ScriptStatistics scriptStatistics = statistics.get(name);
+      if (scriptStatistics != null) {
+         return scriptStatistics;
+      }
+
+      // keep the memory bounded when there is an unexpected amount of scripts
+      return statistics.computeIfAbsent(statistics.size() < MAX_SCRIPTS ? name : OTHER_SCRIPTS, ScriptStatistics::new);
+   }
+
+   private static void logStatistics() {
+      if (!log.isLoggable(Level.INFO) || statistics.isEmpty()) {
+         return;
+      }
+
+      final String expensiveScripts = statistics.values().stream()
+                                                .sorted(Comparator.comparingLong(ScriptStatistics::getTotalMillis).reversed())
+                                                .limit(STATISTICS_LOG_SCRIPTS)
+                                                .map(ScriptStatistics::toString)
+                                                .collect(Collectors.joining("\n"));
+      log.info("Most expensive scripts:\n" + expensiveScripts);
+   }
+
+   private static ScheduledThreadPoolExecutor createScheduler() {
+      final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+         final Thread thread = new Thread(runnable, "js-watchdog");
+         thread.setDaemon(true);
+         return thread;
+      });
+      // finished executions cancel their timeouts, do not keep them in the queue
+      executor.setRemoveOnCancelPolicy(true);
+      executor.scheduleAtFixedRate(JsWatchdog::logStatistics, STATISTICS_LOG_INTERVAL_MINUTES, STATISTICS_LOG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+
+      return executor;
+   }
+
+   private static long getLongProperty(final String name, final long defaultValue) {
+      try {
+         final String value = System.getenv(name);
+         return value != null ? Long.parseLong(value) : defaultValue;
+      } catch (NumberFormatException e) {
+         return defaultValue;
+      }
+   }
+
+   public static class Execution {
+
+      private final String name;
+      private final long start = System.nanoTime();
+      private final AtomicBoolean timedOut = new AtomicBoolean();
+      private final ScheduledFuture<?> timeout;
+
+      private Execution(final String name, final Context context) {
+         this.name = name;
+         this.timeout = scheduler.schedule(() -> {
+            timedOut.set(true);
+            context.close(true);
+         }, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      }
+
+      /**
+       * Stops watching the execution and records its duration.
+       */
+      public void finish() {
+         timeout.cancel(false);
+         getScriptStatistics(name).record(System.nanoTime() - start, timedOut.get());
+      }
+
+      public boolean isTimedOut() {
+         return timedOut.get();
+      }
+   }
+
+   public static class ScriptStatistics {
+
+      private final String name;
+      private final LongAdder executions = new LongAdder();
+      private final LongAdder timeouts = new LongAdder();
+      private final LongAdder totalNanos = new LongAdder();
+      private final AtomicLong maxNanos = new AtomicLong();
+      private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BOUNDS_MILLIS.length + 1);
+
+      private ScriptStatistics(final String name) {
+         this.name = name;
+      }
+
+      private void record(final long nanos, final boolean timedOut) {
+         executions.increment();
+         if (timedOut) {
+            timeouts.increment();
+         }
+         totalNanos.add(nanos);
+         maxNanos.accumulateAndGet(nanos, Math::max);
+
+         final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+         int bucket = 0;
+         while (bucket < HISTOGRAM_BOUNDS_MILLIS.length && millis >= HISTOGRAM_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+         }
+         histogram.incrementAndGet(bucket);
+      }
+
+      public String getName() {
+         return name;
+      }
+
+      public long getExecutions() {
+         return executions.sum();
+      }
+
+      public long getTimeouts() {
+         return timeouts.sum();
+      }
+
+      public long getTotalMillis() {
+         return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+      }
+
+      public long getMaxMillis() {
+         return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+      }
+
+      /**
+       * Gets the number of executions per duration bucket, the buckets are split by 10, 50, 100, 500, 1000 and 3000 ms.
+       */
+      public long[] getHistogram() {
+         final long[] result = new long[histogram.length()];
+         for (int i = 0; i < result.length; i++) {
+            result[i] = histogram.get(i);
+         }
+         return result;
+      }
+
+      @Override
+      public String toString() {
+         final StringBuilder sb = new StringBuilder("ScriptStatistics{")
+               .append("name='").append(name).append('\'')
+               .append(", executions=").append(getExecutions())
+               .append(", timeouts=").append(getTimeouts())
+               .append(", totalMillis=").append(getTotalMillis())
+               .append(", maxMillis=").append(getMaxMillis())
+               .append(", histogram=[");
+         final long[] counts = getHistogram();
+         for (int i = 0; i < counts.length; i++) {
+            sb.append(i > 0 ? ", " : "")
+              .append(i < HISTOGRAM_BOUNDS_MILLIS.length ? "<" + HISTOGRAM_BOUNDS_MILLIS[i] : ">=" + HISTOGRAM_BOUNDS_MILLIS[i - 1])
+              .append("ms: ").append(counts[i]);
+         }
+         return sb.append("]}").toString();
+      }
+   }
+}
@@ -22,7 +22,6 @@ import io.lumeer.api.model.AllowedPermissions;
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.ConstraintData;
-import io.lumeer.api.model.CurrencyData;
 import io.lumeer.api.model.Document;
 import io.lumeer.api.model.Language;
 import io.lumeer.api.model.LinkInstance;
@@ -35,7 +34,6 @@ import io.lumeer.api.model.rule.AutoLinkRule;
 import io.lumeer.api.util.AttributeUtil;
 import io.lumeer.api.util.CollectionUtil;
 import io.lumeer.api.util.PermissionUtils;
-import io.lumeer.core.facade.translate.TranslationManager;
 import io.lumeer.core.task.RuleTask;
 import io.lumeer.core.util.Tuple;
 import io.lumeer.core.util.js.DataFilter;
@@ -50,7 +48,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TimeZone;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -93,17 +90,7 @@ public class DocumentMatcher {
 
    private void initializeLocalizationData() {
       language = Language.fromString(ruleTask.getCurrentLocale());
-      final String timeZone = ruleTask.getTimeZone();
-      final TranslationManager translationManager = new TranslationManager();
-      constraintData = new ConstraintData(
-            dao.getUserDao().getAllUsers(this.organization.getId()),
-            ruleTask.getInitiator(),
-            translationManager.translateDurationUnitsMap(language),
-            new CurrencyData(translationManager.translateAbbreviations(language), translationManager.translateOrdinals(language)),
-            timeZone != null ? timeZone : TimeZone.getDefault().getID(),
-            dao.getGroupDao().getAllGroups(this.organization.getId()),
-            dao.getSelectionListDao().getAllLists(Collections.singletonList(project.getId()))
-      );
+      constraintData = ruleTask.getConstraintData(language, ruleTask.getInitiator());
    }
 
    private void initializePermissions() {
@@ -0,0 +1,64 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Rule;
+import io.lumeer.api.model.ScheduledRule;
+import io.lumeer.api.model.rule.CronRule;
+import io.lumeer.storage.api.dao.ScheduledRuleDao;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the index of cron rules (see ScheduledRuleDao) in sync with the rules of collections.
+ */
+public class CronRuleScheduler {
+
+   private static final CronTaskChecker checker = new CronTaskChecker();
+
+   private CronRuleScheduler() {
+   }
+
+   public static void scheduleRules(final ScheduledRuleDao scheduledRuleDao, final String organizationId, final String projectId, final Collection collection) {
+      final Map<String, Rule> rules = collection.getRules() != null ? collection.getRules() : Map.of();
+      final Set<String> cronRuleIds = rules.entrySet().stream()
+                                           .filter(entry -> entry.getValue() != null && entry.getValue().getType() == Rule.RuleType.CRON)
+                                           .map(Map.Entry::getKey)
+                                           .collect(Collectors.toSet());
+
+      final ZonedDateTime now = ZonedDateTime.now();
+      cronRuleIds.forEach(ruleId -> {
+         scheduledRuleDao.scheduleRule(new ScheduledRule(organizationId, projectId, collection.getId(), ruleId, getNextRun(rules.get(ruleId), now)));
+      });
+      scheduledRuleDao.deleteRules(collection.getId(), cronRuleIds);
+   }
+
+   public static ZonedDateTime getNextRun(final Rule rule, final ZonedDateTime from) {
+      try {
+         return checker.getNextRun(new CronRule(rule), from);
+      } catch (RuntimeException e) {
+         // incomplete configuration, let the processor check the rule
+         return from;
+      }
+   }
+}
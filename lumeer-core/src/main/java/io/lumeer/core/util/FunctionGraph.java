@@ -0,0 +1,143 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import io.lumeer.api.model.function.FunctionParameter;
+import io.lumeer.api.model.function.FunctionResourceType;
+import io.lumeer.api.model.function.FunctionRow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index of the function rows of a project. It answers the same lookups as FunctionDao and keeps
+ * the functions in a topological order computed once, so that the functions affected by a change can be found
+ * and ordered without querying the database. A graph is built for a single request or task, so it always reflects
+ * the functions stored when it was built, including changes made on other nodes.
+ */
+public class FunctionGraph {
+
+   private final Map<String, List<FunctionRow>> rowsByDependentCollection = new HashMap<>();
+   private final Map<String, List<FunctionRow>> rowsByDependentLinkType = new HashMap<>();
+   private final Map<String, List<FunctionRow>> rowsByResource = new HashMap<>();
+   private final Map<String, Integer> order = new HashMap<>();
+
+   public FunctionGraph(final List<FunctionRow> rows) {
+      rows.forEach(row -> {
+         if (row.getDependentCollectionId() != null) {
+            index(rowsByDependentCollection, row, row.getDependentCollectionId(), row.getDependentAttributeId());
+         }
+         if (row.getDependentLinkTypeId() != null) {
+            index(rowsByDependentLinkType, row, row.getDependentLinkTypeId(), row.getDependentAttributeId());
+         }
+         index(rowsByResource, row, row.getType() + ":" + row.getResourceId(), row.getAttributeId());
+      });
+
+      computeOrder(rows);
+   }
+
+   public List<FunctionRow> searchByDependentCollection(final String collectionId, final String attributeId) {
+      return lookup(rowsByDependentCollection, collectionId, attributeId);
+   }
+
+   public List<FunctionRow> searchByDependentLinkType(final String linkTypeId, final String attributeId) {
+      return lookup(rowsByDependentLinkType, linkTypeId, attributeId);
+   }
+
+   public List<FunctionRow> searchByResource(final String resourceId, final String attributeId, final FunctionResourceType type) {
+      return lookup(rowsByResource, type + ":" + resourceId, attributeId);
+   }
+
+   /**
+    * Orders the parameters so that each function comes after the functions it depends on. Functions in a cycle
+    * are ordered by the first visit.
+    */
+   public <T extends FunctionParameter> Deque<T> orderFunctions(final java.util.Collection<T> parameters) {
+      final List<T> result = new ArrayList<>(parameters);
+      // functions that are not in the graph do not depend on any other function
+      result.sort(Comparator.comparingInt(parameter -> order.getOrDefault(key(parameter), -1)));
+      return new LinkedList<>(result);
+   }
+
+   private void computeOrder(final List<FunctionRow> rows) {
+      final Map<String, List<String>> dependencies = new LinkedHashMap<>();
+      rows.forEach(row -> {
+         final String dependency = row.getDependentCollectionId() != null ?
+               key(FunctionResourceType.COLLECTION, row.getDependentCollectionId(), row.getDependentAttributeId()) :
+               key(FunctionResourceType.LINK, row.getDependentLinkTypeId(), row.getDependentAttributeId());
+         dependencies.computeIfAbsent(key(row.getType(), row.getResourceId(), row.getAttributeId()), k -> new ArrayList<>()).add(dependency);
+      });
+
+      final Set<String> visited = new HashSet<>();
+      dependencies.keySet().forEach(function -> visit(function, dependencies, visited));
+   }
+
+   private void visit(final String root, final Map<String, List<String>> dependencies, final Set<String> visited) {
+      if (!visited.add(root)) {
+         return;
+      }
+
+      // iterative post-order depth first search, the graphs can be deep
+      final Deque<Map.Entry<String, Integer>> stack = new LinkedList<>();
+      stack.push(new java.util.AbstractMap.SimpleEntry<>(root, 0));
+      while (!stack.isEmpty()) {
+         final Map.Entry<String, Integer> current = stack.peek();
+         final List<String> nodeDependencies = dependencies.getOrDefault(current.getKey(), Collections.emptyList());
+         if (current.getValue() < nodeDependencies.size()) {
+            final String dependency = nodeDependencies.get(current.getValue());
+            current.setValue(current.getValue() + 1);
+            if (visited.add(dependency)) {
+               stack.push(new java.util.AbstractMap.SimpleEntry<>(dependency, 0));
+            }
+         } else {
+            stack.pop();
+            order.put(current.getKey(), order.size());
+         }
+      }
+   }
+
+   private static void index(final Map<String, List<FunctionRow>> index, final FunctionRow row, final String resourceKey, final String attributeId) {
+      index.computeIfAbsent(resourceKey, k -> new ArrayList<>()).add(row);
+      if (attributeId != null) {
+         index.computeIfAbsent(resourceKey + "/" + attributeId, k -> new ArrayList<>()).add(row);
+      }
+   }
+
+   private static List<FunctionRow> lookup(final Map<String, List<FunctionRow>> index, final String resourceKey, final String attributeId) {
+      final List<FunctionRow> rows = index.get(attributeId != null ? resourceKey + "/" + attributeId : resourceKey);
+      return rows != null ? new ArrayList<>(rows) : new ArrayList<>();
+   }
+
+   private static String key(final FunctionParameter parameter) {
+      return key(parameter.getType(), parameter.getResourceId(), parameter.getAttributeId());
+   }
+
+   private static String key(final FunctionResourceType type, final String resourceId, final String attributeId) {
+      return type + ":" + resourceId + ":" + attributeId;
+   }
+}
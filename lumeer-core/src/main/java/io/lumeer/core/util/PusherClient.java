@@ -18,6 +18,7 @@
  */
 package io.lumeer.core.util;
 
+import io.lumeer.core.facade.PusherFacade;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 
 import com.fasterxml.jackson.databind.AnnotationIntrospector;
@@ -42,12 +43,17 @@ public class PusherClient {
 
    private static final Map<Integer, PusherClient> cache = new LRUMap<>(10);
 
+   private static final int SERIALIZED_MESSAGES_CACHE_SIZE = 100;
+
    private Pusher pusher;
    private ObjectMapper mapper;
 
    private String secret;
    private String key;
 
+   // event data do not override equals, so a message shared by events of several channels is serialized only once
+   private final Map<PusherFacade.EventData, String> serializedMessages = new LRUMap<>(SERIALIZED_MESSAGES_CACHE_SIZE);
+
    public static PusherClient getInstance(final DefaultConfigurationProducer configurationProducer) {
       String pusherAppId = Optional.ofNullable(configurationProducer.get(DefaultConfigurationProducer.PUSHER_APP_ID)).orElse("");
       String pusheyKey = Optional.ofNullable(configurationProducer.get(DefaultConfigurationProducer.PUSHER_KEY)).orElse("");
@@ -78,16 +84,40 @@ public class PusherClient {
       mapper.setAnnotationIntrospector(pair);
 
       pusher.setDataMarshaller(o -> {
-         StringWriter sw = new StringWriter();
-         try {
-            mapper.writeValue(sw, o);
-            return sw.toString();
-         } catch (IOException e) {
-            return null;
+         if (o instanceof PusherFacade.EventData) {
+            return serializeMessage((PusherFacade.EventData) o);
          }
+         return serialize(o);
       });
    }
 
+   private String serializeMessage(final PusherFacade.EventData message) {
+      synchronized (serializedMessages) {
+         final String serialized = serializedMessages.get(message);
+         if (serialized != null) {
+            return serialized;
+         }
+      }
+
+      final String serialized = serialize(message);
+      if (serialized != null) {
+         synchronized (serializedMessages) {
+            serializedMessages.put(message, serialized);
+         }
+      }
+      return serialized;
+   }
+
+   private String serialize(final Object o) {
+      StringWriter sw = new StringWriter();
+      try {
+         mapper.writeValue(sw, o);
+         return sw.toString();
+      } catch (IOException e) {
+         return null;
+      }
+   }
+
    public Result trigger(final String channel, final String eventName, final Object message) {
       return pusher.trigger(channel, eventName, message);
    }
@@ -27,21 +27,20 @@ import java.time.ZonedDateTime
 import java.time.temporal.ChronoUnit
 
 private const val FREE_MAX_RECORDS: Int = 3 // number of last records available
-private const val UPDATE_MERGE_WINDOW_MINUTES: Long = 5 // number of minutes to merge record changes by the same originator (user or automation)
 
 class AuditAdapter(private val auditDao: AuditDao) {
 
-   fun getAuditRecords(userId: String, collectionIds: Set<String>, linkTypeIds: Set<String>, viewIds: Set<String>, limits: ServiceLimits) =
-      if (limits.serviceLevel == Payment.ServiceLevel.FREE)
-         auditDao.findAuditRecords(userId, collectionIds, linkTypeIds, viewIds, ZonedDateTime.now().minus(limits.auditDays.toLong(), ChronoUnit.DAYS), FREE_MAX_RECORDS)
-      else
-         auditDao.findAuditRecords(userId, collectionIds, linkTypeIds, viewIds, ZonedDateTime.now().minus(limits.auditDays.toLong(), ChronoUnit.DAYS))
+   /**
+    * Returns a page of project records, only the last few records are available on the free plan.
+    */
+   fun getAuditRecords(userId: String?, collectionIds: Set<String>, linkTypeIds: Set<String>, viewIds: Set<String>, limits: ServiceLimits, before: ZonedDateTime?, beforeId: String?, pageLength: Int?): List<AuditRecord> {
+      val noOlderThan = ZonedDateTime.now().minus(limits.auditDays.toLong(), ChronoUnit.DAYS)
 
-   fun getAuditRecords(collectionIds: Set<String>, linkTypeIds: Set<String>, viewIds: Set<String>, limits: ServiceLimits) =
-      if (limits.serviceLevel == Payment.ServiceLevel.FREE)
-         auditDao.findAuditRecords(collectionIds, linkTypeIds, viewIds, ZonedDateTime.now().minus(limits.auditDays.toLong(), ChronoUnit.DAYS), FREE_MAX_RECORDS)
+      return if (limits.serviceLevel == Payment.ServiceLevel.FREE)
+         if (before != null) emptyList() else auditDao.findAuditRecords(userId, collectionIds, linkTypeIds, viewIds, noOlderThan, null, null, (pageLength ?: FREE_MAX_RECORDS).coerceIn(1, FREE_MAX_RECORDS))
       else
-         auditDao.findAuditRecords(collectionIds, linkTypeIds, viewIds, ZonedDateTime.now().minus(limits.auditDays.toLong(), ChronoUnit.DAYS))
+         auditDao.findAuditRecords(userId, collectionIds, linkTypeIds, viewIds, noOlderThan, before, beforeId, pageLength ?: -1)
+   }
 
    fun getAuditRecords(parentId: String, resourceType: ResourceType, limits: ServiceLimits) =
       if (limits.serviceLevel == Payment.ServiceLevel.FREE)
@@ -86,20 +85,10 @@ class AuditAdapter(private val auditDao: AuditDao) {
    fun registerDataChange(parentId: String, resourceType: ResourceType, resourceId: String, user: User?, automation: String?, viewId: String?, oldState: DataDocument, oldStateDecoded: DataDocument, newState: DataDocument, newStateDecoded: DataDocument) =
       getChanges(oldStateDecoded, newStateDecoded).takeIf { it.isNotEmpty() }?.let { changes ->
          val lastAuditRecord = auditDao.findLatestAuditRecord(parentId, resourceType, resourceId, AuditType.Updated)
+         val changeDate = ZonedDateTime.now()
 
-         if (lastAuditRecord != null && changesOverlap(lastAuditRecord, user?.id, automation, changes)) {
-            changes.keys.forEach {
-               if (!lastAuditRecord.oldState.containsKey(it) && !lastAuditRecord.newState.containsKey(it))
-                  lastAuditRecord.oldState[it] = oldState[it]
-            }
-            lastAuditRecord.newState.putAll(changes)
-            changes.keys.forEach {
-               if (lastAuditRecord.oldState[it] == lastAuditRecord.newState[it]) {
-                  lastAuditRecord.oldState.remove(it)
-                  lastAuditRecord.newState.remove(it)
-               }
-            }
-            lastAuditRecord.changeDate = ZonedDateTime.now()
+         if (lastAuditRecord != null && changesOverlap(lastAuditRecord, user?.id, automation, changeDate)) {
+            mergeChanges(lastAuditRecord, oldState, changes, changeDate)
 
             if (lastAuditRecord.newState.isEmpty()) {
                auditDao.deleteAuditRecord(lastAuditRecord.id)
@@ -107,23 +96,78 @@ class AuditAdapter(private val auditDao: AuditDao) {
             } else
                auditDao.updateAuditRecord(lastAuditRecord)
          } else {
-            // we will keep only those values that changed
-            val partialOldState = DataDocument(oldState.filterKeys { it != DataDocument.ID })
-            val oldStateKeys = HashSet(partialOldState.keys)
-            oldStateKeys.forEach {
-               if (!changes.containsKey(it)) partialOldState.remove(it)
-            }
-
-            val auditRecord = AuditRecord(parentId, resourceType, resourceId, ZonedDateTime.now(), user?.id, user?.name, user?.email, viewId, automation, partialOldState, changes)
-            auditRecord.type = AuditType.Updated
-            auditDao.createAuditRecord(auditRecord)
+            val auditRecord = AuditRecord(parentId, resourceType, resourceId, changeDate, user?.id, user?.name, user?.email, viewId, automation, DataDocument(oldState), DataDocument())
+            auditDao.createAuditRecord(createUpdateRecord(auditRecord, changes))
+         }
+      }
+
+   /**
+    * Stores buffered data changes of resources with the same parent (see AuditProcessor). Each pending record holds
+    * the whole old and new state of its resource, the changes are merged with the latest stored records the same way
+    * as in [registerDataChange] and written in a single bulk write.
+    */
+   fun registerDataChanges(parentId: String, resourceType: ResourceType, pendingRecords: List<AuditRecord>, decode: (DataDocument) -> DataDocument) {
+      val changes = pendingRecords.mapNotNull { record ->
+         getChanges(decode(record.oldState), decode(record.newState)).takeIf { it.isNotEmpty() }?.let { record to it }
+      }
+      if (changes.isEmpty()) {
+         return
+      }
+
+      val latestRecords = auditDao.findLatestAuditRecords(parentId, resourceType, changes.map { it.first.resourceId }.toSet(), AuditType.Updated)
+            .associateByTo(mutableMapOf()) { it.resourceId }
+      val storedIds = latestRecords.values.map { it.id }.toSet()
+      val touchedRecords = linkedMapOf<String, AuditRecord>()
+
+      changes.forEach { (record, recordChanges) ->
+         val lastAuditRecord = latestRecords[record.resourceId]
+
+         val auditRecord = if (lastAuditRecord != null && changesOverlap(lastAuditRecord, record.user, record.automation, record.changeDate)) {
+            mergeChanges(lastAuditRecord, record.oldState, recordChanges, record.changeDate)
+            lastAuditRecord
+         } else {
+            createUpdateRecord(record, recordChanges).also { latestRecords[record.resourceId] = it }
+         }
+         touchedRecords[auditRecord.id] = auditRecord
+      }
+
+      val (emptyRecords, records) = touchedRecords.values.partition { it.newState.isEmpty() }
+      auditDao.saveAuditRecords(
+            records.filter { !storedIds.contains(it.id) },
+            records.filter { storedIds.contains(it.id) },
+            emptyRecords.map { it.id }.filter { storedIds.contains(it) }.toSet()
+      )
+   }
+
+   private fun mergeChanges(lastAuditRecord: AuditRecord, oldState: DataDocument, changes: DataDocument, changeDate: ZonedDateTime) {
+      changes.keys.forEach {
+         if (!lastAuditRecord.oldState.containsKey(it) && !lastAuditRecord.newState.containsKey(it))
+            lastAuditRecord.oldState[it] = oldState[it]
+      }
+      lastAuditRecord.newState.putAll(changes)
+      changes.keys.forEach {
+         if (lastAuditRecord.oldState[it] == lastAuditRecord.newState[it]) {
+            lastAuditRecord.oldState.remove(it)
+            lastAuditRecord.newState.remove(it)
          }
       }
+      lastAuditRecord.changeDate = changeDate
+   }
+
+   private fun createUpdateRecord(record: AuditRecord, changes: DataDocument): AuditRecord {
+      // we will keep only those values that changed
+      val partialOldState = DataDocument(record.oldState.filterKeys { it != DataDocument.ID && changes.containsKey(it) })
 
-   private fun changesOverlap(lastAuditRecord: AuditRecord, userId: String?, automation: String?, changes: DataDocument): Boolean = when {
+      val auditRecord = AuditRecord(record.parentId, record.resourceType, record.resourceId, record.changeDate, record.user, record.userName, record.userEmail, record.viewId, record.automation, partialOldState, changes)
+      auditRecord.id = record.id
+      auditRecord.type = AuditType.Updated
+      return auditRecord
+   }
+
+   private fun changesOverlap(lastAuditRecord: AuditRecord, userId: String?, automation: String?, changeDate: ZonedDateTime): Boolean = when {
       (StringUtils.isNotEmpty(lastAuditRecord.user) || StringUtils.isNotEmpty(userId)) && lastAuditRecord.user != userId -> false
       (StringUtils.isNotEmpty(lastAuditRecord.automation) || StringUtils.isNotEmpty(automation)) && lastAuditRecord.automation != automation -> false
-      lastAuditRecord.changeDate.isBefore(ZonedDateTime.now().minusMinutes(UPDATE_MERGE_WINDOW_MINUTES)) -> false
+      lastAuditRecord.changeDate.isBefore(changeDate.minusMinutes(UPDATE_MERGE_WINDOW_MINUTES)) -> false
       else -> true
    }
 
@@ -143,6 +187,8 @@ class AuditAdapter(private val auditDao: AuditDao) {
 
    companion object {
 
+      const val UPDATE_MERGE_WINDOW_MINUTES: Long = 5 // number of minutes to merge record changes by the same originator (user or automation)
+
       @JvmStatic
       fun getAuditAdapter(daoContextSnapshot: DaoContextSnapshot) = AuditAdapter(daoContextSnapshot.auditDao)
    }
@@ -53,18 +53,29 @@ class CollectionAdapter(val collectionDao: CollectionDao, val favoriteItemDao: F
       }
    }
 
-   fun updateCollectionMetadata(collection: Collection, attributesIdsToInc: Set<String>, attributesIdsToDec: Set<String>) {
-      val originalCollection = collection.copy()
+   /**
+    * Updates attributes usage and last time used of the given collection in memory and returns the usage changes
+    * by attribute id. Changes are not stored, see CollectionUsageProcessor.
+    */
+   fun updateCollectionMetadata(collection: Collection, attributesIdsToInc: Set<String>, attributesIdsToDec: Set<String>): Map<String, Int> {
+      val usages = collection.attributes.mapNotNull { attribute ->
+         when {
+            attributesIdsToInc.contains(attribute.id) -> attribute.id to 1
+            attributesIdsToDec.contains(attribute.id) -> attribute.id to -1
+            else -> null
+         }
+      }.toMap()
       collection.attributes = HashSet(ResourceUtils.incOrDecAttributes(collection.attributes, attributesIdsToInc, attributesIdsToDec))
       collection.lastTimeUsed = ZonedDateTime.now()
-      collectionDao.updateCollection(collection.id, collection, originalCollection)
+      return usages
    }
 
-   fun updateCollectionMetadata(collection: Collection, attributesToInc: Map<String, Int>) {
-      val originalCollection = collection.copy()
+   fun updateCollectionMetadata(collection: Collection, attributesToInc: Map<String, Int>): Map<String, Int> {
+      val attributesIds = collection.attributes.map { it.id }.toSet()
+      val usages = attributesToInc.filter { attributesIds.contains(it.key) && it.value != 0 }
       collection.attributes = HashSet(ResourceUtils.incAttributes(collection.attributes, attributesToInc))
       collection.lastTimeUsed = ZonedDateTime.now()
-      collectionDao.updateCollection(collection.id, collection, originalCollection)
+      return usages
    }
 
    companion object {
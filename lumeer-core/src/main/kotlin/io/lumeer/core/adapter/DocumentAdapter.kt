@@ -41,6 +41,24 @@ class DocumentAdapter(private val resourceCommentDao: ResourceCommentDao, privat
         commentsCount = getCommentsCount(document.id)
     }
 
+    /**
+     * Maps the document data for all the given users at once. Users seeing the same data get the same instance.
+     */
+    fun mapDocumentDataForUsers(document: Document, userIds: kotlin.collections.Collection<String>, projectId: String): Map<String, Document> {
+        val commentsCount = getCommentsCount(document.id)
+        val favoriteUserIds = favoriteItemDao.getFavoriteDocumentUserIds(projectId, document.id)
+        val documents = mutableMapOf<Boolean, Document>()
+        return userIds.associateWith { userId ->
+            val favorite = favoriteUserIds.contains(userId)
+            documents.getOrPut(favorite) {
+                Document(document).apply {
+                    isFavorite = favorite
+                    this.commentsCount = commentsCount
+                }
+            }
+        }
+    }
+
     fun mapDocumentsData(documents: List<Document>, userId: String, projectId: String): List<Document> {
         val favoriteDocumentIds = getFavoriteDocumentIds(userId, projectId)
         val commentCounts = obtainCommentCounts(documents)
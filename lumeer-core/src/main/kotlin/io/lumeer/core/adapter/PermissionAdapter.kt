@@ -47,6 +47,8 @@ class PermissionAdapter(
    private val collectionCache = mutableMapOf<String, Collection>()
    private val userCache = mutableMapOf<String, User>()
    private val groupsCache = mutableMapOf<String, List<Group>>()
+   private val usersGroupsCache = mutableMapOf<String, Map<String, Set<String>>>()
+   private val rolesCache = mutableMapOf<RolesKey, RolesEntry>()
    private val linkTypes = lazy { linkTypeDao.allLinkTypes }
    private val collections = lazy { collectionDao.allCollections }
 
@@ -70,10 +72,22 @@ class PermissionAdapter(
       usersCache.clear()
       userCache.clear()
       groupsCache.clear()
+      usersGroupsCache.clear()
+      invalidateRolesCache()
    }
 
    fun invalidateCollectionCache() {
       collectionCache.clear()
+      invalidateRolesCache()
+   }
+
+   fun invalidateViewCache() {
+      viewCache.clear()
+      invalidateRolesCache()
+   }
+
+   fun invalidateRolesCache() {
+      rolesCache.clear()
    }
 
    fun isPublic(organization: Organization?, project: Project?) = project?.isPublic ?: false
@@ -133,7 +147,13 @@ class PermissionAdapter(
    }
 
    fun <T : Resource> getUserRolesInResource(organization: Organization?, project: Project?, resource: T, user: User): Set<RoleType> {
-      return PermissionUtils.getUserRolesInResource(organization, project, resource, user, getGroups(organization?.id ?: resource.id))
+      val key = RolesKey.create(user, resource.type, resource.id, resource.version, organization, project, null) ?: return computeUserRolesInResource(organization, project, resource, user)
+      return memoizeRoles(key, organization, project, listOf(resource.permissions)) { computeUserRolesInResource(organization, project, resource, user) }
+   }
+
+   private fun <T : Resource> computeUserRolesInResource(organization: Organization?, project: Project?, resource: T, user: User): Set<RoleType> {
+      val groupsOrganizationId = organization?.id ?: (resource as? Organization)?.id
+      return PermissionUtils.getUserRolesInResource(organization, project, resource, user, getUserGroups(groupsOrganizationId, user))
    }
 
    fun <T : Resource> getUserRolesInResource(organization: Organization?, project: Project?, resource: T, group: Group): Set<RoleType> {
@@ -142,11 +162,16 @@ class PermissionAdapter(
 
    private fun getUserRolesInPermissions(organization: Organization?, project: Project?, resourceType: ResourceType, permissions: Permissions?, user: User): Set<RoleType> {
       val organizationId = organization?.id ?: return emptySet()
-      return PermissionUtils.getUserRolesInPermissions(organization, project, resourceType, permissions, user, getGroups(organizationId))
+      return PermissionUtils.getUserRolesInPermissions(organization, project, resourceType, permissions, user, getUserGroups(organizationId, user))
    }
 
    fun getUserRolesInCollectionWithView(organization: Organization?, project: Project?, collection: Collection, user: User): Set<RoleType> {
       val view = activeView() ?: return emptySet()
+      val key = RolesKey.create(user, ResourceType.COLLECTION, collection.id, collection.version, organization, project, view.id) ?: return computeUserRolesInCollectionWithView(organization, project, collection, view, user)
+      return memoizeRoles(key, organization, project, listOf(collection.permissions, view)) { computeUserRolesInCollectionWithView(organization, project, collection, view, user) }
+   }
+
+   private fun computeUserRolesInCollectionWithView(organization: Organization?, project: Project?, collection: Collection, view: View, user: User): Set<RoleType> {
       val authorId = view.authorId.orEmpty().takeIf { it.isNotEmpty() } ?: return emptySet()
 
       val authorRoles = getUserRolesInResource(organization, project, collection, authorId)
@@ -177,6 +202,12 @@ class PermissionAdapter(
 
    fun getUserRolesInLinkTypeWithView(organization: Organization, project: Project?, linkType: LinkType, user: User): Set<RoleType> {
       val view = activeView() ?: return emptySet()
+      val collections = getLinkTypeCollections(linkType)
+      val key = RolesKey.create(user, ResourceType.LINK_TYPE, linkType.id, linkType.version, organization, project, view.id) ?: return computeUserRolesInLinkTypeWithView(organization, project, linkType, view, user)
+      return memoizeRoles(key, organization, project, listOf(linkType.permissions, view).plus(collections.map { it.permissions })) { computeUserRolesInLinkTypeWithView(organization, project, linkType, view, user) }
+   }
+
+   private fun computeUserRolesInLinkTypeWithView(organization: Organization, project: Project?, linkType: LinkType, view: View, user: User): Set<RoleType> {
       val authorId = view.authorId.orEmpty().takeIf { it.isNotEmpty() } ?: return emptySet()
 
       val authorRoles = getUserRolesInLinkType(organization, project, linkType, getUser(authorId))
@@ -225,7 +256,13 @@ class PermissionAdapter(
    }
 
    fun getUserRolesInLinkType(organization: Organization, project: Project?, linkType: LinkType, collections: List<Collection>, user: User): Set<RoleType> {
-      return PermissionUtils.getUserRolesInLinkType(organization, project, linkType, collections, user, getGroups(organization.id))
+      val linkTypeCollections = collections.filter { linkType.collectionIds.orEmpty().contains(it.id) }
+      val key = RolesKey.create(user, ResourceType.LINK_TYPE, linkType.id, linkType.version, organization, project, null) ?: return computeUserRolesInLinkType(organization, project, linkType, linkTypeCollections, user)
+      return memoizeRoles(key, organization, project, listOf(linkType.permissions).plus(linkTypeCollections.map { it.permissions })) { computeUserRolesInLinkType(organization, project, linkType, linkTypeCollections, user) }
+   }
+
+   private fun computeUserRolesInLinkType(organization: Organization, project: Project?, linkType: LinkType, collections: List<Collection>, user: User): Set<RoleType> {
+      return PermissionUtils.getUserRolesInLinkType(organization, project, linkType, collections, user, getUserGroups(organization.id, user))
    }
 
    fun checkRole(organization: Organization?, project: Project?, resource: Resource, role: RoleType, userId: String) {
@@ -476,6 +513,14 @@ class PermissionAdapter(
       return user ?: User(userId, userId, userId, setOf())
    }
 
+   fun getUsers(userIds: Set<String>): List<User> {
+      val missingIds = userIds.filter { !userCache.containsKey(it) }.toSet()
+      if (missingIds.isNotEmpty()) {
+         userDao.getUserByIds(missingIds).forEach { userCache[it.id] = it }
+      }
+      return userIds.map { getUser(it) }
+   }
+
    fun getUsers(organizationId: String): List<User> {
       return usersCache.computeIfAbsent(organizationId) { userDao.getAllUsers(organizationId) }
    }
@@ -492,4 +537,54 @@ class PermissionAdapter(
       return groupsCache.computeIfAbsent(organizationId) { groupDao.getAllGroups(organizationId) }
    }
 
+   private fun getUserGroups(organizationId: String?, user: User): Set<String> {
+      if (organizationId == null || user.id.isNullOrEmpty()) {
+         return emptySet()
+      }
+      val usersGroups = usersGroupsCache.computeIfAbsent(organizationId) { PermissionUtils.getUsersGroups(getGroups(organizationId)) }
+      return usersGroups[user.id].orEmpty()
+   }
+
+   /**
+    * Roles are memoized by user, resource id, version and view. The resolved entry is reused only when it was computed
+    * from the same permission objects, so copies of a resource with modified permissions (used to compute readers difference) are resolved again.
+    */
+   private fun memoizeRoles(key: RolesKey, organization: Organization?, project: Project?, resourceDependencies: List<Any?>, compute: () -> Set<RoleType>): Set<RoleType> {
+      val dependencies = listOf(organization?.permissions, project?.permissions).plus(resourceDependencies)
+      val entry = rolesCache[key]
+      if (entry != null && entry.matches(dependencies)) {
+         return entry.roles
+      }
+
+      val roles = compute()
+      rolesCache[key] = RolesEntry(dependencies, roles)
+      return roles
+   }
+
+   private data class RolesKey(
+      val userId: String,
+      val resourceType: ResourceType,
+      val resourceId: String,
+      val version: Long,
+      val organizationId: String?,
+      val organizationVersion: Long?,
+      val projectId: String?,
+      val projectVersion: Long?,
+      val viewId: String?
+   ) {
+      companion object {
+         fun create(user: User, resourceType: ResourceType, resourceId: String?, version: Long, organization: Organization?, project: Project?, viewId: String?): RolesKey? {
+            // resources which were not stored yet can't be distinguished by id
+            if (resourceId == null || user.id == null) {
+               return null
+            }
+            return RolesKey(user.id, resourceType, resourceId, version, organization?.id, organization?.version, project?.id, project?.version, viewId)
+         }
+      }
+   }
+
+   private class RolesEntry(private val dependencies: List<Any?>, val roles: Set<RoleType>) {
+      fun matches(dependencies: List<Any?>) = this.dependencies.size == dependencies.size && this.dependencies.indices.all { this.dependencies[it] === dependencies[it] }
+   }
+
 }
@@ -29,6 +29,7 @@ import io.lumeer.storage.api.dao.LinkTypeDao
 import io.lumeer.storage.api.dao.ViewDao
 import org.marvec.pusher.data.BackupDataEvent
 import org.marvec.pusher.data.Event
+import java.util.IdentityHashMap
 
 class PusherAdapter(
    private val appId: AppId?,
@@ -197,7 +198,32 @@ class PusherAdapter(
       } else {
          ObjectWithParent(appId, any, organizationId, projectId)
       }
-      val extraId = when (any) {
+      val alternateMessage = ResourceId(appId, id, organizationId, projectId, getExtraId(any))
+      return createEventForObjectWithParent(normalMessage, alternateMessage, event, userId)
+   }
+
+   /**
+    * Creates events of workspace objects that do not depend on user roles (i.e. not for link types). Users with
+    * the same object instance share a single message, so it is serialized only once.
+    */
+   fun createEventsForWorkspaceObjects(organization: Organization?, project: Project?, objectsByUser: Map<String, Any>, id: String, event: String): List<Event> {
+      val organizationId = organization?.id.orEmpty()
+      val projectId = project?.id.orEmpty()
+      if (PusherFacade.REMOVE_EVENT_SUFFIX == event) {
+         return objectsByUser.map { (userId, any) -> createEventForRemove(any.javaClass.simpleName, ResourceId(appId, id, organizationId, projectId), userId) }
+      }
+
+      val messages = IdentityHashMap<Any, ObjectWithParent>()
+      val alternateMessages = IdentityHashMap<Any, ResourceId>()
+      return objectsByUser.map { (userId, any) ->
+         val normalMessage = messages.getOrPut(any) { ObjectWithParent(appId, any, organizationId, projectId) }
+         val alternateMessage = alternateMessages.getOrPut(any) { ResourceId(appId, id, organizationId, projectId, getExtraId(any)) }
+         createEventForObjectWithParent(normalMessage, alternateMessage, event, userId)
+      }
+   }
+
+   private fun getExtraId(any: Any): String? {
+      return when (any) {
          is Document -> {
             any.collectionId
          }
@@ -209,8 +235,6 @@ class PusherAdapter(
          }
          else -> null
       }
-      val alternateMessage = ResourceId(appId, id, organizationId, projectId, extraId)
-      return createEventForObjectWithParent(normalMessage, alternateMessage, event, userId)
    }
 
    fun createEventForRemove(className: String, any: ResourceId, userId: String): Event {
@@ -54,8 +54,8 @@ class SearchAdapter(private val permissionAdapter: PermissionAdapter,
    }
 
    private fun getAllDocuments(collection: Collection, documentIds: Set<String>): List<Document> {
-      val documents = documentDao.getDocumentsByCollection(collection.id, documentIds)
-      return mapDocumentsData(collection, documents)
+      val documents = documentDao.getDocumentsWithDataByCollection(collection.id, documentIds)
+      return decodeDocumentsData(collection, documents)
    }
 
    private fun getContributionDocuments(collection: Collection, documentIds: Set<String>, userId: String): List<Document> {
@@ -82,8 +82,8 @@ class SearchAdapter(private val permissionAdapter: PermissionAdapter,
    }
 
    fun getAllDocuments(collection: Collection, page: Int?, limit: Int?): List<Document> {
-      val documents = documentDao.getDocumentsByCollection(collection.id, Pagination(page, limit))
-      return mapDocumentsData(collection, documents)
+      val documents = documentDao.getDocumentsWithDataByCollection(collection.id, Pagination(page, limit))
+      return decodeDocumentsData(collection, documents)
    }
 
    private fun getContributionDocuments(collection: Collection, page: Int?, limit: Int?, userId: String): List<Document> {
@@ -91,19 +91,37 @@ class SearchAdapter(private val permissionAdapter: PermissionAdapter,
       return mapDocumentsData(collection, documents)
    }
 
+   /**
+    * Returns documents whose data can satisfy the search stem (see DataDao.searchDataCandidates)
+    * or null when the user can not read all documents in the collection.
+    */
+   fun getDocumentsCandidates(organization: Organization?, project: Project?, collection: Collection, searchStem: SearchQueryStem, page: Int?, limit: Int?, userId: String): List<Document>? {
+      if (!canReadAllDocuments(organization, project, collection, userId)) {
+         return null
+      }
+      val data = dataDao.searchDataCandidates(searchStem, Pagination(page, limit), collection)
+      if (data.isNotEmpty()) {
+         val documentsMap = documentDao.getDocumentsByCollection(collection.id, data.map { it.id }.toSet()).associateBy { it.id }
+         return data.mapNotNull { documentsMap[it.id]?.apply { setData(constraintManager.decodeDataTypes(collection, it)) } }
+      }
+      return listOf()
+   }
+
    private fun mapDocumentsData(collection: Collection, documents: List<Document>): List<Document> {
       if (documents.isNotEmpty()) {
-         val data = if (documents.size < MAX_IDS_QUERY) { // large queries throw error in DB
-            dataDao.getData(collection.id, documents.map { it.id }.toSet())
-         } else {
-            dataDao.getData(collection.id)
-         }
-         val dataMap = data.associateBy { it.id }
+         // large queries throw error in DB
+         val dataMap = documents.map { it.id }.chunked(MAX_IDS_QUERY - 1)
+               .flatMap { dataDao.getData(collection.id, it.toSet()) }
+               .associateBy { it.id }
          return documents.onEach { it.data = constraintManager.decodeDataTypes(collection, dataMap.getOrDefault(it.id, DataDocument())) }
       }
       return documents
    }
 
+   private fun decodeDocumentsData(collection: Collection, documents: List<Document>): List<Document> {
+      return documents.onEach { it.data = constraintManager.decodeDataTypes(collection, it.data ?: DataDocument()) }
+   }
+
    private fun getAssigneeDocuments(collection: Collection, page: Int?, limit: Int?, documentIds: Set<String>?, userId: String): List<Document> {
       val assigneeAttribute = ResourceUtils.findAttribute(collection.attributes, collection.purpose?.assigneeAttributeId)
       if (assigneeAttribute != null) {
@@ -113,7 +131,9 @@ class SearchAdapter(private val permissionAdapter: PermissionAdapter,
                .build()
          val data = if (documentIds != null) dataDao.searchDataByIds(searchQuery, documentIds, collection) else dataDao.searchData(searchQuery, Pagination(page, limit), collection)
          if (data.isNotEmpty()) {
-            val documentsMap = documentDao.getDocumentsByCollection(collection.id).associateBy { it.id }
+            val documentsMap = data.map { it.id }.chunked(MAX_IDS_QUERY - 1)
+                  .flatMap { documentDao.getDocumentsByCollection(collection.id, it.toSet()) }
+                  .associateBy { it.id }
             return data.mapNotNull { documentsMap[it.id]?.apply { setData(constraintManager.decodeDataTypes(collection, it)) } }
          }
       }
@@ -14,6 +14,8 @@ class CronTaskChecker {
 
    companion object {
 
+      private const val NEXT_RUN_SEARCH_DAYS = 32L
+
       @JvmStatic
       fun now(): ZonedDateTime {
          val now = ZonedDateTime.now()
@@ -33,6 +35,30 @@ class CronTaskChecker {
       }
    }
 
+   /**
+    * Returns the first time since the given one when the rule should be executed (checked by hours),
+    * or the end of the searched period when the rule is not going to be executed in it.
+    */
+   fun getNextRun(rule: CronRule, from: ZonedDateTime = now()): ZonedDateTime {
+      val until = from.plusDays(NEXT_RUN_SEARCH_DAYS)
+      if (shouldExecute(rule, from)) {
+         return from
+      }
+
+      var date = from.truncatedTo(ChronoUnit.HOURS).plusHours(1)
+      while (date.isBefore(until)) {
+         if (rule.startsOn != null && rule.startsOn.isAfter(date.minusHours(1)) && rule.startsOn.isBefore(date) && shouldExecute(rule, rule.startsOn)) {
+            return rule.startsOn
+         }
+         if (shouldExecute(rule, date)) {
+            return date
+         }
+         date = date.plusHours(1)
+      }
+
+      return until
+   }
+
    private fun checkInterval(rule: CronRule, date: ZonedDateTime): Boolean {
       if (rule.startsOn == null) {
          return false
@@ -0,0 +1,138 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util
+
+import io.lumeer.api.model.Attribute
+import io.lumeer.api.model.Collection
+import io.lumeer.api.model.CollectionAttributeFilter
+import io.lumeer.api.model.ConditionType
+import io.lumeer.api.model.ConstraintType
+import io.lumeer.api.model.QueryStem
+import io.lumeer.storage.api.filter.CollectionSearchAttributeFilter
+import io.lumeer.storage.api.query.SearchQueryStem
+import kotlin.math.abs
+import kotlin.math.max
+
+/**
+ * Translates the stem filters of the first collection that can be evaluated by the database into candidate filters
+ * (see DataDao.searchDataCandidates). The data filter still evaluates the whole query on the fetched documents,
+ * so a translation may keep more rows than needed, but must never drop a row the data filter would accept.
+ */
+class QueryFilterPlanner {
+
+   companion object {
+
+      private val NOT_EMPTY_TYPES = setOf(ConstraintType.None, ConstraintType.Text, ConstraintType.Number, ConstraintType.Select, ConstraintType.DateTime, ConstraintType.User)
+      private val PLAIN_NUMBER = Regex("^-?\\d+(\\.\\d+)?$")
+
+      // database and data filter may represent the same number differently (double vs. decimal)
+      private const val NUMBER_TOLERANCE = 1e-9
+
+      @JvmStatic
+      fun planStem(stem: QueryStem, collection: Collection): SearchQueryStem? {
+         val attributesById = collection.attributes.associateBy { it.id }
+         val filters = stem.filters.orEmpty()
+               .filter { it.collectionId == collection.id }
+               .mapNotNull { filter -> attributesById[filter.attributeId]?.let { translateFilter(filter, it) } }
+               .toSet()
+
+         // document ids of a stem with links can reference linked collections as well
+         val documentIds = if (stem.linkTypeIds.isNullOrEmpty()) stem.documentIds.orEmpty() else emptySet()
+
+         if (filters.isEmpty() && documentIds.isEmpty()) {
+            return null
+         }
+
+         return SearchQueryStem.createBuilder(collection.id)
+               .documentIds(documentIds)
+               .filters(filters)
+               .build()
+      }
+
+      private fun translateFilter(filter: CollectionAttributeFilter, attribute: Attribute): CollectionSearchAttributeFilter? {
+         if (filter.conditionValues.orEmpty().any { it.type != null }) {
+            return null
+         }
+
+         val type = attribute.constraint?.type ?: ConstraintType.None
+         return when (filter.condition) {
+            ConditionType.NOT_EMPTY -> if (NOT_EMPTY_TYPES.contains(type)) createFilter(filter, ConditionType.NOT_EMPTY, null) else null
+            // documents without a data row are empty as well, they can not be found in the data collection
+            ConditionType.IS_EMPTY -> null
+            ConditionType.EQUALS, ConditionType.HAS_SOME -> if (type == ConstraintType.Select) translateSelectFilter(filter, attribute) else null
+            ConditionType.LOWER_THAN, ConditionType.LOWER_THAN_EQUALS,
+            ConditionType.GREATER_THAN, ConditionType.GREATER_THAN_EQUALS -> if (type == ConstraintType.Number) translateNumberFilter(filter, attribute) else null
+            else -> null
+         }
+      }
+
+      private fun translateSelectFilter(filter: CollectionAttributeFilter, attribute: Attribute): CollectionSearchAttributeFilter? {
+         val options = ((attribute.constraint?.config as? Map<*, *>)?.get("options") as? List<*>).orEmpty().filterIsInstance<Map<*, *>>()
+         val values = filter.conditionValues.orEmpty().flatMap { conditionValue ->
+            when (val value = conditionValue.value) {
+               null -> emptyList()
+               is kotlin.collections.Collection<*> -> value.filterNotNull()
+               else -> listOf(value)
+            }
+         }
+         if (values.isEmpty()) {
+            return null
+         }
+
+         // stored values can be numbers, strings or display values of the options
+         val candidates = LinkedHashSet<Any>()
+         values.forEach { value ->
+            val stringValue = value.toString()
+            candidates.add(value)
+            candidates.add(stringValue)
+            stringValue.toLongOrNull()?.let { candidates.add(it) }
+            options.filter { it["value"]?.toString() == stringValue }
+                  .mapNotNull { it["displayValue"]?.toString() }
+                  .filter { it.isNotEmpty() }
+                  .forEach { candidates.add(it) }
+         }
+
+         return createFilter(filter, ConditionType.HAS_SOME, candidates.toList())
+      }
+
+      private fun translateNumberFilter(filter: CollectionAttributeFilter, attribute: Attribute): CollectionSearchAttributeFilter? {
+         if ((attribute.constraint?.config as? Map<*, *>)?.get("decimals") != null) {
+            return null // values are compared rounded
+         }
+
+         val number = when (val value = filter.conditionValues.orEmpty().firstOrNull()?.value) {
+            is Number -> value.toDouble()
+            is String -> if (PLAIN_NUMBER.matches(value.trim())) value.trim().toDouble() else null
+            else -> null
+         } ?: return null
+         if (number.isNaN() || number.isInfinite()) {
+            return null
+         }
+
+         val tolerance = max(abs(number), 1.0) * NUMBER_TOLERANCE
+         return when (filter.condition) {
+            ConditionType.LOWER_THAN, ConditionType.LOWER_THAN_EQUALS -> createFilter(filter, ConditionType.LOWER_THAN_EQUALS, number + tolerance)
+            else -> createFilter(filter, ConditionType.GREATER_THAN_EQUALS, number - tolerance)
+         }
+      }
+
+      private fun createFilter(filter: CollectionAttributeFilter, condition: ConditionType, value: Any?) =
+            CollectionSearchAttributeFilter(filter.collectionId, condition, filter.attributeId, value)
+   }
+}
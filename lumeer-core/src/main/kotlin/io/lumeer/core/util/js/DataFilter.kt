@@ -45,6 +45,15 @@ class DataFilter {
             return task.call()
         }
 
+        @JvmStatic
+        fun filterDocumentsAndLinksByQueryNatively(documents: List<Document>,
+                                                   collections: List<Collection>, linkTypes: List<LinkType>, linkInstances: List<LinkInstance>,
+                                                   query: Query, collectionsPermissions: Map<String, AllowedPermissions>, linkTypesPermissions: Map<String, AllowedPermissions>,
+                                                   constraintData: ConstraintData, includeChildren: Boolean, includeNonLinkedDocuments: Boolean, language: Language = Language.EN): Tuple<List<Document>, List<LinkInstance>> {
+            val task = DataFilterNativeTask(documents, collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, includeChildren)
+            return task.call() ?: filterDocumentsAndLinksByQueryFromJson(documents, collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language)
+        }
+
         @JvmStatic
         fun filterDocumentsAndLinksByQueryDecodingFromJson(documents: List<Document>,
                                                    collections: List<Collection>, linkTypes: List<LinkType>, linkInstances: List<LinkInstance>,
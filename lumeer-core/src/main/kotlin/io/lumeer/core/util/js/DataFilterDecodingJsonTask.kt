@@ -23,8 +23,6 @@ import io.lumeer.api.model.Collection
 import io.lumeer.core.constraint.ConstraintManager
 import io.lumeer.core.util.Tuple
 import java.util.concurrent.Callable
-import java.util.logging.Level
-import java.util.logging.Logger
 
 data class DataFilterDecodingJsonTask(val documents: List<Document>,
                               val collections: List<Collection>,
@@ -64,41 +62,7 @@ data class DataFilterDecodingJsonTask(val documents: List<Document>,
             }
         }
 
-        val emptyTuple = Tuple<List<Document>, List<LinkInstance>>(emptyList(), emptyList())
-        val context = DataFilterJsonTask.getContext()
-
-        return try {
-            val filterJsValue = DataFilterJsonTask.getFunction(context)
-
-            val json = DataFilterJsonTask.convertToJson(DataFilterJson(decodedDocuments, collections, linkTypes, decodedLinks, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language.toLanguageTag()))
-
-            val result = filterJsValue.execute(json)
-
-            if (result != null) {
-                val documentsMap = documents.groupBy { it.id }
-                val resultDocumentsList = mutableListOf<Document>()
-                val resultDocuments = result.getMember("documentsIds")
-                for (i in 0 until resultDocuments.arraySize) resultDocumentsList.addAll(documentsMap[resultDocuments.getArrayElement(i).asString()].orEmpty())
-
-                val linkInstancesMap = linkInstances.groupBy { it.id }
-                val resultLinksList = mutableListOf<LinkInstance>()
-                val resultLinks = result.getMember("linkInstancesIds")
-                for (i in 0 until resultLinks.arraySize) resultLinksList.addAll(linkInstancesMap[resultLinks.getArrayElement(i).asString()].orEmpty())
-
-                Tuple(resultDocumentsList, resultLinksList)
-            } else {
-                logger.log(Level.SEVERE, "Error filtering data - null result.")
-                emptyTuple
-            }
-        } catch (e: Exception) {
-            logger.log(Level.SEVERE, "Error filtering data: ", e)
-            emptyTuple
-        } finally {
-            context.close()
-        }
-    }
-
-    companion object {
-        private val logger: Logger = Logger.getLogger(DataFilterDecodingJsonTask::class.simpleName)
+        val json = DataFilterJsonTask.convertToJson(DataFilterJson(decodedDocuments, collections, linkTypes, decodedLinks, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language.toLanguageTag()))
+        return DataFilterJsonTask.filterByJson(json, documents, linkInstances)
     }
 }
@@ -19,13 +19,13 @@
 package io.lumeer.core.util.js
 
 import com.google.gson.*
+import com.google.gson.reflect.TypeToken
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonWriter
 import io.lumeer.api.model.*
 import io.lumeer.api.model.Collection
 import io.lumeer.api.model.common.Resource
-import io.lumeer.core.js.JsEngineFactory
 import io.lumeer.core.util.Tuple
-import org.graalvm.polyglot.Context
-import org.graalvm.polyglot.Value
 import java.io.IOException
 import java.nio.charset.StandardCharsets
 import java.util.concurrent.Callable
@@ -51,67 +51,68 @@ data class DataFilterJsonTask(val documents: List<Document>,
                               val language: Language = Language.EN) : Callable<Tuple<List<Document>, List<LinkInstance>>> {
 
     override fun call(): Tuple<List<Document>, List<LinkInstance>> {
-        val emptyTuple = Tuple<List<Document>, List<LinkInstance>>(emptyList(), emptyList())
-        val context = getContext()
-
-        return try {
-            val filterJsValue = getFunction(context)
-
-            val json = convertToJson(DataFilterJson(documents, collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language.toLanguageTag()))
-
-            val result = filterJsValue.execute(json)
-
-            if (result != null) {
-                val documentsMap = documents.groupBy { it.id }
-                val resultDocumentsList = mutableListOf<Document>()
-                val resultDocuments = result.getMember("documentsIds")
-                for (i in 0 until resultDocuments.arraySize) resultDocumentsList.addAll(documentsMap[resultDocuments.getArrayElement(i).asString()].orEmpty())
-
-                val linkInstancesMap = linkInstances.groupBy { it.id }
-                val resultLinksList = mutableListOf<LinkInstance>()
-                val resultLinks = result.getMember("linkInstancesIds")
-                for (i in 0 until resultLinks.arraySize) resultLinksList.addAll(linkInstancesMap[resultLinks.getArrayElement(i).asString()].orEmpty())
-
-                Tuple(resultDocumentsList, resultLinksList)
-            } else {
-                logger.log(Level.SEVERE, "Error filtering data - null result.")
-                emptyTuple
-            }
-        } catch (e: Exception) {
-            logger.log(Level.SEVERE, "Error filtering data: ", e)
-            emptyTuple
-        } finally {
-            context.close()
-        }
+        val json = convertToJson(DataFilterJson(documents, collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language.toLanguageTag()))
+        return filterByJson(json, documents, linkInstances)
     }
 
     companion object {
         private val logger: Logger = Logger.getLogger(DataFilterJsonTask::class.simpleName)
         private const val FILTER_JS = "filterDocumentsAndLinksIdsFromJson"
         private var filterJsCode: String? = null
-        private val engine = JsEngineFactory.getEngine()
+        private val filterPool: JsContextPool by lazy { JsContextPool("data-filter-json", filterJsCode, FILTER_JS) }
 
-        fun getContext(): Context {
-            val context = Context
-                    .newBuilder("js")
-                    .engine(engine)
-                    .allowAllAccess(true)
-                    .build()
-            context.initialize("js")
+        @JvmStatic
+        fun getPoolStats(): JsContextPool.Stats = filterPool.getStats()
 
-            return context
-        }
+        fun filterByJson(json: String, documents: List<Document>, linkInstances: List<LinkInstance>): Tuple<List<Document>, List<LinkInstance>> {
+            val emptyTuple = Tuple<List<Document>, List<LinkInstance>>(emptyList(), emptyList())
+
+            return try {
+                filterPool.execute { filterJsValue ->
+                    val result = filterJsValue.execute(json)
+
+                    if (result != null) {
+                        val documentsMap = documents.groupBy { it.id }
+                        val resultDocumentsList = mutableListOf<Document>()
+                        val resultDocuments = result.getMember("documentsIds")
+                        for (i in 0 until resultDocuments.arraySize) resultDocumentsList.addAll(documentsMap[resultDocuments.getArrayElement(i).asString()].orEmpty())
 
-        fun getFunction(context: Context): Value {
-            if (filterJsCode != null) {
-                context.eval("js", filterJsCode)
-                return context.getBindings("js").getMember(FILTER_JS)
-            } else {
-                throw IOException("Filters JS code not present.")
+                        val linkInstancesMap = linkInstances.groupBy { it.id }
+                        val resultLinksList = mutableListOf<LinkInstance>()
+                        val resultLinks = result.getMember("linkInstancesIds")
+                        for (i in 0 until resultLinks.arraySize) resultLinksList.addAll(linkInstancesMap[resultLinks.getArrayElement(i).asString()].orEmpty())
+
+                        Tuple<List<Document>, List<LinkInstance>>(resultDocumentsList, resultLinksList)
+                    } else {
+                        logger.log(Level.SEVERE, "Error filtering data - null result.")
+                        emptyTuple
+                    }
+                }
+            } catch (e: Exception) {
+                logger.log(Level.SEVERE, "Error filtering data: ", e)
+                emptyTuple
             }
         }
 
-        fun convertToJson(dataFilterJson: DataFilterJson): String {
+        // Gson instances are thread safe, the configuration is built just once
+        private val gson: Gson by lazy { createGson() }
+
+        fun convertToJson(dataFilterJson: DataFilterJson): String = gson.toJson(dataFilterJson)
+
+        /**
+         * Serializes the fields of the constraint data shared by the whole workspace, so that they can be reused
+         * by all filter calls (see ConstraintData.getSerializedFields).
+         */
+        @JvmStatic
+        fun serializeSharedFields(constraintData: ConstraintData): Map<String, String> = mapOf(
+                "users" to constraintData.users,
+                "durationUnitsMap" to constraintData.durationUnitsMap,
+                "currencyData" to constraintData.currencyData,
+                "teams" to constraintData.teams,
+                "selectionLists" to constraintData.selectionLists
+        ).filterValues { it != null }.mapValues { gson.toJson(it.value) }
+
+        private fun createGson(): Gson {
             val strategy: ExclusionStrategy = object : ExclusionStrategy {
                 override fun shouldSkipField(field: FieldAttributes): Boolean {
                     if (field.declaringClass == Document::class.java && !listOf("id", "data", "metaData", "collectionId").contains(field.name)) {
@@ -173,6 +174,12 @@ data class DataFilterJsonTask(val documents: List<Document>,
                 JsonPrimitive(dt.toInstant().epochSecond)
             }
 
+            val constraintDataAdapterFactory: TypeAdapterFactory = object : TypeAdapterFactory {
+                @Suppress("UNCHECKED_CAST")
+                override fun <T : Any?> create(gson: Gson, type: TypeToken<T>): TypeAdapter<T>? =
+                        if (type.rawType == ConstraintData::class.java) ConstraintDataAdapter(gson, gson.getDelegateAdapter(this, type) as TypeAdapter<ConstraintData>) as TypeAdapter<T> else null
+            }
+
             return GsonBuilder()
                     .addSerializationExclusionStrategy(strategy)
                     .registerTypeAdapter(ConditionType::class.java, conditionTypeSerializer)
@@ -180,8 +187,8 @@ data class DataFilterJsonTask(val documents: List<Document>,
                     .registerTypeAdapter(Float::class.java, floatSerializer)
                     .registerTypeAdapter(LocalDateTime::class.java, localDateTimeSerializer)
                     .registerTypeAdapter(ZonedDateTime::class.java, zonedDateTimeSerializer2)
+                    .registerTypeAdapterFactory(constraintDataAdapterFactory)
                     .create()
-                    .toJson(dataFilterJson)
         }
 
         init {
@@ -196,6 +203,43 @@ data class DataFilterJsonTask(val documents: List<Document>,
     }
 }
 
+/**
+ * Writes the constraint data field by field, the fields that were already serialized are copied as they are.
+ * Reading is left to the default reflective adapter.
+ */
+private class ConstraintDataAdapter(private val gson: Gson, private val delegate: TypeAdapter<ConstraintData>) : TypeAdapter<ConstraintData>() {
+
+    override fun write(out: JsonWriter, value: ConstraintData?) {
+        if (value == null) {
+            out.nullValue()
+            return
+        }
+
+        val serializedFields = value.serializedFields.orEmpty()
+        out.beginObject()
+        writeField(out, "users", value.users, serializedFields)
+        writeField(out, "currentUser", value.currentUser, serializedFields)
+        writeField(out, "durationUnitsMap", value.durationUnitsMap, serializedFields)
+        writeField(out, "currencyData", value.currencyData, serializedFields)
+        writeField(out, "timezone", value.timezone, serializedFields)
+        writeField(out, "teams", value.teams, serializedFields)
+        writeField(out, "selectionLists", value.selectionLists, serializedFields)
+        out.endObject()
+    }
+
+    private fun writeField(out: JsonWriter, name: String, value: Any?, serializedFields: Map<String, String>) {
+        val json = serializedFields[name]
+        if (json != null) {
+            out.name(name).jsonValue(json)
+        } else if (value != null) { // null fields are skipped as by the default serialization
+            out.name(name)
+            gson.toJson(value, value.javaClass, out)
+        }
+    }
+
+    override fun read(reader: JsonReader): ConstraintData? = delegate.read(reader)
+}
+
 data class DataFilterJson(val documents: List<Document>,
                           val collections: List<Collection>,
                           val linkTypes: List<LinkType>,
@@ -0,0 +1,301 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util.js
+
+import io.lumeer.api.model.*
+import io.lumeer.api.model.Collection
+import io.lumeer.core.util.Tuple
+import java.math.BigDecimal
+import java.text.Normalizer
+import java.util.*
+import java.util.concurrent.Callable
+
+/**
+ * Evaluates the query directly on JVM objects with the same semantics as filterDocumentsAndLinksIdsFromJson
+ * in lumeer-data-filters.min.js. Only the subset of queries that can be evaluated identically is supported
+ * (stems without link types, attributes without constraint or with boolean constraint, data readable in all
+ * collections and link types), otherwise null is returned and the caller is expected to fall back to the JS filter.
+ */
+data class DataFilterNativeTask(val documents: List<Document>,
+                                val collections: List<Collection>,
+                                val linkTypes: List<LinkType>,
+                                val linkInstances: List<LinkInstance>,
+                                val query: Query,
+                                val collectionsPermissions: Map<String, AllowedPermissions>,
+                                val linkTypesPermissions: Map<String, AllowedPermissions>,
+                                val includeChildren: Boolean) : Callable<Tuple<List<Document>, List<LinkInstance>>?> {
+
+    private class UnsupportedFilterException : RuntimeException()
+
+    override fun call(): Tuple<List<Document>, List<LinkInstance>>? {
+        return try {
+            filter()
+        } catch (e: UnsupportedFilterException) {
+            null
+        }
+    }
+
+    private fun filter(): Tuple<List<Document>, List<LinkInstance>> {
+        // visibility of documents for contributors depends on the owner and user attributes, evaluated by the JS filter only
+        val collectionIds = collections.map { it.id } + documents.map { it.collectionId }
+        val linkTypeIds = linkTypes.map { it.id } + linkInstances.map { it.linkTypeId }
+        if (collectionIds.any { !canReadData(collectionsPermissions[it]) } || linkTypeIds.any { !canReadData(linkTypesPermissions[it]) }) {
+            throw UnsupportedFilterException()
+        }
+
+        if (query.stems.isEmpty() && query.fulltexts.isEmpty()) {
+            return Tuple(paginate(documents), linkInstances)
+        }
+
+        val stems = if (query.stems.isNotEmpty()) query.stems else collections.map { QueryStem(it.id) }
+        if (stems.any { it.linkTypeIds.isNotEmpty() }) {
+            throw UnsupportedFilterException()
+        }
+
+        val fulltexts = query.fulltexts.map { removeDiacritics(escape(unescape(it)).toLowerCase(Locale.ROOT)) }
+        val collectionsById = collections.associateBy { it.id }
+        val documentsByCollection = documents.groupBy { it.collectionId }
+        val resultIds = LinkedHashSet<String>()
+
+        stems.forEach { stem ->
+            val collection = collectionsById[stem.collectionId] ?: return@forEach
+            val collectionDocuments = documentsByCollection[collection.id].orEmpty()
+            val attributesById = collection.attributes.associateBy { it.id }
+            val filters = stem.filters.filter { it.collectionId == collection.id }
+            filters.forEach { attributesById[it.attributeId]?.let { attribute -> checkSupported(attribute) } }
+            if (fulltexts.isNotEmpty()) {
+                collection.attributes.forEach { checkSupported(it) }
+            }
+
+            val children = if (includeChildren) collectionDocuments.filter { it.metaData?.getString(Document.META_PARENT_ID) != null }.groupBy { it.metaData.getString(Document.META_PARENT_ID) } else emptyMap()
+            val stemIds = HashSet<String>()
+
+            collectionDocuments.forEach { document ->
+                if (meetFilters(document, filters, attributesById) && !stemIds.contains(document.id)) {
+                    val meetFulltexts = fulltexts.isEmpty() || meetFulltexts(document, fulltexts, collection.attributes)
+                    val included = if (stem.documentIds.isNotEmpty()) stem.documentIds.contains(document.id) else meetFulltexts
+                    if (included) {
+                        stemIds.add(document.id)
+                        resultIds.add(document.id)
+                        descendants(document, children).forEach { child ->
+                            if (stemIds.add(child.id)) {
+                                resultIds.add(child.id)
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        val documentsMap = documents.groupBy { it.id }
+        return Tuple(paginate(resultIds.flatMap { documentsMap[it].orEmpty() }), emptyList())
+    }
+
+    private fun canReadData(permissions: AllowedPermissions?): Boolean = permissions?.rolesWithView?.get(RoleType.DataRead) == true
+
+    private fun paginate(documents: List<Document>): List<Document> {
+        val page = query.page
+        val pageSize = query.pageSize
+        if (page == null || pageSize == null || (page == 0 && pageSize == 0)) {
+            return documents
+        }
+        val from = minOf(page * pageSize, documents.size)
+        val to = minOf((page + 1) * pageSize, documents.size)
+        return documents.subList(from, to)
+    }
+
+    private fun descendants(document: Document, children: Map<String, List<Document>>): List<Document> {
+        if (children.isEmpty()) {
+            return emptyList()
+        }
+        val visited = LinkedHashMap<String, Document>()
+        val queue = ArrayDeque<Document>(listOf(document))
+        while (queue.isNotEmpty()) {
+            val current = queue.removeFirst()
+            if (!visited.containsKey(current.id)) {
+                visited[current.id] = current
+                queue.addAll(children[current.id].orEmpty())
+            }
+        }
+        visited.remove(document.id)
+        return visited.values.toList()
+    }
+
+    private fun checkSupported(attribute: Attribute) {
+        val type = attribute.constraint?.type
+        if (type != null && type != ConstraintType.None && type != ConstraintType.Boolean) {
+            throw UnsupportedFilterException()
+        }
+    }
+
+    private fun meetFilters(document: Document, filters: List<CollectionAttributeFilter>, attributesById: Map<String, Attribute>): Boolean {
+        return filters.all { filter ->
+            val attribute = attributesById[filter.attributeId] ?: return@all false
+            val value = document.data?.get(attribute.id)
+            if (attribute.constraint?.type == ConstraintType.Boolean) {
+                meetBooleanCondition(filter.condition, toBoolean(value), filter.conditionValues)
+            } else {
+                meetTextCondition(filter.condition, jsTrim(formatUnknown(value).toLowerCase(Locale.ROOT)), filter.conditionValues.map { jsTrim(formatUnknown(it.value).toLowerCase(Locale.ROOT)) })
+            }
+        }
+    }
+
+    private fun meetFulltexts(document: Document, fulltexts: List<String>, attributes: kotlin.collections.Collection<Attribute>): Boolean {
+        val formattedValues = attributes.map { attribute ->
+            val value = document.data?.get(attribute.id)
+            val formatted = if (attribute.constraint?.type == ConstraintType.Boolean) toBoolean(value).toString() else formatUnknown(value)
+            jsTrim(removeDiacritics(formatted.toLowerCase(Locale.ROOT)))
+        }
+        return fulltexts.any { fulltext ->
+            val normalized = jsTrim(fulltext.toLowerCase(Locale.ROOT))
+            formattedValues.any { it.contains(normalized) }
+        }
+    }
+
+    private fun meetTextCondition(condition: ConditionType?, value: String, conditionValues: List<String>): Boolean {
+        val first = conditionValues.firstOrNull()
+        return when (condition) {
+            ConditionType.EQUALS -> value == first
+            ConditionType.NOT_EQUALS -> value != first
+            ConditionType.CONTAINS -> value.contains(first ?: JS_UNDEFINED)
+            ConditionType.NOT_CONTAINS -> !value.contains(first ?: JS_UNDEFINED)
+            ConditionType.STARTS_WITH -> value.startsWith(first ?: JS_UNDEFINED)
+            ConditionType.ENDS_WITH -> value.endsWith(first ?: JS_UNDEFINED)
+            ConditionType.IS_EMPTY -> value.isEmpty()
+            ConditionType.NOT_EMPTY -> value.isNotEmpty()
+            else -> false
+        }
+    }
+
+    private fun meetBooleanCondition(condition: ConditionType?, value: Boolean, conditionValues: List<ConditionValue>): Boolean {
+        val expected = conditionValues.isNotEmpty() && toBoolean(conditionValues[0].value)
+        return when (condition) {
+            ConditionType.EQUALS -> value == expected
+            ConditionType.NOT_EQUALS -> value != expected
+            else -> false
+        }
+    }
+
+    private fun toBoolean(value: Any?): Boolean {
+        return when (value) {
+            is kotlin.collections.Collection<*> -> value.all { isTruthy(it) }
+            is Array<*> -> value.all { isTruthy(it) }
+            is Boolean -> value
+            is String -> BOOLEAN_TRUE_VALUES.contains(value.toLowerCase(Locale.ROOT))
+            else -> false
+        }
+    }
+
+    private fun isTruthy(value: Any?): Boolean {
+        return when (value) {
+            null -> false
+            is Boolean -> value
+            is String -> value.isNotEmpty()
+            is Number -> value.toDouble().let { it != 0.0 && !it.isNaN() }
+            else -> true
+        }
+    }
+
+    private fun removeDiacritics(value: String): String = Normalizer.normalize(value, Normalizer.Form.NFD).replace(COMBINING_MARKS, "")
+
+    private fun escape(value: String): String = value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;").replace("'", "&#39;")
+
+    private fun unescape(value: String): String = HTML_ENTITIES.replace(value) { HTML_ENTITIES_MAP.getValue(it.value) }
+
+    companion object {
+        private const val JS_UNDEFINED = "undefined"
+        private const val MAX_SAFE_INTEGER = 9007199254740991L
+        private val COMBINING_MARKS = Regex("[\\u0300-\\u036f]")
+        private val HTML_ENTITIES = Regex("&(?:amp|lt|gt|quot|#39);")
+        private val HTML_ENTITIES_MAP = mapOf("&amp;" to "&", "&lt;" to "<", "&gt;" to ">", "&quot;" to "\"", "&#39;" to "'")
+        private val BOOLEAN_TRUE_VALUES = setOf("true", "yes", "ja", "ano", "áno", "sí", "si", "sim", "да", "是", "はい", "vâng", "כן")
+
+        /**
+         * Returns the value in the form compared by the text conditions (e.g. EQUALS) of attributes without constraint,
+         * so two values are equal in the filter iff their normalized forms are equal. Returns null when the value
+         * can not be formatted identically to the JS filter.
+         */
+        @JvmStatic
+        fun normalizeTextValue(value: Any?): String? {
+            return try {
+                jsTrim(formatUnknown(value).toLowerCase(Locale.ROOT))
+            } catch (e: UnsupportedFilterException) {
+                null
+            }
+        }
+
+        // mirrors String(value) in JS for the values Gson produces from document data
+        private fun formatUnknown(value: Any?): String {
+            return when (value) {
+                null -> ""
+                is Boolean -> if (value) "true" else ""
+                is String -> value
+                is Number -> jsNumber(value)
+                is kotlin.collections.Collection<*> -> value.joinToString(",") { jsArrayElement(it) }
+                is Array<*> -> value.joinToString(",") { jsArrayElement(it) }
+                else -> throw UnsupportedFilterException()
+            }
+        }
+
+        private fun jsArrayElement(value: Any?): String {
+            return when (value) {
+                null -> ""
+                is Boolean -> value.toString()
+                is String -> value
+                is Number -> jsNumber(value)
+                is kotlin.collections.Collection<*> -> value.joinToString(",") { jsArrayElement(it) }
+                is Array<*> -> value.joinToString(",") { jsArrayElement(it) }
+                else -> throw UnsupportedFilterException()
+            }
+        }
+
+        private fun jsNumber(value: Number): String {
+            if (value is Int || value is Short || value is Byte) {
+                return value.toString()
+            }
+            if (value is Long) {
+                if (Math.abs(value) > MAX_SAFE_INTEGER) {
+                    throw UnsupportedFilterException()
+                }
+                return value.toString()
+            }
+
+            // Gson writes floats by their own string representation
+            val number = if (value is Float) value.toString().toDouble() else value.toDouble()
+            return when {
+                number.isNaN() -> "NaN"
+                number.isInfinite() -> if (number > 0) "Infinity" else "-Infinity"
+                number == 0.0 -> "0"
+                number == Math.rint(number) && Math.abs(number) < 1e21 -> BigDecimal(number).toBigInteger().toString()
+                Math.abs(number) >= 1e-6 && Math.abs(number) < 1e21 -> BigDecimal(number.toString()).stripTrailingZeros().toPlainString()
+                else -> throw UnsupportedFilterException()
+            }
+        }
+
+        private fun jsTrim(value: String): String {
+            var start = 0
+            var end = value.length
+            while (start < end && isJsWhitespace(value[start])) start++
+            while (end > start && isJsWhitespace(value[end - 1])) end--
+            return value.substring(start, end)
+        }
+
+        private fun isJsWhitespace(c: Char): Boolean = Character.isSpaceChar(c) || c == '\t' || c == '\n' || c == '\u000B' || c == '\u000C' || c == '\r' || c == '\uFEFF'
+    }
+}
@@ -20,10 +20,7 @@ package io.lumeer.core.util.js
 
 import io.lumeer.api.model.*
 import io.lumeer.api.model.Collection
-import io.lumeer.core.js.JsEngineFactory
 import io.lumeer.core.util.Tuple
-import org.graalvm.polyglot.Context
-import org.graalvm.polyglot.Value
 import java.io.IOException
 import java.nio.charset.StandardCharsets
 import java.util.concurrent.Callable
@@ -45,42 +42,39 @@ data class DataFilterTask(val documents: List<Document>,
     override fun call(): Tuple<List<Document>, List<LinkInstance>> {
         val locale = language.toLocale()
         val emptyTuple = Tuple<List<Document>, List<LinkInstance>>(emptyList(), emptyList())
-        val context = getContext()
 
         return try {
-            val filterJsValue = getFunction(context)
+            filterPool.execute { filterJsValue ->
+                val result = filterJsValue.execute(JvmObjectProxy.fromList(documents, locale),
+                    JvmObjectProxy.fromList(collections, locale),
+                    JvmObjectProxy.fromList(linkTypes, locale),
+                    JvmObjectProxy.fromList(linkInstances, locale),
+                    JvmObjectProxy(query, Query::class.java, locale),
+                    JvmObjectProxy.fromMap(collectionsPermissions, locale),
+                    JvmObjectProxy.fromMap(linkTypesPermissions, locale),
+                    JvmObjectProxy(constraintData, ConstraintData::class.java),
+                    includeChildren,
+                    includeNonLinkedDocuments,
+                    language.toLanguageTag())
 
-            val result = filterJsValue.execute(JvmObjectProxy.fromList(documents, locale),
-                JvmObjectProxy.fromList(collections, locale),
-                JvmObjectProxy.fromList(linkTypes, locale),
-                JvmObjectProxy.fromList(linkInstances, locale),
-                JvmObjectProxy(query, Query::class.java, locale),
-                JvmObjectProxy.fromMap(collectionsPermissions, locale),
-                JvmObjectProxy.fromMap(linkTypesPermissions, locale),
-                JvmObjectProxy(constraintData, ConstraintData::class.java),
-                includeChildren,
-                includeNonLinkedDocuments,
-                language.toLanguageTag())
+                if (result != null) {
+                    val resultDocumentsList = mutableListOf<Document>()
+                    val resultDocuments = result.getMember("documents")
+                    for (i in 0 until resultDocuments.arraySize) resultDocumentsList.add(resultDocuments.getArrayElement(i).asProxyObject<JvmObjectProxy<Document>>().proxyObject)
 
-            if (result != null) {
-                val resultDocumentsList = mutableListOf<Document>()
-                val resultDocuments = result.getMember("documents")
-                for (i in 0 until resultDocuments.arraySize) resultDocumentsList.add(resultDocuments.getArrayElement(i).asProxyObject<JvmObjectProxy<Document>>().proxyObject)
+                    val resultLinksList = mutableListOf<LinkInstance>()
+                    val resultLinks = result.getMember("linkInstances")
+                    for (i in 0 until resultLinks.arraySize) resultLinksList.add(resultLinks.getArrayElement(i).asProxyObject<JvmObjectProxy<LinkInstance>>().proxyObject)
 
-                val resultLinksList = mutableListOf<LinkInstance>()
-                val resultLinks = result.getMember("linkInstances")
-                for (i in 0 until resultLinks.arraySize) resultLinksList.add(resultLinks.getArrayElement(i).asProxyObject<JvmObjectProxy<LinkInstance>>().proxyObject)
-
-                Tuple(resultDocumentsList, resultLinksList)
-            } else {
-                logger.log(Level.SEVERE, "Error filtering data - null result.")
-                emptyTuple
+                    Tuple<List<Document>, List<LinkInstance>>(resultDocumentsList, resultLinksList)
+                } else {
+                    logger.log(Level.SEVERE, "Error filtering data - null result.")
+                    emptyTuple
+                }
             }
         } catch (e: Exception) {
             logger.log(Level.SEVERE, "Error filtering data: ", e)
             emptyTuple
-        } finally {
-            context.close()
         }
     }
 
@@ -88,27 +82,7 @@ data class DataFilterTask(val documents: List<Document>,
         private val logger: Logger = Logger.getLogger(DataFilterJsonTask::class.simpleName)
         private const val FILTER_JS = "filterDocumentsAndLinksByQuery"
         private var filterJsCode: String? = null
-        private val engine = JsEngineFactory.getEngine()
-
-        private fun getContext(): Context {
-            val context = Context
-                .newBuilder("js")
-                .engine(engine)
-                .allowAllAccess(true)
-                .build()
-            context.initialize("js")
-
-            return context
-        }
-
-        private fun getFunction(context: Context): Value {
-            if (filterJsCode != null) {
-                context.eval("js", filterJsCode)
-                return context.getBindings("js").getMember(FILTER_JS)
-            } else {
-                throw IOException("Filters JS code not present.")
-            }
-        }
+        private val filterPool: JsContextPool by lazy { JsContextPool("data-filter", filterJsCode, FILTER_JS) }
 
         init {
             try {
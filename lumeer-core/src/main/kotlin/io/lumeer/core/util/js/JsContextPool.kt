@@ -0,0 +1,153 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util.js
+
+import io.lumeer.core.js.JsEngineFactory
+import org.graalvm.polyglot.Context
+import org.graalvm.polyglot.Value
+import java.io.IOException
+import java.util.concurrent.ConcurrentLinkedDeque
+import java.util.concurrent.Semaphore
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Bounded pool of JS contexts that have the given code already evaluated and the entry function looked up.
+ * A context is used by a single borrower at a time and is closed after [maxUses] executions or after a failure.
+ */
+class JsContextPool(private val name: String,
+                    private val code: String?,
+                    private val functionName: String,
+                    private val maxSize: Int = DEFAULT_POOL_SIZE,
+                    private val maxUses: Int = DEFAULT_MAX_USES) {
+
+    private val idle = ConcurrentLinkedDeque<PooledContext>()
+    private val permits = Semaphore(maxSize, true)
+
+    private val borrowed = AtomicLong()
+    private val created = AtomicLong()
+    private val recycled = AtomicLong()
+    private val waitNanos = AtomicLong()
+    private val maxWaitNanos = AtomicLong()
+
+    class PooledContext internal constructor(val context: Context, val function: Value) {
+        internal var uses = 0
+        internal var broken = false
+    }
+
+    data class Stats(val name: String,
+                     val maxSize: Int,
+                     val idle: Int,
+                     val inUse: Int,
+                     val borrowed: Long,
+                     val created: Long,
+                     val recycled: Long,
+                     val totalWaitMillis: Long,
+                     val maxWaitMillis: Long)
+
+    fun <T> execute(block: (Value) -> T): T {
+        val pooled = borrow()
+        try {
+            return block(pooled.function)
+        } catch (e: Exception) {
+            pooled.broken = true
+            throw e
+        } finally {
+            release(pooled)
+        }
+    }
+
+    fun getStats(): Stats = Stats(name, maxSize, idle.size, maxSize - permits.availablePermits(),
+            borrowed.get(), created.get(), recycled.get(), waitNanos.get() / 1_000_000, maxWaitNanos.get() / 1_000_000)
+
+    private fun borrow(): PooledContext {
+        val start = System.nanoTime()
+        permits.acquire()
+
+        val waited = System.nanoTime() - start
+        waitNanos.addAndGet(waited)
+        maxWaitNanos.accumulateAndGet(waited) { current, value -> maxOf(current, value) }
+        if (borrowed.incrementAndGet() % STATS_LOG_INTERVAL == 0L) {
+            logger.log(Level.INFO, getStats().toString())
+        }
+
+        return try {
+            idle.pollFirst() ?: create()
+        } catch (e: Exception) {
+            permits.release()
+            throw e
+        }
+    }
+
+    private fun release(pooled: PooledContext) {
+        try {
+            pooled.uses++
+            if (pooled.broken || pooled.uses >= maxUses) {
+                recycled.incrementAndGet()
+                closeQuietly(pooled)
+            } else {
+                // LIFO keeps the recently used (and JIT warmed) contexts busy
+                idle.offerFirst(pooled)
+            }
+        } finally {
+            permits.release()
+        }
+    }
+
+    private fun create(): PooledContext {
+        if (code == null) {
+            throw IOException("JS code for pool $name not present.")
+        }
+
+        val context = Context
+                .newBuilder("js")
+                .engine(JsEngineFactory.getEngine())
+                .allowAllAccess(true)
+                .build()
+
+        try {
+            context.initialize("js")
+            context.eval("js", code)
+            val function = context.getBindings("js").getMember(functionName)
+            created.incrementAndGet()
+            return PooledContext(context, function)
+        } catch (e: Exception) {
+            context.close()
+            throw e
+        }
+    }
+
+    private fun closeQuietly(pooled: PooledContext) {
+        try {
+            pooled.context.close()
+        } catch (e: Exception) {
+            logger.log(Level.WARNING, "Unable to close JS context in pool $name: ", e)
+        }
+    }
+
+    companion object {
+        private val logger: Logger = Logger.getLogger(JsContextPool::class.simpleName)
+
+        private const val STATS_LOG_INTERVAL = 10_000L
+
+        private val DEFAULT_POOL_SIZE = System.getenv("JS_CONTEXT_POOL_SIZE")?.toIntOrNull() ?: Runtime.getRuntime().availableProcessors()
+        private val DEFAULT_MAX_USES = System.getenv("JS_CONTEXT_POOL_MAX_USES")?.toIntOrNull() ?: 1000
+    }
+}
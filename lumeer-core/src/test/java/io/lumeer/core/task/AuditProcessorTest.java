@@ -0,0 +1,88 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.AuditRecord;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.core.adapter.AuditAdapter;
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.junit.Test;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class AuditProcessorTest {
+
+   private static final String C1 = "c1", C2 = "c2", L1 = "l1";
+
+   private final ZonedDateTime now = ZonedDateTime.now();
+
+   @Test
+   public void mergeConsecutiveChanges() {
+      final AuditProcessor.PendingRecords records = new AuditProcessor.PendingRecords("o1", "p1");
+      records.add(null, null, record(C1, "d1", "u1", null, now, "a", "b"));
+      records.add(null, null, record(C1, "d1", "u1", null, now.plusMinutes(1), "b", "c"));
+      records.add(null, null, record(C1, "d1", "u1", null, now.plusMinutes(2), "c", "d"));
+
+      final List<AuditRecord> stored = records.getRecordsByParent().get(ResourceType.DOCUMENT + "/" + C1);
+      assertThat(stored).hasSize(1);
+      assertThat(stored.get(0).getOldState()).containsEntry("a1", "a");
+      assertThat(stored.get(0).getNewState()).containsEntry("a1", "d");
+      assertThat(stored.get(0).getChangeDate()).isEqualTo(now.plusMinutes(2));
+   }
+
+   @Test
+   public void keepChangesOfDifferentOriginators() {
+      final AuditProcessor.PendingRecords records = new AuditProcessor.PendingRecords("o1", "p1");
+      records.add(null, null, record(C1, "d1", "u1", null, now, "a", "b"));
+      records.add(null, null, record(C1, "d1", "u2", null, now.plusMinutes(1), "b", "c"));
+      records.add(null, null, record(C1, "d1", "u2", "automation", now.plusMinutes(2), "c", "d"));
+      records.add(null, null, record(C1, "d1", "u2", "automation", now.plusMinutes(AuditAdapter.UPDATE_MERGE_WINDOW_MINUTES + 3), "d", "e"));
+
+      assertThat(records.getRecordsByParent().get(ResourceType.DOCUMENT + "/" + C1))
+            .extracting(record -> record.getNewState().getString("a1"))
+            .containsExactly("b", "c", "d", "e");
+   }
+
+   @Test
+   public void groupRecordsByParent() {
+      final AuditProcessor.PendingRecords records = new AuditProcessor.PendingRecords("o1", "p1");
+      records.add(null, null, record(C1, "d1", "u1", null, now, "a", "b"));
+      records.add(null, null, record(C2, "d2", "u1", null, now, "a", "b"));
+      records.add(null, null, record(C1, "d3", "u1", null, now, "a", "b"));
+      records.add(null, null, link(L1, "l1", "u1", now));
+
+      final Map<String, List<AuditRecord>> recordsByParent = records.getRecordsByParent();
+      assertThat(recordsByParent).containsOnlyKeys(ResourceType.DOCUMENT + "/" + C1, ResourceType.DOCUMENT + "/" + C2, ResourceType.LINK + "/" + L1);
+      assertThat(recordsByParent.get(ResourceType.DOCUMENT + "/" + C1)).extracting(AuditRecord::getResourceId).containsExactly("d1", "d3");
+   }
+
+   private AuditRecord record(final String collectionId, final String documentId, final String user, final String automation, final ZonedDateTime changeDate, final String oldValue, final String newValue) {
+      return new AuditRecord(collectionId, ResourceType.DOCUMENT, documentId, changeDate, user, null, null, null, automation,
+            new DataDocument("a1", oldValue), new DataDocument("a1", newValue));
+   }
+
+   private AuditRecord link(final String linkTypeId, final String linkInstanceId, final String user, final ZonedDateTime changeDate) {
+      return new AuditRecord(linkTypeId, ResourceType.LINK, linkInstanceId, changeDate, user, null, null, null, null, new DataDocument(), new DataDocument("a1", "x"));
+   }
+}
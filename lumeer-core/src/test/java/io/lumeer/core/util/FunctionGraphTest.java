@@ -0,0 +1,71 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.function.FunctionParameter;
+import io.lumeer.api.model.function.FunctionResourceType;
+import io.lumeer.api.model.function.FunctionRow;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class FunctionGraphTest {
+
+   private static final String C1 = "c1", C2 = "c2", L1 = "l1";
+
+   // C1(a3) = C1(a1) + C1(a2); C1(a4) = C1(a3) + C2(a1); C2(a1) = L1(a1); L1(a1) = C1(a1)
+   private final List<FunctionRow> rows = List.of(
+         FunctionRow.createForCollection(C1, "a3", C1, null, "a1"),
+         FunctionRow.createForCollection(C1, "a3", C1, null, "a2"),
+         FunctionRow.createForCollection(C1, "a4", C1, null, "a3"),
+         FunctionRow.createForCollection(C1, "a4", C2, L1, "a1"),
+         FunctionRow.createForCollection(C2, "a1", null, L1, "a1"),
+         FunctionRow.createForLink(L1, "a1", C1, L1, "a1")
+   );
+
+   @Test
+   public void search() {
+      final FunctionGraph graph = new FunctionGraph(rows);
+
+      assertThat(graph.searchByDependentCollection(C1, "a1")).extracting(FunctionRow::getAttributeId).containsOnly("a3", "a1");
+      assertThat(graph.searchByDependentCollection(C1, null)).hasSize(4);
+      assertThat(graph.searchByDependentCollection(C2, "a2")).isEmpty();
+      assertThat(graph.searchByDependentLinkType(L1, null)).hasSize(3);
+      assertThat(graph.searchByDependentLinkType(L1, "a1")).extracting(FunctionRow::getResourceId).containsOnly(C1, C2, L1);
+      assertThat(graph.searchByResource(C1, "a3", FunctionResourceType.COLLECTION)).hasSize(2);
+      assertThat(graph.searchByResource(C1, null, FunctionResourceType.COLLECTION)).hasSize(4);
+      assertThat(graph.searchByResource(C1, "a3", FunctionResourceType.LINK)).isEmpty();
+   }
+
+   @Test
+   public void orderFunctions() {
+      final FunctionGraph graph = new FunctionGraph(rows);
+      final FunctionParameter c1a3 = new FunctionParameter(FunctionResourceType.COLLECTION, C1, "a3");
+      final FunctionParameter c1a4 = new FunctionParameter(FunctionResourceType.COLLECTION, C1, "a4");
+      final FunctionParameter c2a1 = new FunctionParameter(FunctionResourceType.COLLECTION, C2, "a1");
+      final FunctionParameter l1a1 = new FunctionParameter(FunctionResourceType.LINK, L1, "a1");
+      final FunctionParameter unknown = new FunctionParameter(FunctionResourceType.COLLECTION, C2, "a5");
+
+      assertThat(graph.orderFunctions(List.of(c1a4, c2a1, c1a3, l1a1, unknown))).containsExactly(unknown, c1a3, l1a1, c2a1, c1a4);
+      assertThat(graph.orderFunctions(List.of(c1a4, c1a3))).containsExactly(c1a3, c1a4);
+   }
+}
@@ -0,0 +1,107 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.adapter
+
+import io.lumeer.api.model.AuditRecord
+import io.lumeer.api.model.AuditType
+import io.lumeer.api.model.ResourceType
+import io.lumeer.api.model.ServiceLimits
+import io.lumeer.engine.api.data.DataDocument
+import io.lumeer.storage.api.dao.AuditDao
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.ArgumentCaptor
+import org.mockito.Mockito
+import java.time.ZonedDateTime
+
+class AuditAdapterTest {
+
+   private val now = ZonedDateTime.now()
+
+   private lateinit var auditDao: AuditDao
+   private lateinit var auditAdapter: AuditAdapter
+
+   @Before
+   fun prepareAdapter() {
+      auditDao = Mockito.mock(AuditDao::class.java)
+      auditAdapter = AuditAdapter(auditDao)
+   }
+
+   @Test
+   fun registerDataChanges() {
+      val latestRecords = listOf(
+            record("r1", "d1", "u1", now.minusMinutes(1), "a", "b"),
+            record("r3", "d3", "u1", now.minusMinutes(1), "x", "y"),
+            record("r5", "d5", "u2", now.minusMinutes(1), "a", "b")
+      )
+      Mockito.`when`(auditDao.findLatestAuditRecords("c1", ResourceType.DOCUMENT, setOf("d1", "d2", "d3", "d5"), AuditType.Updated)).thenReturn(latestRecords)
+
+      auditAdapter.registerDataChanges("c1", ResourceType.DOCUMENT, listOf(
+            record("p1", "d1", "u1", now, "b", "c"), // merged with the stored record
+            record("p2", "d2", "u1", now, "a", "b"), // created
+            record("p3", "d2", "u1", now, "b", "c"), // merged with the record created above
+            record("p4", "d3", "u1", now, "y", "x"), // reverts the stored record, which is deleted
+            record("p5", "d4", "u1", now, "a", "a"), // no change
+            record("p6", "d5", "u1", now, "b", "c") // stored record of another user
+      )) { it }
+
+      val recordsToCreate = captor<List<AuditRecord>>()
+      val recordsToUpdate = captor<List<AuditRecord>>()
+      val idsToDelete = captor<Set<String>>()
+      Mockito.verify(auditDao).saveAuditRecords(recordsToCreate.capture(), recordsToUpdate.capture(), idsToDelete.capture())
+
+      assertThat(recordsToCreate.value.map { it.id }).containsExactly("p2", "p6")
+      assertThat(recordsToCreate.value[0].oldState).containsEntry("a1", "a")
+      assertThat(recordsToCreate.value[0].newState).containsEntry("a1", "c")
+
+      assertThat(recordsToUpdate.value.map { it.id }).containsExactly("r1")
+      assertThat(recordsToUpdate.value[0].oldState).containsEntry("a1", "a")
+      assertThat(recordsToUpdate.value[0].newState).containsEntry("a1", "c")
+      assertThat(recordsToUpdate.value[0].changeDate).isEqualTo(now)
+
+      assertThat(idsToDelete.value).containsOnly("r3")
+   }
+
+   @Test
+   fun registerDataChangesWithoutChanges() {
+      auditAdapter.registerDataChanges("c1", ResourceType.DOCUMENT, listOf(record("p1", "d1", "u1", now, "a", "a"))) { it }
+
+      Mockito.verifyNoInteractions(auditDao)
+   }
+
+   @Test
+   fun freePlanPageLength() {
+      listOf(null to 3, 10 to 3, 2 to 2, 0 to 1, -1 to 1).forEach { (pageLength, countLimit) ->
+         auditAdapter.getAuditRecords(null, setOf("c1"), setOf(), setOf(), ServiceLimits.FREE_LIMITS, null, null, pageLength)
+
+         Mockito.verify(auditDao).findAuditRecords(Mockito.isNull(), Mockito.anySet(), Mockito.anySet(), Mockito.anySet(), Mockito.any(), Mockito.isNull(), Mockito.isNull(), Mockito.eq(countLimit))
+         Mockito.clearInvocations(auditDao)
+      }
+   }
+
+   private fun record(id: String, documentId: String, user: String, changeDate: ZonedDateTime, oldValue: String, newValue: String) =
+         AuditRecord("c1", ResourceType.DOCUMENT, documentId, changeDate, user, null, null, null, null, DataDocument("a1", oldValue), DataDocument("a1", newValue)).apply {
+            this.id = id
+            type = AuditType.Updated
+         }
+
+   @Suppress("UNCHECKED_CAST")
+   private fun <T> captor(): ArgumentCaptor<T> = ArgumentCaptor.forClass(Any::class.java) as ArgumentCaptor<T>
+}
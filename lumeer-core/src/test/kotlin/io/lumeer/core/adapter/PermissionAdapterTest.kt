@@ -0,0 +1,109 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.adapter
+
+import io.lumeer.api.model.*
+import io.lumeer.api.model.Collection
+import io.lumeer.api.util.PermissionUtils
+import io.lumeer.storage.api.dao.*
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito
+
+class PermissionAdapterTest {
+
+   private val users = (0 until 20).map { User("u$it", "u$it", "u$it@lumeer.io", setOf("o1")) }
+   private val groups = listOf(
+         Group("g1", "g1", null, null, null, users.filterIndexed { index, _ -> index % 3 == 0 }.map { it.id }),
+         Group("g2", "g2", null, null, null, users.filterIndexed { index, _ -> index % 4 == 0 }.map { it.id })
+   )
+
+   private val organization = Organization("O", "O", "", "", "", null, Permissions(
+         users.filterIndexed { index, _ -> index % 5 != 4 }.map { Permission(it.id, setOf(Role(RoleType.Read, it.id == "u0"))) }.toSet(),
+         setOf(Permission("g2", setOf(Role(RoleType.Read))))
+   )).apply { id = "o1" }
+
+   private val project = Project("P", "P", "", "", "", null, Permissions(
+         users.filterIndexed { index, _ -> index % 2 == 0 }.map { Permission(it.id, setOf(Role(RoleType.Read), Role(RoleType.DataRead, true))) }.toSet(),
+         setOf(Permission("g1", setOf(Role(RoleType.Read))))
+   ), false, null).apply { id = "p1" }
+
+   private val collection = Collection("C", "C", "", "", "", null, Permissions(
+         users.filterIndexed { index, _ -> index % 3 == 1 }.map { Permission(it.id, setOf(Role(RoleType.Read), Role(RoleType.DataWrite))) }.toSet(),
+         setOf(Permission("g1", setOf(Role(RoleType.Read), Role(RoleType.DataContribute))))
+   ), setOf(), mapOf(), "", null).apply { id = "c1" }
+
+   private lateinit var groupDao: GroupDao
+   private lateinit var permissionAdapter: PermissionAdapter
+
+   @Before
+   fun prepareAdapter() {
+      val userDao = Mockito.mock(UserDao::class.java)
+      Mockito.`when`(userDao.getAllUsers(organization.id)).thenReturn(users)
+      users.forEach { Mockito.`when`(userDao.getUserById(it.id)).thenReturn(it) }
+
+      groupDao = Mockito.mock(GroupDao::class.java)
+      Mockito.`when`(groupDao.getAllGroups(organization.id)).thenReturn(groups)
+
+      permissionAdapter = PermissionAdapter(userDao, groupDao, Mockito.mock(ViewDao::class.java), Mockito.mock(LinkTypeDao::class.java), Mockito.mock(CollectionDao::class.java))
+   }
+
+   @Test
+   fun resourceReadersMatchRolesOfEachUser() {
+      listOf(organization, project, collection).forEach { resource ->
+         val projectOfResource = if (resource is Organization) null else project
+         val expected = users.filter { PermissionUtils.getUserRolesInResource(organization, projectOfResource, resource, it, groups).contains(RoleType.Read) }.map { it.id }
+
+         assertThat(permissionAdapter.getResourceUsersByRole(organization, projectOfResource, resource, RoleType.Read)).describedAs(resource.code).containsExactlyInAnyOrderElementsOf(expected)
+      }
+   }
+
+   @Test
+   fun usersRolesMatchRolesOfEachUser() {
+      val usersRoles = PermissionUtils.getUsersRolesInResource(organization, project, collection, users, groups)
+
+      users.forEach { user ->
+         assertThat(usersRoles[user.id]).describedAs(user.id).isEqualTo(PermissionUtils.getUserRolesInResource(organization, project, collection, user, groups))
+         assertThat(permissionAdapter.getUserRolesInResource(organization, project, collection, user)).describedAs(user.id).isEqualTo(usersRoles[user.id])
+      }
+   }
+
+   @Test
+   fun memoizedRoles() {
+      val roles = permissionAdapter.getUserRolesInResource(organization, project, collection, "u4")
+      assertThat(permissionAdapter.getUserRolesInResource(organization, project, collection, "u4")).isSameAs(roles)
+
+      // copy with the same id and version but different permissions must be resolved again
+      val originalCollection = collection.copy().apply { permissions = Permissions() }
+      assertThat(permissionAdapter.getUserRolesInResource(organization, project, originalCollection, "u4")).doesNotContain(RoleType.DataWrite)
+      assertThat(roles).contains(RoleType.Read, RoleType.DataWrite)
+
+      Mockito.verify(groupDao, Mockito.times(1)).getAllGroups(organization.id)
+   }
+
+   @Test
+   fun invalidatedRoles() {
+      permissionAdapter.getUserRolesInResource(organization, project, collection, "u3")
+      permissionAdapter.invalidateUserCache()
+      permissionAdapter.getUserRolesInResource(organization, project, collection, "u3")
+
+      Mockito.verify(groupDao, Mockito.times(2)).getAllGroups(organization.id)
+   }
+}
@@ -263,6 +263,21 @@ class CronTaskCheckerTest {
       Assertions.assertThat(checker.shouldExecute(rule, now)).isTrue
    }
 
+   @Test
+   fun checkNextRun() {
+      val (rule, now) = createRunningRuleData()
+
+      Assertions.assertThat(checker.getNextRun(rule, now)).isEqualTo(now)
+
+      rule.lastRun = now
+      val nextRun = checker.getNextRun(rule, now.plusMinutes(30))
+      Assertions.assertThat(nextRun).isEqualTo(now.plusDays(2))
+      Assertions.assertThat(checker.shouldExecute(rule, nextRun.minusHours(1))).isFalse
+
+      rule.endsOn = now.plusDays(1)
+      Assertions.assertThat(checker.getNextRun(rule, now.plusMinutes(30))).isEqualTo(now.plusMinutes(30).plusDays(32))
+   }
+
    private fun createRule(createdAt: ZonedDateTime? = null): CronRule {
       val rule = Rule("r1", Rule.RuleType.CRON, null, DataDocument())
       rule.createdAt = createdAt
@@ -0,0 +1,77 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util
+
+import io.lumeer.api.model.*
+import io.lumeer.api.model.Collection
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class QueryFilterPlannerTest {
+
+   private val textAttribute = Attribute("a1", "text", null, null, null, null, null, 0, null)
+   private val numberAttribute = Attribute("a2", "number", null, Constraint(ConstraintType.Number, mapOf<String, Any>()), null, null, null, 0, null)
+   private val selectAttribute = Attribute("a3", "select", null, Constraint(ConstraintType.Select, mapOf("options" to listOf(mapOf("value" to "1", "displayValue" to "One")))), null, null, null, 0, null)
+   private val collection = Collection("c1", "c1", "", "", "", null, Permissions(), setOf(textAttribute, numberAttribute, selectAttribute), mapOf(), "", null).apply {
+      id = "c1"
+   }
+
+   @Test
+   fun unsupportedFilters() {
+      val stem = QueryStem(null, collection.id, listOf(), setOf(), listOf(
+            CollectionAttributeFilter.createFromValues(collection.id, textAttribute.id, ConditionType.CONTAINS, "abc"),
+            CollectionAttributeFilter.createFromValues(collection.id, textAttribute.id, ConditionType.EQUALS, "abc"),
+            CollectionAttributeFilter.createFromValues(collection.id, textAttribute.id, ConditionType.IS_EMPTY),
+            CollectionAttributeFilter.createFromValues(collection.id, selectAttribute.id, ConditionType.IS_EMPTY),
+            CollectionAttributeFilter.createFromValues(collection.id, numberAttribute.id, ConditionType.GREATER_THAN, "1,5"),
+            CollectionAttributeFilter.createFromValues("c2", textAttribute.id, ConditionType.NOT_EMPTY)
+      ), listOf())
+
+      assertThat(QueryFilterPlanner.planStem(stem, collection)).isNull()
+   }
+
+   @Test
+   fun supportedFilters() {
+      val stem = QueryStem(null, collection.id, listOf(), setOf("d1"), listOf(
+            CollectionAttributeFilter.createFromValues(collection.id, textAttribute.id, ConditionType.NOT_EMPTY),
+            CollectionAttributeFilter.createFromValues(collection.id, numberAttribute.id, ConditionType.GREATER_THAN, "10"),
+            CollectionAttributeFilter.createFromValues(collection.id, selectAttribute.id, ConditionType.HAS_SOME, listOf("1"))
+      ), listOf())
+
+      val searchStem = QueryFilterPlanner.planStem(stem, collection)
+
+      assertThat(searchStem).isNotNull
+      assertThat(searchStem!!.documentIds).containsOnly("d1")
+      assertThat(searchStem.filters).extracting<ConditionType> { it.conditionType }
+            .containsOnly(ConditionType.NOT_EMPTY, ConditionType.GREATER_THAN_EQUALS, ConditionType.HAS_SOME)
+
+      val numberFilter = searchStem.filters.first { it.attributeId == numberAttribute.id }
+      assertThat(numberFilter.value as Double).isLessThan(10.0).isGreaterThan(9.99)
+
+      val selectFilter = searchStem.filters.first { it.attributeId == selectAttribute.id }
+      assertThat(selectFilter.value as List<*>).containsOnly("1", 1L, "One")
+   }
+
+   @Test
+   fun documentIdsOfLinkedStem() {
+      val stem = QueryStem(null, collection.id, listOf("l1"), setOf("d1"), listOf(), listOf())
+
+      assertThat(QueryFilterPlanner.planStem(stem, collection)).isNull()
+   }
+}
@@ -0,0 +1,49 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util.js
+
+import com.google.gson.JsonParser
+import io.lumeer.api.model.*
+import io.lumeer.api.model.Collection
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class DataFilterJsonTaskTest {
+
+    private val collection = Collection("c1", "c1", "", "", "", null, Permissions(), setOf(Attribute("a1")), mapOf(), "", null).apply {
+        id = "c1"
+    }
+
+    @Test
+    fun serializedSharedFields() {
+        val users = listOf(User("u1", "Alice", "alice@lumeer.io", setOf("o1")), User("u2", "Bob", "bob@lumeer.io", setOf("o1")))
+        val constraintData = ConstraintData(users, users[0], mapOf("d" to "day"), CurrencyData(listOf("k"), listOf("st")), "Europe/Bratislava", listOf(Group("g1", "Team")), listOf())
+        val filterJson = DataFilterJson(listOf(), listOf(collection), listOf(), listOf(), Query(), mapOf(), mapOf(), constraintData, true, false, "en")
+
+        val json = DataFilterJsonTask.convertToJson(filterJson)
+
+        val serializedFields = DataFilterJsonTask.serializeSharedFields(constraintData)
+        assertThat(serializedFields.keys).containsOnly("users", "durationUnitsMap", "currencyData", "teams", "selectionLists")
+        constraintData.setSerializedFields { serializedFields }
+
+        val parser = JsonParser()
+        assertThat(parser.parse(DataFilterJsonTask.convertToJson(filterJson))).isEqualTo(parser.parse(json))
+        assertThat(parser.parse(json).asJsonObject["constraintData"].asJsonObject["users"].asJsonArray[0].asJsonObject.keySet()).containsOnly("id", "name", "email")
+    }
+}
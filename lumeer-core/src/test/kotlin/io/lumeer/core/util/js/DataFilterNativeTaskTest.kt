@@ -0,0 +1,189 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util.js
+
+import io.lumeer.api.model.*
+import io.lumeer.api.model.Collection
+import io.lumeer.engine.api.data.DataDocument
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import kotlin.random.Random
+
+/**
+ * Differential tests checking that the native evaluator returns the same results as the JS filter.
+ */
+class DataFilterNativeTaskTest {
+
+    private val textAttribute = Attribute("a1", "text", null, null, null, null, null, 0, null)
+    private val booleanAttribute = Attribute("a2", "done", null, Constraint(ConstraintType.Boolean, null), null, null, null, 0, null)
+    private val numberAttribute = Attribute("a3", "count", null, null, null, null, null, 0, null)
+    private val collection = Collection("c1", "c1", "", "", "", null, Permissions(), setOf(textAttribute, booleanAttribute, numberAttribute), mapOf(), "", null).apply {
+        id = "c1"
+    }
+    private val otherCollection = Collection("c2", "c2", "", "", "", null, Permissions(), setOf(Attribute("a1")), mapOf(), "", null).apply {
+        id = "c2"
+    }
+
+    private val texts = listOf("Lumeer", "lumeer ", "Žluťoučký kůň", "abc", "", "  ", "a & b", "0", "12.5")
+    private val booleans = listOf(true, false, "true", "ano", "no", null, listOf(true, true), listOf(true, 0))
+    private val numbers = listOf(0, 1, 12.5, 1.0, -3, 100000000, 0.1f, null, "7", listOf(1, 2))
+
+    private val permissions = AllowedPermissions.allAllowed()
+    private val collectionsPermissions = mapOf(collection.id to permissions, otherCollection.id to permissions)
+    private val constraintData = ConstraintData(listOf(), null, mapOf(), CurrencyData(listOf(), listOf()), "Europe/Bratislava", listOf(), listOf())
+
+    @Test
+    fun textConditions() {
+        val documents = createDocuments(200)
+        val conditions = listOf(ConditionType.EQUALS, ConditionType.NOT_EQUALS, ConditionType.CONTAINS, ConditionType.NOT_CONTAINS,
+                ConditionType.STARTS_WITH, ConditionType.ENDS_WITH, ConditionType.IS_EMPTY, ConditionType.NOT_EMPTY, ConditionType.HAS_SOME)
+
+        conditions.forEach { condition ->
+            listOf("lumeer", "LUMEER", "ab", "", "0", "12.5", "kůň").forEach { value ->
+                assertSameResults(documents, filtersQuery(CollectionAttributeFilter.createFromValues(collection.id, textAttribute.id, condition, value)))
+                assertSameResults(documents, filtersQuery(CollectionAttributeFilter.createFromValues(collection.id, numberAttribute.id, condition, value)))
+            }
+        }
+    }
+
+    @Test
+    fun booleanConditions() {
+        val documents = createDocuments(200)
+
+        listOf(ConditionType.EQUALS, ConditionType.NOT_EQUALS, ConditionType.IS_EMPTY).forEach { condition ->
+            listOf(true, false, "true", "yes").forEach { value ->
+                assertSameResults(documents, filtersQuery(CollectionAttributeFilter.createFromValues(collection.id, booleanAttribute.id, condition, value)))
+            }
+        }
+    }
+
+    @Test
+    fun combinedFiltersAndDocumentIds() {
+        val documents = createDocuments(200)
+        val filters = listOf(
+                CollectionAttributeFilter.createFromValues(collection.id, textAttribute.id, ConditionType.CONTAINS, "l"),
+                CollectionAttributeFilter.createFromValues(collection.id, booleanAttribute.id, ConditionType.EQUALS, true),
+                CollectionAttributeFilter.createFromValues(collection.id, "missing", ConditionType.IS_EMPTY)
+        )
+
+        assertSameResults(documents, Query(QueryStem(null, collection.id, listOf(), setOf(), filters.subList(0, 2), listOf())))
+        assertSameResults(documents, Query(QueryStem(null, collection.id, listOf(), setOf(), filters, listOf())))
+        assertSameResults(documents, Query(QueryStem(null, collection.id, listOf(), setOf("d1", "d2", "d3", "d4"), filters.subList(0, 1), listOf())))
+        assertSameResults(documents, Query(listOf(QueryStem(null, collection.id, listOf(), setOf(), filters.subList(0, 1), listOf()),
+                QueryStem(null, collection.id, listOf(), setOf(), filters.subList(1, 2), listOf()))))
+    }
+
+    @Test
+    fun fulltexts() {
+        val documents = createDocuments(200)
+
+        listOf(setOf("lumeer"), setOf("zlutoucky"), setOf("true"), setOf("a &amp; b"), setOf("12.5", "abc"), setOf("nothing")).forEach { fulltexts ->
+            assertSameResults(documents, Query(listOf(), fulltexts, null, null))
+            assertSameResults(documents, Query(listOf(QueryStem(collection.id)), fulltexts, null, null))
+        }
+    }
+
+    @Test
+    fun children() {
+        val documents = createDocuments(50).onEachIndexed { index, document ->
+            if (index > 0 && index % 3 == 0) {
+                document.metaData = DataDocument(Document.META_PARENT_ID, "d${index - 1}")
+            }
+        }
+        val filter = CollectionAttributeFilter.createFromValues(collection.id, textAttribute.id, ConditionType.EQUALS, "abc")
+
+        assertSameResults(documents, filtersQuery(filter), true)
+        assertSameResults(documents, filtersQuery(filter), false)
+    }
+
+    @Test
+    fun normalizedTextValues() {
+        val documents = createDocuments(200).filter { it.collectionId == collection.id }
+
+        (texts + numbers).filterNotNull().forEach { value ->
+            val key = DataFilterNativeTask.normalizeTextValue(value)
+            val matching = documents.filter { DataFilterNativeTask.normalizeTextValue(it.data[textAttribute.id]) == key }
+            val jsResult = DataFilter.filterDocumentsAndLinksByQueryFromJson(documents, listOf(collection), listOf(), listOf(),
+                    filtersQuery(CollectionAttributeFilter.createFromValues(collection.id, textAttribute.id, ConditionType.EQUALS, value)), collectionsPermissions, mapOf(), constraintData, false, false)
+
+            assertThat(matching.map { it.id }).describedAs(value.toString()).containsExactlyInAnyOrderElementsOf(jsResult.first.map { it.id })
+        }
+        assertThat(DataFilterNativeTask.normalizeTextValue(Any())).isNull()
+    }
+
+    @Test
+    fun unsupportedConstraints() {
+        val textConstraintAttribute = Attribute("a1", "text", null, Constraint(ConstraintType.Text, null), null, null, null, 0, null)
+        val textCollection = Collection("c3", "c3", "", "", "", null, Permissions(), setOf(textConstraintAttribute), mapOf(), "", null).apply {
+            id = "c3"
+        }
+        val query = Query(QueryStem(null, textCollection.id, listOf(), setOf(), listOf(CollectionAttributeFilter.createFromValues(textCollection.id, textConstraintAttribute.id, ConditionType.EQUALS, "abc")), listOf()))
+
+        assertThat(DataFilterNativeTask(listOf(), listOf(textCollection), listOf(), listOf(), query, mapOf(textCollection.id to permissions), mapOf(), true).call()).isNull()
+    }
+
+    @Test
+    fun restrictedPermissions() {
+        val user = User("user@lumeer.io").apply { id = "u1" }
+        val userConstraintData = ConstraintData(listOf(user), user, mapOf(), CurrencyData(listOf(), listOf()), "Europe/Bratislava", listOf(), listOf())
+        val documents = createDocuments(100).onEachIndexed { index, document ->
+            document.createdBy = if (index % 2 == 0) user.id else "u2"
+        }
+        val collections = listOf(collection, otherCollection)
+        val contribute = AllowedPermissions(setOf(RoleType.DataContribute))
+        val restrictedPermissions = mapOf(collection.id to contribute, otherCollection.id to permissions)
+
+        listOf(Query(), filtersQuery(CollectionAttributeFilter.createFromValues(collection.id, textAttribute.id, ConditionType.NOT_EMPTY)), Query(listOf(), setOf("lumeer"), null, null)).forEach { query ->
+            assertThat(DataFilterNativeTask(documents, collections, listOf(), listOf(), query, restrictedPermissions, mapOf(), true).call()).isNull()
+
+            val nativeResult = DataFilter.filterDocumentsAndLinksByQueryNatively(documents, collections, listOf(), listOf(), query, restrictedPermissions, mapOf(), userConstraintData, true, false)
+            val jsResult = DataFilter.filterDocumentsAndLinksByQueryFromJson(documents, collections, listOf(), listOf(), query, restrictedPermissions, mapOf(), userConstraintData, true, false)
+            assertThat(nativeResult.first.map { it.id }).describedAs(query.toString()).containsExactlyInAnyOrderElementsOf(jsResult.first.map { it.id })
+        }
+
+        // documents of a collection without any permissions are not visible
+        assertThat(DataFilterNativeTask(documents, listOf(collection), listOf(), listOf(), Query(), mapOf(collection.id to permissions), mapOf(), true).call()).isNull()
+    }
+
+    private fun filtersQuery(filter: CollectionAttributeFilter) = Query(QueryStem(null, collection.id, listOf(), setOf(), listOf(filter), listOf()))
+
+    private fun assertSameResults(documents: List<Document>, query: Query, includeChildren: Boolean = true) {
+        val collections = listOf(collection, otherCollection)
+        val nativeResult = DataFilterNativeTask(documents, collections, listOf(), listOf(), query, collectionsPermissions, mapOf(), includeChildren).call()
+        val jsResult = DataFilter.filterDocumentsAndLinksByQueryFromJson(documents, collections, listOf(), listOf(), query, collectionsPermissions, mapOf(), constraintData, includeChildren, false)
+
+        assertThat(nativeResult).describedAs(query.toString()).isNotNull
+        assertThat(nativeResult!!.first.map { it.id }).describedAs(query.toString()).containsExactlyInAnyOrderElementsOf(jsResult.first.map { it.id })
+        assertThat(nativeResult.second.map { it.id }).describedAs(query.toString()).containsExactlyInAnyOrderElementsOf(jsResult.second.map { it.id })
+    }
+
+    private fun createDocuments(count: Int): List<Document> {
+        val random = Random(count)
+        return (0 until count).map { index ->
+            val data = DataDocument()
+                    .append(textAttribute.id, texts[random.nextInt(texts.size)])
+                    .append(booleanAttribute.id, booleans[random.nextInt(booleans.size)])
+                    .append(numberAttribute.id, numbers[random.nextInt(numbers.size)])
+            Document(data).apply {
+                id = "d$index"
+                collectionId = if (index % 10 == 9) otherCollection.id else collection.id
+            }
+        }
+    }
+}
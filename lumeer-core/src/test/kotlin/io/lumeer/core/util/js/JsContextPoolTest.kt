@@ -0,0 +1,86 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util.js
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class JsContextPoolTest {
+
+    private val jsCode = "var counter = 0; function inc(x) { counter++; return x + counter; }"
+
+    @Test
+    fun reusesContexts() {
+        val pool = JsContextPool("test", jsCode, "inc", 1, 10)
+
+        assertThat(pool.execute { it.execute(1).asInt() }).isEqualTo(2)
+        assertThat(pool.execute { it.execute(1).asInt() }).isEqualTo(3)
+
+        val stats = pool.getStats()
+        assertThat(stats.borrowed).isEqualTo(2)
+        assertThat(stats.created).isEqualTo(1)
+        assertThat(stats.recycled).isEqualTo(0)
+        assertThat(stats.idle).isEqualTo(1)
+        assertThat(stats.inUse).isEqualTo(0)
+    }
+
+    @Test
+    fun recyclesContexts() {
+        val pool = JsContextPool("test", jsCode, "inc", 1, 2)
+
+        repeat(5) { pool.execute { it.execute(1).asInt() } }
+
+        val stats = pool.getStats()
+        assertThat(stats.borrowed).isEqualTo(5)
+        assertThat(stats.created).isEqualTo(3)
+        assertThat(stats.recycled).isEqualTo(2)
+    }
+
+    @Test
+    fun recyclesBrokenContext() {
+        val pool = JsContextPool("test", "function fail() { throw new Error('fail'); }", "fail", 1, 10)
+
+        assertThat(runCatching { pool.execute { it.execute() } }.isFailure).isTrue()
+
+        val stats = pool.getStats()
+        assertThat(stats.recycled).isEqualTo(1)
+        assertThat(stats.idle).isEqualTo(0)
+        assertThat(stats.inUse).isEqualTo(0)
+    }
+
+    @Test
+    fun boundedUnderConcurrency() {
+        val pool = JsContextPool("test", jsCode, "inc", 2, 1000)
+        val executor = Executors.newFixedThreadPool(8)
+
+        val results = (1..64).map { executor.submit(Callable { pool.execute { it.execute(0).asInt() } }) }.map { it.get() }
+
+        executor.shutdown()
+        executor.awaitTermination(30, TimeUnit.SECONDS)
+
+        assertThat(results).allMatch { it > 0 }
+        val stats = pool.getStats()
+        assertThat(stats.borrowed).isEqualTo(64)
+        assertThat(stats.created).isLessThanOrEqualTo(2)
+        assertThat(stats.inUse).isEqualTo(0)
+    }
+}
@@ -25,6 +25,7 @@ import io.lumeer.remote.rest.init.StartupFacade;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.core.UriBuilder;
 import java.net.URI;
 import java.util.Arrays;
@@ -55,6 +56,12 @@ abstract class AbstractService {
       return defaultConfigurationProducer.get(key);
    }
 
+   protected void checkPageLength(final Integer pageLength) {
+      if (pageLength != null && pageLength <= 0) {
+         throw new BadRequestException("pageLength");
+      }
+   }
+
    protected URI getParentUri(String... urlEnd) {
       String fullPath = request.getRequestURL().toString();
       String regex = "\\/" + Arrays.stream(urlEnd).collect(Collectors.joining("\\/")) + "\\/?$";
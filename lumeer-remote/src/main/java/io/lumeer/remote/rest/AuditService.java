@@ -18,6 +18,7 @@
  */
 package io.lumeer.remote.rest;
 
+import io.lumeer.api.adapter.ZonedDateTimeAdapter;
 import io.lumeer.api.model.AuditRecord;
 import io.lumeer.core.WorkspaceKeeper;
 import io.lumeer.core.facade.AuditFacade;
@@ -32,6 +33,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -58,15 +60,21 @@ public class AuditService extends AbstractService {
       workspaceKeeper.setWorkspaceIds(organizationId, projectId);
    }
 
+   /**
+    * Returns audit records from the newest. Records are paged when pageLength is set, the next page is requested with
+    * the change date and id of the last record of the previous page.
+    */
    @GET
-   public List<AuditRecord> getAuditLogs() {
-      return auditFacade.getAuditRecordsForProject();
+   public List<AuditRecord> getAuditLogs(@QueryParam("beforeDate") Long beforeDate, @QueryParam("beforeId") String beforeId, @QueryParam("pageLength") Integer pageLength) {
+      checkPageLength(pageLength);
+      return auditFacade.getAuditRecordsForProject(new ZonedDateTimeAdapter().unmarshal(beforeDate), beforeId, pageLength);
    }
 
    @GET
    @Path("users/{userId:[0-9a-fA-F]{24}}")
-   public List<AuditRecord> getAuditLogs(@PathParam("userId") String userId) {
-      return auditFacade.getAuditRecordsForProjectAndUser(userId);
+   public List<AuditRecord> getAuditLogs(@PathParam("userId") String userId, @QueryParam("beforeDate") Long beforeDate, @QueryParam("beforeId") String beforeId, @QueryParam("pageLength") Integer pageLength) {
+      checkPageLength(pageLength);
+      return auditFacade.getAuditRecordsForProjectAndUser(userId, new ZonedDateTimeAdapter().unmarshal(beforeDate), beforeId, pageLength);
    }
 
    @POST
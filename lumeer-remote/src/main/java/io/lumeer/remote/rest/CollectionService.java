@@ -22,6 +22,7 @@ import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.AuditRecord;
 import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.CollectionPurpose;
+import io.lumeer.api.model.ImportType;
 import io.lumeer.api.model.ImportedCollection;
 import io.lumeer.api.model.Permission;
 import io.lumeer.api.model.Permissions;
@@ -31,6 +32,9 @@ import io.lumeer.core.facade.CollectionFacade;
 import io.lumeer.core.facade.ImportFacade;
 import io.lumeer.remote.rest.annotation.HealthCheck;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -114,6 +118,13 @@ public class CollectionService extends AbstractService {
       return importFacade.importDocuments(collectionId, format, importedCollection);
    }
 
+   @POST
+   @Path("{collectionId:[0-9a-fA-F]{24}}/import")
+   @Consumes("text/csv")
+   public Collection importDocuments(@PathParam("collectionId") String collectionId, @QueryParam("type") ImportType type, @QueryParam("mergeAttributeId") String mergeAttributeId, InputStream data) {
+      return importFacade.importDocuments(collectionId, ImportFacade.FORMAT_CSV, type, mergeAttributeId, new InputStreamReader(data, StandardCharsets.UTF_8));
+   }
+
    @GET
    @Deprecated
    @Path("{collectionId:[0-9a-fA-F]{24}}/attributes")
@@ -18,6 +18,7 @@
  */
 package io.lumeer.remote.rest;
 
+import io.lumeer.api.adapter.ZonedDateTimeAdapter;
 import io.lumeer.api.model.AuditRecord;
 import io.lumeer.api.model.Organization;
 import io.lumeer.api.model.Permission;
@@ -312,10 +313,11 @@ public class ProjectService extends AbstractService {
 
    @GET
    @Path("{projectId:[0-9a-fA-F]{24}}/audit")
-   public List<AuditRecord> getAuditLogs(@PathParam("projectId") String projectId) {
+   public List<AuditRecord> getAuditLogs(@PathParam("projectId") String projectId, @QueryParam("beforeDate") Long beforeDate, @QueryParam("beforeId") String beforeId, @QueryParam("pageLength") Integer pageLength) {
       workspaceKeeper.setWorkspaceIds(organizationId, projectId);
 
-      return auditFacade.getAuditRecordsForProject();
+      checkPageLength(pageLength);
+      return auditFacade.getAuditRecordsForProject(new ZonedDateTimeAdapter().unmarshal(beforeDate), beforeId, pageLength);
    }
 
    private TemplateData getTemplateDataFromProduction(final String organizationId, final String projectId) {
@@ -24,9 +24,14 @@ import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.Query;
 import io.lumeer.core.facade.SearchFacade;
 import io.lumeer.core.util.Tuple;
+import io.lumeer.core.util.Utils;
 import io.lumeer.remote.rest.annotation.HealthCheck;
 import io.lumeer.remote.rest.annotation.QueryProcessor;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
@@ -38,6 +43,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 
 @RequestScoped
 @Produces(MediaType.APPLICATION_JSON)
@@ -45,6 +51,8 @@ import javax.ws.rs.core.MediaType;
 @Path("organizations/{organizationId:[0-9a-fA-F]{24}}/projects/{projectId:[0-9a-fA-F]{24}}/search")
 public class SearchService extends AbstractService {
 
+   private static final String NDJSON = "application/x-ndjson";
+
    @PathParam("organizationId")
    private String organizationId;
 
@@ -85,6 +93,32 @@ public class SearchService extends AbstractService {
       return new DocumentsAndLinks(documentsAndLinks.getFirst(), documentsAndLinks.getSecond());
    }
 
+   @POST
+   @Path("documentsAndLinks/stream")
+   @Produces(NDJSON)
+   @QueryProcessor
+   @HealthCheck
+   public StreamingOutput streamDocumentsAndLinkInstances(Query query, @QueryParam("subItems") boolean includeSubItems) {
+      final ObjectMapper mapper = Utils.createObjectMapper();
+
+      // every line is a json object with the documents and links found since the previous line
+      return output -> {
+         try {
+            searchFacade.streamDocumentsAndLinks(query, includeSubItems, (documents, linkInstances) -> {
+               try {
+                  output.write(mapper.writeValueAsBytes(new DocumentsAndLinks(documents, linkInstances)));
+                  output.write('\n');
+                  output.flush();
+               } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+               }
+            });
+         } catch (UncheckedIOException e) {
+            throw e.getCause();
+         }
+      };
+   }
+
    @POST
    @Path("tasks")
    @QueryProcessor
@@ -0,0 +1,57 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.api;
+
+import io.lumeer.api.model.AuditRecord;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Append-only local journal of audit records that have not been stored in the database yet. The journal is split
+ * into segments, a segment is released once all its records are stored.
+ */
+public interface AuditJournal {
+
+   /**
+    * Reads the records of segments left by a previous run. These segments are released together with the next rotated segment.
+    *
+    * @param consumer
+    *       Consumer of the recovered records.
+    */
+   void recover(EntryConsumer consumer);
+
+   void append(String organizationId, String projectId, AuditRecord record);
+
+   /**
+    * Closes the current segment, next records are appended to a new one.
+    *
+    * @return All closed segments that have not been released yet.
+    */
+   List<Path> rotate();
+
+   void release(List<Path> segments);
+
+   void close();
+
+   @FunctionalInterface
+   interface EntryConsumer {
+      void accept(String organizationId, String projectId, AuditRecord record);
+   }
+}
@@ -33,11 +33,33 @@ public interface AuditDao extends ProjectScopedDao, Serializable {
    AuditRecord findLatestAuditRecord(final String parentId, final ResourceType resourceType, final String resourceId);
    AuditRecord findLatestAuditRecord(final String parentId, final ResourceType resourceType, final String resourceId, final AuditType type);
 
+   /**
+    * Finds the latest record of the given type for each of the resources in a single query.
+    *
+    * @return Latest records, resources without any record are omitted.
+    */
+   List<AuditRecord> findLatestAuditRecords(final String parentId, final ResourceType resourceType, final Set<String> resourceIds, final AuditType type);
+
    List<AuditRecord> findAuditRecords(final Set<String> collectionIds, final Set<String> linkTypeIds, final Set<String> viewIds, final ZonedDateTime noOlderThan);
    List<AuditRecord> findAuditRecords(final Set<String> collectionIds, final Set<String> linkTypeIds, final Set<String> viewIds, final ZonedDateTime noOlderThan, final int countLimit);
    List<AuditRecord> findAuditRecords(final String userId, final Set<String> collectionIds, final Set<String> linkTypeIds, final Set<String> viewIds, final ZonedDateTime noOlderThan);
    List<AuditRecord> findAuditRecords(final String userId, final Set<String> collectionIds, final Set<String> linkTypeIds, final Set<String> viewIds, final ZonedDateTime noOlderThan, final int countLimit);
 
+   /**
+    * Finds a page of project records ordered from the newest, the next page starts after the last record of the previous one.
+    *
+    * @param userId
+    *       Id of the user who made the changes, all records are returned when null.
+    * @param before
+    *       Change date of the last record of the previous page, null for the first page.
+    * @param beforeId
+    *       Id of the last record of the previous page, null for the first page.
+    * @param countLimit
+    *       Maximal number of records, no limit when not positive.
+    * @return Page of records.
+    */
+   List<AuditRecord> findAuditRecords(final String userId, final Set<String> collectionIds, final Set<String> linkTypeIds, final Set<String> viewIds, final ZonedDateTime noOlderThan, final ZonedDateTime before, final String beforeId, final int countLimit);
+
    List<AuditRecord> findAuditRecords(final String parentId, final ResourceType resourceType, final ZonedDateTime noOlderThan);
    List<AuditRecord> findAuditRecords(final String parentId, final ResourceType resourceType, final ZonedDateTime noOlderThan, final int countLimit);
 
@@ -51,6 +73,12 @@ public interface AuditDao extends ProjectScopedDao, Serializable {
    AuditRecord createAuditRecord(final AuditRecord record);
    AuditRecord updateAuditRecord(final AuditRecord record);
 
+   /**
+    * Creates, replaces and deletes records in a single bulk write. Records to create must already have their ids assigned,
+    * records that already exist are skipped so the same batch can be written again.
+    */
+   void saveAuditRecords(final List<AuditRecord> recordsToCreate, final List<AuditRecord> recordsToUpdate, final Set<String> idsToDelete);
+
    AuditRecord getAuditRecord(final String id);
 
    void deleteAuditRecord(final String id);
@@ -24,7 +24,9 @@ import io.lumeer.api.model.Project;
 import io.lumeer.storage.api.query.DatabaseQuery;
 import io.lumeer.storage.api.query.SearchSuggestionQuery;
 
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface CollectionDao extends ProjectScopedDao {
@@ -37,6 +39,12 @@ public interface CollectionDao extends ProjectScopedDao {
 
    Collection updateCollectionRules(final Collection collection);
 
+   /**
+    * Atomically adds the given deltas to the usage counts of the collection attributes and moves the last time used forward.
+    * Usage counts never drop below zero. Neither the version is changed nor an update event is fired.
+    */
+   void updateAttributesUsage(String id, Map<String, Integer> attributesUsage, ZonedDateTime lastTimeUsed);
+
    void deleteCollection(String id);
 
    Collection getCollectionByCode(String code);
@@ -40,6 +40,12 @@ public interface DataDao {
 
    DataDocument updateData(String collectionId, String documentId, DataDocument data);
 
+   /**
+    * Replaces the data of all given documents (identified by their ids) in a single unordered bulk write,
+    * data of documents without any stored data yet are inserted.
+    */
+   void updateData(String collectionId, List<DataDocument> data);
+
    DataDocument patchData(String collectionId, String documentId, DataDocument data);
 
    void deleteData(String collectionId, String documentId);
@@ -62,10 +68,33 @@ public interface DataDao {
 
    List<DataDocument> getData(String collectionId, Integer skip, Integer limit);
 
+   /**
+    * Tries to create an index on the attribute to speed up the searches by its values. The searches work without the index as well,
+    * so a failure is only logged.
+    *
+    * @return True when the index has been created by this call, false when the attribute is already indexed or the index could not be created.
+    */
+   boolean createAttributeIndex(String collectionId, String attributeId);
+
+   void dropAttributeIndex(String collectionId, String attributeId);
+
+   /**
+    * Returns data whose attribute value can be equal to one of the given values when converted to string.
+    * Numbers and booleans are matched by their value as well, so the caller is expected to compare the values once more.
+    * An empty value matches missing attribute. Values of other types than string (e.g. encoded dates) are matched as they are.
+    */
+   List<DataDocument> getDataByAttributeValues(String collectionId, String attributeId, Set<?> values);
+
    List<DataDocument> searchData(SearchQueryStem stem, Pagination pagination, Collection collection);
 
    List<DataDocument> searchDataByIds(SearchQueryStem stem, Set<String> documentIds, Collection collection);
 
+   /**
+    * Searches data which can satisfy the stem filters. Values that the database is not able to compare
+    * with the filter value are kept in the result, so the filters must be evaluated once more by the caller.
+    */
+   List<DataDocument> searchDataCandidates(SearchQueryStem stem, Pagination pagination, Collection collection);
+
    List<DataDocument> searchDataByFulltexts(Set<String> fulltexts, Pagination pagination, List<Collection> projectCollections);
 
    List<DataDocument> duplicateData(String collectionId, java.util.Collection<DataDocument> data, Map<String, String> documentIds);
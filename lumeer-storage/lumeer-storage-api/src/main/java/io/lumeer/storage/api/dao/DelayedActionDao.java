@@ -35,8 +35,9 @@ public interface DelayedActionDao {
    void deleteAllScheduledActions(final String partialResourcePath, final Set<NotificationType> notificationTypes);
    void deleteProcessedActions();
    void resetTimeoutedActions();
-   List<DelayedAction> getActionsForProcessing(final boolean skipDelay);
+   List<DelayedAction> getActionsForProcessing(final boolean skipDelay, final int limit);
    DelayedAction updateAction(final DelayedAction action);
+   void updateActions(final List<DelayedAction> actions);
    DelayedAction scheduleAction(final DelayedAction delayedAction);
    List<DelayedAction> scheduleActions(final List<DelayedAction> delayedActions);
 }
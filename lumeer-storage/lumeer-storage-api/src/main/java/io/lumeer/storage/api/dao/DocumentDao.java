@@ -22,6 +22,7 @@ import io.lumeer.api.model.Document;
 import io.lumeer.api.model.Pagination;
 import io.lumeer.engine.api.data.DataDocument;
 
+import java.time.ZonedDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +36,11 @@ public interface DocumentDao extends ProjectScopedDao {
 
    Document updateDocument(String id, Document document);
 
+   /**
+    * Marks all the documents as updated by the user (increasing their data version) in a single database query.
+    */
+   void updateDocumentsUpdateInfo(Set<String> ids, String updatedBy, ZonedDateTime updateDate);
+
    void deleteDocument(String id, DataDocument data);
 
    void deleteDocuments(String collectionId);
@@ -63,6 +69,13 @@ public interface DocumentDao extends ProjectScopedDao {
 
    List<Document> getDocumentsByCollection(String collectionId, Pagination pagination);
 
+   /**
+    * Reads documents of the collection joined with their data in a single database query.
+    */
+   List<Document> getDocumentsWithDataByCollection(String collectionId, Pagination pagination);
+
+   List<Document> getDocumentsWithDataByCollection(String collectionId, Set<String> ids);
+
    List<Document> getDocumentsWithTemplateId();
 
    List<Document> getRecentDocuments(final String collectionId, boolean byUpdate);
@@ -39,4 +39,6 @@ public interface FavoriteItemDao extends OrganizationScopedDao {
    void removeFavoriteDocumentsByCollectionFromUsers(String projectId, String collectionId);
 
    Set<String> getFavoriteDocumentIds(String userId, String projectId);
+
+   Set<String> getFavoriteDocumentUserIds(String projectId, String documentId);
 }
@@ -0,0 +1,50 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.api.dao;
+
+import io.lumeer.api.model.ScheduledRule;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+
+public interface ScheduledRuleDao {
+
+   /**
+    * Creates the rule entry or moves its next run to the given one when it is sooner.
+    */
+   void scheduleRule(ScheduledRule rule);
+
+   /**
+    * Removes entries of the collection rules that are not in the given set.
+    */
+   void deleteRules(String collectionId, Set<String> keepRuleIds);
+
+   void deleteRule(String id);
+
+   /**
+    * Atomically claims up to limit rules whose next run is due and that are not leased by another processor.
+    */
+   List<ScheduledRule> claimDueRules(ZonedDateTime now, String leaseOwner, ZonedDateTime leaseUntil, int limit);
+
+   /**
+    * Sets the next run of the rule and releases the lease, provided it is still held by the owner.
+    */
+   void releaseRule(String id, String leaseOwner, ZonedDateTime nextRun);
+}
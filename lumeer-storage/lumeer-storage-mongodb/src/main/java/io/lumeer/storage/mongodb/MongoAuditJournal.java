@@ -0,0 +1,187 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb;
+
+import io.lumeer.api.model.AuditRecord;
+import io.lumeer.storage.api.AuditJournal;
+import io.lumeer.storage.api.exception.StorageException;
+import io.lumeer.storage.mongodb.codecs.AuditRecordCodec;
+import io.lumeer.storage.mongodb.codecs.BigDecimalCodec;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonString;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Audit journal storing the records as extended JSON, so the data types of their states survive a restart.
+ */
+public class MongoAuditJournal implements AuditJournal {
+
+   private static final Logger log = Logger.getLogger(MongoAuditJournal.class.getName());
+
+   private static final String SEGMENT_PREFIX = "audit-";
+   private static final String SEGMENT_SUFFIX = ".journal";
+
+   private static final String ORGANIZATION_ID = "organizationId";
+   private static final String PROJECT_ID = "projectId";
+   private static final String RECORD = "record";
+
+   private final Path directory;
+   private final Codec<AuditRecord> codec;
+   private final JsonWriterSettings writerSettings = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+   private final List<Path> closedSegments = new ArrayList<>();
+   private long segmentCounter = 0;
+   private Path segment;
+   private BufferedWriter writer;
+
+   public MongoAuditJournal(final Path directory) {
+      this.directory = directory;
+      this.codec = new AuditRecordCodec(CodecRegistries.fromRegistries(MongoClient.getDefaultCodecRegistry(), CodecRegistries.fromCodecs(new BigDecimalCodec())));
+   }
+
+   @Override
+   public synchronized void recover(final EntryConsumer consumer) {
+      if (!Files.isDirectory(directory)) {
+         return;
+      }
+
+      final List<Path> segments;
+      try (Stream<Path> files = Files.list(directory)) {
+         segments = files.filter(this::isSegment).sorted().collect(Collectors.toList());
+      } catch (IOException e) {
+         throw new StorageException("Cannot read audit journal directory " + directory, e);
+      }
+
+      segments.forEach(path -> {
+         try {
+            for (final String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+               if (!line.isBlank()) {
+                  decode(line, consumer);
+               }
+            }
+         } catch (Exception e) {
+            // the last line can be incomplete when the application was killed while writing it
+            log.log(Level.WARNING, "Unable to read the whole audit journal segment " + path, e);
+         }
+         closedSegments.add(path);
+      });
+   }
+
+   @Override
+   public synchronized void append(final String organizationId, final String projectId, final AuditRecord record) {
+      try {
+         if (writer == null) {
+            Files.createDirectories(directory);
+            segment = directory.resolve(SEGMENT_PREFIX + System.currentTimeMillis() + "-" + (segmentCounter++) + SEGMENT_SUFFIX);
+            writer = Files.newBufferedWriter(segment, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+         }
+
+         writer.write(encode(organizationId, projectId, record));
+         writer.newLine();
+         writer.flush();
+      } catch (IOException e) {
+         throw new StorageException("Cannot append audit record to the journal.", e);
+      }
+   }
+
+   @Override
+   public synchronized List<Path> rotate() {
+      if (writer != null) {
+         closeWriter();
+         closedSegments.add(segment);
+         segment = null;
+      }
+
+      final List<Path> segments = new ArrayList<>(closedSegments);
+      closedSegments.clear();
+      return segments;
+   }
+
+   @Override
+   public void release(final List<Path> segments) {
+      segments.forEach(path -> {
+         try {
+            Files.deleteIfExists(path);
+         } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to delete audit journal segment " + path, e);
+         }
+      });
+   }
+
+   @Override
+   public synchronized void close() {
+      if (writer != null) {
+         closeWriter();
+         segment = null;
+      }
+   }
+
+   private void closeWriter() {
+      try {
+         writer.close();
+      } catch (IOException e) {
+         log.log(Level.WARNING, "Unable to close audit journal segment " + segment, e);
+      }
+      writer = null;
+   }
+
+   private boolean isSegment(final Path path) {
+      final String fileName = path.getFileName().toString();
+      return fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX);
+   }
+
+   private String encode(final String organizationId, final String projectId, final AuditRecord record) {
+      final BsonDocument recordBson = new BsonDocument();
+      codec.encode(new BsonDocumentWriter(recordBson), record, EncoderContext.builder().build());
+
+      return new BsonDocument(ORGANIZATION_ID, new BsonString(organizationId))
+            .append(PROJECT_ID, new BsonString(projectId))
+            .append(RECORD, recordBson)
+            .toJson(writerSettings);
+   }
+
+   private void decode(final String line, final EntryConsumer consumer) {
+      final BsonDocument bson = BsonDocument.parse(line);
+      final AuditRecord record = codec.decode(new BsonDocumentReader(bson.getDocument(RECORD)), DecoderContext.builder().build());
+
+      consumer.accept(bson.getString(ORGANIZATION_ID).getValue(), bson.getString(PROJECT_ID).getValue(), record);
+   }
+}
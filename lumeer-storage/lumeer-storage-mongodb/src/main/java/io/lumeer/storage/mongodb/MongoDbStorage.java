@@ -124,7 +124,7 @@ public class MongoDbStorage implements DataStorage {
                new DefaultViewConfigCodecProvider(), new ReferralPaymentCodecProvider(), new TemplateMetadataCodecProvider(), new ResourceCommentCodecProvider(),
                new DelayedActionCodecProvider(), new NotificationSettingCodecProvider(), new CollectionPurposeCodecProvider(), new AuditRecordCodecProvider(),
                new RoleCodecProvider(), new SelectionCodecProvider(), new DashboardDataCodecProvider(), new ResourceVariableCodecProvider(),
-               new AttributeFormattingCodecProvider(), new InformationRecordCodecProvider()
+               new AttributeFormattingCodecProvider(), new InformationRecordCodecProvider(), new ScheduledRuleCodecProvider()
          );
          final CodecRegistry registry = CodecRegistries.fromRegistries(defaultRegistry, codecRegistry, providersRegistry);
 
@@ -57,7 +57,10 @@ public class DocumentCodec implements CollectibleCodec<Document> {
    @Override
    public Document decode(final BsonReader reader, final DecoderContext decoderContext) {
       org.bson.Document bson = documentCodec.decode(reader, decoderContext);
+      return convertFromBson(bson);
+   }
 
+   public static Document convertFromBson(final org.bson.Document bson) {
       String id = bson.getObjectId(ID).toHexString();
       String collectionId = bson.getString(COLLECTION_ID);
       Date creationDate = bson.getDate(CREATION_DATE);
@@ -0,0 +1,117 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.codecs;
+
+import io.lumeer.api.model.ScheduledRule;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+public class ScheduledRuleCodec implements CollectibleCodec<ScheduledRule> {
+
+   public static final String ID = "_id";
+
+   private final Codec<Document> documentCodec;
+
+   public ScheduledRuleCodec(final CodecRegistry registry) {
+      this.documentCodec = registry.get(Document.class);
+   }
+
+   @Override
+   public ScheduledRule generateIdIfAbsentFromDocument(final ScheduledRule document) {
+      if (!documentHasId(document)) {
+         document.setId(new ObjectId().toHexString());
+      }
+      return document;
+   }
+
+   @Override
+   public boolean documentHasId(final ScheduledRule document) {
+      return document.getId() != null;
+   }
+
+   @Override
+   public BsonValue getDocumentId(final ScheduledRule document) {
+      if (!documentHasId(document)) {
+         throw new IllegalStateException("The document does not contain an id");
+      }
+
+      return new BsonObjectId(new ObjectId(document.getId()));
+   }
+
+   @Override
+   public ScheduledRule decode(final BsonReader reader, final DecoderContext decoderContext) {
+      final Document bson = documentCodec.decode(reader, decoderContext);
+
+      final ScheduledRule rule = new ScheduledRule(
+            bson.getString(ScheduledRule.ORGANIZATION_ID),
+            bson.getString(ScheduledRule.PROJECT_ID),
+            bson.getString(ScheduledRule.COLLECTION_ID),
+            bson.getString(ScheduledRule.RULE_ID),
+            toZonedDateTime(bson.getDate(ScheduledRule.NEXT_RUN))
+      );
+      rule.setId(bson.getObjectId(ID).toHexString());
+      rule.setLeaseOwner(bson.getString(ScheduledRule.LEASE_OWNER));
+      rule.setLeaseUntil(toZonedDateTime(bson.getDate(ScheduledRule.LEASE_UNTIL)));
+
+      return rule;
+   }
+
+   private static ZonedDateTime toZonedDateTime(final Date date) {
+      return date != null ? ZonedDateTime.ofInstant(date.toInstant(), ZoneOffset.UTC) : null;
+   }
+
+   @Override
+   public void encode(final BsonWriter writer, final ScheduledRule value, final EncoderContext encoderContext) {
+      Document bson = value.getId() != null ? new Document(ID, new ObjectId(value.getId())) : new Document();
+
+      bson.append(ScheduledRule.ORGANIZATION_ID, value.getOrganizationId())
+          .append(ScheduledRule.PROJECT_ID, value.getProjectId())
+          .append(ScheduledRule.COLLECTION_ID, value.getCollectionId())
+          .append(ScheduledRule.RULE_ID, value.getRuleId())
+          .append(ScheduledRule.LEASE_OWNER, value.getLeaseOwner());
+
+      if (value.getNextRun() != null) {
+         bson.append(ScheduledRule.NEXT_RUN, new Date(value.getNextRun().toInstant().toEpochMilli()));
+      }
+      if (value.getLeaseUntil() != null) {
+         bson.append(ScheduledRule.LEASE_UNTIL, new Date(value.getLeaseUntil().toInstant().toEpochMilli()));
+      }
+
+      documentCodec.encode(writer, bson, encoderContext);
+   }
+
+   @Override
+   public Class<ScheduledRule> getEncoderClass() {
+      return ScheduledRule.class;
+   }
+}
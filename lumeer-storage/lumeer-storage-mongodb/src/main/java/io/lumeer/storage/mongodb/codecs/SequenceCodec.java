@@ -37,6 +37,7 @@ public class SequenceCodec implements CollectibleCodec<Sequence> {
    public static final String ID = "_id";
    public static final String NAME = "name";
    public static final String SEQ = "seq";
+   public static final String BLOCK_SIZE = "blockSize";
 
    private final Codec<Document> documentCodec;
 
@@ -78,7 +79,9 @@ public class SequenceCodec implements CollectibleCodec<Sequence> {
       String name = bson.getString(NAME);
       int seq = bson.getInteger(SEQ);
 
-      Sequence sequence = new Sequence(name, seq);
+      Integer blockSize = bson.getInteger(BLOCK_SIZE);
+
+      Sequence sequence = new Sequence(name, seq, blockSize);
       sequence.setId(id);
 
       return sequence;
@@ -90,6 +93,11 @@ public class SequenceCodec implements CollectibleCodec<Sequence> {
             .append(NAME, sequence.getName())
             .append(SEQ, sequence.getSeq());
 
+      // an update without the block size keeps the stored one
+      if (sequence.getBlockSize() != null) {
+         document.append(BLOCK_SIZE, sequence.getBlockSize());
+      }
+
       documentCodec.encode(bsonWriter, document, encoderContext);
    }
 
@@ -30,28 +30,39 @@ import io.lumeer.storage.api.query.SearchQueryStem;
 import io.lumeer.storage.mongodb.MongoUtils;
 import io.lumeer.storage.mongodb.util.MongoFilters;
 
+import com.mongodb.MongoException;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndReplaceOptions;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
 import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.UpdateResult;
 import org.bson.BsonDocument;
 import org.bson.Document;
 import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
 import org.bson.types.ObjectId;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -60,8 +71,11 @@ import javax.enterprise.context.RequestScoped;
 @RequestScoped
 public class MongoDataDao extends MongoCollectionScopedDao implements DataDao {
 
+   private static final Logger log = Logger.getLogger(MongoDataDao.class.getName());
+
    private static final String ID = "_id";
    private static final String PREFIX = "data_c-";
+   private static final Pattern PLAIN_NUMBER = Pattern.compile("^-?\\d{1,17}(\\.\\d{1,16})?$");
 
    @Override
    public void createDataRepository(final String collectionId) {
@@ -88,7 +102,7 @@ public class MongoDataDao extends MongoCollectionScopedDao implements DataDao {
    @Override
    public List<DataDocument> createData(final String collectionId, final List<DataDocument> data) {
       List<Document> documents = data.stream().map(dataDocument -> new Document(dataDocument).append(ID, new ObjectId(dataDocument.getId()))).collect(Collectors.toList());
-      dataCollection(collectionId).insertMany(documents);
+      dataCollection(collectionId).insertMany(documents, new InsertManyOptions().ordered(false));
 
       for (int i = 0; i < documents.size(); i++) {
          Object idObj = documents.get(i).get(ID);
@@ -111,6 +125,22 @@ public class MongoDataDao extends MongoCollectionScopedDao implements DataDao {
       return MongoUtils.convertDocument(updatedDocument);
    }
 
+   @Override
+   public void updateData(final String collectionId, final List<DataDocument> data) {
+      if (data.isEmpty()) {
+         return;
+      }
+
+      final ReplaceOptions options = new ReplaceOptions().upsert(true);
+      final List<ReplaceOneModel<Document>> replacements = data.stream().map(dataDocument -> {
+         Document document = new Document(dataDocument);
+         document.remove(ID);
+         return new ReplaceOneModel<>(idFilter(dataDocument.getId()), document, options);
+      }).collect(Collectors.toList());
+
+      dataCollection(collectionId).bulkWrite(replacements, new BulkWriteOptions().ordered(false));
+   }
+
    @Override
    public DataDocument patchData(final String collectionId, final String documentId, final DataDocument data) {
       data.remove(ID);
@@ -193,6 +223,62 @@ public class MongoDataDao extends MongoCollectionScopedDao implements DataDao {
       return MongoUtils.convertIterableToList(dataCollection(collectionId).find().skip(skip).limit(limit));
    }
 
+   @Override
+   public boolean createAttributeIndex(final String collectionId, final String attributeId) {
+      final MongoCollection<Document> collection = dataCollection(collectionId);
+      try {
+         final boolean indexed = collection.listIndexes().into(new ArrayList<>()).stream()
+                                           .map(index -> index.get("key", Document.class))
+                                           .anyMatch(key -> key != null && !key.isEmpty() && attributeId.equals(key.keySet().iterator().next()));
+         if (indexed) {
+            return false;
+         }
+
+         collection.createIndex(Indexes.ascending(attributeId));
+         return true;
+      } catch (MongoException ex) {
+         // e.g. the limit of indexes per collection or a value too large to be indexed
+         log.log(Level.WARNING, String.format("Unable to create index on attribute %s in collection %s.", attributeId, collectionId), ex);
+         return false;
+      }
+   }
+
+   @Override
+   public void dropAttributeIndex(final String collectionId, final String attributeId) {
+      try {
+         dataCollection(collectionId).dropIndex(Indexes.ascending(attributeId));
+      } catch (MongoException ex) {
+         log.log(Level.WARNING, String.format("Unable to drop index on attribute %s in collection %s.", attributeId, collectionId), ex);
+      }
+   }
+
+   @Override
+   public List<DataDocument> getDataByAttributeValues(final String collectionId, final String attributeId, final Set<?> values) {
+      if (values.isEmpty()) {
+         return Collections.emptyList();
+      }
+
+      final Set<Object> candidates = new HashSet<>();
+      values.forEach(object -> {
+         candidates.add(object);
+         if (!(object instanceof String)) {
+            return;
+         }
+
+         final String value = (String) object;
+         if (value.isEmpty()) {
+            candidates.add(null);
+         } else if ("true".equals(value) || "false".equals(value)) {
+            candidates.add(Boolean.valueOf(value));
+         } else if (PLAIN_NUMBER.matcher(value).matches()) {
+            // numbers of all types are compared by value
+            candidates.add(new Decimal128(new BigDecimal(value)));
+         }
+      });
+
+      return MongoUtils.convertIterableToList(dataCollection(collectionId).find(Filters.in(attributeId, candidates)));
+   }
+
    @Override
    public List<DataDocument> searchData(final SearchQueryStem stem, final Pagination pagination, final Collection collection) {
       Bson filter = createFilterForStem(stem, collection);
@@ -212,6 +298,27 @@ public class MongoDataDao extends MongoCollectionScopedDao implements DataDao {
       return MongoUtils.convertIterableToList(iterable);
    }
 
+   @Override
+   public List<DataDocument> searchDataCandidates(final SearchQueryStem stem, final Pagination pagination, final Collection collection) {
+      List<Bson> filters = new ArrayList<>();
+
+      if (stem.containsDocumentIdsQuery()) {
+         Bson idsFilter = MongoFilters.idsFilter(stem.getDocumentIds());
+         if (idsFilter != null) {
+            filters.add(idsFilter);
+         }
+      }
+
+      stem.getFilters().stream()
+          .map(MongoFilters::candidateAttributeFilter)
+          .filter(Objects::nonNull)
+          .forEach(filters::add);
+
+      FindIterable<Document> iterable = dataCollection(collection.getId()).find(filters.size() > 0 ? Filters.and(filters) : new Document());
+      addPaginationToQuery(iterable, pagination);
+      return MongoUtils.convertIterableToList(iterable);
+   }
+
    private Bson createFilterForStem(final SearchQueryStem stem, Collection collection) {
       List<Bson> filters = new ArrayList<>();
 
@@ -287,7 +394,7 @@ public class MongoDataDao extends MongoCollectionScopedDao implements DataDao {
       return database.getCollection(dataCollectionName(collectionId));
    }
 
-   String dataCollectionName(String collectionId) {
+   public static String dataCollectionName(String collectionId) {
       return PREFIX + collectionId;
    }
 
@@ -87,6 +87,7 @@ public class MongoFavoriteItemDao extends MongoOrganizationScopedDao implements
 
       MongoCollection<Document> collection = database.getCollection(favoriteDocumentsDBName(organization));
       collection.createIndex(Indexes.ascending(USER_ID, PROJECT_ID, COLLECTION_ID, DOCUMENT_ID), new IndexOptions().unique(true));
+      collection.createIndex(Indexes.ascending(PROJECT_ID, DOCUMENT_ID), new IndexOptions().unique(false));
    }
 
    @Override
@@ -259,6 +260,15 @@ public class MongoFavoriteItemDao extends MongoOrganizationScopedDao implements
                               .collect(Collectors.toSet());
    }
 
+   @Override
+   public Set<String> getFavoriteDocumentUserIds(final String projectId, final String documentId) {
+      Bson filter = and(eq(PROJECT_ID, projectId), eq(DOCUMENT_ID, documentId));
+      final ArrayList<Document> favoriteDocuments = favoriteDocumentsDBCollection().find(filter).into(new ArrayList<>());
+      return favoriteDocuments.stream()
+                              .map(document -> document.getString(USER_ID))
+                              .collect(Collectors.toSet());
+   }
+
    private String favoriteCollectionsDBName() {
       if (getOrganization().isEmpty()) {
          throw new ResourceNotFoundException(ResourceType.ORGANIZATION);
@@ -27,28 +27,45 @@ import io.lumeer.api.model.ResourceType;
 import io.lumeer.storage.api.dao.AuditDao;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
 import io.lumeer.storage.api.exception.StorageException;
+import io.lumeer.storage.mongodb.codecs.AuditRecordCodec;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoException;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
 import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class MongoAuditRecordDao extends MongoProjectScopedDao implements AuditDao {
 
    private static final String PREFIX = "auditlog_p-";
+   private static final String LATEST_RECORD = "latestRecord";
+
+   private static final Set<String> indexedProjects = ConcurrentHashMap.newKeySet();
 
    @Override
    public void createRepository(final Project project) {
@@ -73,6 +90,12 @@ public class MongoAuditRecordDao extends MongoProjectScopedDao implements AuditD
       auditLogCollection.createIndex(Indexes.ascending(AuditRecord.RESOURCE_TYPE, AuditRecord.PARENT_ID, AuditRecord.RESOURCE_ID, AuditRecord.CHANGE_DATE), new IndexOptions().unique(false));
       auditLogCollection.createIndex(Indexes.ascending(AuditRecord.RESOURCE_TYPE, AuditRecord.PARENT_ID, AuditRecord.CHANGE_DATE), new IndexOptions().unique(false));
       auditLogCollection.createIndex(Indexes.ascending(AuditRecord.RESOURCE_TYPE, AuditRecord.PARENT_ID, AuditRecord.RESOURCE_ID, AuditRecord.CHANGE_DATE, AuditRecord.USER), new IndexOptions().unique(false));
+      ensurePageIndexes(auditLogCollection);
+   }
+
+   private void ensurePageIndexes(final MongoCollection<?> auditLogCollection) {
+      auditLogCollection.createIndex(Indexes.ascending(AuditRecord.RESOURCE_TYPE, AuditRecord.PARENT_ID, AuditRecord.CHANGE_DATE, AuditRecordCodec.ID), new IndexOptions().unique(false));
+      auditLogCollection.createIndex(Indexes.ascending(AuditRecord.USER, AuditRecord.CHANGE_DATE, AuditRecordCodec.ID), new IndexOptions().unique(false));
    }
 
    @Override
@@ -98,6 +121,29 @@ public class MongoAuditRecordDao extends MongoProjectScopedDao implements AuditD
       return findAuditRecords(filters, 1).stream().findFirst().orElse(null);
    }
 
+   @Override
+   public List<AuditRecord> findLatestAuditRecords(final String parentId, final ResourceType resourceType, final Set<String> resourceIds, final AuditType type) {
+      if (resourceIds.isEmpty()) {
+         return new ArrayList<>();
+      }
+
+      final Bson filters = Filters.and(
+            Filters.eq(AuditRecord.RESOURCE_TYPE, resourceType.toString()),
+            Filters.eq(AuditRecord.PARENT_ID, parentId),
+            Filters.in(AuditRecord.RESOURCE_ID, resourceIds),
+            Filters.or(Filters.eq(AuditRecord.TYPE, type.toString()), Filters.eq(AuditRecord.TYPE, null))
+      );
+
+      final List<Bson> aggregates = Arrays.asList(
+            Aggregates.match(filters),
+            Aggregates.sort(Sorts.descending(AuditRecord.CHANGE_DATE)),
+            Aggregates.group("$" + AuditRecord.RESOURCE_ID, Accumulators.first(LATEST_RECORD, "$$ROOT")),
+            Aggregates.replaceRoot("$" + LATEST_RECORD)
+      );
+
+      return databaseCollection().aggregate(aggregates).into(new ArrayList<>());
+   }
+
    @Override
    public List<AuditRecord> findAuditRecords(final Set<String> collectionIds, final Set<String> linkTypeIds, final Set<String> viewIds, final ZonedDateTime noOlderThan) {
       return findAuditRecords(collectionIds, linkTypeIds, viewIds, noOlderThan, -1);
@@ -129,6 +175,43 @@ public class MongoAuditRecordDao extends MongoProjectScopedDao implements AuditD
       return findAuditRecords(filters, countLimit);
    }
 
+   @Override
+   public List<AuditRecord> findAuditRecords(final String userId, final Set<String> collectionIds, final Set<String> linkTypeIds, final Set<String> viewIds, final ZonedDateTime noOlderThan, final ZonedDateTime before, final String beforeId, final int countLimit) {
+      // collections created before the page indexes existed get them on the first page query
+      if (indexedProjects.add(database.getName() + "." + databaseCollectionName())) {
+         ensurePageIndexes(databaseCollection());
+      }
+
+      final List<Bson> filters = new ArrayList<>();
+      if (userId != null) {
+         filters.add(Filters.eq(AuditRecord.USER, userId));
+      }
+      filters.add(projectFilter(collectionIds, linkTypeIds, viewIds));
+      filters.add(Filters.gte(AuditRecord.CHANGE_DATE, Date.from(noOlderThan.toInstant())));
+      if (before != null) {
+         filters.add(pageFilter(before, beforeId));
+      }
+
+      final FindIterable<AuditRecord> iterable = databaseCollection().find(Filters.and(filters)).sort(Sorts.descending(AuditRecord.CHANGE_DATE, AuditRecordCodec.ID));
+      if (countLimit > 0) {
+         iterable.limit(countLimit);
+      }
+
+      return iterable.into(new ArrayList<>());
+   }
+
+   private Bson pageFilter(final ZonedDateTime before, final String beforeId) {
+      final Date beforeDate = Date.from(before.toInstant());
+      if (beforeId == null) {
+         return Filters.lt(AuditRecord.CHANGE_DATE, beforeDate);
+      }
+
+      return Filters.or(
+            Filters.lt(AuditRecord.CHANGE_DATE, beforeDate),
+            Filters.and(Filters.eq(AuditRecord.CHANGE_DATE, beforeDate), Filters.lt(AuditRecordCodec.ID, new ObjectId(beforeId)))
+      );
+   }
+
    @Override
    public List<AuditRecord> findAuditRecords(final String parentId, final ResourceType resourceType, final ZonedDateTime noOlderThan) {
       return findAuditRecords(parentId, resourceType, noOlderThan, -1);
@@ -198,6 +281,28 @@ public class MongoAuditRecordDao extends MongoProjectScopedDao implements AuditD
       }
    }
 
+   @Override
+   public void saveAuditRecords(final List<AuditRecord> recordsToCreate, final List<AuditRecord> recordsToUpdate, final Set<String> idsToDelete) {
+      final List<WriteModel<AuditRecord>> models = new ArrayList<>();
+      recordsToCreate.forEach(record -> models.add(new InsertOneModel<>(record)));
+      recordsToUpdate.forEach(record -> models.add(new ReplaceOneModel<>(idFilter(record.getId()), record)));
+      idsToDelete.forEach(id -> models.add(new DeleteOneModel<>(idFilter(id))));
+
+      if (models.isEmpty()) {
+         return;
+      }
+
+      try {
+         databaseCollection().bulkWrite(models, new BulkWriteOptions().ordered(false));
+      } catch (MongoBulkWriteException ex) {
+         if (!ex.getWriteErrors().stream().allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY)) {
+            throw new StorageException("Cannot save audit log records.", ex);
+         }
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot save audit log records.", ex);
+      }
+   }
+
    @Override
    public AuditRecord getAuditRecord(final String id) {
       final AuditRecord record = databaseCollection().find(idFilter(id)).first();
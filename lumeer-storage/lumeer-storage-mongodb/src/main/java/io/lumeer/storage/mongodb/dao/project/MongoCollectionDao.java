@@ -54,14 +54,18 @@ import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -192,6 +196,53 @@ public class MongoCollectionDao extends MongoProjectScopedDao implements Collect
       }
    }
 
+   @Override
+   public void updateAttributesUsage(final String id, final Map<String, Integer> attributesUsage, final ZonedDateTime lastTimeUsed) {
+      final Document inc = new Document();
+      final Document set = new Document();
+      final List<Bson> arrayFilters = new ArrayList<>();
+
+      int index = 0;
+      for (Map.Entry<String, Integer> entry : attributesUsage.entrySet()) {
+         final int delta = entry.getValue();
+         final String identifier = "a" + index;
+         if (delta > 0) {
+            inc.append(usageCountPath(identifier), delta);
+            arrayFilters.add(Filters.eq(MongoUtils.concatParams(identifier, AttributeCodec.ID), entry.getKey()));
+         } else if (delta < 0) {
+            // counts lower than the decrement are reset to zero instead
+            final String resetIdentifier = "z" + index;
+            inc.append(usageCountPath(identifier), delta);
+            arrayFilters.add(Filters.and(Filters.eq(MongoUtils.concatParams(identifier, AttributeCodec.ID), entry.getKey()), Filters.gte(MongoUtils.concatParams(identifier, AttributeCodec.USAGE_COUNT), -delta)));
+            set.append(usageCountPath(resetIdentifier), 0);
+            arrayFilters.add(Filters.and(Filters.eq(MongoUtils.concatParams(resetIdentifier, AttributeCodec.ID), entry.getKey()), Filters.lt(MongoUtils.concatParams(resetIdentifier, AttributeCodec.USAGE_COUNT), -delta)));
+         }
+         index++;
+      }
+
+      final Document update = new Document("$max", new Document(CollectionCodec.LAST_TIME_USED, Date.from(lastTimeUsed.toInstant())));
+      if (!inc.isEmpty()) {
+         update.append("$inc", inc);
+      }
+      if (!set.isEmpty()) {
+         update.append("$set", set);
+      }
+
+      try {
+         final UpdateOptions options = new UpdateOptions();
+         if (!arrayFilters.isEmpty()) {
+            options.arrayFilters(arrayFilters);
+         }
+         databaseCollection().updateOne(idFilter(id), update, options);
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot update attributes usage of collection: " + id, ex);
+      }
+   }
+
+   private String usageCountPath(final String identifier) {
+      return MongoUtils.concatParams(CollectionCodec.ATTRIBUTES, "$[" + identifier + "]", AttributeCodec.USAGE_COUNT);
+   }
+
    @Override
    public void deleteCollection(final String id) {
       final Collection collection = databaseCollection().findOneAndDelete(idFilter(id));
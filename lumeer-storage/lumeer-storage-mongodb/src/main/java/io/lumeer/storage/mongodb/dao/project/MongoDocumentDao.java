@@ -32,29 +32,36 @@ import io.lumeer.storage.api.exception.ResourceNotFoundException;
 import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.mongodb.MongoUtils;
 import io.lumeer.storage.mongodb.codecs.DocumentCodec;
+import io.lumeer.storage.mongodb.dao.collection.MongoDataDao;
 import io.lumeer.storage.mongodb.util.MongoFilters;
 
 import com.mongodb.MongoException;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoIterable;
 import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
 import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.enterprise.context.RequestScoped;
 import javax.enterprise.event.Event;
@@ -64,6 +71,10 @@ import javax.inject.Inject;
 public class MongoDocumentDao extends MongoProjectScopedDao implements DocumentDao {
 
    private static final String PREFIX = "documents_p-";
+   private static final String ID = "_id";
+   private static final String DATA = "data";
+
+   private static final Set<String> indexedProjects = ConcurrentHashMap.newKeySet();
 
    @Inject
    private Event<RemoveDocument> removeDocumentEvent;
@@ -76,6 +87,11 @@ public class MongoDocumentDao extends MongoProjectScopedDao implements DocumentD
       collection.createIndex(Indexes.ascending(DocumentCodec.COLLECTION_ID), new IndexOptions().unique(false));
       collection.createIndex(Indexes.descending(DocumentCodec.CREATION_DATE), new IndexOptions().unique(false));
       collection.createIndex(Indexes.descending(DocumentCodec.UPDATE_DATE), new IndexOptions().unique(false));
+      ensureJoinIndexes(collection);
+   }
+
+   private void ensureJoinIndexes(final MongoCollection<?> documentsCollection) {
+      documentsCollection.createIndex(Indexes.ascending(DocumentCodec.COLLECTION_ID, DocumentCodec.ID), new IndexOptions().unique(false));
    }
 
    @Override
@@ -100,7 +116,7 @@ public class MongoDocumentDao extends MongoProjectScopedDao implements DocumentD
       List<Document> returnDocuments = documents.stream().map(Document::new)
                                                 .peek(document -> document.setDataVersion(0))
                                                 .collect(Collectors.toList());
-      databaseCollection().insertMany(returnDocuments);
+      databaseCollection().insertMany(returnDocuments, new InsertManyOptions().ordered(false));
       return new ArrayList<>(returnDocuments);
    }
 
@@ -122,6 +138,24 @@ public class MongoDocumentDao extends MongoProjectScopedDao implements DocumentD
       }
    }
 
+   @Override
+   public void updateDocumentsUpdateInfo(final Set<String> ids, final String updatedBy, final ZonedDateTime updateDate) {
+      if (ids.isEmpty()) {
+         return;
+      }
+
+      try {
+         Bson update = Updates.combine(
+               Updates.set(DocumentCodec.UPDATED_BY, updatedBy),
+               Updates.set(DocumentCodec.UPDATE_DATE, Date.from(updateDate.toInstant())),
+               Updates.inc(DocumentCodec.DATA_VERSION, 1)
+         );
+         databaseCollection().updateMany(MongoFilters.idsFilter(ids), update);
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot update documents: " + ids, ex);
+      }
+   }
+
    @Override
    public void deleteDocument(final String id, final DataDocument data) {
       Document document = databaseCollection().findOneAndDelete(idFilter(id));
@@ -243,6 +277,47 @@ public class MongoDocumentDao extends MongoProjectScopedDao implements DocumentD
       return getDocumentsPaginated(filter, pagination);
    }
 
+   @Override
+   public List<Document> getDocumentsWithDataByCollection(final String collectionId, final Pagination pagination) {
+      final List<Bson> pipeline = new ArrayList<>();
+      pipeline.add(Aggregates.match(Filters.eq(DocumentCodec.COLLECTION_ID, collectionId)));
+      pipeline.add(Aggregates.sort(Sorts.ascending(DocumentCodec.ID)));
+      if (pagination != null && pagination.getPage() != null && pagination.getPageSize() != null) {
+         pipeline.add(Aggregates.skip(pagination.getPage() * pagination.getPageSize()));
+         pipeline.add(Aggregates.limit(pagination.getPageSize()));
+      }
+      return aggregateWithData(collectionId, pipeline).into(new ArrayList<>());
+   }
+
+   @Override
+   public List<Document> getDocumentsWithDataByCollection(final String collectionId, final Set<String> ids) {
+      Bson idsFilter = MongoFilters.idsFilter(ids);
+      if (idsFilter == null) {
+         return Collections.emptyList();
+      }
+      final Bson filter = Filters.and(idsFilter, Filters.eq(DocumentCodec.COLLECTION_ID, collectionId));
+      return aggregateWithData(collectionId, new ArrayList<>(Collections.singletonList(Aggregates.match(filter)))).into(new ArrayList<>());
+   }
+
+   private MongoIterable<Document> aggregateWithData(final String collectionId, final List<Bson> pipeline) {
+      // collections created before the join index existed get it on the first joined read
+      if (indexedProjects.add(database.getName() + "." + databaseCollectionName())) {
+         ensureJoinIndexes(rawDatabaseCollection());
+      }
+
+      // data are stored under the same id as the document, the lookup uses the _id index of the data collection
+      pipeline.add(Aggregates.lookup(MongoDataDao.dataCollectionName(collectionId), DocumentCodec.ID, ID, DATA));
+      return rawDatabaseCollection().aggregate(pipeline)
+                                    .allowDiskUse(true)
+                                    .map(bson -> {
+                                       final List<org.bson.Document> data = bson.getList(DATA, org.bson.Document.class);
+                                       bson.remove(DATA);
+                                       final Document document = DocumentCodec.convertFromBson(bson);
+                                       document.setData(data != null && !data.isEmpty() ? MongoUtils.convertDocument(data.get(0)) : new DataDocument());
+                                       return document;
+                                    });
+   }
+
    @Override
    public List<Document> getDocumentsWithTemplateId() {
       return databaseCollection().find(Filters.exists(DocumentCodec.META_DATA + "." + Document.META_TEMPLATE_ID)).into(new ArrayList<>());
@@ -71,6 +71,11 @@ public class MongoFunctionDao extends MongoProjectScopedDao implements FunctionD
       }
    }
 
+   @Override
+   public List<FunctionRow> getAllRows() {
+      return databaseCollection().find().into(new ArrayList<>());
+   }
+
    @Override
    public List<FunctionRow> searchByAnyCollection(final String collectionId, final String attributeId) {
       Bson filter = or(
@@ -20,6 +20,7 @@ package io.lumeer.storage.mongodb.dao.project;
 
 import static com.mongodb.client.model.Filters.eq;
 import static com.mongodb.client.model.Updates.inc;
+import static com.mongodb.client.model.Updates.setOnInsert;
 import static io.lumeer.storage.mongodb.util.MongoFilters.idFilter;
 import static io.lumeer.storage.mongodb.util.MongoFilters.nameFilter;
 
@@ -34,18 +35,24 @@ import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.mongodb.codecs.SequenceCodec;
 import io.lumeer.storage.mongodb.util.MongoFilters;
 
+import com.mongodb.ErrorCategory;
 import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.enterprise.context.RequestScoped;
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
@@ -55,6 +62,9 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
 
    private static final String PREFIX = "sequences_p-";
 
+   // blocks of values reserved by this node, shared by all dao instances
+   private static final ConcurrentMap<String, SequenceBlock> sequenceBlocks = new ConcurrentHashMap<>();
+
    @Inject
    private Event<CreateOrUpdateSequence> createOrUpdateSequenceEvent;
 
@@ -95,6 +105,7 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
       if (sequence == null) {
          throw new StorageException("Sequence '" + id + "' has not been deleted.");
       }
+      releaseSequenceBlock(sequence.getName());
       if (removeSequenceEvent != null) {
          removeSequenceEvent.fire(new RemoveSequence(sequence));
       }
@@ -108,6 +119,7 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
          if (returnedSequence == null) {
             throw new StorageException("Sequence '" + sequence.getId() + "' has not been updated.");
          }
+         releaseSequenceBlock(returnedSequence.getName());
          if (createOrUpdateSequenceEvent != null) {
             createOrUpdateSequenceEvent.fire(new CreateOrUpdateSequence(returnedSequence));
          }
@@ -118,23 +130,71 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
    }
 
    @Override
-   public synchronized int getNextSequenceNo(final String indexName) {
+   public int getNextSequenceNo(final String indexName) {
+      final String key = getSequenceKey(indexName);
+      final SequenceBlock block = sequenceBlocks.get(key);
+      if (block == null) { // strict sequence or not used by this node yet
+         return reserveSequenceNos(key, indexName, 1);
+      }
+
+      final int value = block.next.getAndIncrement();
+      if (value <= block.last) {
+         return value;
+      }
+
+      synchronized (block) {
+         // another thread could have reserved a new block meanwhile
+         final SequenceBlock currentBlock = sequenceBlocks.get(key);
+         if (currentBlock != null && currentBlock != block) {
+            final int currentValue = currentBlock.next.getAndIncrement();
+            if (currentValue <= currentBlock.last) {
+               return currentValue;
+            }
+         }
+
+         return reserveSequenceNos(key, indexName, block.size);
+      }
+   }
+
+   private int reserveSequenceNos(final String key, final String indexName, final int count) {
       final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions();
       options.returnDocument(ReturnDocument.AFTER);
 
-      final Sequence seq = databaseCollection().findOneAndUpdate(eq(SequenceCodec.NAME, indexName), inc(SequenceCodec.SEQ, 1),
+      final Sequence seq = databaseCollection().findOneAndUpdate(eq(SequenceCodec.NAME, indexName), inc(SequenceCodec.SEQ, count),
             options);
 
       if (seq == null) { // the sequence did not exist
-         resetSequence(indexName);
-         return 0;
-      } else {
-         return seq.getSeq();
+         createSequence(indexName);
+         return reserveSequenceNos(key, indexName, count);
+      }
+
+      // values (seq - count, seq> are reserved for this node, the first one is returned right away
+      final int first = seq.getSeq() - count + 1;
+      if (seq.getBlockSize() != null && seq.getBlockSize() > 1) {
+         sequenceBlocks.put(key, new SequenceBlock(first + 1, seq.getSeq(), seq.getBlockSize()));
+      } else if (count > 1) {
+         sequenceBlocks.remove(key);
+      }
+
+      return first;
+   }
+
+   private void createSequence(final String indexName) {
+      // the sequence is created just before its first value, so concurrent first calls increment it instead of resetting it
+      try {
+         databaseCollection().updateOne(eq(SequenceCodec.NAME, indexName), setOnInsert(SequenceCodec.SEQ, -1), new UpdateOptions().upsert(true));
+      } catch (MongoWriteException ex) {
+         // the sequence has been created by a concurrent upsert
+         if (ex.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+            throw new StorageException("Cannot create sequence " + indexName, ex);
+         }
       }
    }
 
    @Override
-   public synchronized int changeSequenceBy(final String indexName, final int change) {
+   public int changeSequenceBy(final String indexName, final int change) {
+      releaseSequenceBlock(indexName);
+
       final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions();
       options.returnDocument(ReturnDocument.AFTER);
 
@@ -150,7 +210,8 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
    }
 
    @Override
-   public synchronized void resetSequence(final String indexName) {
+   public void resetSequence(final String indexName) {
+      releaseSequenceBlock(indexName);
       final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER).upsert(true);
       final Sequence sequence = new Sequence(indexName, 0);
       Bson update = new org.bson.Document("$set", sequence);
@@ -158,13 +219,23 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
    }
 
    @Override
-   public synchronized void resetSequence(final String indexName, final int initValue) {
+   public void resetSequence(final String indexName, final int initValue) {
+      releaseSequenceBlock(indexName);
       final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER).upsert(true);
       final Sequence sequence = new Sequence(indexName, initValue);
       Bson update = new org.bson.Document("$set", sequence);
       databaseCollection().findOneAndUpdate(eq(SequenceCodec.NAME, indexName), update, options);
    }
 
+   private void releaseSequenceBlock(final String indexName) {
+      // values left in the block of this node are skipped, other nodes use their blocks until they are exhausted
+      sequenceBlocks.remove(getSequenceKey(indexName));
+   }
+
+   private String getSequenceKey(final String indexName) {
+      return database.getName() + "/" + getDatabaseCollectionName() + "/" + indexName;
+   }
+
    public String getSequenceCollectionName(Project project) {
       return PREFIX + project.getId();
    }
@@ -180,4 +251,17 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
       return database.getCollection(getDatabaseCollectionName(), Sequence.class);
    }
 
+   private static class SequenceBlock {
+
+      private final AtomicInteger next;
+      private final int last;
+      private final int size;
+
+      private SequenceBlock(final int next, final int last, final int size) {
+         this.next = new AtomicInteger(next);
+         this.last = last;
+         this.size = size;
+      }
+   }
+
 }
@@ -24,17 +24,24 @@ import io.lumeer.api.model.DelayedAction;
 import io.lumeer.api.model.NotificationType;
 import io.lumeer.storage.api.dao.DelayedActionDao;
 import io.lumeer.storage.api.exception.StorageException;
+import io.lumeer.storage.mongodb.codecs.DelayedActionCodec;
 
 import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndReplaceOptions;
-import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.Updates;
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
@@ -118,32 +125,34 @@ public class MongoDelayedActionDao extends MongoSystemScopedDao implements Delay
    }
 
    @Override
-   public List<DelayedAction> getActionsForProcessing(final boolean skipDelay) {
-      FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
-      final List<DelayedAction> result = new ArrayList<>();
+   public List<DelayedAction> getActionsForProcessing(final boolean skipDelay, final int limit) {
       final String signature = UUID.randomUUID().toString(); // generate unique signature
+      final Bson pendingFilter = Filters.and(
+            Filters.not(Filters.exists(DelayedAction.STARTED_PROCESSING)),
+            Filters.lt(DelayedAction.CHECK_AFTER, Date.from((skipDelay ? ZonedDateTime.now() : ZonedDateTime.now().minus(PROCESSING_DELAY_MINUTES, ChronoUnit.MINUTES)).toInstant()))
+      );
 
-      DelayedAction action;
-      do {
-         action = databaseCollection().findOneAndUpdate(
-               Filters.and(
-                     Filters.not(Filters.exists(DelayedAction.STARTED_PROCESSING)),
-                     Filters.lt(DelayedAction.CHECK_AFTER, Date.from((skipDelay ? ZonedDateTime.now() : ZonedDateTime.now().minus(PROCESSING_DELAY_MINUTES, ChronoUnit.MINUTES)).toInstant()))
-               ),
-               Updates.combine(
-                     Updates.set(DelayedAction.STARTED_PROCESSING, Date.from(ZonedDateTime.now().toInstant())),
-                     Updates.set(DelayedAction.PROCESSOR, signature)
-               ),
-               options
-         );
-         if (action != null) {
-            if (signature.equals(action.getProcessor())) { // otherwise it has been taken by another node in cluster
-               result.add(action);
-            }
-         }
-      } while (action != null);
+      final List<ObjectId> ids = database.getCollection(databaseCollectionName())
+                                         .find(pendingFilter)
+                                         .sort(Sorts.ascending(DelayedAction.CHECK_AFTER))
+                                         .limit(limit)
+                                         .projection(Projections.include(DelayedActionCodec.ID))
+                                         .map(document -> document.getObjectId(DelayedActionCodec.ID))
+                                         .into(new ArrayList<>());
+      if (ids.isEmpty()) {
+         return new ArrayList<>();
+      }
 
-      return result;
+      // actions taken by another node in cluster in the meantime are not matched by the pending filter anymore
+      databaseCollection().updateMany(
+            Filters.and(Filters.in(DelayedActionCodec.ID, ids), pendingFilter),
+            Updates.combine(
+                  Updates.set(DelayedAction.STARTED_PROCESSING, Date.from(ZonedDateTime.now().toInstant())),
+                  Updates.set(DelayedAction.PROCESSOR, signature)
+            )
+      );
+
+      return databaseCollection().find(Filters.and(Filters.in(DelayedActionCodec.ID, ids), Filters.eq(DelayedAction.PROCESSOR, signature))).into(new ArrayList<>());
    }
 
    public DelayedAction updateAction(final DelayedAction action) {
@@ -159,6 +168,22 @@ public class MongoDelayedActionDao extends MongoSystemScopedDao implements Delay
       }
    }
 
+   @Override
+   public void updateActions(final List<DelayedAction> actions) {
+      if (actions == null || actions.isEmpty()) {
+         return;
+      }
+
+      try {
+         final List<ReplaceOneModel<DelayedAction>> models = actions.stream()
+                                                                   .map(action -> new ReplaceOneModel<>(idFilter(action.getId()), action, new ReplaceOptions().upsert(true)))
+                                                                   .collect(Collectors.toList());
+         databaseCollection().bulkWrite(models, new BulkWriteOptions().ordered(false));
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot update delayed actions", ex);
+      }
+   }
+
    @Override
    public DelayedAction scheduleAction(final DelayedAction delayedAction) {
       try {
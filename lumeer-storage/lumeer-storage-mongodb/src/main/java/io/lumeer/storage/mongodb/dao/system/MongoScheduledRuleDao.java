@@ -0,0 +1,143 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import static io.lumeer.storage.mongodb.util.MongoFilters.idFilter;
+
+import io.lumeer.api.model.ScheduledRule;
+import io.lumeer.storage.api.dao.ScheduledRuleDao;
+import io.lumeer.storage.api.exception.StorageException;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+
+@ApplicationScoped
+public class MongoScheduledRuleDao extends MongoSystemScopedDao implements ScheduledRuleDao {
+
+   public static final String COLLECTION_NAME = "scheduled_rules";
+
+   @PostConstruct
+   public void checkRepository() {
+      if (!database.listCollectionNames().into(new ArrayList<>()).contains(databaseCollectionName())) {
+         createScheduledRulesRepository();
+      }
+   }
+
+   public void createScheduledRulesRepository() {
+      database.createCollection(databaseCollectionName());
+
+      MongoCollection<Document> rulesCollection = database.getCollection(databaseCollectionName());
+      rulesCollection.createIndex(Indexes.ascending(ScheduledRule.COLLECTION_ID, ScheduledRule.RULE_ID), new IndexOptions().unique(true));
+      rulesCollection.createIndex(Indexes.ascending(ScheduledRule.NEXT_RUN), new IndexOptions().unique(false));
+   }
+
+   @Override
+   public void scheduleRule(final ScheduledRule rule) {
+      try {
+         databaseCollection().updateOne(
+               Filters.and(Filters.eq(ScheduledRule.COLLECTION_ID, rule.getCollectionId()), Filters.eq(ScheduledRule.RULE_ID, rule.getRuleId())),
+               Updates.combine(
+                     Updates.set(ScheduledRule.ORGANIZATION_ID, rule.getOrganizationId()),
+                     Updates.set(ScheduledRule.PROJECT_ID, rule.getProjectId()),
+                     Updates.min(ScheduledRule.NEXT_RUN, Date.from(rule.getNextRun().toInstant()))
+               ),
+               new UpdateOptions().upsert(true)
+         );
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot schedule rule: " + rule, ex);
+      }
+   }
+
+   @Override
+   public void deleteRules(final String collectionId, final Set<String> keepRuleIds) {
+      databaseCollection().deleteMany(Filters.and(Filters.eq(ScheduledRule.COLLECTION_ID, collectionId), Filters.nin(ScheduledRule.RULE_ID, keepRuleIds)));
+   }
+
+   @Override
+   public void deleteRule(final String id) {
+      databaseCollection().deleteOne(idFilter(id));
+   }
+
+   @Override
+   public List<ScheduledRule> claimDueRules(final ZonedDateTime now, final String leaseOwner, final ZonedDateTime leaseUntil, final int limit) {
+      final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+      final Date nowDate = Date.from(now.toInstant());
+      final List<ScheduledRule> result = new ArrayList<>();
+
+      ScheduledRule rule;
+      do {
+         rule = databaseCollection().findOneAndUpdate(
+               Filters.and(
+                     Filters.lte(ScheduledRule.NEXT_RUN, nowDate),
+                     Filters.or(Filters.not(Filters.exists(ScheduledRule.LEASE_UNTIL)), Filters.lt(ScheduledRule.LEASE_UNTIL, nowDate))
+               ),
+               Updates.combine(
+                     Updates.set(ScheduledRule.LEASE_OWNER, leaseOwner),
+                     Updates.set(ScheduledRule.LEASE_UNTIL, Date.from(leaseUntil.toInstant()))
+               ),
+               options
+         );
+         if (rule != null) {
+            result.add(rule);
+         }
+      } while (rule != null && result.size() < limit);
+
+      return result;
+   }
+
+   @Override
+   public void releaseRule(final String id, final String leaseOwner, final ZonedDateTime nextRun) {
+      databaseCollection().updateOne(
+            Filters.and(idFilter(id), Filters.eq(ScheduledRule.LEASE_OWNER, leaseOwner)),
+            Updates.combine(
+                  Updates.set(ScheduledRule.NEXT_RUN, Date.from(nextRun.toInstant())),
+                  Updates.unset(ScheduledRule.LEASE_OWNER),
+                  Updates.unset(ScheduledRule.LEASE_UNTIL)
+            )
+      );
+   }
+
+   public void deleteScheduledRulesRepository() {
+      database.getCollection(databaseCollectionName()).drop();
+   }
+
+   String databaseCollectionName() {
+      return COLLECTION_NAME;
+   }
+
+   MongoCollection<ScheduledRule> databaseCollection() {
+      return database.getCollection(databaseCollectionName(), ScheduledRule.class);
+   }
+}
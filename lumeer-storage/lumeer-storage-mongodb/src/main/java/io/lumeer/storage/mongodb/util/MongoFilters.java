@@ -32,6 +32,7 @@ import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -157,4 +158,51 @@ public class MongoFilters {
       return null;
    }
 
+   /**
+    * Creates a filter which keeps every value that can satisfy the given condition. Values stored with other
+    * type than the filter value are not compared and always pass, the same for values that may be displayed as empty.
+    *
+    * @param filter The attribute filter.
+    * @return The filter or null when the condition can not be evaluated by the database.
+    */
+   @SuppressWarnings("unchecked")
+   public static Bson candidateAttributeFilter(SearchAttributeFilter filter) {
+      if (filter == null || filter.getConditionType() == null) {
+         return null;
+      }
+      final String attributeId = filter.getAttributeId();
+      final Object value = filter.getValue();
+      switch (filter.getConditionType()) {
+         case EQUALS:
+         case HAS_SOME:
+            return value instanceof Iterable ? Filters.in(attributeId, (Iterable<Object>) value) : Filters.eq(attributeId, value);
+         case LOWER_THAN:
+            return comparableOrOtherType(attributeId, value, Filters.lt(attributeId, value));
+         case LOWER_THAN_EQUALS:
+            return comparableOrOtherType(attributeId, value, Filters.lte(attributeId, value));
+         case GREATER_THAN:
+            return comparableOrOtherType(attributeId, value, Filters.gt(attributeId, value));
+         case GREATER_THAN_EQUALS:
+            return comparableOrOtherType(attributeId, value, Filters.gte(attributeId, value));
+         case NOT_EMPTY:
+            // $ne does not match arrays containing an empty element, e.g. ["", "a"], so arrays always pass
+            return Filters.or(Filters.and(Filters.ne(attributeId, null), Filters.ne(attributeId, "")), Filters.type(attributeId, "array"));
+      }
+      return null;
+   }
+
+   private static Bson comparableOrOtherType(String attributeId, Object value, Bson comparison) {
+      final String type;
+      if (value instanceof Number) {
+         type = "number";
+      } else if (value instanceof Date) {
+         type = "date";
+      } else if (value instanceof String) {
+         type = "string";
+      } else {
+         return null;
+      }
+      return Filters.or(comparison, Filters.not(Filters.type(attributeId, type)));
+   }
+
 }
@@ -0,0 +1,121 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.AuditRecord;
+import io.lumeer.api.model.AuditType;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.bson.types.ObjectId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class MongoAuditJournalTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void recoverRecords() throws IOException {
+      final Path directory = folder.getRoot().toPath();
+      final Date date = new Date();
+
+      final MongoAuditJournal journal = new MongoAuditJournal(directory);
+      journal.append("o1", "p1", createAuditRecord("d1", new DataDocument("a1", date)));
+      journal.append("o1", "p2", createAuditRecord("d2", new DataDocument("a1", new BigDecimal("1.5"))));
+      journal.close();
+
+      final List<AuditRecord> records = new ArrayList<>();
+      final List<String> projectIds = new ArrayList<>();
+      final MongoAuditJournal recoveredJournal = new MongoAuditJournal(directory);
+      recoveredJournal.recover((organizationId, projectId, record) -> {
+         projectIds.add(projectId);
+         records.add(record);
+      });
+
+      assertThat(projectIds).containsExactly("p1", "p2");
+      assertThat(records).extracting(AuditRecord::getResourceId).containsExactly("d1", "d2");
+      assertThat(records.get(0).getNewState().get("a1")).isEqualTo(date);
+      assertThat(records.get(1).getNewState().get("a1")).isEqualTo(new BigDecimal("1.5"));
+
+      // recovered segments are released with the next rotation
+      final List<Path> segments = recoveredJournal.rotate();
+      assertThat(segments).hasSize(1);
+      recoveredJournal.release(segments);
+      assertThat(Files.list(directory)).isEmpty();
+   }
+
+   @Test
+   public void recoverIncompleteSegment() throws IOException {
+      final Path directory = folder.getRoot().toPath();
+
+      final MongoAuditJournal journal = new MongoAuditJournal(directory);
+      journal.append("o1", "p1", createAuditRecord("d1", new DataDocument("a1", "v1")));
+      journal.close();
+
+      // the application was killed while writing the second record
+      final Path segment = Files.list(directory).findFirst().orElseThrow();
+      Files.write(segment, "{\"organizationId\": \"o1\", \"proj".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+      final List<AuditRecord> records = new ArrayList<>();
+      new MongoAuditJournal(directory).recover((organizationId, projectId, record) -> records.add(record));
+
+      assertThat(records).extracting(AuditRecord::getResourceId).containsExactly("d1");
+   }
+
+   @Test
+   public void rotateSegments() {
+      final MongoAuditJournal journal = new MongoAuditJournal(folder.getRoot().toPath());
+      assertThat(journal.rotate()).isEmpty();
+
+      journal.append("o1", "p1", createAuditRecord("d1", new DataDocument("a1", "v1")));
+      final List<Path> segments = journal.rotate();
+      assertThat(segments).hasSize(1);
+
+      journal.append("o1", "p1", createAuditRecord("d2", new DataDocument("a1", "v2")));
+      final List<Path> nextSegments = journal.rotate();
+      assertThat(nextSegments).hasSize(1).doesNotContainAnyElementsOf(segments);
+
+      journal.release(segments);
+      assertThat(segments.get(0)).doesNotExist();
+      assertThat(nextSegments.get(0)).exists();
+   }
+
+   private AuditRecord createAuditRecord(final String documentId, final DataDocument newState) {
+      final AuditRecord record = new AuditRecord("c1", ResourceType.DOCUMENT, documentId, ZonedDateTime.now(), "user", null, null, null, null, new DataDocument(), newState);
+      record.setId(new ObjectId().toHexString());
+      record.setType(AuditType.Updated);
+      return record;
+   }
+}
@@ -34,6 +34,7 @@ import io.lumeer.storage.mongodb.MongoDbTestBase;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -42,6 +43,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class MongoDataDaoTest extends MongoDbTestBase {
 
@@ -137,6 +139,56 @@ public class MongoDataDaoTest extends MongoDbTestBase {
       assertThat(document).doesNotContainKey(KEY2);
    }
 
+   @Test
+   public void testUpdateDataList() {
+      String id = createDocument();
+      String id2 = new ObjectId().toHexString();
+
+      DataDocument data = new DataDocument().append(KEY1, VALUE2);
+      data.setId(id);
+      DataDocument data2 = new DataDocument().append(KEY2, VALUE1);
+      data2.setId(id2);
+      dataDao.updateData(COLLECTION_ID, List.of(data, data2));
+
+      assertThat(dataCollection().countDocuments()).isEqualTo(2);
+
+      Document document = dataCollection().find(new Document("_id", new ObjectId(id))).first();
+      assertThat(document).containsEntry(KEY1, VALUE2);
+      assertThat(document).doesNotContainKey(KEY2);
+
+      Document document2 = dataCollection().find(new Document("_id", new ObjectId(id2))).first();
+      assertThat(document2).containsEntry(KEY2, VALUE1);
+   }
+
+   @Test
+   public void testGetDataByAttributeValues() {
+      String id1 = createDocument(KEY1, "abc");
+      String id2 = createDocument(KEY1, 12);
+      String id3 = createDocument(KEY1, 1.5);
+      String id4 = createDocument(KEY2, "abc");
+      createDocument(KEY1, "def");
+      dataDao.createAttributeIndex(COLLECTION_ID, KEY1);
+
+      List<DataDocument> data = dataDao.getDataByAttributeValues(COLLECTION_ID, KEY1, Set.of("abc", "12", "1.50", ""));
+      assertThat(data).extracting(DataDocument::getId).containsOnly(id1, id2, id3, id4);
+
+      assertThat(dataDao.getDataByAttributeValues(COLLECTION_ID, KEY1, Set.of())).isEmpty();
+   }
+
+   @Test
+   public void testCreateAttributeIndex() {
+      createDocument(KEY1, "abc");
+
+      assertThat(dataDao.createAttributeIndex(COLLECTION_ID, KEY1)).isTrue();
+      assertThat(dataDao.createAttributeIndex(COLLECTION_ID, KEY1)).isFalse();
+
+      dataDao.dropAttributeIndex(COLLECTION_ID, KEY1);
+      assertThat(dataDao.createAttributeIndex(COLLECTION_ID, KEY1)).isTrue();
+
+      // dropping a missing index is not an error
+      dataDao.dropAttributeIndex(COLLECTION_ID, KEY2);
+   }
+
    @Test
    public void testUpdateDataNotExistingDocument() {
 
@@ -304,6 +356,37 @@ public class MongoDataDaoTest extends MongoDbTestBase {
       assertThat(data).extracting(DataDocument::getId).isEmpty();
    }
 
+   @Test
+   public void testSearchDataCandidates() {
+      Collection collection = collectionDao.getCollectionById(COLLECTION_ID);
+      String id1 = createDocument(KEY1, 4);
+      String id2 = createDocument(KEY1, 8.5);
+      String id3 = createDocument(KEY1, "0013");
+      String id4 = createDocument(KEY1, "");
+      String id5 = createDocument(KEY2, VALUE1);
+      String id6 = createDocument(KEY1, Arrays.asList("a", "b"));
+      // values of select and user attributes can be arrays containing empty values
+      String id7 = createDocument(KEY1, Arrays.asList("", "a"));
+
+      SearchQueryStem stem = SearchQueryStem.createBuilder(COLLECTION_ID)
+                                            .filters(Collections.singleton(new CollectionSearchAttributeFilter(COLLECTION_ID, ConditionType.GREATER_THAN, KEY1, 5)))
+                                            .build();
+      List<DataDocument> data = dataDao.searchDataCandidates(stem, null, collection);
+      assertThat(data).extracting(DataDocument::getId).containsOnly(id2, id3, id4, id5, id6, id7);
+
+      stem = SearchQueryStem.createBuilder(COLLECTION_ID)
+                            .filters(Collections.singleton(new CollectionSearchAttributeFilter(COLLECTION_ID, ConditionType.NOT_EMPTY, KEY1, null)))
+                            .build();
+      data = dataDao.searchDataCandidates(stem, null, collection);
+      assertThat(data).extracting(DataDocument::getId).containsOnly(id1, id2, id3, id6, id7);
+
+      stem = SearchQueryStem.createBuilder(COLLECTION_ID)
+                            .filters(Collections.singleton(new CollectionSearchAttributeFilter(COLLECTION_ID, ConditionType.HAS_SOME, KEY1, Arrays.asList("b", 4L))))
+                            .build();
+      data = dataDao.searchDataCandidates(stem, null, collection);
+      assertThat(data).extracting(DataDocument::getId).containsOnly(id1, id6);
+   }
+
    private MongoCollection<Document> dataCollection() {
       return dataDao.dataCollection(COLLECTION_ID);
    }
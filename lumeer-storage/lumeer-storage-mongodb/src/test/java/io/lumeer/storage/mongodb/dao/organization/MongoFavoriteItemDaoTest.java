@@ -83,6 +83,18 @@ public class MongoFavoriteItemDaoTest extends MongoDbTestBase {
       assertThat(dao.getFavoriteDocumentIds(USER2, PROJECT_ID1)).isEmpty();
    }
 
+   @Test
+   public void testGetFavoriteDocumentUserIds() {
+      dao.addFavoriteDocument(USER, PROJECT_ID1, COLLECTION_ID1, DOCUMENT_ID1);
+      dao.addFavoriteDocument(USER2, PROJECT_ID1, COLLECTION_ID1, DOCUMENT_ID1);
+      dao.addFavoriteDocument(USER2, PROJECT_ID1, COLLECTION_ID1, DOCUMENT_ID2);
+      dao.addFavoriteDocument(USER, PROJECT_ID2, COLLECTION_ID2, DOCUMENT_ID2);
+
+      assertThat(dao.getFavoriteDocumentUserIds(PROJECT_ID1, DOCUMENT_ID1)).containsOnly(USER, USER2);
+      assertThat(dao.getFavoriteDocumentUserIds(PROJECT_ID1, DOCUMENT_ID2)).containsOnly(USER2);
+      assertThat(dao.getFavoriteDocumentUserIds(PROJECT_ID2, DOCUMENT_ID1)).isEmpty();
+   }
+
    @Test
    public void testAddFavoriteCollectionDuplicate() {
       dao.addFavoriteCollection(USER, PROJECT_ID1, COLLECTION_ID1);
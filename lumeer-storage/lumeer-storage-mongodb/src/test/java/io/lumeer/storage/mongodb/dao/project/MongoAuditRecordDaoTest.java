@@ -0,0 +1,145 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.project;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.AuditRecord;
+import io.lumeer.api.model.AuditType;
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.mongodb.MongoDbTestBase;
+
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class MongoAuditRecordDaoTest extends MongoDbTestBase {
+
+   private static final String PROJECT_ID = "596e3b86d412bc5a3caaa22a";
+
+   private static final String COLLECTION_ID = "596e3b86d412bc5a3caaa22b";
+   private static final String DOCUMENT_ID1 = "596e3b86d412bc5a3caaa22c";
+   private static final String DOCUMENT_ID2 = "596e3b86d412bc5a3caaa22d";
+   private static final String DOCUMENT_ID3 = "596e3b86d412bc5a3caaa22e";
+
+   private static final String USER = "user";
+
+   private MongoAuditRecordDao auditRecordDao;
+
+   @Before
+   public void initAuditRecordDao() {
+      Project project = Mockito.mock(Project.class);
+      Mockito.when(project.getId()).thenReturn(PROJECT_ID);
+
+      auditRecordDao = new MongoAuditRecordDao();
+      auditRecordDao.setDatabase(database);
+      auditRecordDao.setProject(project);
+      auditRecordDao.createRepository(project);
+   }
+
+   private AuditRecord createAuditRecord(final String documentId, final AuditType type, final ZonedDateTime changeDate, final String value) {
+      final AuditRecord record = new AuditRecord(COLLECTION_ID, ResourceType.DOCUMENT, documentId, changeDate, USER, null, null, null, null, new DataDocument("a1", null), new DataDocument("a1", value));
+      record.setType(type);
+      return record;
+   }
+
+   @Test
+   public void testFindLatestAuditRecords() {
+      final ZonedDateTime now = ZonedDateTime.now();
+      auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID1, AuditType.Updated, now.minusMinutes(10), "v1"));
+      final AuditRecord latest1 = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID1, AuditType.Updated, now.minusMinutes(1), "v2"));
+      final AuditRecord latest2 = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID2, AuditType.Updated, now.minusMinutes(5), "v3"));
+      auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID2, AuditType.Deleted, now.minusMinutes(3), "v4"));
+
+      final List<AuditRecord> records = auditRecordDao.findLatestAuditRecords(COLLECTION_ID, ResourceType.DOCUMENT, Set.of(DOCUMENT_ID1, DOCUMENT_ID2, DOCUMENT_ID3), AuditType.Updated);
+      assertThat(records).extracting(AuditRecord::getId).containsOnly(latest1.getId(), latest2.getId());
+
+      assertThat(auditRecordDao.findLatestAuditRecords(COLLECTION_ID, ResourceType.DOCUMENT, Collections.emptySet(), AuditType.Updated)).isEmpty();
+   }
+
+   @Test
+   public void testSaveAuditRecords() {
+      final ZonedDateTime now = ZonedDateTime.now();
+      final AuditRecord updated = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID1, AuditType.Updated, now.minusMinutes(2), "v1"));
+      final AuditRecord deleted = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID2, AuditType.Updated, now.minusMinutes(2), "v2"));
+      final AuditRecord existing = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID3, AuditType.Updated, now.minusMinutes(2), "v5"));
+
+      final AuditRecord created = createAuditRecord(DOCUMENT_ID3, AuditType.Updated, now, "v3");
+      created.setId(new ObjectId().toHexString());
+      updated.getNewState().put("a1", "v4");
+
+      // an existing record in the records to create is skipped
+      auditRecordDao.saveAuditRecords(List.of(created, existing), List.of(updated), Set.of(deleted.getId()));
+
+      final List<AuditRecord> records = auditRecordDao.findAuditRecords(COLLECTION_ID, ResourceType.DOCUMENT, now.minusHours(1));
+      assertThat(records).extracting(AuditRecord::getId).containsOnly(created.getId(), updated.getId(), existing.getId());
+      assertThat(auditRecordDao.getAuditRecord(updated.getId()).getNewState()).containsEntry("a1", "v4");
+      assertThat(auditRecordDao.getAuditRecord(created.getId()).getNewState()).containsEntry("a1", "v3");
+   }
+
+   @Test
+   public void testSaveAuditRecordsTwice() {
+      final ZonedDateTime now = ZonedDateTime.now();
+      final AuditRecord updated = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID1, AuditType.Updated, now.minusMinutes(2), "v1"));
+      final AuditRecord deleted = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID2, AuditType.Updated, now.minusMinutes(2), "v2"));
+
+      final AuditRecord created = createAuditRecord(DOCUMENT_ID3, AuditType.Updated, now, "v3");
+      created.setId(new ObjectId().toHexString());
+      updated.getNewState().put("a1", "v4");
+
+      // a replayed journal writes the same batch again
+      auditRecordDao.saveAuditRecords(List.of(created), List.of(updated), Set.of(deleted.getId()));
+      auditRecordDao.saveAuditRecords(List.of(created), List.of(updated), Set.of(deleted.getId()));
+
+      final List<AuditRecord> records = auditRecordDao.findAuditRecords(COLLECTION_ID, ResourceType.DOCUMENT, now.minusHours(1));
+      assertThat(records).extracting(AuditRecord::getId).containsOnly(created.getId(), updated.getId());
+      assertThat(auditRecordDao.getAuditRecord(updated.getId()).getNewState()).containsEntry("a1", "v4");
+   }
+
+   @Test
+   public void testFindAuditRecordsPage() {
+      final ZonedDateTime now = ZonedDateTime.now().withNano(0);
+      final AuditRecord r1 = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID1, AuditType.Updated, now.minusMinutes(1), "v1"));
+      final AuditRecord r2 = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID2, AuditType.Updated, now.minusMinutes(2), "v2"));
+      final AuditRecord r3 = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID3, AuditType.Updated, now.minusMinutes(2), "v3"));
+      final AuditRecord r4 = auditRecordDao.createAuditRecord(createAuditRecord(DOCUMENT_ID1, AuditType.Updated, now.minusMinutes(3), "v4"));
+      final AuditRecord other = createAuditRecord(DOCUMENT_ID2, AuditType.Updated, now, "v5");
+      other.setUser("other");
+      auditRecordDao.createAuditRecord(other);
+
+      final Set<String> collectionIds = Set.of(COLLECTION_ID);
+      final List<AuditRecord> firstPage = auditRecordDao.findAuditRecords(USER, collectionIds, Set.of(), Set.of(), now.minusHours(1), null, null, 2);
+      assertThat(firstPage).extracting(AuditRecord::getId).containsExactly(r1.getId(), r3.getId());
+
+      final AuditRecord last = firstPage.get(1);
+      final List<AuditRecord> secondPage = auditRecordDao.findAuditRecords(USER, collectionIds, Set.of(), Set.of(), now.minusHours(1), last.getChangeDate(), last.getId(), 2);
+      assertThat(secondPage).extracting(AuditRecord::getId).containsExactly(r2.getId(), r4.getId());
+
+      final List<AuditRecord> allUsers = auditRecordDao.findAuditRecords(null, collectionIds, Set.of(), Set.of(), now.minusHours(1), null, null, -1);
+      assertThat(allUsers).hasSize(5);
+   }
+}
@@ -20,6 +20,7 @@ package io.lumeer.storage.mongodb.dao.project;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
@@ -198,6 +199,23 @@ public class MongoCollectionDaoTest extends MongoDbTestBase {
             .isInstanceOf(StorageException.class);
    }
 
+   @Test
+   public void testUpdateAttributesUsage() {
+      Attribute attribute1 = new Attribute("a1", ATTRIBUTE1_NAME, null, null, null, null, null, 0, null);
+      Attribute attribute2 = new Attribute("a2", ATTRIBUTE2_NAME, null, null, null, null, null, 3, null);
+      String id = createCollection(CODE, NAME, new HashSet<>(Arrays.asList(attribute1, attribute2))).getId();
+
+      collectionDao.updateAttributesUsage(id, Map.of("a1", 2, "a2", -1, "a3", 1), LAST_TIME_USED.plusHours(1));
+      collectionDao.updateAttributesUsage(id, Map.of("a1", 1, "a2", -5), LAST_TIME_USED.minusHours(1));
+
+      Collection storedCollection = collectionDao.databaseCollection().find(MongoFilters.idFilter(id)).first();
+      assertThat(storedCollection).isNotNull();
+      assertThat(storedCollection.getVersion()).isEqualTo(0L);
+      assertThat(storedCollection.getLastTimeUsed().toInstant()).isEqualTo(LAST_TIME_USED.plusHours(1).toInstant());
+      assertThat(storedCollection.getAttributes()).extracting(Attribute::getId, Attribute::getUsageCount)
+                                                 .containsOnly(tuple("a1", 3), tuple("a2", 0));
+   }
+
    @Test
    public void testDeleteCollection() {
       String id = createCollection(CODE, NAME).getId();
@@ -22,12 +22,14 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import io.lumeer.api.model.Document;
+import io.lumeer.api.model.Pagination;
 import io.lumeer.api.model.Project;
 import io.lumeer.api.model.ResourceType;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
 import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.mongodb.MongoDbTestBase;
+import io.lumeer.storage.mongodb.dao.collection.MongoDataDao;
 import io.lumeer.storage.mongodb.util.MongoFilters;
 
 import org.assertj.core.api.SoftAssertions;
@@ -39,6 +41,7 @@ import org.mockito.Mockito;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -155,6 +158,27 @@ public class MongoDocumentDaoTest extends MongoDbTestBase {
       assertions.assertAll();
    }
 
+   @Test
+   public void testUpdateDocumentsUpdateInfo() {
+      String id = createDocument().getId();
+      String id2 = createDocument().getId();
+      String id3 = createDocument().getId();
+
+      ZonedDateTime updateDate = ZonedDateTime.now().withNano(0);
+      documentDao.updateDocumentsUpdateInfo(Set.of(id, id2), UPDATED_BY, updateDate);
+
+      List<Document> storedDocuments = documentDao.databaseCollection().find(MongoFilters.idsFilter(List.of(id, id2))).into(new ArrayList<>());
+      assertThat(storedDocuments).hasSize(2).allSatisfy(storedDocument -> {
+         assertThat(storedDocument.getUpdatedBy()).isEqualTo(UPDATED_BY);
+         assertThat(storedDocument.getUpdateDate()).isEqualTo(updateDate);
+         assertThat(storedDocument.getDataVersion()).isEqualTo(1);
+      });
+
+      Document notUpdatedDocument = documentDao.databaseCollection().find(MongoFilters.idFilter(id3)).first();
+      assertThat(notUpdatedDocument.getUpdatedBy()).isNull();
+      assertThat(notUpdatedDocument.getDataVersion()).isEqualTo(0);
+   }
+
    @Test
    public void testUpdateDocumentNotExisting() {
       Document document = prepareDocument();
@@ -258,4 +282,24 @@ public class MongoDocumentDaoTest extends MongoDbTestBase {
       var newIds = newDocuments.stream().map(d -> d.getMetaData().getString(Document.META_ORIGINAL_DOCUMENT_ID)).collect(Collectors.toList());
       assertThat(newIds).containsExactly(documents.stream().map(Document::getId).toArray(String[]::new));
    }
+
+   @Test
+   public void testGetDocumentsWithData() {
+      MongoDataDao dataDao = new MongoDataDao();
+      dataDao.setDatabase(database);
+      dataDao.createDataRepository(COLLECTION_ID);
+
+      final List<Document> documents = IntStream.range(0, 5).mapToObj(i -> createDocument()).collect(Collectors.toList());
+      for (int i = 0; i < 4; i++) {
+         dataDao.createData(COLLECTION_ID, documents.get(i).getId(), new DataDocument("value", i));
+      }
+
+      List<Document> page = documentDao.getDocumentsWithDataByCollection(COLLECTION_ID, new Pagination(1, 2));
+      assertThat(page).extracting(Document::getId).containsExactly(documents.get(2).getId(), documents.get(3).getId());
+      assertThat(page).extracting(document -> document.getData().getInteger("value")).containsExactly(2, 3);
+
+      List<Document> byIds = documentDao.getDocumentsWithDataByCollection(COLLECTION_ID, Set.of(documents.get(0).getId(), documents.get(4).getId()));
+      assertThat(byIds).extracting(Document::getId).containsOnly(documents.get(0).getId(), documents.get(4).getId());
+      assertThat(byIds.stream().filter(document -> document.getId().equals(documents.get(4).getId())).findFirst().get().getData()).isEmpty();
+   }
 }
@@ -76,6 +76,16 @@ public class MongoFunctionDaoTest extends MongoDbTestBase {
       assertThat(storedRows).extracting(FunctionRow::getDependentLinkTypeId).contains(LINK_TYPE1, LINK_TYPE2);
    }
 
+   @Test
+   public void testGetAllRows() {
+      FunctionRow row1 = FunctionRow.createForCollection(COLLECTION1, ATTRIBUTE1, COLLECTION2, LINK_TYPE1, ATTRIBUTE2);
+      FunctionRow row2 = FunctionRow.createForLink(LINK_TYPE1, ATTRIBUTE1, COLLECTION2, LINK_TYPE1, ATTRIBUTE2);
+      functionDao.createRows(Arrays.asList(row1, row2));
+
+      List<FunctionRow> storedRows = functionDao.getAllRows();
+      assertThat(storedRows).hasSize(2).extracting(FunctionRow::getResourceId).containsOnly(COLLECTION1, LINK_TYPE1);
+   }
+
    @Test
    public void testSearchByAnyCollection() {
       FunctionRow row1 = FunctionRow.createForCollection(COLLECTION1, ATTRIBUTE1, COLLECTION2, LINK_TYPE1, ATTRIBUTE2);
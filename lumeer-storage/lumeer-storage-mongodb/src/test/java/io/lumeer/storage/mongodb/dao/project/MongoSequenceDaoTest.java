@@ -27,6 +27,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class MongoSequenceDaoTest extends MongoDbTestBase {
 
    private static final String PROJECT_ID = "596e3b86d412bc5a3caaa22a";
@@ -52,4 +59,65 @@ public class MongoSequenceDaoTest extends MongoDbTestBase {
       }
    }
 
+   @Test
+   public void testGetNextSequenceNoConcurrently() throws Exception {
+      var indexName = "concurrentSequence";
+      final int threads = 8;
+      final ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+         final List<Callable<Integer>> calls = new ArrayList<>();
+         for (int i = 0; i < threads * 4; i++) {
+            calls.add(() -> sequenceDao.getNextSequenceNo(indexName));
+         }
+
+         // the first calls create the sequence concurrently, no value can repeat
+         final List<Integer> values = new ArrayList<>();
+         for (Future<Integer> future : executor.invokeAll(calls)) {
+            values.add(future.get());
+         }
+         assertThat(values).doesNotHaveDuplicates().hasSize(threads * 4).allMatch(value -> value >= 0 && value < threads * 4);
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testGetNextSequenceNoInBlocks() {
+      var indexName = "blockSequence";
+      assertThat(sequenceDao.getNextSequenceNo(indexName)).isEqualTo(0);
+
+      var sequence = sequenceDao.getSequence(indexName);
+      sequence.setBlockSize(5);
+      sequenceDao.updateSequence(sequence.getId(), sequence);
+
+      for (int i = 1; i < 13; i++) {
+         assertThat(sequenceDao.getNextSequenceNo(indexName)).isEqualTo(i);
+      }
+      // the whole third block is reserved in the database
+      assertThat(sequenceDao.getSequence(indexName).getSeq()).isEqualTo(16);
+      assertThat(sequenceDao.getSequence(indexName).getBlockSize()).isEqualTo(5);
+   }
+
+   @Test
+   public void testResetSequenceInBlocks() {
+      var indexName = "resetBlockSequence";
+      sequenceDao.resetSequence(indexName, 10);
+      var sequence = sequenceDao.getSequence(indexName);
+      sequence.setBlockSize(10);
+      sequenceDao.updateSequence(sequence.getId(), sequence);
+
+      assertThat(sequenceDao.getNextSequenceNo(indexName)).isEqualTo(11);
+      assertThat(sequenceDao.getNextSequenceNo(indexName)).isEqualTo(12);
+
+      sequenceDao.resetSequence(indexName, 100);
+      assertThat(sequenceDao.getNextSequenceNo(indexName)).isEqualTo(101);
+      assertThat(sequenceDao.getSequence(indexName).getBlockSize()).isEqualTo(10);
+
+      sequence = sequenceDao.getSequence(indexName);
+      sequence.setBlockSize(1);
+      sequenceDao.updateSequence(sequence.getId(), sequence);
+      assertThat(sequenceDao.getNextSequenceNo(indexName)).isEqualTo(sequence.getSeq() + 1);
+      assertThat(sequenceDao.getSequence(indexName).getSeq()).isEqualTo(sequence.getSeq() + 1);
+   }
+
 }
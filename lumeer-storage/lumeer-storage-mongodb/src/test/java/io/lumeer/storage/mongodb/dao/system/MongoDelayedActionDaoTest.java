@@ -0,0 +1,102 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.DelayedAction;
+import io.lumeer.api.model.NotificationChannel;
+import io.lumeer.api.model.NotificationType;
+import io.lumeer.storage.mongodb.MongoDbTestBase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class MongoDelayedActionDaoTest extends MongoDbTestBase {
+
+   private MongoDelayedActionDao delayedActionDao;
+
+   @Before
+   public void initDelayedActionDao() {
+      delayedActionDao = new MongoDelayedActionDao();
+      delayedActionDao.setDatabase(database);
+
+      delayedActionDao.createDelayedActionsRepository();
+      assertThat(database.listCollectionNames()).contains(delayedActionDao.databaseCollectionName());
+   }
+
+   private DelayedAction prepareAction(final String receiver, final ZonedDateTime checkAfter) {
+      final DelayedAction action = new DelayedAction();
+      action.setReceiver(receiver);
+      action.setCheckAfter(checkAfter);
+      action.setResourcePath("o/p/c/d");
+      action.setNotificationType(NotificationType.TASK_ASSIGNED);
+      action.setNotificationChannel(NotificationChannel.Email);
+      return action;
+   }
+
+   @Test
+   public void testGetActionsForProcessingInBatches() {
+      final ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+      delayedActionDao.scheduleActions(List.of(
+            prepareAction("u1", now.minusMinutes(3)),
+            prepareAction("u2", now.minusMinutes(2)),
+            prepareAction("u3", now.minusMinutes(1)),
+            prepareAction("u4", now.plusHours(1))
+      ));
+
+      final List<DelayedAction> firstBatch = delayedActionDao.getActionsForProcessing(true, 2);
+      assertThat(firstBatch).extracting(DelayedAction::getReceiver).containsOnly("u1", "u2");
+      assertThat(firstBatch).allSatisfy(action -> assertThat(action.getStartedProcessing()).isNotNull());
+
+      final List<DelayedAction> secondBatch = delayedActionDao.getActionsForProcessing(true, 2);
+      assertThat(secondBatch).extracting(DelayedAction::getReceiver).containsOnly("u3");
+      assertThat(secondBatch.get(0).getProcessor()).isNotEqualTo(firstBatch.get(0).getProcessor());
+
+      assertThat(delayedActionDao.getActionsForProcessing(true, 2)).isEmpty();
+   }
+
+   @Test
+   public void testUpdateActions() {
+      final ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+      delayedActionDao.scheduleActions(List.of(prepareAction("u1", now.minusMinutes(3)), prepareAction("u2", now.minusMinutes(3))));
+
+      final List<DelayedAction> actions = delayedActionDao.getActionsForProcessing(true, 10);
+      assertThat(actions).hasSize(2);
+
+      actions.get(0).setCompleted(now);
+      actions.get(1).setStartedProcessing(null);
+      actions.get(1).setCheckAfter(now.plusDays(1));
+      delayedActionDao.updateActions(actions);
+
+      final List<DelayedAction> storedActions = delayedActionDao.databaseCollection().find().into(new ArrayList<>());
+      final List<String> completed = storedActions.stream().filter(action -> action.getCompleted() != null).map(DelayedAction::getId).collect(Collectors.toList());
+      assertThat(completed).containsOnly(actions.get(0).getId());
+
+      final DelayedAction rescheduled = storedActions.stream().filter(action -> action.getId().equals(actions.get(1).getId())).findFirst().get();
+      assertThat(rescheduled.getStartedProcessing()).isNull();
+      assertThat(rescheduled.getCheckAfter().toInstant()).isEqualTo(now.plusDays(1).toInstant());
+   }
+}
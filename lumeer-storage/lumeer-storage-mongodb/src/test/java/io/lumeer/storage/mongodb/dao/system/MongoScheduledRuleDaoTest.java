@@ -0,0 +1,99 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.ScheduledRule;
+import io.lumeer.storage.mongodb.MongoDbTestBase;
+import io.lumeer.storage.mongodb.util.MongoFilters;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class MongoScheduledRuleDaoTest extends MongoDbTestBase {
+
+   private static final String ORGANIZATION_ID = "596e3b86d412bc5a3caaa22a";
+   private static final String PROJECT_ID = "596e3b86d412bc5a3caaa22b";
+   private static final String COLLECTION_ID = "596e3b86d412bc5a3caaa22c";
+
+   private MongoScheduledRuleDao scheduledRuleDao;
+
+   @Before
+   public void initScheduledRuleDao() {
+      scheduledRuleDao = new MongoScheduledRuleDao();
+      scheduledRuleDao.setDatabase(database);
+
+      scheduledRuleDao.createScheduledRulesRepository();
+      assertThat(database.listCollectionNames()).contains(scheduledRuleDao.databaseCollectionName());
+   }
+
+   @Test
+   public void testScheduleRuleKeepsSoonerRun() {
+      ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+      scheduledRuleDao.scheduleRule(new ScheduledRule(ORGANIZATION_ID, PROJECT_ID, COLLECTION_ID, "r1", now.plusHours(2)));
+      scheduledRuleDao.scheduleRule(new ScheduledRule(ORGANIZATION_ID, PROJECT_ID, COLLECTION_ID, "r1", now.plusHours(1)));
+      scheduledRuleDao.scheduleRule(new ScheduledRule(ORGANIZATION_ID, PROJECT_ID, COLLECTION_ID, "r1", now.plusHours(3)));
+
+      List<ScheduledRule> rules = scheduledRuleDao.databaseCollection().find().into(new ArrayList<>());
+      assertThat(rules).hasSize(1);
+      assertThat(rules.get(0).getNextRun().toInstant()).isEqualTo(now.plusHours(1).toInstant());
+   }
+
+   @Test
+   public void testClaimAndReleaseRules() {
+      ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+      scheduledRuleDao.scheduleRule(new ScheduledRule(ORGANIZATION_ID, PROJECT_ID, COLLECTION_ID, "r1", now.minusMinutes(1)));
+      scheduledRuleDao.scheduleRule(new ScheduledRule(ORGANIZATION_ID, PROJECT_ID, COLLECTION_ID, "r2", now.minusMinutes(1)));
+      scheduledRuleDao.scheduleRule(new ScheduledRule(ORGANIZATION_ID, PROJECT_ID, COLLECTION_ID, "r3", now.plusHours(1)));
+
+      List<ScheduledRule> claimed = scheduledRuleDao.claimDueRules(now, "n1", now.plusMinutes(10), 100);
+      assertThat(claimed).extracting(ScheduledRule::getRuleId).containsOnly("r1", "r2");
+      assertThat(claimed).allSatisfy(rule -> assertThat(rule.getLeaseOwner()).isEqualTo("n1"));
+
+      // leased rules can not be claimed by another processor
+      assertThat(scheduledRuleDao.claimDueRules(now, "n2", now.plusMinutes(10), 100)).isEmpty();
+
+      // until the lease expires
+      assertThat(scheduledRuleDao.claimDueRules(now.plusMinutes(11), "n2", now.plusMinutes(20), 1)).hasSize(1);
+
+      ScheduledRule rule = claimed.stream().filter(r -> r.getRuleId().equals("r1")).findFirst().get();
+      scheduledRuleDao.releaseRule(rule.getId(), "n1", now.plusDays(1));
+      ScheduledRule released = scheduledRuleDao.databaseCollection().find(MongoFilters.idFilter(rule.getId())).first();
+      assertThat(released.getLeaseUntil()).isNull();
+      assertThat(released.getNextRun().toInstant()).isEqualTo(now.plusDays(1).toInstant());
+   }
+
+   @Test
+   public void testDeleteRules() {
+      ZonedDateTime now = ZonedDateTime.now();
+      scheduledRuleDao.scheduleRule(new ScheduledRule(ORGANIZATION_ID, PROJECT_ID, COLLECTION_ID, "r1", now));
+      scheduledRuleDao.scheduleRule(new ScheduledRule(ORGANIZATION_ID, PROJECT_ID, COLLECTION_ID, "r2", now));
+
+      scheduledRuleDao.deleteRules(COLLECTION_ID, Set.of("r2"));
+
+      assertThat(scheduledRuleDao.databaseCollection().find().into(new ArrayList<>())).extracting(ScheduledRule::getRuleId).containsOnly("r2");
+   }
+}
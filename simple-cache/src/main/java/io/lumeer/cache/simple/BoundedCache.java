@@ -0,0 +1,196 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheStatistics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Cache with a maximal number of entries and a time to live of each entry. When the cache is full, the least recently
+ * used entry is evicted.
+ */
+public class BoundedCache<T> implements Cache<T> {
+
+   private final int maxSize;
+   private final long expireAfterWriteNanos;
+   private final LongSupplier ticker;
+
+   private final Map<String, Entry<T>> cache;
+
+   private final Map<String, Lock> locks = new ConcurrentHashMap<>();
+
+   // all guarded by this
+   private long hits;
+   private long misses;
+   private long evictions;
+   private long modifications;
+
+   public BoundedCache(final int maxSize, final Duration expireAfterWrite) {
+      this(maxSize, expireAfterWrite, System::nanoTime);
+   }
+
+   BoundedCache(final int maxSize, final Duration expireAfterWrite, final LongSupplier ticker) {
+      this.maxSize = maxSize;
+      this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+      this.ticker = ticker;
+      this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(final Map.Entry<String, Entry<T>> eldest) {
+            if (size() > BoundedCache.this.maxSize) {
+               evictions++;
+               return true;
+            }
+            return false;
+         }
+      };
+   }
+
+   @Override
+   public synchronized T get(final String key) {
+      final Entry<T> entry = cache.get(key);
+      if (entry == null) {
+         misses++;
+         return null;
+      }
+
+      if (entry.isExpired(ticker.getAsLong())) {
+         cache.remove(key);
+         evictions++;
+         misses++;
+         return null;
+      }
+
+      hits++;
+      return entry.value;
+   }
+
+   @Override
+   public T computeIfAbsent(final String key, final Function<String, T> fce) {
+      final long modificationsBefore;
+      synchronized (this) {
+         final T value = get(key);
+         if (value != null) {
+            return value;
+         }
+         modificationsBefore = modifications;
+      }
+
+      // computed outside of the lock so that slow loads do not block other keys
+      final T value = fce.apply(key);
+      if (value != null) {
+         synchronized (this) {
+            // the value could be computed from data that were changed in the meantime
+            if (modificationsBefore == modifications) {
+               put(key, value);
+            }
+         }
+      }
+
+      return value;
+   }
+
+   @Override
+   public synchronized void set(final String key, final T t) {
+      modifications++;
+      if (t == null) {
+         cache.remove(key);
+      } else {
+         put(key, t);
+      }
+   }
+
+   @Override
+   public synchronized T remove(final String key) {
+      modifications++;
+      final Entry<T> entry = cache.remove(key);
+      return entry != null && !entry.isExpired(ticker.getAsLong()) ? entry.value : null;
+   }
+
+   @Override
+   public void lock(final String key) {
+      final Lock l = locks.computeIfAbsent(key, k -> new ReentrantLock());
+      l.lock();
+   }
+
+   @Override
+   public void unlock(final String key) {
+      final Lock l = locks.get(key);
+
+      if (l != null) {
+         l.unlock();
+      }
+   }
+
+   @Override
+   public boolean tryLock(final String key) {
+      final Lock l = locks.computeIfAbsent(key, k -> new ReentrantLock());
+
+      return l.tryLock();
+   }
+
+   @Override
+   public synchronized void clear() {
+      modifications++;
+      cache.clear();
+      locks.clear();
+   }
+
+   @Override
+   public synchronized Stream<T> stream() {
+      final long now = ticker.getAsLong();
+      final List<T> values = new ArrayList<>(cache.size());
+      cache.values().stream().filter(entry -> !entry.isExpired(now)).forEach(entry -> values.add(entry.value));
+      return values.stream();
+   }
+
+   @Override
+   public synchronized CacheStatistics getStatistics() {
+      return new CacheStatistics(hits, misses, evictions, cache.size());
+   }
+
+   private void put(final String key, final T value) {
+      cache.put(key, new Entry<>(value, ticker.getAsLong() + expireAfterWriteNanos));
+   }
+
+   private static class Entry<T> {
+      private final T value;
+      private final long expiresAt;
+
+      private Entry(final T value, final long expiresAt) {
+         this.value = value;
+         this.expiresAt = expiresAt;
+      }
+
+      private boolean isExpired(final long now) {
+         return now - expiresAt >= 0;
+      }
+   }
+}
@@ -22,6 +22,7 @@ import io.lumeer.engine.api.cache.Cache;
 import io.lumeer.engine.api.cache.CacheFactory;
 
 import java.io.Serializable;
+import java.time.Duration;
 import javax.enterprise.context.ApplicationScoped;
 
 @ApplicationScoped
@@ -31,4 +32,9 @@ public class SimpleCacheFactory implements CacheFactory, Serializable {
    public <T> Cache<T> getCache() {
       return new SimpleCache<>();
    }
+
+   @Override
+   public <T> Cache<T> getCache(final int maxSize, final Duration expireAfterWrite) {
+      return new BoundedCache<>(maxSize, expireAfterWrite);
+   }
 }
@@ -0,0 +1,81 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.engine.api.cache.CacheStatistics;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BoundedCacheTest {
+
+   private final AtomicLong time = new AtomicLong();
+
+   @Test
+   public void testLeastRecentlyUsedEviction() {
+      final BoundedCache<String> cache = new BoundedCache<>(2, Duration.ofMinutes(1), time::get);
+      cache.set("a", "A");
+      cache.set("b", "B");
+      assertThat(cache.get("a")).isEqualTo("A");
+
+      cache.set("c", "C");
+
+      assertThat(cache.get("b")).isNull();
+      assertThat(cache.get("a")).isEqualTo("A");
+      assertThat(cache.get("c")).isEqualTo("C");
+
+      final CacheStatistics statistics = cache.getStatistics();
+      assertThat(statistics.getHits()).isEqualTo(3);
+      assertThat(statistics.getMisses()).isEqualTo(1);
+      assertThat(statistics.getEvictions()).isEqualTo(1);
+      assertThat(statistics.getSize()).isEqualTo(2);
+   }
+
+   @Test
+   public void testExpiration() {
+      final BoundedCache<String> cache = new BoundedCache<>(10, Duration.ofSeconds(10), time::get);
+      cache.set("a", "A");
+
+      time.addAndGet(Duration.ofSeconds(9).toNanos());
+      assertThat(cache.get("a")).isEqualTo("A");
+
+      time.addAndGet(Duration.ofSeconds(1).toNanos());
+      assertThat(cache.get("a")).isNull();
+      assertThat(cache.stream()).isEmpty();
+      assertThat(cache.computeIfAbsent("a", key -> "A2")).isEqualTo("A2");
+      assertThat(cache.get("a")).isEqualTo("A2");
+   }
+
+   @Test
+   public void testComputeIfAbsentDoesNotOverwriteConcurrentChange() {
+      final BoundedCache<String> cache = new BoundedCache<>(10, Duration.ofMinutes(1), time::get);
+
+      final String value = cache.computeIfAbsent("a", key -> {
+         cache.remove(key); // invalidated while loading
+         return "stale";
+      });
+
+      assertThat(value).isEqualTo("stale");
+      assertThat(cache.get("a")).isNull();
+   }
+}
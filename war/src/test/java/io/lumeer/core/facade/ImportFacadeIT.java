@@ -19,9 +19,12 @@
 package io.lumeer.core.facade;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Constraint;
+import io.lumeer.api.model.ConstraintType;
 import io.lumeer.api.model.ImportType;
 import io.lumeer.api.model.ImportedCollection;
 import io.lumeer.api.model.Organization;
@@ -34,6 +37,7 @@ import io.lumeer.api.model.User;
 import io.lumeer.api.model.common.AttributesResource;
 import io.lumeer.core.auth.AuthenticatedUser;
 import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.core.task.CollectionUsageProcessor;
 import io.lumeer.engine.IntegrationTestBase;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.dao.CollectionDao;
@@ -48,6 +52,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import javax.inject.Inject;
@@ -79,6 +84,9 @@ public class ImportFacadeIT extends IntegrationTestBase {
    @Inject
    private WorkspaceKeeper workspaceKeeper;
 
+   @Inject
+   private CollectionUsageProcessor collectionUsageProcessor;
+
    private static final String ORGANIZATION_CODE = "TORG";
    private static final String PROJECT_CODE = "TPROJ";
    private static final String USER = AuthenticatedUser.DEFAULT_EMAIL;
@@ -205,6 +213,57 @@ public class ImportFacadeIT extends IntegrationTestBase {
       assertThat(data.get(4).values()).containsOnly(data.get(4).getId(), "a4", "f", "g", "h");
    }
 
+   @Test
+   public void testImportMergeByDate() {
+      final String csv = "h1;h2\n"
+            + "2021-03-01T10:00:00.000+0000;a\n"
+            + "2021-03-02T10:00:00.000+0000;b\n";
+
+      Collection collection = importFacade.importDocuments(ImportFacade.FORMAT_CSV, createImportObject(csv));
+      Collection originalCollection = collection.copy();
+      collection.getAttributes().stream()
+                .filter(attribute -> attribute.getId().equals(PREFIX + 1))
+                .forEach(attribute -> attribute.setConstraint(new Constraint(ConstraintType.DateTime, null)));
+      collectionDao.updateCollection(collection.getId(), collection, originalCollection);
+
+      // the first merge stores the keys as dates, the second one has to find them
+      importFacade.importDocuments(collection.getId(), ImportFacade.FORMAT_CSV, createImportObject(csv, ImportType.UPDATE));
+      assertThat(dataDao.getData(collection.getId())).allMatch(data -> data.get(PREFIX + 1) instanceof Date);
+
+      final String csv2 = "h1;h2\n"
+            + "2021-03-01T10:00:00.000+0000;c\n"
+            + "2021-03-03T10:00:00.000+0000;d\n";
+      importFacade.importDocuments(collection.getId(), ImportFacade.FORMAT_CSV, createImportObject(csv2, ImportType.UPDATE));
+
+      List<DataDocument> data = dataDao.getData(collection.getId());
+      assertThat(data).hasSize(3);
+      assertThat(data).extracting(dataDocument -> dataDocument.getString(PREFIX + 2)).containsOnly("c", "b", "d");
+   }
+
+   @Test
+   public void testImportAttributesUsage() {
+      final String csv = "h1;h2;h3\n"
+            + "a;b;\n"
+            + "c;;d\n";
+      Collection collection = importFacade.importDocuments(ImportFacade.FORMAT_CSV, createImportObject(csv));
+      collectionUsageProcessor.process();
+
+      assertThat(collectionDao.getCollectionById(collection.getId()).getAttributes())
+            .extracting(Attribute::getId, Attribute::getUsageCount)
+            .containsOnly(tuple(PREFIX + 1, 2), tuple(PREFIX + 2, 1), tuple(PREFIX + 3, 1));
+
+      final String csv2 = "h1;h2;h3\n"
+            + "a;;e\n"
+            + "c;f;d\n"
+            + "e;g;\n";
+      importFacade.importDocuments(collection.getId(), ImportFacade.FORMAT_CSV, createImportObject(csv2, ImportType.UPDATE));
+      collectionUsageProcessor.process();
+
+      assertThat(collectionDao.getCollectionById(collection.getId()).getAttributes())
+            .extracting(Attribute::getId, Attribute::getUsageCount)
+            .containsOnly(tuple(PREFIX + 1, 3), tuple(PREFIX + 2, 2), tuple(PREFIX + 3, 2));
+   }
+
    @Test
    public void testImportCollectionInfo() {
       final String correctCsv = "h1;h2;h3;h4\n"
@@ -701,6 +701,25 @@ public class SearchFacadeIT extends IntegrationTestBase {
       assertThat(documents).extracting(Document::getId).containsOnly(id11, id6);
    }
 
+   @Test
+   public void testSearchDocumentsWithLinksIncludesNonLinkedDocuments() {
+      String id1 = createDocument(collectionIds.get(0), "lol").getId();
+      String id2 = createDocument(collectionIds.get(0), "lmr").getId();
+      String id3 = createDocument(collectionIds.get(1), "lumeer").getId();
+      String id4 = createDocument(collectionIds.get(1), "other lol").getId();
+      String id5 = createDocument(collectionIds.get(1), "lmr").getId();
+      String linkTypeId = linkTypeDao.createLinkType(new LinkType("lmr",
+            Arrays.asList(collectionIds.get(0), collectionIds.get(1)), Collections.emptyList(), null, null, null)).getId();
+      createLinkInstance(linkTypeId, Arrays.asList(id1, id3));
+      createLinkInstance(linkTypeId, Arrays.asList(id2, id5));
+
+      // id4 matches the fulltext, but is not linked to any document of the first collection
+      QueryStem stem = new QueryStem(null, collectionIds.get(0), Collections.singletonList(linkTypeId), Collections.emptySet(), Collections.emptyList(), Collections.emptyList());
+      Query query = new Query(Collections.singletonList(stem), Collections.singleton("lol"), null, null);
+      List<Document> documents = searchFacade.searchDocuments(query, true);
+      assertThat(documents).extracting(Document::getId).contains(id1, id3, id4).doesNotContain(id2, id5);
+   }
+
    private LinkInstance createLinkInstance(String linkTypeId, List<String> documentIds) {
       final LinkInstance linkInstance = linkInstanceDao.createLinkInstance(new LinkInstance(linkTypeId, documentIds));
       linkDataDao.createData(linkTypeId, linkInstance.getId(), new DataDocument());